@@ -0,0 +1,30 @@
+package mscalc.benchmarks;
+
+import mscalc.engine.cpp.Ptr;
+import mscalc.engine.ratpack.Conv;
+import mscalc.engine.ratpack.RatPack.NumberFormat;
+import mscalc.engine.ratpack.RatPack.RAT;
+import org.openjdk.jmh.annotations.Benchmark;
+
+import static mscalc.engine.ratpack.RatPack.DUPRAT;
+
+public class ConvBenchmark extends RatPackBenchmark {
+    private String text;
+    private RAT value;
+
+    @Override
+    protected void setUpOperands() {
+        text = mantissa(12345, precision, 7);
+        value = parse(text);
+    }
+
+    @Benchmark
+    public String ratToString() {
+        return Conv.RatToString(new Ptr<>(DUPRAT(value)), NumberFormat.Float, ratRadix, precision);
+    }
+
+    @Benchmark
+    public RAT stringToRat() {
+        return Conv.StringToRat(false, text, false, "0", ratRadix, precision);
+    }
+}
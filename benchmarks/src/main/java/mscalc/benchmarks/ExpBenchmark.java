@@ -0,0 +1,40 @@
+package mscalc.benchmarks;
+
+import mscalc.engine.cpp.Ptr;
+import mscalc.engine.ratpack.Exp;
+import mscalc.engine.ratpack.RatPack.RAT;
+import org.openjdk.jmh.annotations.Benchmark;
+
+import static mscalc.engine.ratpack.RatPack.DUPRAT;
+
+public class ExpBenchmark extends RatPackBenchmark {
+    private RAT x;
+    private RAT y;
+
+    @Override
+    protected void setUpOperands() {
+        x = parse(mantissa(2, 20, 3));
+        y = parse(mantissa(1, 20, 4));
+    }
+
+    @Benchmark
+    public RAT exprat() {
+        Ptr<RAT> px = new Ptr<>(DUPRAT(x));
+        Exp.exprat(px, ratRadix, precision);
+        return px.deref();
+    }
+
+    @Benchmark
+    public RAT lograt() {
+        Ptr<RAT> px = new Ptr<>(DUPRAT(x));
+        Exp.lograt(px, precision);
+        return px.deref();
+    }
+
+    @Benchmark
+    public RAT powrat() {
+        Ptr<RAT> px = new Ptr<>(DUPRAT(x));
+        Exp.powrat(px, y, ratRadix, precision);
+        return px.deref();
+    }
+}
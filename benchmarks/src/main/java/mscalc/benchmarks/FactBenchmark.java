@@ -0,0 +1,35 @@
+package mscalc.benchmarks;
+
+import mscalc.engine.cpp.Ptr;
+import mscalc.engine.ratpack.Conv;
+import mscalc.engine.ratpack.Fact;
+import mscalc.engine.ratpack.RatPack.RAT;
+import org.openjdk.jmh.annotations.Benchmark;
+
+import static mscalc.engine.ratpack.RatPack.DUPRAT;
+
+public class FactBenchmark extends RatPackBenchmark {
+    private RAT integer;
+    private RAT fraction;
+
+    @Override
+    protected void setUpOperands() {
+        integer = Conv.i32torat(100);
+        // Non-integer arguments go through the gamma function.
+        fraction = parse(mantissa(10, 4, 6));
+    }
+
+    @Benchmark
+    public RAT factrat_integer() {
+        Ptr<RAT> px = new Ptr<>(DUPRAT(integer));
+        Fact.factrat(px, ratRadix, precision);
+        return px.deref();
+    }
+
+    @Benchmark
+    public RAT factrat_fraction() {
+        Ptr<RAT> px = new Ptr<>(DUPRAT(fraction));
+        Fact.factrat(px, ratRadix, precision);
+        return px.deref();
+    }
+}
@@ -0,0 +1,33 @@
+package mscalc.benchmarks;
+
+import mscalc.engine.ratpack.Rat;
+import mscalc.engine.ratpack.RatPack.RAT;
+import org.openjdk.jmh.annotations.Benchmark;
+
+import static mscalc.engine.ratpack.RatPack.DUPRAT;
+
+public class RatBenchmark extends RatPackBenchmark {
+    private RAT a;
+    private RAT b;
+
+    @Override
+    protected void setUpOperands() {
+        a = parse(mantissa(3, 20, 1));
+        b = parse(mantissa(1, 20, 2));
+    }
+
+    @Benchmark
+    public RAT addrat() {
+        return Rat.addrat(DUPRAT(a), b, precision);
+    }
+
+    @Benchmark
+    public RAT mulrat() {
+        return Rat.mulrat(DUPRAT(a), b, precision);
+    }
+
+    @Benchmark
+    public RAT divrat() {
+        return Rat.divrat(DUPRAT(a), b, precision);
+    }
+}
@@ -0,0 +1,66 @@
+package mscalc.benchmarks;
+
+import mscalc.engine.cpp.uint;
+import mscalc.engine.ratpack.Conv;
+import mscalc.engine.ratpack.RatPack.RAT;
+import mscalc.engine.ratpack.RatPackContext;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Common setup for the ratpack benchmarks.
+ * <p>
+ * Every benchmark thread gets its own {@link RatPackContext} for the
+ * measured radix and precision, operands are parsed once per trial and
+ * copied before each call because ratpack functions work in place.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public abstract class RatPackBenchmark {
+    private static final String DIGITS = "0123456789ABCDEF";
+
+    @Param({ "10", "16", "2", "8" })
+    public int radix;
+
+    @Param({ "32", "64", "128", "512" })
+    public int precision;
+
+    protected uint ratRadix;
+    private RatPackContext previous;
+
+    @Setup(Level.Trial)
+    public void bindContext() {
+        ratRadix = uint.of(radix);
+        previous = RatPackContext.bind(RatPackContext.of(ratRadix, precision));
+        setUpOperands();
+    }
+
+    @TearDown(Level.Trial)
+    public void unbindContext() {
+        RatPackContext.bind(previous);
+    }
+
+    protected abstract void setUpOperands();
+
+    /**
+     * Returns a number with the integer part {@code whole} followed by
+     * {@code fractionDigits} pseudo-random digits valid in the current radix.
+     */
+    protected String mantissa(int whole, int fractionDigits, int seed) {
+        StringBuilder sb = new StringBuilder(Integer.toString(whole, radix).toUpperCase());
+        sb.append('.');
+        for (int i = 0; i < fractionDigits; i++) {
+            sb.append(DIGITS.charAt((i * 7 + seed * 13 + 5) % radix));
+        }
+        return sb.toString();
+    }
+
+    protected RAT parse(String mantissa) {
+        return Conv.StringToRat(false, mantissa, false, "0", ratRadix, precision);
+    }
+}
@@ -0,0 +1,38 @@
+package mscalc.benchmarks;
+
+import mscalc.engine.cpp.Ptr;
+import mscalc.engine.ratpack.RatPack.RAT;
+import mscalc.engine.ratpack.Trans;
+import org.openjdk.jmh.annotations.Benchmark;
+
+import static mscalc.engine.ratpack.RatPack.DUPRAT;
+
+public class TransBenchmark extends RatPackBenchmark {
+    private RAT x;
+
+    @Override
+    protected void setUpOperands() {
+        x = parse(mantissa(1, 20, 5));
+    }
+
+    @Benchmark
+    public RAT sinrat() {
+        Ptr<RAT> px = new Ptr<>(DUPRAT(x));
+        Trans.sinrat(px, ratRadix, precision);
+        return px.deref();
+    }
+
+    @Benchmark
+    public RAT cosrat() {
+        Ptr<RAT> px = new Ptr<>(DUPRAT(x));
+        Trans.cosrat(px, ratRadix, precision);
+        return px.deref();
+    }
+
+    @Benchmark
+    public RAT tanrat() {
+        Ptr<RAT> px = new Ptr<>(DUPRAT(x));
+        Trans.tanrat(px, ratRadix, precision);
+        return px.deref();
+    }
+}
@@ -0,0 +1,72 @@
+package mscalc.cli;
+
+import mscalc.engine.commands.Command;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Parses a line of raw keystrokes: {@link Command} names or numeric command ids separated by
+ * whitespace or commas, e.g. {@code ModeScientific Command1 CommandADD 132 CommandEQU}.
+ * The {@code Command} prefix of names is optional and names are case-insensitive.
+ * <p>
+ * Nothing is added to the keystrokes, a sequence without {@link Command#CommandEQU} shows
+ * whatever the calculator displays after the last keystroke.
+ */
+final class CommandSequenceParser {
+    private static final String PREFIX = "Command";
+
+    // Lower case names, with and without the prefix.
+    private static final Map<String, Command> BY_NAME = new HashMap<>();
+
+    static {
+        for (Command command : Command.values()) {
+            String name = command.name();
+            BY_NAME.put(name.toLowerCase(), command);
+            if (name.startsWith(PREFIX)) {
+                BY_NAME.putIfAbsent(name.substring(PREFIX.length()).toLowerCase(), command);
+            }
+        }
+    }
+
+    private CommandSequenceParser() { }
+
+    /**
+     * @throws IllegalArgumentException if a token is not a known command.
+     */
+    static List<Command> parse(String line) {
+        List<Command> commands = new ArrayList<>();
+
+        for (String token : line.trim().split("[\\s,]+")) {
+            if (!token.isEmpty()) {
+                commands.add(command(token));
+            }
+        }
+
+        return commands;
+    }
+
+    private static Command command(String token) {
+        if (Character.isDigit(token.charAt(0))) {
+            Command command = null;
+            try {
+                command = Command.fromInt(Integer.parseInt(token));
+            } catch (NumberFormatException e) {
+                // Reported below.
+            }
+            if (command == null) {
+                throw new IllegalArgumentException("unknown command id '" + token + "'");
+            }
+            return command;
+        }
+
+        Command command = BY_NAME.get(token.toLowerCase());
+        if (command != null) {
+            return command;
+        }
+
+        throw new IllegalArgumentException("unknown command '" + token + "'");
+    }
+}
@@ -0,0 +1,260 @@
+package mscalc.cli;
+
+import mscalc.engine.commands.Command;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import static java.util.Map.entry;
+
+/**
+ * Translates an infix expression like {@code 2 * sqrt(1 + 3) - 4!} into the keystrokes that
+ * compute it on the scientific calculator, followed by {@link Command#CommandEQU}.
+ * <p>
+ * The calculator itself takes care of operator precedence, so operators are emitted in the
+ * order they appear. Functions are pressed after their parenthesized argument, like on the
+ * calculator, and the unary minus is pressed as {@link Command#CommandSIGN} after its operand,
+ * so it binds tighter than any binary operator: {@code -2^2} is 4.
+ * <p>
+ * {@code %} follows the calculator conventions, {@code 50 + 10%} is 55.
+ */
+final class ExpressionParser {
+    private static final Map<String, Command> FUNCTIONS = Map.ofEntries(
+            entry("sin", Command.CommandSIN),
+            entry("cos", Command.CommandCOS),
+            entry("tan", Command.CommandTAN),
+            entry("asin", Command.CommandASIN),
+            entry("acos", Command.CommandACOS),
+            entry("atan", Command.CommandATAN),
+            entry("sec", Command.CommandSEC),
+            entry("csc", Command.CommandCSC),
+            entry("cot", Command.CommandCOT),
+            entry("sinh", Command.CommandSINH),
+            entry("cosh", Command.CommandCOSH),
+            entry("tanh", Command.CommandTANH),
+            entry("asinh", Command.CommandASINH),
+            entry("acosh", Command.CommandACOSH),
+            entry("atanh", Command.CommandATANH),
+            entry("sqrt", Command.CommandSQRT),
+            entry("cbrt", Command.CommandCUBEROOT),
+            entry("sqr", Command.CommandSQR),
+            entry("cube", Command.CommandCUB),
+            entry("ln", Command.CommandLN),
+            entry("log", Command.CommandLOG),
+            entry("exp", Command.CommandPOWE),
+            entry("pow10", Command.CommandPOW10),
+            entry("pow2", Command.CommandPOW2),
+            entry("rec", Command.CommandREC),
+            entry("abs", Command.CommandAbs),
+            entry("floor", Command.CommandFloor),
+            entry("ceil", Command.CommandCeil),
+            entry("int", Command.CommandCHOP),
+            entry("fact", Command.CommandFAC),
+            entry("dms", Command.CommandDMS),
+            entry("degrees", Command.CommandDegrees));
+
+    private static final Map<String, Command> CONSTANTS = Map.of(
+            "pi", Command.CommandPI);
+
+    private static final Map<String, Command> WORD_OPERATORS = Map.of(
+            "mod", Command.CommandMOD,
+            "yroot", Command.CommandROOT,
+            "logy", Command.CommandLogBaseY);
+
+    private final String text;
+    private final List<Command> commands = new ArrayList<>();
+    private int position = 0;
+
+    private ExpressionParser(String text) {
+        this.text = text;
+    }
+
+    /**
+     * @throws IllegalArgumentException if the text is not a valid expression.
+     */
+    static List<Command> parse(String text) {
+        ExpressionParser parser = new ExpressionParser(text);
+        parser.expression();
+
+        parser.skipWhitespace();
+        if (parser.position < text.length()) {
+            throw parser.error("unexpected '" + text.charAt(parser.position) + "'");
+        }
+
+        parser.commands.add(Command.CommandEQU);
+        return parser.commands;
+    }
+
+    private void expression() {
+        unaryTerm();
+
+        Command operator;
+        while ((operator = binaryOperator()) != null) {
+            commands.add(operator);
+            unaryTerm();
+        }
+    }
+
+    private Command binaryOperator() {
+        skipWhitespace();
+        if (position >= text.length()) {
+            return null;
+        }
+
+        Command operator = switch (text.charAt(position)) {
+            case '+' -> Command.CommandADD;
+            case '-' -> Command.CommandSUB;
+            case '*' -> Command.CommandMUL;
+            case '/' -> Command.CommandDIV;
+            case '^' -> Command.CommandPWR;
+            default -> null;
+        };
+        if (operator != null) {
+            position++;
+            return operator;
+        }
+
+        int start = position;
+        String word = word();
+        operator = WORD_OPERATORS.get(word);
+        if (operator == null) {
+            position = start;
+        }
+        return operator;
+    }
+
+    private void unaryTerm() {
+        skipWhitespace();
+        if (consume('-')) {
+            unaryTerm();
+            commands.add(Command.CommandSIGN);
+        } else if (consume('+')) {
+            unaryTerm();
+        } else {
+            primary();
+            postfix();
+        }
+    }
+
+    private void primary() {
+        skipWhitespace();
+        if (position >= text.length()) {
+            throw error("operand expected");
+        }
+
+        char ch = text.charAt(position);
+        if (isDigit(ch) || ch == '.') {
+            number();
+        } else if (consume('(')) {
+            parenthesized();
+        } else if (Character.isLetter(ch)) {
+            String name = word();
+            Command constant = CONSTANTS.get(name);
+            Command function = FUNCTIONS.get(name);
+            if (constant != null) {
+                commands.add(constant);
+            } else if (function != null) {
+                skipWhitespace();
+                if (!consume('(')) {
+                    throw error("'(' expected after " + name);
+                }
+                parenthesized();
+                commands.add(function);
+            } else {
+                throw error("unknown function '" + name + "'");
+            }
+        } else {
+            throw error("unexpected '" + ch + "'");
+        }
+    }
+
+    private void parenthesized() {
+        commands.add(Command.CommandOPENP);
+        expression();
+        skipWhitespace();
+        if (!consume(')')) {
+            throw error("')' expected");
+        }
+        commands.add(Command.CommandCLOSEP);
+    }
+
+    private void postfix() {
+        while (true) {
+            skipWhitespace();
+            if (consume('!')) {
+                commands.add(Command.CommandFAC);
+            } else if (consume('%')) {
+                commands.add(Command.CommandPERCENT);
+            } else {
+                return;
+            }
+        }
+    }
+
+    private void number() {
+        boolean digits = digits();
+        if (consume('.')) {
+            commands.add(Command.CommandPNT);
+            digits |= digits();
+        }
+        if (!digits) {
+            throw error("digit expected");
+        }
+
+        if (position < text.length() && (text.charAt(position) == 'e' || text.charAt(position) == 'E')) {
+            position++;
+            commands.add(Command.CommandEXP);
+
+            boolean negative = consume('-');
+            if (!negative) {
+                consume('+');
+            }
+            if (!digits()) {
+                throw error("exponent expected");
+            }
+            if (negative) {
+                commands.add(Command.CommandSIGN);
+            }
+        }
+    }
+
+    private boolean digits() {
+        int start = position;
+        while (position < text.length() && isDigit(text.charAt(position))) {
+            commands.add(Command.fromInt(Command.Command0.toInt() + (text.charAt(position) - '0')));
+            position++;
+        }
+        return position > start;
+    }
+
+    private String word() {
+        int start = position;
+        while (position < text.length() && Character.isLetterOrDigit(text.charAt(position))) {
+            position++;
+        }
+        return text.substring(start, position).toLowerCase();
+    }
+
+    private boolean consume(char ch) {
+        if (position < text.length() && text.charAt(position) == ch) {
+            position++;
+            return true;
+        }
+        return false;
+    }
+
+    private void skipWhitespace() {
+        while (position < text.length() && Character.isWhitespace(text.charAt(position))) {
+            position++;
+        }
+    }
+
+    private static boolean isDigit(char ch) {
+        return ch >= '0' && ch <= '9';
+    }
+
+    private IllegalArgumentException error(String message) {
+        return new IllegalArgumentException(message + " at position " + (position + 1));
+    }
+}
@@ -0,0 +1,152 @@
+package mscalc.cli;
+
+import mscalc.engine.BatchEvaluator;
+import mscalc.engine.commands.Command;
+import mscalc.engine.resource.JavaBundleResourceProvider;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Function;
+
+/**
+ * Evaluates expressions read line by line from files or standard input and writes one
+ * result per line to standard output.
+ */
+public class Main {
+    private static final String USAGE = """
+            Usage: mscalc-cli [options] [file ...]
+
+            Evaluates one expression per line, e.g. "2 * sqrt(1 + 3) - 4!", on the scientific
+            calculator and prints one result per line. Reads standard input when no file
+            (or "-") is given.
+
+            Options:
+              --commands         lines are keystrokes instead: command names or ids,
+                                 e.g. "ModeScientific Command1 CommandADD Command2 CommandEQU"
+              --angle UNIT       deg (default), rad or grad
+              --threads N        number of calculators working in parallel (default: CPU count)
+              --chunk N          lines evaluated together (default: 1024)
+              --timeout MILLIS   time budget of a single line (default: none)
+              -h, --help         shows this help
+            """;
+
+    private boolean commands = false;
+    private Command angle = Command.CommandDEG;
+    private int threads = Runtime.getRuntime().availableProcessors();
+    private int chunkSize = 1024;
+    private Duration timeout = null;
+    private final List<String> files = new ArrayList<>();
+
+    public static void main(String[] args) throws IOException {
+        Main main = new Main();
+        try {
+            if (!main.parseArguments(args)) {
+                System.out.print(USAGE);
+                return;
+            }
+        } catch (IllegalArgumentException e) {
+            System.err.println("mscalc-cli: " + e.getMessage());
+            System.err.print(USAGE);
+            System.exit(2);
+        }
+
+        main.run();
+    }
+
+    private boolean parseArguments(String[] args) {
+        for (int i = 0; i < args.length; i++) {
+            String arg = args[i];
+            switch (arg) {
+                case "-h", "--help" -> {
+                    return false;
+                }
+                case "--commands" -> commands = true;
+                case "--angle" -> angle = switch (value(args, ++i, arg)) {
+                    case "deg" -> Command.CommandDEG;
+                    case "rad" -> Command.CommandRAD;
+                    case "grad" -> Command.CommandGRAD;
+                    default -> throw new IllegalArgumentException("unknown angle unit: " + args[i]);
+                };
+                case "--threads" -> threads = positive(value(args, ++i, arg), arg);
+                case "--chunk" -> chunkSize = positive(value(args, ++i, arg), arg);
+                case "--timeout" -> timeout = Duration.ofMillis(positive(value(args, ++i, arg), arg));
+                default -> {
+                    if (arg.startsWith("--")) {
+                        throw new IllegalArgumentException("unknown option: " + arg);
+                    }
+                    files.add(arg);
+                }
+            }
+        }
+
+        if (files.isEmpty()) {
+            files.add("-");
+        }
+        return true;
+    }
+
+    private static String value(String[] args, int index, String option) {
+        if (index >= args.length) {
+            throw new IllegalArgumentException(option + " requires a value");
+        }
+        return args[index];
+    }
+
+    private static int positive(String value, String option) {
+        try {
+            int n = Integer.parseInt(value);
+            if (n > 0) {
+                return n;
+            }
+        } catch (NumberFormatException e) {
+            // Reported below.
+        }
+        throw new IllegalArgumentException(option + " requires a positive number, got: " + value);
+    }
+
+    private Function<String, List<Command>> parser() {
+        if (commands) {
+            return CommandSequenceParser::parse;
+        }
+
+        return line -> {
+            List<Command> sequence = new ArrayList<>();
+            sequence.add(Command.ModeScientific);
+            sequence.add(angle);
+            sequence.addAll(ExpressionParser.parse(line));
+            return sequence;
+        };
+    }
+
+    private void run() throws IOException {
+        Writer out = new BufferedWriter(new OutputStreamWriter(System.out, StandardCharsets.UTF_8), 1 << 16);
+
+        try (BatchEvaluator evaluator = new BatchEvaluator(new JavaBundleResourceProvider(), threads, timeout);
+             StreamingEvaluator streamingEvaluator = new StreamingEvaluator(evaluator, parser(), chunkSize)) {
+            for (String file : files) {
+                try (BufferedReader in = open(file)) {
+                    streamingEvaluator.run(in, out);
+                }
+            }
+        }
+
+        out.flush();
+    }
+
+    private static BufferedReader open(String file) throws IOException {
+        if ("-".equals(file)) {
+            return new BufferedReader(new InputStreamReader(System.in, StandardCharsets.UTF_8), 1 << 16);
+        }
+        return Files.newBufferedReader(Path.of(file), StandardCharsets.UTF_8);
+    }
+}
@@ -0,0 +1,151 @@
+package mscalc.cli;
+
+import mscalc.engine.BatchEvaluator;
+import mscalc.engine.commands.Command;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.Writer;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.function.Function;
+
+/**
+ * Evaluates input lines and writes one output line per input line, in input order.
+ * <p>
+ * Lines are evaluated in chunks by a {@link BatchEvaluator}, each of its workers keeps its own
+ * calculator for the whole run. While a chunk is being evaluated the next one is read, so at
+ * most two chunks are held in memory no matter how long the input is. A chunk ends early when
+ * no more input is available right away, so results of interactive or slowly produced input
+ * are written as soon as they are known.
+ * <p>
+ * Blank input lines produce blank output lines. Lines that cannot be parsed or evaluated
+ * produce {@code error: <message>}.
+ */
+final class StreamingEvaluator implements AutoCloseable {
+    static final String ERROR_PREFIX = "error: ";
+
+    private final BatchEvaluator evaluator;
+    private final Function<String, List<Command>> parser;
+    private final int chunkSize;
+    private final ExecutorService chunkExecutor = Executors.newSingleThreadExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "calc-cli-chunk");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    /**
+     * @param parser translates a line into keystrokes, throws {@link IllegalArgumentException}
+     *               for invalid lines.
+     */
+    StreamingEvaluator(BatchEvaluator evaluator, Function<String, List<Command>> parser, int chunkSize) {
+        if (chunkSize < 1) {
+            throw new IllegalArgumentException("chunkSize must be at least 1, got: " + chunkSize);
+        }
+
+        this.evaluator = evaluator;
+        this.parser = parser;
+        this.chunkSize = chunkSize;
+    }
+
+    /**
+     * Evaluates all lines of the input.
+     *
+     * @return number of lines evaluated.
+     */
+    long run(BufferedReader in, Writer out) throws IOException {
+        long lines = 0;
+        Future<List<String>> pending = null;
+
+        while (true) {
+            List<String> chunk = readChunk(in);
+
+            if (pending != null) {
+                for (String result : await(pending)) {
+                    out.write(result);
+                    out.write('\n');
+                }
+                out.flush();
+            }
+
+            if (chunk.isEmpty()) {
+                return lines;
+            }
+
+            lines += chunk.size();
+            pending = chunkExecutor.submit(() -> evaluate(chunk));
+        }
+    }
+
+    private List<String> readChunk(BufferedReader in) throws IOException {
+        List<String> chunk = new ArrayList<>();
+
+        String line;
+        while (chunk.size() < chunkSize && (chunk.isEmpty() || in.ready()) && (line = in.readLine()) != null) {
+            chunk.add(line);
+        }
+
+        return chunk;
+    }
+
+    private List<String> evaluate(List<String> lines) {
+        String[] output = new String[lines.size()];
+
+        List<List<Command>> sequences = new ArrayList<>();
+        List<Integer> sequenceLines = new ArrayList<>();
+        for (int i = 0; i < lines.size(); i++) {
+            String line = lines.get(i);
+            if (line.isBlank()) {
+                output[i] = "";
+                continue;
+            }
+
+            try {
+                sequences.add(parser.apply(line));
+                sequenceLines.add(i);
+            } catch (IllegalArgumentException e) {
+                output[i] = ERROR_PREFIX + e.getMessage();
+            }
+        }
+
+        List<BatchEvaluator.Result> results = evaluator.evaluate(sequences);
+        for (int i = 0; i < results.size(); i++) {
+            output[sequenceLines.get(i)] = format(results.get(i));
+        }
+
+        return List.of(output);
+    }
+
+    // The display groups digits, results are written without the group separators.
+    private static String format(BatchEvaluator.Result result) {
+        if (result.isError()) {
+            return ERROR_PREFIX + result.display();
+        }
+        return result.display().replace(",", "");
+    }
+
+    private static List<String> await(Future<List<String>> chunk) {
+        try {
+            return chunk.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            chunk.cancel(true);
+            throw new CancellationException("Evaluation interrupted");
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException runtimeException) {
+                throw runtimeException;
+            }
+            throw new IllegalStateException(e.getCause());
+        }
+    }
+
+    @Override
+    public void close() {
+        chunkExecutor.shutdownNow();
+    }
+}
@@ -0,0 +1,63 @@
+package mscalc.cli;
+
+import mscalc.engine.commands.Command;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static mscalc.engine.commands.Command.*;
+import static org.junit.jupiter.api.Assertions.*;
+
+public class ExpressionParserTests {
+
+    @Test
+    void operators_are_pressed_in_order() {
+        assertEquals(List.of(Command1, Command2, CommandADD, Command3, CommandMUL, Command4, CommandEQU),
+                ExpressionParser.parse("12 + 3*4"));
+    }
+
+    @Test
+    void functions_are_pressed_after_their_argument() {
+        assertEquals(List.of(CommandOPENP, Command1, CommandADD, Command3, CommandCLOSEP, CommandSQRT,
+                        CommandMUL, CommandPI, CommandEQU),
+                ExpressionParser.parse("sqrt(1 + 3) * pi"));
+    }
+
+    @Test
+    void unary_minus_and_postfix_operators() {
+        assertEquals(List.of(Command2, CommandSUB, Command3, CommandFAC, CommandSIGN, CommandEQU),
+                ExpressionParser.parse("2 - -3!"));
+        assertEquals(List.of(Command5, Command0, CommandADD, Command1, Command0, CommandPERCENT, CommandEQU),
+                ExpressionParser.parse("50 + 10%"));
+    }
+
+    @Test
+    void numbers_with_fractions_and_exponents() {
+        assertEquals(List.of(CommandPNT, Command5, CommandEXP, Command1, Command2, CommandSIGN, CommandEQU),
+                ExpressionParser.parse(".5e-12"));
+        assertEquals(List.of(Command1, CommandPNT, Command2, CommandEXP, Command3, CommandEQU),
+                ExpressionParser.parse("1.2E+3"));
+    }
+
+    @Test
+    void word_operators() {
+        assertEquals(List.of(Command7, CommandMOD, Command2, CommandPWR, Command3, CommandEQU),
+                ExpressionParser.parse("7 mod 2^3"));
+    }
+
+    @Test
+    void invalid_expressions_are_rejected() {
+        for (String invalid : List.of("", "1 +", "(1 + 2", "foo(2)", "sin 2", "1 2", "1.e", ".")) {
+            assertThrows(IllegalArgumentException.class, () -> ExpressionParser.parse(invalid), invalid);
+        }
+    }
+
+    @Test
+    void command_sequences_accept_names_and_ids() {
+        assertEquals(List.of(ModeScientific, Command1, CommandADD, Command2, CommandEQU),
+                CommandSequenceParser.parse("ModeScientific Command1, add 132 CommandEQU"));
+
+        assertThrows(IllegalArgumentException.class, () -> CommandSequenceParser.parse("Command1 Bogus"));
+        assertThrows(IllegalArgumentException.class, () -> CommandSequenceParser.parse("99999"));
+    }
+}
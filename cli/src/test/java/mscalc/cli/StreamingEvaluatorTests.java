@@ -0,0 +1,79 @@
+package mscalc.cli;
+
+import mscalc.engine.BatchEvaluator;
+import mscalc.engine.commands.Command;
+import mscalc.engine.resource.JavaBundleResourceProvider;
+import org.junit.jupiter.api.Test;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.StringReader;
+import java.io.StringWriter;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Function;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+public class StreamingEvaluatorTests {
+    private static final Function<String, List<Command>> SCIENTIFIC = line -> {
+        List<Command> sequence = new ArrayList<>();
+        sequence.add(Command.ModeScientific);
+        sequence.addAll(ExpressionParser.parse(line));
+        return sequence;
+    };
+
+    @Test
+    void writes_one_result_per_line_in_input_order() throws IOException {
+        String input = """
+                1 + 2 * 3
+                2 * sqrt(1 + 3) - 4!
+
+                1 / 0
+                2 +
+                1000 * 1000
+                sin(30)
+                """;
+
+        assertEquals("""
+                7
+                -20
+
+                error: Cannot divide by zero
+                error: operand expected at position 4
+                1000000
+                0.5
+                """, evaluate(input, SCIENTIFIC, 2));
+    }
+
+    @Test
+    void results_do_not_depend_on_chunking() throws IOException {
+        StringBuilder input = new StringBuilder();
+        for (int i = 0; i < 200; i++) {
+            input.append(i).append(" * ").append(i % 7).append(" - ").append(i).append(" / 4\n");
+        }
+
+        String expected = evaluate(input.toString(), SCIENTIFIC, 1000);
+        assertEquals(200, expected.lines().count());
+        assertEquals(expected, evaluate(input.toString(), SCIENTIFIC, 1));
+        assertEquals(expected, evaluate(input.toString(), SCIENTIFIC, 7));
+    }
+
+    @Test
+    void evaluates_raw_command_sequences() throws IOException {
+        assertEquals("5\n1F\n", evaluate("""
+                Command2 CommandADD Command3 CommandEQU
+                ModeProgrammer Hex Command1 CommandF
+                """, CommandSequenceParser::parse, 16));
+    }
+
+    private static String evaluate(String input, Function<String, List<Command>> parser, int chunkSize)
+            throws IOException {
+        StringWriter out = new StringWriter();
+        try (BatchEvaluator evaluator = new BatchEvaluator(new JavaBundleResourceProvider(), 3);
+             StreamingEvaluator streamingEvaluator = new StreamingEvaluator(evaluator, parser, chunkSize)) {
+            streamingEvaluator.run(new BufferedReader(new StringReader(input)), out);
+        }
+        return out.toString();
+    }
+}
@@ -0,0 +1,189 @@
+package mscalc.engine;
+
+import mscalc.engine.commands.*;
+import mscalc.engine.ratpack.CancellationToken;
+import mscalc.engine.resource.ResourceProvider;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Headless evaluation of many command sequences at once.
+ * <p>
+ * Every sequence is replayed through {@link CalculatorManager#sendCommand(Command)} exactly
+ * like keystrokes coming from the UI, starting from a freshly reset calculator
+ * (standard mode, empty memory). A sequence can switch modes with
+ * {@link Command#ModeScientific} etc. like the UI does.
+ * <p>
+ * Sequences are spread over a fixed number of isolated calculators (see {@link EnginePool}),
+ * each one with its own {@link CalculatorManager} and engines. The primary display is formatted only once,
+ * after the last command of a sequence.
+ * <p>
+ * An optional time budget limits how long a single sequence may take, a sequence that runs
+ * out of it ends with the "Calculation aborted" error.
+ */
+public class BatchEvaluator implements AutoCloseable {
+    public record Result(String display, boolean isError) { }
+
+    private final EnginePool<Worker> workers;
+    private final Duration timeout;
+
+    public BatchEvaluator(ResourceProvider resourceProvider, int parallelism) {
+        this(resourceProvider, parallelism, null);
+    }
+
+    /**
+     * @param timeout time budget of a single sequence, {@code null} for no limit.
+     */
+    public BatchEvaluator(ResourceProvider resourceProvider, int parallelism, Duration timeout) {
+        if (parallelism < 1) {
+            throw new IllegalArgumentException("parallelism must be at least 1, got: " + parallelism);
+        }
+
+        this.timeout = timeout;
+        this.workers = new EnginePool<>(parallelism, () -> new Worker(resourceProvider));
+    }
+
+    /**
+     * Evaluates the given command sequences, results are returned in the same order.
+     * {@link Command#CommandNULL} ends a sequence early, like in the engine tests.
+     */
+    public List<Result> evaluate(List<? extends List<Command>> sequences) {
+        return workers.map(sequences, (worker, sequence) -> worker.evaluate(sequence, timeout));
+    }
+
+    /**
+     * Evaluates expressions captured by the engine history
+     * (see {@link CalculatorManager#GetDisplayCommandsSnapshot()}).
+     */
+    public List<Result> evaluateExpressions(List<? extends List<IExpressionCommand>> expressions) {
+        List<List<Command>> sequences = new ArrayList<>(expressions.size());
+        for (List<IExpressionCommand> expression : expressions) {
+            sequences.add(toCommands(expression));
+        }
+        return evaluate(sequences);
+    }
+
+    /**
+     * Converts an expression into the keystrokes that produce it, followed by {@link Command#CommandEQU}.
+     */
+    public static List<Command> toCommands(List<IExpressionCommand> expression) {
+        List<Command> commands = new ArrayList<>();
+
+        ISerializeCommandVisitor visitor = new ISerializeCommandVisitor() {
+            @Override
+            public void visit(IOpndCommand opndCmd) {
+                for (int command : opndCmd.getCommands()) {
+                    commands.add(Command.fromInt(command));
+                }
+                if (opndCmd.isNegative()) {
+                    commands.add(Command.CommandSIGN);
+                }
+            }
+
+            @Override
+            public void visit(IUnaryCommand unaryCmd) {
+                for (int command : unaryCmd.getCommands()) {
+                    commands.add(Command.fromInt(command));
+                }
+            }
+
+            @Override
+            public void visit(IBinaryCommand binaryCmd) {
+                commands.add(Command.fromInt(binaryCmd.getCommand()));
+            }
+
+            @Override
+            public void visit(IParenthesisCommand paraCmd) {
+                commands.add(Command.fromInt(paraCmd.getCommand()));
+            }
+        };
+
+        for (IExpressionCommand command : expression) {
+            command.accept(visitor);
+        }
+        commands.add(Command.CommandEQU);
+
+        return commands;
+    }
+
+    @Override
+    public void close() {
+        workers.close();
+    }
+
+    private static class Worker {
+        private final ResultDisplay display = new ResultDisplay();
+        private final CalculatorManager manager;
+
+        Worker(ResourceProvider resourceProvider) {
+            manager = new CalculatorManager(display, resourceProvider);
+        }
+
+        Result evaluate(List<Command> sequence, Duration timeout) {
+            manager.SetDisplaySuppressed(true);
+            manager.Reset();
+
+            CancellationToken previous = CancellationToken.bind(
+                    (timeout != null) ? CancellationToken.withTimeout(timeout) : null);
+            try {
+                for (Command command : sequence) {
+                    if (command == Command.CommandNULL) {
+                        break;
+                    }
+                    manager.sendCommand(command);
+                }
+            } finally {
+                CancellationToken.bind(previous);
+            }
+
+            manager.SetDisplaySuppressed(false);
+            return new Result(display.primaryDisplay, display.isError);
+        }
+    }
+
+    // Remembers only the last primary display, everything else is ignored.
+    private static class ResultDisplay implements CalcDisplay {
+        private String primaryDisplay = "";
+        private boolean isError;
+
+        @Override
+        public void setPrimaryDisplay(String text, boolean isError) {
+            this.primaryDisplay = text;
+            this.isError = isError;
+        }
+
+        @Override
+        public void setIsInError(boolean isInError) {
+            this.isError = isInError;
+        }
+
+        @Override
+        public void setExpressionDisplay(List<Pair<String, Integer>> tokens, List<IExpressionCommand> commands) { }
+
+        @Override
+        public void setParenthesisNumber(int count) { }
+
+        @Override
+        public void onNoRightParenAdded() { }
+
+        @Override
+        public void maxDigitsReached() { }
+
+        @Override
+        public void binaryOperatorReceived() { }
+
+        @Override
+        public void onHistoryItemAdded(int addedItemIndex) { }
+
+        @Override
+        public void setMemorizedNumbers(List<String> memorizedNumbers) { }
+
+        @Override
+        public void memoryItemChanged(int indexOfMemory) { }
+
+        @Override
+        public void inputChanged() { }
+    }
+}
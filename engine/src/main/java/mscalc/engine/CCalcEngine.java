@@ -7,12 +7,14 @@ import mscalc.engine.cpp.uint;
 import mscalc.engine.cpp.ulong;
 import mscalc.engine.ratpack.RatPack;
 import mscalc.engine.ratpack.RatPack.AngleType;
+import mscalc.engine.ratpack.RatPackContext;
 import mscalc.engine.resource.JavaBundleResourceProvider;
 import mscalc.engine.resource.ResourceProvider;
 
 import java.math.BigDecimal;
 import java.math.MathContext;
 import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.regex.Pattern;
 
 import static java.util.Map.entry;
@@ -22,7 +24,6 @@ import static mscalc.engine.EngineStrings.*;
 import static mscalc.engine.History.MAXPRECDEPTH;
 import static mscalc.engine.WinErrorCrossPlatform.SCODE_CODE;
 import static mscalc.engine.ratpack.CalcErr.*;
-import static mscalc.engine.ratpack.Conv.SetDecimalSeparator;
 import static mscalc.engine.ratpack.Conv.StringToRat;
 import static mscalc.engine.ratpack.Support.ChangeConstants;
 import static mscalc.engine.ratpack.Support.Global.*;
@@ -39,7 +40,10 @@ public class CCalcEngine {
     private static final String DEFAULT_GRP_STR = "3;0";
     private static final String DEFAULT_NUMBER_STR = "0";
 
-    private static final Map<String, String> engineStrings = new HashMap<>();
+    // Shared by all engines, engines can be created on different threads.
+    // Only loadEngineStrings writes it, settings that differ between engines,
+    // like the decimal separator, are kept in the engine (see DecimalSeparator()).
+    private static final Map<String, String> engineStrings = new ConcurrentHashMap<>();
 
     // TODO: Remove
     static {
@@ -236,10 +240,13 @@ public class CCalcEngine {
 
     uint m_radix;
     int m_precision;
+    RatPackContext m_ratpackContext; // ratpack constants for m_radix and m_precision
     int m_cIntDigitsSav;
     List<Integer> m_decGrouping = new ArrayList<>(); // Holds the decimal digit grouping number
 
     String m_numberString;
+    boolean m_fDisplaySuppressed; // Headless mode: do not push every new number to the primary display
+    boolean m_fDisplayPending;    // DisplayNum produced a number that was not pushed to the display yet
 
     int m_nTempCom;                          /* Holding place for the last command.          */
     int m_openParenCount;                 // Number of open parentheses.
@@ -272,6 +279,7 @@ public class CCalcEngine {
         this.m_fIntegerMode = fIntegerMode;
         this.m_pCalcDisplay = pCalcDisplay;
         this.m_resourceProvider = pResourceProvider;
+        m_ratpackContext = RatPackContext.current();
         m_nOpCode = (0);
         m_nPrevOpCode = (0);
         m_bChangeOp = (false);
@@ -300,25 +308,30 @@ public class CCalcEngine {
         m_HistoryCollector = new History(pCalcDisplay, pHistoryDisplay, DEFAULT_DEC_SEPARATOR);
         m_groupSeparator = (DEFAULT_GRP_SEPARATOR);
 
-        InitChopNumbers();
+        RatPackContext previous = BindRatPackContext();
+        try {
+            InitChopNumbers();
 
-        m_dwWordBitWidth = DwWordBitWidthFromNumWidth(m_numwidth);
+            m_dwWordBitWidth = DwWordBitWidthFromNumWidth(m_numwidth);
 
-        m_maxTrigonometricNum = RationalMath.pow(Rational.of(10), Rational.of(100));
+            m_maxTrigonometricNum = RationalMath.pow(Rational.of(10), Rational.of(100));
 
-        SetRadixTypeAndNumWidth(RadixType.Decimal, m_numwidth);
-        SettingsChanged();
-        DisplayNum();
+            SetRadixTypeAndNumWidth(RadixType.Decimal, m_numwidth);
+            SettingsChanged();
+            DisplayNum();
+        } finally {
+            RatPackContext.bind(previous);
+        }
     }
 
     void InitChopNumbers() {
         // these rat numbers are set only once and then never change regardless of
         // base or precision changes
         assert (m_chopNumbers.length >= 4);
-        m_chopNumbers[0] = Rational.fromCRational(rat_qword);
-        m_chopNumbers[1] = Rational.fromCRational(rat_dword);
-        m_chopNumbers[2] = Rational.fromCRational(rat_word);
-        m_chopNumbers[3] = Rational.fromCRational(rat_byte);
+        m_chopNumbers[0] = Rational.fromCRational(rat_qword());
+        m_chopNumbers[1] = Rational.fromCRational(rat_dword());
+        m_chopNumbers[2] = Rational.fromCRational(rat_word());
+        m_chopNumbers[3] = Rational.fromCRational(rat_byte());
 
         // initialize the max dec number you can support for each of the supported bit lengths
         // this is basically max num in that width / 2 in integer
@@ -362,16 +375,46 @@ public class CCalcEngine {
     }
 
     void ChangePrecision(int precision) {
-        m_precision = precision;
-        ChangeConstants(m_radix, precision);
+        RatPackContext previous = BindRatPackContext();
+        try {
+            m_precision = precision;
+            ChangeEngineConstants(m_radix, precision);
+        } finally {
+            RatPackContext.bind(previous);
+        }
+    }
+
+    // Ratpack constants are per thread, so an engine makes its own constants
+    // the current ones before doing any math. This keeps engines with
+    // different radix or precision (and engines on other threads) independent.
+    // Returns the context that was bound before, the entry points restore it
+    // when they are done so that pooled and virtual threads running other
+    // ratpack code afterwards do not keep the constants of the last engine.
+    RatPackContext BindRatPackContext() {
+        return RatPackContext.bind(m_ratpackContext);
+    }
+
+    // While suppressed, DisplayNum still computes m_numberString (history and the overflow
+    // check depend on it) but skips digit grouping and the primary display callback.
+    // Turning suppression off pushes the last number to the display.
+    void SuppressDisplay(boolean suppress) {
+        m_fDisplaySuppressed = suppress;
+
+        if (!suppress && m_fDisplayPending) {
+            m_fDisplayPending = false;
+            SetPrimaryDisplay(GroupDigitsPerRadix(m_numberString, m_radix));
+        }
+    }
+
+    void ChangeEngineConstants(uint radix, int precision) {
+        ChangeConstants(radix, precision);
+        m_ratpackContext = RatPackContext.current();
     }
 
     void SettingsChanged() {
         char lastDec = m_decimalSeparator;
         String decStr = m_resourceProvider.getCEngineString("sDecimal");
         m_decimalSeparator = decStr.isEmpty() ? DEFAULT_DEC_SEPARATOR : decStr.charAt(0);
-        // Until it can be removed, continue to set ratpak decimal here
-        SetDecimalSeparator(m_decimalSeparator);
 
         char lastSep = m_groupSeparator;
         String sepStr = m_resourceProvider.getCEngineString("sThousand");
@@ -394,8 +437,8 @@ public class CCalcEngine {
             m_input.setDecimalSymbol(m_decimalSeparator);
             m_HistoryCollector.setDecimalSymbol(m_decimalSeparator);
 
-            // put the new decimal symbol into the table used to draw the decimal key
-            engineStrings.put(SIDS_DECIMAL_SEPARATOR, Character.toString(m_decimalSeparator));
+            // The decimal key is drawn with DecimalSeparator(), the shared
+            // engineStrings table must not hold the separator of one engine.
 
             // we need to redraw to update the decimal point button
             numChanged = true;
@@ -490,12 +533,17 @@ public class CCalcEngine {
     }
 
     void ProcessCommand(int wParam) {
-        if (wParam == IDC_SET_RESULT) {
-            wParam = IDC_RECALL;
-            m_bSetCalcState = true;
-        }
+        RatPackContext previous = BindRatPackContext();
+        try {
+            if (wParam == IDC_SET_RESULT) {
+                wParam = IDC_RECALL;
+                m_bSetCalcState = true;
+            }
 
-        ProcessCommandWorker(wParam);
+            ProcessCommandWorker(wParam);
+        } finally {
+            RatPackContext.bind(previous);
+        }
     }
 
     void ProcessCommandWorker(int wParam) {
@@ -1037,7 +1085,7 @@ public class CCalcEngine {
             case IDC_PI:
                 if (!m_fIntegerMode) {
                     CheckAndAddLastBinOpToHistory(); // pi is like entering the number
-                    m_currentVal = Rational.fromCRational((m_bInv ? two_pi : pi));
+                    m_currentVal = Rational.fromCRational((m_bInv ? two_pi() : pi()));
 
                     DisplayNum();
                     m_bInv = false;
@@ -1055,7 +1103,7 @@ public class CCalcEngine {
 
                     RatPack.RAT rat = StringToRat(false, bd.toPlainString(), false, "", m_radix, m_precision);
                     if (rat != null) {
-                        m_currentVal = Rational.fromCRational(rat);
+                        m_currentVal = Rational.adopt(rat);
                     } else {
                         m_currentVal = Rational.of(0);
                     }
@@ -1069,7 +1117,7 @@ public class CCalcEngine {
             case IDC_EULER:
                 if (!m_fIntegerMode) {
                     CheckAndAddLastBinOpToHistory(); // e is like entering the number
-                    m_currentVal = Rational.fromCRational(rat_exp);
+                    m_currentVal = Rational.fromCRational(rat_exp());
 
                     DisplayNum();
                     m_bInv = false;
@@ -1183,6 +1231,8 @@ public class CCalcEngine {
     }
 
     void SetPrimaryDisplay(String szText, boolean isError) {
+        m_fDisplayPending = false;
+
         if (m_pCalcDisplay != null) {
             m_pCalcDisplay.setPrimaryDisplay(szText, isError);
             m_pCalcDisplay.setIsInError(isError);
@@ -1206,48 +1256,58 @@ public class CCalcEngine {
     }
 
     String GetCurrentResultForRadix(uint radix, int precision, boolean groupDigitsPerRadix) {
-        Rational rat = (m_bRecord ? m_input.toRational(m_radix, m_precision) : m_currentVal);
+        RatPackContext previous = BindRatPackContext();
+        try {
+            Rational rat = (m_bRecord ? m_input.toRational(m_radix, m_precision) : m_currentVal);
 
-        ChangeConstants(m_radix, precision);
+            ChangeEngineConstants(m_radix, precision);
 
-        String numberString = GetStringForDisplay(rat, radix);
-        if (!numberString.isEmpty()) {
-            // Revert the precision to previously stored precision
-            ChangeConstants(m_radix, m_precision);
-        }
+            String numberString = GetStringForDisplay(rat, radix);
+            if (!numberString.isEmpty()) {
+                // Revert the precision to previously stored precision
+                ChangeEngineConstants(m_radix, m_precision);
+            }
 
-        if (groupDigitsPerRadix) {
-            return GroupDigitsPerRadix(numberString, radix);
-        } else {
-            return numberString;
+            if (groupDigitsPerRadix) {
+                return GroupDigitsPerRadix(numberString, radix);
+            } else {
+                return numberString;
+            }
+        } finally {
+            RatPackContext.bind(previous);
         }
     }
 
     String GetStringForDisplay(Rational rat, uint radix) {
-        String result = "";
-        // Check for standard\scientific mode
-        if (!m_fIntegerMode) {
-            result = rat.toString(radix, m_nFE, m_precision);
-        } else {
-            // Programmer mode
-            // Find most significant bit to determine if number is negative
-            var tempRat = TruncateNumForIntMath(rat);
-
-            try {
-                ulong w64Bits = tempRat.toULong();
-                boolean fMsb = ((w64Bits.shiftRight(m_dwWordBitWidth - 1)).bitAnd(ulong.ONE)).toBool();
-                if ((radix.toInt() == 10) && fMsb) {
-                    // If high bit is set, then get the decimal number in negative 2's complement form.
-                    tempRat = ((tempRat.bitXor(GetChopNumber())).plus(Rational.of(1))).negated();
-                }
+        RatPackContext previous = BindRatPackContext();
+        try {
+            String result = "";
+            // Check for standard\scientific mode
+            if (!m_fIntegerMode) {
+                result = rat.toString(radix, m_nFE, m_precision, m_decimalSeparator);
+            } else {
+                // Programmer mode
+                // Find most significant bit to determine if number is negative
+                var tempRat = TruncateNumForIntMath(rat);
+
+                try {
+                    ulong w64Bits = tempRat.toULong();
+                    boolean fMsb = ((w64Bits.shiftRight(m_dwWordBitWidth - 1)).bitAnd(ulong.ONE)).toBool();
+                    if ((radix.toInt() == 10) && fMsb) {
+                        // If high bit is set, then get the decimal number in negative 2's complement form.
+                        tempRat = ((tempRat.bitXor(GetChopNumber())).plus(Rational.of(1))).negated();
+                    }
 
-                result = tempRat.toString(radix, m_nFE, m_precision);
-            } catch (ErrorCodeException e) {
-                e.printStackTrace();
+                    result = tempRat.toString(radix, m_nFE, m_precision, m_decimalSeparator);
+                } catch (ErrorCodeException e) {
+                    e.printStackTrace();
+                }
             }
-        }
 
-        return result;
+            return result;
+        } finally {
+            RatPackContext.bind(previous);
+        }
     }
 
     double GenerateRandomNumber() {
@@ -1302,7 +1362,7 @@ public class CCalcEngine {
         }
     }
 
-    static LASTDISP gldPrevious = new LASTDISP(Rational.of(0), -1, uint.ZERO, -1, NumberWidth.UNDEFINED, false, false, false);
+    final LASTDISP gldPrevious = new LASTDISP(Rational.of(0), -1, uint.ZERO, -1, NumberWidth.UNDEFINED, false, false, false);
 
     // Truncates if too big, makes it a non negative - the number in rat. Doesn't do anything if not in INT mode
     Rational TruncateNumForIntMath(Rational rat) {
@@ -1310,6 +1370,10 @@ public class CCalcEngine {
             return rat;
         }
 
+        if (rat.isExactULong()) {
+            return new Rational(ulong.of(rat.toULong().raw() & GetChopBits()));
+        }
+
         // Truncate to an integer. Do not round here.
         var result = RationalMath.integer(rat);
 
@@ -1361,6 +1425,8 @@ public class CCalcEngine {
 
             if ((m_radix.toInt() == 10) && IsNumberInvalid(m_numberString, MAX_EXPONENT, m_precision, m_radix) != 0) {
                 DisplayError(CALC_E_OVERFLOW);
+            } else if (m_fDisplaySuppressed) {
+                m_fDisplayPending = true;
             } else {
                 // Display the string and return.
                 SetPrimaryDisplay(GroupDigitsPerRadix(m_numberString, m_radix));
@@ -1854,6 +1920,13 @@ public class CCalcEngine {
 
     // Routines to perform standard operations &|^~<<>>+-/*% and pwr.
     Rational DoOperation(int operation, Rational lhs, Rational rhs) {
+        if (m_fIntegerMode && lhs.isExactULong() && rhs.isExactULong()) {
+            var integerResult = DoIntegerOperation(operation, lhs.toULong().raw(), rhs.toULong().raw());
+            if (integerResult != null) {
+                return integerResult;
+            }
+        }
+
         // Remove any variance in how 0 could be represented in rat e.g. -0, 0/n, etc.
         var result = (lhs.isNotEqual(Rational.of(0)) ? lhs : Rational.of(0));
 
@@ -2001,6 +2074,113 @@ public class CCalcEngine {
     }
 
 
+    // Same as DoOperation in integer mode, but done on the 64 bits of the operands.
+    // Returns null when the result is not an integer in (-2^64, 2^64) or when the
+    // operation reports an error, the caller must then use the rational path.
+    Rational DoIntegerOperation(int operation, long lhs, long rhs) {
+        long chop = GetChopBits();
+        if ((lhs & ~chop) != 0 || (rhs & ~chop) != 0) {
+            return null;
+        }
+
+        switch (operation) {
+            case IDC_AND:
+                return integerResult(lhs & rhs);
+
+            case IDC_OR:
+                return integerResult(lhs | rhs);
+
+            case IDC_XOR:
+                return integerResult(lhs ^ rhs);
+
+            case IDC_NAND:
+                return integerResult((lhs & rhs) ^ chop);
+
+            case IDC_NOR:
+                return integerResult((lhs | rhs) ^ chop);
+
+            case IDC_RSHF:
+            case IDC_RSHFL:
+            case IDC_LSHF: {
+                if (Long.compareUnsigned(lhs, m_dwWordBitWidth) >= 0) {
+                    return null; // CALC_E_NORESULT
+                }
+
+                int shift = (int) lhs;
+                if (operation == IDC_LSHF) {
+                    // Bits shifted out of 64 bits are still part of the rational result
+                    return (Long.numberOfLeadingZeros(rhs) >= shift) ? integerResult(rhs << shift) : null;
+                }
+
+                boolean fMsb = ((rhs >>> (m_dwWordBitWidth - 1)) & 1) != 0;
+                if (operation == IDC_RSHF && fMsb) {
+                    return integerResult((rhs >>> shift) | (~(chop >>> shift) & chop));
+                }
+
+                // Otherwise the rational result keeps the shifted out bits as a fraction
+                return ((rhs & ~(-1L << shift)) == 0) ? integerResult(rhs >>> shift) : null;
+            }
+
+            case IDC_ADD: {
+                long sum = lhs + rhs;
+                return (Long.compareUnsigned(sum, lhs) >= 0) ? integerResult(sum) : null;
+            }
+
+            case IDC_SUB:
+                return (Long.compareUnsigned(rhs, lhs) >= 0)
+                        ? integerResult(rhs - lhs)
+                        : integerResult(lhs - rhs).negated();
+
+            case IDC_MUL:
+                return (Math.unsignedMultiplyHigh(lhs, rhs) == 0) ? integerResult(lhs * rhs) : null;
+
+            case IDC_DIV:
+            case IDC_MOD: {
+                long numerator = rhs, denominator = lhs;
+                int iNumeratorSign = 1, iDenominatorSign = 1;
+
+                if (((numerator >>> (m_dwWordBitWidth - 1)) & 1) != 0) {
+                    numerator = (numerator ^ chop) + 1;
+                    iNumeratorSign = -1;
+                }
+                if (((denominator >>> (m_dwWordBitWidth - 1)) & 1) != 0) {
+                    denominator = (denominator ^ chop) + 1;
+                    iDenominatorSign = -1;
+                }
+
+                if (denominator == 0) {
+                    return null; // CALC_E_DIVIDEBYZERO or CALC_E_INDEFINITE
+                }
+
+                long quotient = Long.divideUnsigned(numerator, denominator);
+                long remainder = Long.remainderUnsigned(numerator, denominator);
+
+                if (operation == IDC_DIV) {
+                    if ((iNumeratorSign * iDenominatorSign) == -1) {
+                        return integerResult(quotient).negated();
+                    }
+                    // The rational path keeps the fraction of the quotient
+                    return (remainder == 0) ? integerResult(quotient) : null;
+                }
+
+                return (iNumeratorSign == -1) ? integerResult(remainder).negated() : integerResult(remainder);
+            }
+
+            default:
+                return null;
+        }
+    }
+
+    private static Rational integerResult(long bits) {
+        return new Rational(ulong.of(bits));
+    }
+
+    // Chop number of the current word width, as bits.
+    long GetChopBits() {
+        return (m_dwWordBitWidth == 64) ? -1L : (1L << m_dwWordBitWidth) - 1;
+    }
+
+
     // To be called when either the radix or num width changes. You can use -1 in either of these values to mean
     // dont change that.
     void SetRadixTypeAndNumWidth(RadixType radixtype, NumberWidth numwidth) {
@@ -2153,6 +2333,7 @@ public class CCalcEngine {
     void BaseOrPrecisionChanged() {
         UpdateMaxIntDigits();
         ChangeBaseConstants(m_radix, m_cIntDigitsSav, m_precision);
+        m_ratpackContext = RatPackContext.current();
     }
 
 }
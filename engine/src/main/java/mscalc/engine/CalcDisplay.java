@@ -12,6 +12,16 @@ public interface CalcDisplay {
              List<Pair<String, Integer>> tokens,
              List<IExpressionCommand> commands);
 
+     // Same as above, but only the tokens at changedTokens differ from the previous call,
+     // e.g. the operands re-rendered after a radix change. Displays that can patch single
+     // tokens in place should override this, by default the whole expression is redrawn.
+     default void setExpressionDisplay(
+             List<Pair<String, Integer>> tokens,
+             List<IExpressionCommand> commands,
+             List<Integer> changedTokens) {
+         setExpressionDisplay(tokens, commands);
+     }
+
      void setParenthesisNumber(int count);
      void onNoRightParenAdded();
      void maxDigitsReached(); // not an error but still need to inform UI layer.
@@ -337,13 +337,13 @@ public class CalcInput {
     public Rational toRational(uint radix, int precision)
     {
         RatPack.RAT rat = StringToRat(base.isNegative(), base.value().toString(),
-                exponent.isNegative(), exponent.value().toString(), radix, precision);
+                exponent.isNegative(), exponent.value().toString(), radix, precision, decimalSymbol);
         if (rat == null)
         {
             return null;
         }
 
-        return Rational.fromCRational(rat);
+        return Rational.adopt(rat);
     }
 
     private static char firstChar(StringBuilder sb) {
@@ -4,6 +4,7 @@ import mscalc.engine.CalculatorHistory.HISTORYITEM;
 import mscalc.engine.commands.Command;
 import mscalc.engine.commands.IExpressionCommand;
 import mscalc.engine.cpp.uint;
+import mscalc.engine.ratpack.CancellationToken;
 import mscalc.engine.resource.ResourceProvider;
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
@@ -27,6 +28,7 @@ public class CalculatorManager implements CalcDisplay {
     private CCalcEngine m_programmerCalculatorEngine;
     private ResourceProvider m_resourceProvider;
     private boolean m_inHistoryItemLoadMode;
+    private boolean m_isDisplaySuppressed;
 
     private List<Rational> m_memorizedNumbers = new ArrayList<>();
     private Rational m_persistedPrimaryValue = Rational.of(0);
@@ -117,6 +119,18 @@ public class CalculatorManager implements CalcDisplay {
         }
     }
 
+    @Override
+    public void setExpressionDisplay(
+            List<Pair<String, Integer>>  tokens,
+            List<IExpressionCommand> commands,
+            List<Integer> changedTokens)
+    {
+        if (!m_inHistoryItemLoadMode)
+        {
+            m_displayCallback.setExpressionDisplay(tokens, commands, changedTokens);
+        }
+    }
+
     /// <summary>
     /// Callback from the CalculatorControl
     /// Passed in string representations of memorized numbers get passed to the client
@@ -190,6 +204,7 @@ public class CalculatorManager implements CalcDisplay {
         {
             m_standardCalculatorEngine =
                     new CCalcEngine(false /* Respect Order of Operations */, false /* Set to Integer Mode */, m_resourceProvider, this, m_pStdHistory);
+            m_standardCalculatorEngine.SuppressDisplay(m_isDisplaySuppressed);
         }
 
         m_currentCalculatorEngine = m_standardCalculatorEngine;
@@ -209,6 +224,7 @@ public class CalculatorManager implements CalcDisplay {
         {
             m_scientificCalculatorEngine =
                     new CCalcEngine(true /* Respect Order of Operations */, false /* Set to Integer Mode */, m_resourceProvider, this, m_pSciHistory);
+            m_scientificCalculatorEngine.SuppressDisplay(m_isDisplaySuppressed);
         }
 
         m_currentCalculatorEngine = m_scientificCalculatorEngine;
@@ -227,6 +243,7 @@ public class CalculatorManager implements CalcDisplay {
         {
             m_programmerCalculatorEngine =
                     new CCalcEngine(true /* Respect Order of Operations */, true /* Set to Integer Mode */, m_resourceProvider, this, null);
+            m_programmerCalculatorEngine.SuppressDisplay(m_isDisplaySuppressed);
         }
 
         m_currentCalculatorEngine = m_programmerCalculatorEngine;
@@ -235,6 +252,23 @@ public class CalculatorManager implements CalcDisplay {
         m_currentCalculatorEngine.ChangePrecision(CalculatorPrecision.ProgrammerModePrecision.toInt());
     }
 
+    /// <summary>
+    /// Mode changes create engines and their constants outside of ProcessCommand error handling,
+    /// they must not be aborted half way by the cancellation token of the calling thread.
+    /// </summary>
+    private static void runUncancellable(Runnable modeChange)
+    {
+        CancellationToken previous = CancellationToken.bind(CancellationToken.NONE);
+        try
+        {
+            modeChange.run();
+        }
+        finally
+        {
+            CancellationToken.bind(previous);
+        }
+    }
+
     /// <summary>
     /// Send command to the Calc Engine
     /// Cast Command Enum to OpCode.
@@ -251,13 +285,13 @@ public class CalculatorManager implements CalcDisplay {
             switch (command)
             {
                 case Command.ModeBasic:
-                    this.SetStandardMode();
+                    runUncancellable(this::SetStandardMode);
                     break;
                 case Command.ModeScientific:
-                    this.SetScientificMode();
+                    runUncancellable(this::SetScientificMode);
                     break;
                 case Command.ModeProgrammer:
-                    this.SetProgrammerMode();
+                    runUncancellable(this::SetProgrammerMode);
                     break;
                 default:
                     m_currentCalculatorEngine.ProcessCommand(command.toInt());
@@ -536,6 +570,16 @@ public class CalculatorManager implements CalcDisplay {
         return m_pHistory.GetHistoryItem(uIdx);
     }
 
+    /// <summary>
+    /// Compiles the equation of a history item of the current mode, so that it can be
+    /// evaluated again (possibly with other operands) without replaying it through the engine.
+    /// </summary>
+    public ExpressionPlan CompileHistoryItem(int uIdx)
+    {
+        boolean precedence = (m_pHistory == m_pSciHistory);
+        return ExpressionPlan.compile(GetHistoryItem(uIdx).historyItemVector.spCommands, precedence);
+    }
+
     @Override
     public void onHistoryItemAdded(int addedItemIndex)
     {
@@ -630,6 +674,31 @@ public class CalculatorManager implements CalcDisplay {
         return m_currentCalculatorEngine.IsInputEmpty();
     }
 
+    /// <summary>
+    /// Used by headless callers that only need the final result of a command sequence.
+    /// While suppressed, engines skip formatting the primary display after every command.
+    /// Turning suppression off pushes the current value to the display callback.
+    /// </summary>
+    void SetDisplaySuppressed(boolean isDisplaySuppressed)
+    {
+        m_isDisplaySuppressed = isDisplaySuppressed;
+
+        for (CCalcEngine engine : new CCalcEngine[] { m_standardCalculatorEngine, m_scientificCalculatorEngine, m_programmerCalculatorEngine })
+        {
+            if (engine != null && engine != m_currentCalculatorEngine)
+            {
+                // Inactive engines refresh their display when they become current.
+                engine.m_fDisplayPending = false;
+                engine.SuppressDisplay(isDisplaySuppressed);
+            }
+        }
+
+        if (m_currentCalculatorEngine != null)
+        {
+            m_currentCalculatorEngine.SuppressDisplay(isDisplaySuppressed);
+        }
+    }
+
     void SetInHistoryItemLoadMode(boolean isHistoryItemLoadMode)
     {
         m_inHistoryItemLoadMode = isHistoryItemLoadMode;
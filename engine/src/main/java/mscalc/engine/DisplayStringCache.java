@@ -0,0 +1,198 @@
+package mscalc.engine;
+
+import mscalc.engine.cpp.Ptr;
+import mscalc.engine.cpp.uint;
+import mscalc.engine.ratpack.Conv;
+import mscalc.engine.ratpack.RatPack;
+
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Cache of the strings {@link Rational#toString(uint, RatPack.NumberFormat, int, char)} produced.
+ * <p>
+ * The display, the history and the memory list format the same values over and over,
+ * e.g. every operand in the history is rendered again when the radix changes. Values are
+ * compared by their digits, so equal numbers computed independently share an entry. The
+ * decimal separator and the radix ratio of the bound context are part of the key because
+ * the formatting depends on them; the separator in the key is the one the string is
+ * formatted with.
+ * <p>
+ * The cache is a least recently used map bounded both by the number of entries and by
+ * its weight, the digits of the cached values plus the characters of the strings, so a
+ * few huge numbers cannot pin a lot of memory. Set {@link #CAPACITY} to zero to disable it.
+ */
+public final class DisplayStringCache {
+    /**
+     * Maximum number of cached strings.
+     * Tunable at runtime or with {@code -Dmscalc.engine.displayCacheCapacity=N}.
+     */
+    public static final AtomicInteger CAPACITY =
+            new AtomicInteger(Integer.getInteger("mscalc.engine.displayCacheCapacity", 512));
+
+    /**
+     * Maximum total weight (digits plus characters) of the cached entries.
+     * Tunable at runtime or with {@code -Dmscalc.engine.displayCacheWeight=N}.
+     */
+    public static final AtomicInteger MAX_WEIGHT =
+            new AtomicInteger(Integer.getInteger("mscalc.engine.displayCacheWeight", 1 << 20));
+
+    private static final LongAdder hits = new LongAdder();
+    private static final LongAdder misses = new LongAdder();
+
+    // Guarded by itself, access ordered so that the eldest entry is the least recently used one.
+    private static final Map<Key, String> cache = new LinkedHashMap<>(16, 0.75f, true);
+
+    // Guarded by cache.
+    private static long weight = 0;
+
+    private DisplayStringCache() { }
+
+    /**
+     * Returns {@code rat} formatted by {@link Conv#RatToString}, from the cache when possible.
+     * {@code rat} must never change afterwards, which holds for the ones owned by {@link Rational}.
+     */
+    static String render(RatPack.RAT rat, uint radix, RatPack.NumberFormat fmt, int precision, char decimalSeparator) {
+        if (CAPACITY.get() <= 0) {
+            return Conv.RatToString(new Ptr<>(rat), fmt, radix, precision, decimalSeparator);
+        }
+
+        Key key = new Key(rat, radix.toInt(), fmt, precision, Conv.g_ratio(), decimalSeparator);
+
+        String result;
+        synchronized (cache) {
+            result = cache.get(key);
+        }
+
+        if (result != null) {
+            hits.increment();
+            return result;
+        }
+
+        misses.increment();
+        result = Conv.RatToString(new Ptr<>(rat), fmt, radix, precision, decimalSeparator);
+
+        synchronized (cache) {
+            if (cache.put(key, result) == null) {
+                weight += weightOf(key, result);
+            }
+            evict();
+        }
+
+        return result;
+    }
+
+    public static long hits() {
+        return hits.sum();
+    }
+
+    public static long misses() {
+        return misses.sum();
+    }
+
+    public static int size() {
+        synchronized (cache) {
+            return cache.size();
+        }
+    }
+
+    /**
+     * Drops all entries and resets the counters.
+     */
+    public static void clear() {
+        synchronized (cache) {
+            cache.clear();
+            weight = 0;
+        }
+        hits.reset();
+        misses.reset();
+    }
+
+    // Must be called with the cache lock held.
+    private static void evict() {
+        int capacity = CAPACITY.get();
+        long maxWeight = MAX_WEIGHT.get();
+
+        Iterator<Map.Entry<Key, String>> eldest = cache.entrySet().iterator();
+        while (eldest.hasNext() && (cache.size() > capacity || weight > maxWeight)) {
+            Map.Entry<Key, String> entry = eldest.next();
+            weight -= weightOf(entry.getKey(), entry.getValue());
+            eldest.remove();
+        }
+    }
+
+    private static long weightOf(Key key, String value) {
+        return (long) key.rat.pp.cdigit + key.rat.pq.cdigit + value.length();
+    }
+
+    private static final class Key {
+        private final RatPack.RAT rat;
+        private final int radix;
+        private final RatPack.NumberFormat fmt;
+        private final int precision;
+        private final int ratio;
+        private final char decimalSeparator;
+        private final int hash;
+
+        Key(RatPack.RAT rat, int radix, RatPack.NumberFormat fmt, int precision, int ratio, char decimalSeparator) {
+            this.rat = rat;
+            this.radix = radix;
+            this.fmt = fmt;
+            this.precision = precision;
+            this.ratio = ratio;
+            this.decimalSeparator = decimalSeparator;
+
+            int h = hashOf(rat.pp);
+            h = 31 * h + hashOf(rat.pq);
+            h = 31 * h + radix;
+            h = 31 * h + fmt.hashCode();
+            h = 31 * h + precision;
+            h = 31 * h + ratio;
+            h = 31 * h + decimalSeparator;
+            this.hash = h;
+        }
+
+        private static int hashOf(RatPack.NUMBER n) {
+            int h = n.sign;
+            h = 31 * h + n.exp;
+            h = 31 * h + n.cdigit;
+            int[] digits = n.mant.raw();
+            for (int i = 0; i < n.cdigit; i++) {
+                h = 31 * h + digits[i];
+            }
+            return h;
+        }
+
+        private static boolean sameNumber(RatPack.NUMBER a, RatPack.NUMBER b) {
+            return a == b || (a.sign == b.sign && a.exp == b.exp && a.cdigit == b.cdigit
+                    && Arrays.equals(a.mant.raw(), 0, a.cdigit, b.mant.raw(), 0, b.cdigit));
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) {
+                return true;
+            }
+            if (!(o instanceof Key other)) {
+                return false;
+            }
+            return hash == other.hash
+                    && radix == other.radix
+                    && fmt == other.fmt
+                    && precision == other.precision
+                    && ratio == other.ratio
+                    && decimalSeparator == other.decimalSeparator
+                    && sameNumber(rat.pp, other.rat.pp)
+                    && sameNumber(rat.pq, other.rat.pq);
+        }
+
+        @Override
+        public int hashCode() {
+            return hash;
+        }
+    }
+}
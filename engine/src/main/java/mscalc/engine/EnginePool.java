@@ -0,0 +1,122 @@
+package mscalc.engine;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.*;
+import java.util.function.BiFunction;
+import java.util.function.Function;
+import java.util.function.Supplier;
+
+/**
+ * A fixed number of isolated engines, e.g. {@link CalculatorManager}s together with their
+ * displays, shared by tasks that run in parallel.
+ * <p>
+ * An engine is used by at most one task at a time. Engines do not share any settings:
+ * every {@link CCalcEngine} keeps its own, e.g. the decimal separator it passes to the
+ * ratpack conversions, and binds its own ratpack context before doing any math, so an
+ * engine can be used by whatever thread runs the task. The caches engines do share, the
+ * ratpack contexts and {@link DisplayStringCache}, are keyed by everything their entries
+ * depend on.
+ * Tasks run on virtual threads, at most {@link #size()} of them run at once because
+ * a task waits for a free engine first.
+ * <p>
+ * Engines are reused by later tasks, a task must leave the engine in a state that the next
+ * task can work with (or reset it first).
+ *
+ * @param <E> type of the engine.
+ */
+public final class EnginePool<E> implements AutoCloseable {
+    private final BlockingQueue<E> engines;
+    private final ExecutorService executor;
+    private final int size;
+
+    /**
+     * @param engineFactory called {@code size} times, every call must return a new engine.
+     */
+    public EnginePool(int size, Supplier<? extends E> engineFactory) {
+        if (size < 1) {
+            throw new IllegalArgumentException("size must be at least 1, got: " + size);
+        }
+
+        this.size = size;
+        this.engines = new ArrayBlockingQueue<>(size);
+        for (int i = 0; i < size; i++) {
+            engines.add(engineFactory.get());
+        }
+
+        this.executor = Executors.newThreadPerTaskExecutor(Thread.ofVirtual().name("calc-engine-", 0).factory());
+    }
+
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Runs the task with a free engine, as soon as one is available.
+     */
+    public <R> Future<R> submit(Function<? super E, ? extends R> task) {
+        return executor.submit(() -> {
+            E engine = engines.take();
+            try {
+                return task.apply(engine);
+            } finally {
+                engines.add(engine);
+            }
+        });
+    }
+
+    /**
+     * Applies the task to every input, results are returned in the same order as the inputs.
+     * <p>
+     * Inputs are split into one contiguous chunk per engine, which keeps the hand-off
+     * overhead low. Results do not depend on the number of engines as long as the task
+     * leaves its engine in a reusable state.
+     */
+    public <I, R> List<R> map(List<? extends I> inputs, BiFunction<? super E, ? super I, ? extends R> task) {
+        if (inputs.isEmpty()) {
+            return List.of();
+        }
+
+        Object[] results = new Object[inputs.size()];
+
+        int chunkSize = (inputs.size() + size - 1) / size;
+        List<Future<?>> futures = new ArrayList<>();
+        for (int start = 0; start < inputs.size(); start += chunkSize) {
+            int from = start;
+            int to = Math.min(inputs.size(), start + chunkSize);
+
+            futures.add(submit(engine -> {
+                for (int i = from; i < to; i++) {
+                    results[i] = task.apply(engine, inputs.get(i));
+                }
+                return null;
+            }));
+        }
+
+        for (Future<?> future : futures) {
+            try {
+                future.get();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                futures.forEach(f -> f.cancel(true));
+                throw new CancellationException("Evaluation interrupted");
+            } catch (ExecutionException e) {
+                futures.forEach(f -> f.cancel(true));
+                if (e.getCause() instanceof RuntimeException runtimeException) {
+                    throw runtimeException;
+                }
+                throw new IllegalStateException(e.getCause());
+            }
+        }
+
+        @SuppressWarnings("unchecked")
+        List<R> list = (List<R>) Arrays.asList(results);
+        return list;
+    }
+
+    @Override
+    public void close() {
+        executor.shutdownNow();
+    }
+}
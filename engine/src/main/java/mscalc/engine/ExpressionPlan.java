@@ -0,0 +1,307 @@
+package mscalc.engine;
+
+import mscalc.engine.commands.*;
+import mscalc.engine.cpp.ErrorCodeException;
+import mscalc.engine.ratpack.RatPack.AngleType;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static mscalc.engine.Commands.*;
+import static mscalc.engine.ratpack.CalcErr.CALC_E_DOMAIN;
+
+/**
+ * An equation captured by the engine history, compiled into an immutable evaluation tree.
+ * <p>
+ * Replaying a history item through {@link CalculatorManager#sendCommand(Command)} drives the whole
+ * engine state machine, formats every intermediate result and updates the history again. A plan
+ * evaluates the same operators directly with {@link RationalMath}, in the order the engine would:
+ * with {@link CCalcEngine#NPrecedenceOfOp(int)} in scientific mode, strictly left to right in
+ * standard mode. Equal precedence always groups to the left, like in the engine.
+ * <p>
+ * Operands are numbered in the order they appear in the expression. {@link #evaluate(List)} runs
+ * the plan with other operand values, which makes "what if" recomputations cheap.
+ * <p>
+ * Only commands that the standard and scientific calculators put into their history are
+ * supported, programmer mode operators depend on the word size and are rejected.
+ * Evaluation errors are reported by the same {@link ErrorCodeException}s the engine displays.
+ */
+public final class ExpressionPlan {
+    private static final Rational MAX_TRIGONOMETRIC_NUM = RationalMath.pow(Rational.of(10), Rational.of(100));
+
+    @FunctionalInterface
+    private interface UnaryFunction {
+        Rational apply(Rational x, AngleType angleType);
+    }
+
+    @FunctionalInterface
+    private interface BinaryFunction {
+        Rational apply(Rational lhs, Rational rhs);
+    }
+
+    private sealed interface Node permits Operand, Unary, Binary { }
+
+    private record Operand(int index) implements Node { }
+
+    private record Unary(UnaryFunction function, boolean trigonometric, AngleType angleType, Node arg) implements Node { }
+
+    private record Binary(BinaryFunction function, Node lhs, Node rhs) implements Node { }
+
+    private final Node root;
+    private final List<Rational> operands;
+
+    private ExpressionPlan(Node root, List<Rational> operands) {
+        this.root = root;
+        this.operands = operands;
+    }
+
+    /**
+     * @param commands   expression commands, e.g. the ones of a history item.
+     * @param precedence {@code true} to respect the order of operations (scientific mode),
+     *                   {@code false} to evaluate left to right (standard mode).
+     * @throws IllegalArgumentException if the commands do not form a complete expression
+     *                                  or contain an unsupported operator.
+     */
+    public static ExpressionPlan compile(List<IExpressionCommand> commands, boolean precedence) {
+        Compiler compiler = new Compiler(commands, precedence);
+        Node root = compiler.expression(0);
+        if (compiler.position < commands.size()) {
+            throw new IllegalArgumentException("Unexpected command at position " + compiler.position);
+        }
+        return new ExpressionPlan(root, List.copyOf(compiler.operands));
+    }
+
+    public int operandCount() {
+        return operands.size();
+    }
+
+    /**
+     * Operand values captured at compile time, in the order they appear in the expression.
+     */
+    public List<Rational> operands() {
+        return operands;
+    }
+
+    public Rational evaluate() {
+        return evaluate(root, operands);
+    }
+
+    /**
+     * Evaluates the plan with the given operand values instead of the captured ones.
+     */
+    public Rational evaluate(List<Rational> operandValues) {
+        if (operandValues.size() != operands.size()) {
+            throw new IllegalArgumentException(
+                    "Expected " + operands.size() + " operands, got: " + operandValues.size());
+        }
+        return evaluate(root, operandValues);
+    }
+
+    private static Rational evaluate(Node node, List<Rational> values) {
+        return switch (node) {
+            case Operand operand -> values.get(operand.index());
+            case Unary unary -> {
+                Rational x = evaluate(unary.arg(), values);
+                if (unary.trigonometric() && x.isGreaterOrEqual(MAX_TRIGONOMETRIC_NUM)) {
+                    throw new ErrorCodeException(CALC_E_DOMAIN);
+                }
+                yield unary.function().apply(x, unary.angleType());
+            }
+            case Binary binary -> {
+                Rational lhs = evaluate(binary.lhs(), values);
+                Rational rhs = evaluate(binary.rhs(), values);
+                // Remove any variance in how 0 could be represented in rat e.g. -0, 0/n, etc.
+                yield binary.function().apply(lhs, rhs.isNotEqual(Rational.of(0)) ? rhs : Rational.of(0));
+            }
+        };
+    }
+
+    // Mirrors CCalcEngine.DoOperation outside of integer mode, null for unsupported operators.
+    // The engine passes the operands swapped, the order of the arithmetic is kept here.
+    private static BinaryFunction binaryFunction(int op) {
+        return switch (op) {
+            case IDC_ADD -> (lhs, rhs) -> rhs.plus(lhs);
+            case IDC_SUB -> Rational::minus;
+            case IDC_MUL -> (lhs, rhs) -> rhs.times(lhs);
+            case IDC_DIV -> Rational::dividedBy;
+            case IDC_MOD -> RationalMath::mod;
+            case IDC_PWR -> RationalMath::pow;
+            case IDC_ROOT -> RationalMath::root;
+            case IDC_LOGBASEY -> (lhs, rhs) -> RationalMath.ln(lhs).dividedBy(RationalMath.ln(rhs));
+            default -> null;
+        };
+    }
+
+    // Mirrors CCalcEngine.SciCalcFunctions outside of integer mode, null for unsupported operators.
+    // Inverse functions are recorded in the history with their own command ids, e.g. CommandASIN.
+    private static UnaryFunction unaryFunction(int op) {
+        Command command = Command.fromInt(op);
+        if (command == null) {
+            return null;
+        }
+
+        return switch (command) {
+            case CommandSIGN -> (x, angle) -> x.negated();
+            case CommandCHOP -> (x, angle) -> RationalMath.integer(x);
+
+            case CommandSIN -> RationalMath::sin;
+            case CommandCOS -> RationalMath::cos;
+            case CommandTAN -> RationalMath::tan;
+            case CommandASIN -> RationalMath::asin;
+            case CommandACOS -> RationalMath::acos;
+            case CommandATAN -> RationalMath::atan;
+            case CommandSEC -> (x, angle) -> RationalMath.invert(RationalMath.cos(x, angle));
+            case CommandCSC -> (x, angle) -> RationalMath.invert(RationalMath.sin(x, angle));
+            case CommandCOT -> (x, angle) -> RationalMath.invert(RationalMath.tan(x, angle));
+            case CommandASEC -> (x, angle) -> RationalMath.acos(RationalMath.invert(x), angle);
+            case CommandACSC -> (x, angle) -> RationalMath.asin(RationalMath.invert(x), angle);
+            case CommandACOT -> (x, angle) -> RationalMath.atan(RationalMath.invert(x), angle);
+
+            case CommandSINH -> (x, angle) -> RationalMath.sinh(x);
+            case CommandCOSH -> (x, angle) -> RationalMath.cosh(x);
+            case CommandTANH -> (x, angle) -> RationalMath.tanh(x);
+            case CommandASINH -> (x, angle) -> RationalMath.asinh(x);
+            case CommandACOSH -> (x, angle) -> RationalMath.acosh(x);
+            case CommandATANH -> (x, angle) -> RationalMath.atanh(x);
+            case CommandSECH -> (x, angle) -> RationalMath.invert(RationalMath.cosh(x));
+            case CommandCSCH -> (x, angle) -> RationalMath.invert(RationalMath.sinh(x));
+            case CommandCOTH -> (x, angle) -> RationalMath.invert(RationalMath.tanh(x));
+            case CommandASECH -> (x, angle) -> RationalMath.acosh(RationalMath.invert(x));
+            case CommandACSCH -> (x, angle) -> RationalMath.asinh(RationalMath.invert(x));
+            case CommandACOTH -> (x, angle) -> RationalMath.atanh(RationalMath.invert(x));
+
+            case CommandREC -> (x, angle) -> RationalMath.invert(x);
+            case CommandSQR -> (x, angle) -> RationalMath.pow(x, Rational.of(2));
+            case CommandSQRT -> (x, angle) -> RationalMath.root(x, Rational.of(2));
+            case CommandCUB -> (x, angle) -> RationalMath.pow(x, Rational.of(3));
+            case CommandCUBEROOT -> (x, angle) -> RationalMath.root(x, Rational.of(3));
+            case CommandLOG -> (x, angle) -> RationalMath.log10(x);
+            case CommandLN -> (x, angle) -> RationalMath.ln(x);
+            case CommandPOWE -> (x, angle) -> RationalMath.exp(x);
+            case CommandPOW10 -> (x, angle) -> RationalMath.pow(Rational.of(10), x);
+            case CommandPOW2 -> (x, angle) -> RationalMath.pow(Rational.of(2), x);
+            case CommandFAC -> (x, angle) -> RationalMath.factorial(x);
+            case CommandDMS -> (x, angle) -> dms(x, false);
+            case CommandDegrees -> (x, angle) -> dms(x, true);
+
+            case CommandCeil -> (x, angle) -> (RationalMath.frac(x).isGreaterThan(Rational.of(0)))
+                    ? RationalMath.integer(x.plus(Rational.of(1)))
+                    : RationalMath.integer(x);
+            case CommandFloor -> (x, angle) -> (RationalMath.frac(x).isLessThan(Rational.of(0)))
+                    ? RationalMath.integer(x.minus(Rational.of(1)))
+                    : RationalMath.integer(x);
+            case CommandAbs -> (x, angle) -> RationalMath.abs(x);
+
+            default -> null;
+        };
+    }
+
+    private static boolean isTrigonometric(int op) {
+        return switch (op) {
+            case IDC_SIN, IDC_COS, IDC_TAN, IDC_SINH, IDC_COSH, IDC_TANH,
+                 IDC_SEC, IDC_CSC, IDC_COT, IDC_SECH, IDC_CSCH, IDC_COTH -> true;
+            default -> false;
+        };
+    }
+
+    // Degrees-minutes-seconds conversion, inverse converts dms back to degrees.
+    private static Rational dms(Rational rat, boolean inverse) {
+        var shftRat = Rational.of(inverse ? 100 : 60);
+
+        Rational degreeRat = RationalMath.integer(rat);
+        Rational minuteRat = (rat.minus(degreeRat)).times(shftRat);
+        Rational secondRat = minuteRat;
+
+        minuteRat = RationalMath.integer(minuteRat);
+        secondRat = (secondRat.minus(minuteRat)).times(shftRat);
+
+        shftRat = Rational.of(inverse ? 60 : 100);
+        secondRat = secondRat.dividedBy(shftRat);
+        minuteRat = (minuteRat.plus(secondRat)).dividedBy(shftRat);
+
+        return degreeRat.plus(minuteRat);
+    }
+
+    // Precedence climbing over the command list. Unary commands follow their operand
+    // (4 SQRT, ( 1 + 3 ) SQRT) and a missing closing parenthesis at the end of the list
+    // is implied, like pressing = with open parentheses.
+    private static final class Compiler {
+        private final List<IExpressionCommand> commands;
+        private final boolean precedence;
+        private final List<Rational> operands = new ArrayList<>();
+        private int position = 0;
+
+        Compiler(List<IExpressionCommand> commands, boolean precedence) {
+            this.commands = commands;
+            this.precedence = precedence;
+        }
+
+        Node expression(int minPrecedence) {
+            Node lhs = term();
+
+            while (position < commands.size() && commands.get(position) instanceof IBinaryCommand binaryCommand) {
+                int op = binaryCommand.getCommand();
+                int opPrecedence = precedence ? CCalcEngine.NPrecedenceOfOp(op) : 0;
+                if (opPrecedence < minPrecedence) {
+                    break;
+                }
+                BinaryFunction function = binaryFunction(op);
+                if (function == null) {
+                    throw new IllegalArgumentException("Unsupported binary operator: " + op);
+                }
+
+                position++;
+                Node rhs = precedence ? expression(opPrecedence + 1) : term();
+                lhs = new Binary(function, lhs, rhs);
+            }
+
+            return lhs;
+        }
+
+        private Node term() {
+            if (position >= commands.size()) {
+                throw new IllegalArgumentException("Expression ends without an operand");
+            }
+
+            IExpressionCommand command = commands.get(position++);
+            Node node;
+            if (command instanceof COpndCommand operand) {
+                operands.add(operand.getValue());
+                node = new Operand(operands.size() - 1);
+            } else if (command instanceof IParenthesisCommand parenthesis && parenthesis.getCommand() == IDC_OPENP) {
+                node = expression(0);
+                if (position < commands.size()) {
+                    if (!(commands.get(position) instanceof IParenthesisCommand closing) || closing.getCommand() != IDC_CLOSEP) {
+                        throw new IllegalArgumentException("Expected closing parenthesis at position " + position);
+                    }
+                    position++;
+                }
+            } else {
+                throw new IllegalArgumentException("Expected an operand at position " + (position - 1));
+            }
+
+            while (position < commands.size() && commands.get(position) instanceof IUnaryCommand unaryCommand) {
+                position++;
+                node = unary(unaryCommand.getCommands(), node);
+            }
+
+            return node;
+        }
+
+        private static Node unary(List<Integer> unaryCommands, Node arg) {
+            // Angle dependent functions are recorded as (angle type, function).
+            AngleType angleType = AngleType.Degrees;
+            int op = unaryCommands.getLast();
+            if (unaryCommands.size() > 1) {
+                angleType = AngleType.fromInt(unaryCommands.getFirst() - IDC_DEG);
+            }
+
+            UnaryFunction function = unaryFunction(op);
+            if (function == null) {
+                throw new IllegalArgumentException("Unsupported unary operator: " + op);
+            }
+
+            return new Unary(function, isTrigonometric(op), angleType, arg);
+        }
+    }
+}
@@ -368,27 +368,36 @@ public class History {
     }
 
     // To Update the operands in the Expression according to the current Radix
+    // Operands remember their rendered form per radix (see COpndCommand.getString), only the ones whose text actually
+    // changed are re-parsed into commands, and the display is told which tokens changed instead of redrawing everything.
     void updateHistoryExpression(uint radix, int precision) {
         if (spTokens == null) {
             return;
         }
 
-        for (var token : spTokens) {
+        List<Integer> changedTokens = new ArrayList<>();
+
+        for (int i = 0; i < spTokens.size(); i++) {
+            var token = spTokens.get(i);
             int commandPosition = token.getValue();
             if (commandPosition != -1) {
                 IExpressionCommand expCommand = spCommands.get(commandPosition);
 
                 if (expCommand != null && CommandType.OperandCommand == expCommand.getCommandType()) {
                     COpndCommand opndCommand = (COpndCommand) expCommand;
-                    if (opndCommand != null) {
-                        token.setKey(opndCommand.getString(radix, precision));
-                        opndCommand.setCommands(getOperandCommandsFromString(token.getKey()));
+                    String rendered = opndCommand.getString(radix, precision, decimalSymbol);
+                    if (!rendered.equals(token.getKey())) {
+                        token.setKey(rendered);
+                        opndCommand.setCommands(getOperandCommandsFromString(rendered));
+                        changedTokens.add(i);
                     }
                 }
             }
         }
 
-        setExpressionDisplay();
+        if (!changedTokens.isEmpty() && null != calcDisplay) {
+            calcDisplay.setExpressionDisplay(spTokens, spCommands, changedTokens);
+        }
     }
 
     void setDecimalSymbol(char decimalSymbol) {
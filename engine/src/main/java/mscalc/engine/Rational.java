@@ -4,8 +4,12 @@ import mscalc.engine.cpp.*;
 import mscalc.engine.ratpack.Num;
 import mscalc.engine.ratpack.RatPack;
 
+import static mscalc.engine.ratpack.CalcErr.CALC_E_DIVIDEBYZERO;
+import static mscalc.engine.ratpack.CalcErr.CALC_E_INDEFINITE;
 import static mscalc.engine.ratpack.Conv.*;
 import static mscalc.engine.ratpack.Logic.*;
+import static mscalc.engine.ratpack.RatPack.DUPRAT;
+import static mscalc.engine.ratpack.RatPack.NEGRAT;
 import static mscalc.engine.ratpack.Rat.*;
 import static mscalc.engine.ratpack.Support.*;
 
@@ -17,27 +21,40 @@ public class Rational {
     // Default Precision to use for Rational calculations
     public static final int RATIONAL_PRECISION = 128;
 
-    private final Number p, q;
+    // Never changed once the Rational is constructed, so it is shared freely
+    // between Rationals and threads and passed to ratpack as the read only
+    // operand without copying. The sign is always kept in the numerator,
+    // addrat moves the denominator sign of its operands in place otherwise.
+    // Null for the small form.
+    private final RatPack.RAT rat;
+
+    // The small form p / q, used while the numerator and the denominator fit in a long.
+    // Arithmetic on two small values is done with overflow checked long operations that
+    // produce the same numerator and denominator as ratpack would (with its default
+    // GcdPolicy ratpack does not reduce numbers this small), on overflow the operands
+    // are promoted to ratpack. Results of ratpack are reduced by their gcd, see GcdPolicy.
+    // q is always positive.
+    private final long p;
+    private final long q;
 
     public Rational() {
-        this.p = new Number();
-        this.q = new Number(1, 0, UIntArray.ofValues(1));
+        this(0L, 1L);
     }
 
     public Rational(Number n) {
-        int qExp = 0;
-        if (n.exp() < 0)
-        {
-            qExp -= n.exp();
-        }
-
-        this.p = new Number(n.sign(), 0, n.mantissa());
-        this.q = new Number(1, qExp, UIntArray.ofValues(1));
+        this(new Number(n.sign(), 0, n.mantissa()),
+             new Number(1, (n.exp() < 0) ? -n.exp() : 0, UIntArray.ofValues(1)));
     }
 
     public Rational(Number p, Number q) {
-        this.p = p;
-        this.q = q;
+        this(ratOf(p, q));
+    }
+
+    private static RatPack.RAT ratOf(Number p, Number q) {
+        RatPack.RAT rat = createrat();
+        rat.pp = p.toCNumber();
+        rat.pq = q.toCNumber();
+        return rat;
     }
 
     public static Rational of(int i) {
@@ -45,148 +62,204 @@ public class Rational {
     }
 
     public Rational(int i) {
-        RatPack.RAT rat = i32torat(i);
-        this.p = Number.fromCNumber(rat.pp);
-        this.q = Number.fromCNumber(rat.pq);
+        this(i, 1L);
     }
 
     public Rational(uint i) {
-        RatPack.RAT pr = Ui32torat(i);
-
-        this.p = Number.fromCNumber(pr.pp);
-        this.q = Number.fromCNumber(pr.pq);
+        this(Integer.toUnsignedLong(i.raw()), 1L);
     }
 
     public Rational(ulong ul) {
-        int hi = (int)(ul.raw() >>> 32);
-        int lo = (int)(ul.raw());
+        this(ul.raw() >= 0 ? null : Ui64torat(ul.raw()), ul.raw(), 1L);
+    }
 
-        Rational temp = (Rational.of(hi).shiftedLeft(Rational.of(32))).bitOr(Rational.of(lo));
+    private Rational(long p, long q) {
+        this(null, p, q);
+    }
+
+    private Rational(RatPack.RAT rat) {
+        this(normalized(rat), 0L, 0L);
+    }
+
+    // Keeps rat, or the small form when rat is null or fits in it.
+    private Rational(RatPack.RAT rat, long p, long q) {
+        if (rat != null && isnumi64(rat.pp) && isnumi64(rat.pq)) {
+            p = numtoi64(rat.pp);
+            q = numtoi64(rat.pq);
+            rat = null;
+        }
+
+        this.rat = rat;
+        this.p = p;
+        this.q = q;
+    }
 
-        this.p = temp.p();
-        this.q = temp.q();
+    private static RatPack.RAT normalized(RatPack.RAT rat) {
+        if (rat.pq.sign == -1) {
+            rat.pp.sign *= -1;
+            rat.pq.sign = 1;
+        }
+        return rat;
     }
 
+    /**
+     * Copies the given rational, it stays owned by the caller.
+     */
     public static Rational fromCRational(RatPack.RAT cRational) {
-        return new Rational(
-                Number.fromCNumber(cRational.pp),
-                Number.fromCNumber(cRational.pq));
+        return new Rational(DUPRAT(cRational));
+    }
+
+    /**
+     * Takes over a rational that was just produced by ratpack, without copying.
+     * Nobody may change cRational afterwards.
+     */
+    static Rational adopt(RatPack.RAT cRational) {
+        return new Rational(cRational);
     }
 
+    /**
+     * Returns a copy that the caller can pass to ratpack as the changed operand.
+     */
     public RatPack.RAT toCRational() {
-        RatPack.RAT ret = createrat();
-        ret.pp = this.p.toCNumber();
-        ret.pq = this.q.toCNumber();
-        return ret;
+        return (this.rat != null) ? DUPRAT(this.rat) : smallToRat();
+    }
+
+    // Read only view, see rat. A new rational for the small form.
+    RatPack.RAT cRational() {
+        return (this.rat != null) ? this.rat : smallToRat();
+    }
+
+    private RatPack.RAT smallToRat() {
+        RatPack.RAT rat = createrat();
+        rat.pp = i64tonum(this.p);
+        rat.pq = i64tonum(this.q);
+        return rat;
+    }
+
+    private boolean isSmall() {
+        return this.rat == null;
     }
 
     public Number p() {
-        return this.p;
+        return Number.fromCNumber(cRational().pp);
     }
 
     public Number q() {
-        return this.q;
+        return Number.fromCNumber(cRational().pq);
     }
 
     public Rational negated() {
-        return new Rational(p.negated(), q);
+        if (isSmall() && this.p != Long.MIN_VALUE) {
+            return new Rational(-this.p, this.q);
+        }
+
+        // NEGRAT shares the mantissas, which is fine since neither side changes them.
+        return new Rational(NEGRAT(cRational()));
     }
 
     public Rational plus(Rational other) {
-        Ptr<RatPack.RAT> lhsRat = new Ptr<>(this.toCRational());
-        RatPack.RAT rhsRat = other.toCRational();
-
-        addrat(lhsRat, rhsRat, RATIONAL_PRECISION);
+        if (isSmall() && other.isSmall()) {
+            try {
+                if (this.q == other.q) {
+                    return new Rational(Math.addExact(this.p, other.p), this.q);
+                }
+                return new Rational(
+                        Math.addExact(Math.multiplyExact(this.p, other.q), Math.multiplyExact(this.q, other.p)),
+                        Math.multiplyExact(this.q, other.q));
+            } catch (ArithmeticException overflow) {
+                // Promote to ratpack
+            }
+        }
 
-        return Rational.fromCRational(lhsRat.deref());
+        return new Rational(addrat(this.toCRational(), other.cRational(), RATIONAL_PRECISION, true));
     }
 
     public Rational minus(Rational other) {
-        Ptr<RatPack.RAT> lhsRat = new Ptr<>(this.toCRational());
-        RatPack.RAT rhsRat = other.toCRational();
-
-        subrat(lhsRat, rhsRat, RATIONAL_PRECISION);
+        if (isSmall() && other.isSmall()) {
+            try {
+                if (this.q == other.q) {
+                    return new Rational(Math.subtractExact(this.p, other.p), this.q);
+                }
+                return new Rational(
+                        Math.subtractExact(Math.multiplyExact(this.p, other.q), Math.multiplyExact(this.q, other.p)),
+                        Math.multiplyExact(this.q, other.q));
+            } catch (ArithmeticException overflow) {
+                // Promote to ratpack
+            }
+        }
 
-        return Rational.fromCRational(lhsRat.deref());
+        return new Rational(subrat(this.toCRational(), other.cRational(), RATIONAL_PRECISION, true));
     }
 
     public Rational times(Rational other) {
-        Ptr<RatPack.RAT> lhsRat = new Ptr<>(this.toCRational());
-        RatPack.RAT rhsRat = other.toCRational();
-
-        mulrat(lhsRat, rhsRat, RATIONAL_PRECISION);
+        if (isSmall() && other.isSmall()) {
+            if (this.p == 0) {
+                return new Rational(0L, 1L);
+            }
+
+            try {
+                return new Rational(Math.multiplyExact(this.p, other.p), Math.multiplyExact(this.q, other.q));
+            } catch (ArithmeticException overflow) {
+                // Promote to ratpack
+            }
+        }
 
-        return Rational.fromCRational(lhsRat.deref());
+        return new Rational(mulrat(this.toCRational(), other.cRational(), RATIONAL_PRECISION, true));
     }
 
     public Rational dividedBy(Rational other) {
-        Ptr<RatPack.RAT> lhsRat = new Ptr<>(this.toCRational());
-        RatPack.RAT rhsRat = other.toCRational();
-
-        divrat(lhsRat, rhsRat, RATIONAL_PRECISION);
+        if (isSmall() && other.isSmall()) {
+            if (this.p == 0) {
+                if (other.p == 0) {
+                    throw new ErrorCodeException(CALC_E_INDEFINITE);
+                }
+                return new Rational(0L, 1L);
+            }
+            if (other.p == 0) {
+                throw new ErrorCodeException(CALC_E_DIVIDEBYZERO);
+            }
+
+            try {
+                long p = Math.multiplyExact(this.p, other.q);
+                long q = Math.multiplyExact(this.q, other.p);
+                return (q > 0) ? new Rational(p, q) : new Rational(Math.negateExact(p), Math.negateExact(q));
+            } catch (ArithmeticException overflow) {
+                // Promote to ratpack
+            }
+        }
 
-        return Rational.fromCRational(lhsRat.deref());
+        return new Rational(divrat(this.toCRational(), other.cRational(), RATIONAL_PRECISION, true));
     }
 
     public Rational modulo(Rational other) {
-        Ptr<RatPack.RAT> lhsRat = new Ptr<>(this.toCRational());
-        RatPack.RAT rhsRat = other.toCRational();
-
-        remrat(lhsRat, rhsRat);
-
-        return Rational.fromCRational(lhsRat.deref());
+        return new Rational(remrat(this.toCRational(), other.cRational()));
     }
 
     public Rational shiftedLeft(Rational other) {
-        Ptr<RatPack.RAT> lhsRat = new Ptr<>(this.toCRational());
-        RatPack.RAT rhsRat = other.toCRational();
-
-        lshrat(lhsRat, rhsRat, RATIONAL_BASE, RATIONAL_PRECISION);
-
-        return Rational.fromCRational(lhsRat.deref());
+        return new Rational(lshrat(this.toCRational(), other.cRational(), RATIONAL_BASE, RATIONAL_PRECISION));
     }
 
     public Rational shiftedRight(Rational other) {
-        Ptr<RatPack.RAT> lhsRat = new Ptr<>(this.toCRational());
-        RatPack.RAT rhsRat = other.toCRational();
-
-        rshrat(lhsRat, rhsRat, RATIONAL_BASE, RATIONAL_PRECISION);
-
-        return Rational.fromCRational(lhsRat.deref());
+        return new Rational(rshrat(this.toCRational(), other.cRational(), RATIONAL_BASE, RATIONAL_PRECISION));
     }
 
     public Rational bitAnd(Rational other) {
-        Ptr<RatPack.RAT> lhsRat = new Ptr<>(this.toCRational());
-        RatPack.RAT rhsRat = other.toCRational();
-
-        andrat(lhsRat, rhsRat, RATIONAL_BASE, RATIONAL_PRECISION);
-
-        return Rational.fromCRational(lhsRat.deref());
+        return new Rational(andrat(this.toCRational(), other.cRational(), RATIONAL_BASE, RATIONAL_PRECISION));
     }
 
     public Rational bitOr(Rational other) {
-        Ptr<RatPack.RAT> lhsRat = new Ptr<>(this.toCRational());
-        RatPack.RAT rhsRat = other.toCRational();
-
-        orrat(lhsRat, rhsRat, RATIONAL_BASE, RATIONAL_PRECISION);
-
-        return Rational.fromCRational(lhsRat.deref());
+        return new Rational(orrat(this.toCRational(), other.cRational(), RATIONAL_BASE, RATIONAL_PRECISION));
     }
 
     public Rational bitXor(Rational other) {
-        Ptr<RatPack.RAT> lhsRat = new Ptr<>(this.toCRational());
-        RatPack.RAT rhsRat = other.toCRational();
-
-        xorrat(lhsRat, rhsRat, RATIONAL_BASE, RATIONAL_PRECISION);
-
-        return Rational.fromCRational(lhsRat.deref());
+        return new Rational(xorrat(this.toCRational(), other.cRational(), RATIONAL_BASE, RATIONAL_PRECISION));
     }
 
     public boolean isEqual(Rational other) {
-        RatPack.RAT lhs = this.toCRational();
-        RatPack.RAT rhs = other.toCRational();
-
-        return rat_equ(lhs, rhs, RATIONAL_PRECISION);
+        if (isSmall() && other.isSmall()) {
+            return compareSmall(other) == 0;
+        }
+        return rat_equ(cRational(), other.cRational(), RATIONAL_PRECISION);
     }
 
     public boolean isNotEqual(Rational other) {
@@ -194,38 +267,72 @@ public class Rational {
     }
 
     public boolean isLessThan(Rational other) {
-        RatPack.RAT lhs = this.toCRational();
-        RatPack.RAT rhs = other.toCRational();
-
-        return rat_lt(lhs, rhs, RATIONAL_PRECISION);
+        if (isSmall() && other.isSmall()) {
+            return compareSmall(other) < 0;
+        }
+        return rat_lt(cRational(), other.cRational(), RATIONAL_PRECISION);
     }
 
     public boolean isGreaterThan(Rational other) {
-        RatPack.RAT lhs = this.toCRational();
-        RatPack.RAT rhs = other.toCRational();
-
-        return rat_gt(lhs, rhs, RATIONAL_PRECISION);
+        if (isSmall() && other.isSmall()) {
+            return compareSmall(other) > 0;
+        }
+        return rat_gt(cRational(), other.cRational(), RATIONAL_PRECISION);
     }
 
     public boolean isLessOrEqual(Rational other) {
-        RatPack.RAT lhs = this.toCRational();
-        RatPack.RAT rhs = other.toCRational();
-
-        return rat_le(lhs, rhs, RATIONAL_PRECISION);
+        if (isSmall() && other.isSmall()) {
+            return compareSmall(other) <= 0;
+        }
+        return rat_le(cRational(), other.cRational(), RATIONAL_PRECISION);
     }
 
     public boolean isGreaterOrEqual(Rational other) {
-        RatPack.RAT lhs = this.toCRational();
-        RatPack.RAT rhs = other.toCRational();
+        if (isSmall() && other.isSmall()) {
+            return compareSmall(other) >= 0;
+        }
+        return rat_ge(cRational(), other.cRational(), RATIONAL_PRECISION);
+    }
 
-        return rat_ge(lhs, rhs, RATIONAL_PRECISION);
+    // Compares two small forms exactly, the cross products are done in 128 bits.
+    private int compareSmall(Rational other) {
+        long lhsHigh = Math.multiplyHigh(this.p, other.q);
+        long rhsHigh = Math.multiplyHigh(other.p, this.q);
+        if (lhsHigh != rhsHigh) {
+            return Long.compare(lhsHigh, rhsHigh);
+        }
+        return Long.compareUnsigned(this.p * other.q, other.p * this.q);
     }
 
     public String toString(uint radix, RatPack.NumberFormat fmt, int precision) {
-        return RatToString(new Ptr<>(this.toCRational()), fmt, radix, precision);
+        return toString(radix, fmt, precision, DEFAULT_DECIMAL_SEPARATOR);
+    }
+
+    public String toString(uint radix, RatPack.NumberFormat fmt, int precision, char decimalSeparator) {
+        return DisplayStringCache.render(cRational(), radix, fmt, precision, decimalSeparator);
     }
 
     public ulong toULong() {
-        return rattoUi64(this.toCRational(), RATIONAL_BASE, RATIONAL_PRECISION);
+        if (isSmall() && this.q == 1 && this.p >= 0) {
+            return ulong.of(this.p);
+        }
+
+        RatPack.RAT rat = cRational();
+        if (isratUi64(rat)) {
+            return ulong.of(rattoUi64bits(rat));
+        }
+        return rattoUi64(rat, RATIONAL_BASE, RATIONAL_PRECISION);
+    }
+
+    /**
+     * Tells if this is an integer in [0, 2^64) that {@link #toULong()} reads directly from
+     * the digits, without any rational arithmetic. Integers kept as a fraction, like 4/2,
+     * are not recognised.
+     */
+    boolean isExactULong() {
+        if (isSmall()) {
+            return this.q == 1 && this.p >= 0;
+        }
+        return isratUi64(this.rat);
     }
 }
@@ -1,7 +1,5 @@
 package mscalc.engine;
 
-import mscalc.engine.cpp.Ptr;
-import mscalc.engine.ratpack.RatPack;
 import mscalc.engine.ratpack.RatPack.AngleType;
 
 import static mscalc.engine.Rational.RATIONAL_BASE;
@@ -20,22 +18,15 @@ public class RationalMath {
     private RationalMath() { }
 
     public static Rational frac(Rational r) {
-        var rat = toRatPtr(r);
-        fracrat(rat, RATIONAL_BASE, RATIONAL_PRECISION);
-        return Rational.fromCRational(rat.deref());
+        return Rational.adopt(fracrat(r.toCRational(), RATIONAL_BASE, RATIONAL_PRECISION));
     }
 
     public static Rational integer(Rational r) {
-        var rat = toRatPtr(r);
-        intrat(rat, RATIONAL_BASE, RATIONAL_PRECISION);
-        return Rational.fromCRational(rat.deref());
+        return Rational.adopt(intrat(r.toCRational(), RATIONAL_BASE, RATIONAL_PRECISION));
     }
 
     public static Rational pow(Rational x, Rational y) {
-        var xrat = toRatPtr(x);
-        var yrat = y.toCRational();
-        powrat(xrat, yrat, RATIONAL_BASE, RATIONAL_PRECISION);
-        return Rational.fromCRational(xrat.deref());
+        return Rational.adopt(powrat(x.toCRational(), y.toCRational(), RATIONAL_BASE, RATIONAL_PRECISION));
     }
 
     public static Rational root(Rational base, Rational root) {
@@ -43,27 +34,19 @@ public class RationalMath {
     }
 
     public static Rational factorial(Rational r) {
-        var rat = toRatPtr(r);
-        factrat(rat, RATIONAL_BASE, RATIONAL_PRECISION);
-        return Rational.fromCRational(rat.deref());
+        return Rational.adopt(factrat(r.toCRational(), RATIONAL_BASE, RATIONAL_PRECISION));
     }
 
     public static Rational exp(Rational r) {
-        var rat = toRatPtr(r);
-        exprat(rat, RATIONAL_BASE, RATIONAL_PRECISION);
-        return Rational.fromCRational(rat.deref());
+        return Rational.adopt(exprat(r.toCRational(), RATIONAL_BASE, RATIONAL_PRECISION));
     }
 
     public static Rational ln(Rational r) {
-        var rat = toRatPtr(r);
-        lograt(rat, RATIONAL_PRECISION);
-        return Rational.fromCRational(rat.deref());
+        return Rational.adopt(lograt(r.toCRational(), RATIONAL_PRECISION));
     }
 
     public static Rational log10(Rational r) {
-        var rat = toRatPtr(r);
-        log10rat(rat, RATIONAL_PRECISION);
-        return Rational.fromCRational(rat.deref());
+        return Rational.adopt(log10rat(r.toCRational(), RATIONAL_PRECISION));
     }
 
     public static Rational invert(Rational r) {
@@ -75,75 +58,51 @@ public class RationalMath {
     }
 
     public static Rational sin(Rational r, AngleType angleType) {
-        var rat = toRatPtr(r);
-        sinanglerat(rat, angleType, RATIONAL_BASE, RATIONAL_PRECISION);
-        return Rational.fromCRational(rat.deref());
+        return Rational.adopt(sinanglerat(r.toCRational(), angleType, RATIONAL_BASE, RATIONAL_PRECISION));
     }
 
     public static Rational cos(Rational r, AngleType angleType) {
-        var rat = toRatPtr(r);
-        cosanglerat(rat, angleType, RATIONAL_BASE, RATIONAL_PRECISION);
-        return Rational.fromCRational(rat.deref());
+        return Rational.adopt(cosanglerat(r.toCRational(), angleType, RATIONAL_BASE, RATIONAL_PRECISION));
     }
 
     public static Rational tan(Rational r, AngleType angleType) {
-        var rat = toRatPtr(r);
-        tananglerat(rat, angleType, RATIONAL_BASE, RATIONAL_PRECISION);
-        return Rational.fromCRational(rat.deref());
+        return Rational.adopt(tananglerat(r.toCRational(), angleType, RATIONAL_BASE, RATIONAL_PRECISION));
     }
 
     public static Rational asin(Rational r, AngleType angleType) {
-        var rat = toRatPtr(r);
-        asinanglerat(rat, angleType, RATIONAL_BASE, RATIONAL_PRECISION);
-        return Rational.fromCRational(rat.deref());
+        return Rational.adopt(asinanglerat(r.toCRational(), angleType, RATIONAL_BASE, RATIONAL_PRECISION));
     }
 
     public static Rational acos(Rational r, AngleType angleType) {
-        var rat = toRatPtr(r);
-        acosanglerat(rat, angleType, RATIONAL_BASE, RATIONAL_PRECISION);
-        return Rational.fromCRational(rat.deref());
+        return Rational.adopt(acosanglerat(r.toCRational(), angleType, RATIONAL_BASE, RATIONAL_PRECISION));
     }
 
     public static Rational atan(Rational r, AngleType angleType) {
-        var rat = toRatPtr(r);
-        atananglerat(rat, angleType, RATIONAL_BASE, RATIONAL_PRECISION);
-        return Rational.fromCRational(rat.deref());
+        return Rational.adopt(atananglerat(r.toCRational(), angleType, RATIONAL_BASE, RATIONAL_PRECISION));
     }
 
     public static Rational sinh(Rational r) {
-        var rat = toRatPtr(r);
-        sinhrat(rat, RATIONAL_BASE, RATIONAL_PRECISION);
-        return Rational.fromCRational(rat.deref());
+        return Rational.adopt(sinhrat(r.toCRational(), RATIONAL_BASE, RATIONAL_PRECISION));
     }
 
     public static Rational cosh(Rational r) {
-        var rat = toRatPtr(r);
-        coshrat(rat, RATIONAL_BASE, RATIONAL_PRECISION);
-        return Rational.fromCRational(rat.deref());
+        return Rational.adopt(coshrat(r.toCRational(), RATIONAL_BASE, RATIONAL_PRECISION));
     }
 
     public static Rational tanh(Rational r) {
-        var rat = toRatPtr(r);
-        tanhrat(rat, RATIONAL_BASE, RATIONAL_PRECISION);
-        return Rational.fromCRational(rat.deref());
+        return Rational.adopt(tanhrat(r.toCRational(), RATIONAL_BASE, RATIONAL_PRECISION));
     }
 
     public static Rational asinh(Rational r) {
-        var rat = toRatPtr(r);
-        asinhrat(rat, RATIONAL_BASE, RATIONAL_PRECISION);
-        return Rational.fromCRational(rat.deref());
+        return Rational.adopt(asinhrat(r.toCRational(), RATIONAL_BASE, RATIONAL_PRECISION));
     }
 
     public static Rational acosh(Rational r) {
-        var rat = toRatPtr(r);
-        acoshrat(rat, RATIONAL_BASE, RATIONAL_PRECISION);
-        return Rational.fromCRational(rat.deref());
+        return Rational.adopt(acoshrat(r.toCRational(), RATIONAL_BASE, RATIONAL_PRECISION));
     }
 
     public static Rational atanh(Rational r) {
-        var rat = toRatPtr(r);
-        atanhrat(rat, RATIONAL_PRECISION);
-        return Rational.fromCRational(rat.deref());
+        return Rational.adopt(atanhrat(r.toCRational(), RATIONAL_PRECISION));
     }
 
     /// <summary>
@@ -155,15 +114,6 @@ public class RationalMath {
     /// use <see cref="Rational::operator%"/> instead to calculate the remainder after division.
     /// </remarks>
     public static Rational mod(Rational x, Rational y) {
-        var xRat = toRatPtr(x);
-        var yRat = y.toCRational();
-
-        modrat(xRat, yRat);
-
-        return Rational.fromCRational(xRat.deref());
-    }
-
-    private static Ptr<RatPack.RAT> toRatPtr(Rational r) {
-        return new Ptr<>(r.toCRational());
+        return Rational.adopt(modrat(x.toCRational(), y.cRational()));
     }
 }
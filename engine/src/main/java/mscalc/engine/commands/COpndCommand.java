@@ -7,7 +7,9 @@ import mscalc.engine.ratpack.RatPack.NumberFormat;
 
 import java.util.ArrayList;
 import java.util.Collections;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 
 import static mscalc.engine.Commands.*;
 
@@ -16,6 +18,11 @@ public class COpndCommand implements IOpndCommand {
     private static final char chExp = 'e';
     private static final char chPlus = '+';
 
+    // The history re-renders its operands on every radix change, usually
+    // toggling between the same few radixes. More entries than this means
+    // precision or the separator changed, the old ones are of no use then.
+    private static final int MAX_RENDERED_FORMS = 8;
+
     private final List<Integer> commands = new ArrayList<>();
     boolean fNegative;
     boolean fSciFmt;
@@ -23,6 +30,9 @@ public class COpndCommand implements IOpndCommand {
     boolean fInitialized;
     private final StringBuilder token = new StringBuilder();
     private Rational value;
+    private final Map<RenderKey, String> rendered = new HashMap<>();
+
+    private record RenderKey(int radix, int precision, char decimalSeparator) { }
 
     public COpndCommand(List<Integer> commands, boolean fNegative, boolean fDecimal, boolean fSciFmt) {
         this.commands.addAll(commands);
@@ -36,6 +46,7 @@ public class COpndCommand implements IOpndCommand {
     public void initialize(Rational r) {
         this.value = r;
         this.fInitialized = true;
+        this.rendered.clear();
     }
 
     @Override
@@ -201,11 +212,28 @@ public class COpndCommand implements IOpndCommand {
         return CommandType.OperandCommand;
     }
 
-    public String getString(uint radix, int precision)
+    public Rational getValue()
+    {
+        return value;
+    }
+
+    public String getString(uint radix, int precision, char decimalSeparator)
     {
         if (fInitialized)
         {
-            return value.toString(radix, NumberFormat.Float, precision);
+            RenderKey key = new RenderKey(radix.toInt(), precision, decimalSeparator);
+            String result = rendered.get(key);
+            if (result == null)
+            {
+                if (rendered.size() >= MAX_RENDERED_FORMS)
+                {
+                    rendered.clear();
+                }
+
+                result = value.toString(radix, NumberFormat.Float, precision, decimalSeparator);
+                rendered.put(key, result);
+            }
+            return result;
         }
 
         return "";
@@ -46,6 +46,12 @@ public class UIntArray {
         return this.array.length;
     }
 
+    // Backing storage, NOT a copy. Used by the ratpack kernels to avoid
+    // boxing every digit into an uint.
+    public int[] raw() {
+        return this.array;
+    }
+
     public UIntArrayPtr pointer() {
         return new UIntArrayPtr(array);
     }
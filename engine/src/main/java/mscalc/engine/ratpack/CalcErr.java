@@ -57,6 +57,12 @@ public interface CalcErr {
     // The result of this function is Negative Infinity
     int CALC_E_NEGINFINITY = 0x80000004;
 
+    // CALC_E_ABORTED
+    //
+    // The operation was cancelled or ran out of its time budget
+    // before it could complete, see CancellationToken
+    int CALC_E_ABORTED = 0x80000005;
+
     // CALC_E_INVALIDRANGE
     //
     // The given input is within the domain of the function but is beyond
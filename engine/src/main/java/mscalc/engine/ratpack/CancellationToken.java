@@ -0,0 +1,126 @@
+package mscalc.engine.ratpack;
+
+import mscalc.engine.cpp.ErrorCodeException;
+
+import java.time.Duration;
+
+import static mscalc.engine.ratpack.CalcErr.CALC_E_ABORTED;
+
+//-----------------------------------------------------------------------------
+//
+//  CancellationToken lets a caller stop a long running ratpack computation.
+//
+//  Like RatPackContext a token is bound to the calling thread, so it reaches
+//  every series loop without being passed through all the signatures. The
+//  loops call check() at term boundaries, which throws CALC_E_ABORTED when
+//  the bound token was cancelled, its deadline passed or the thread was
+//  interrupted. Threads without a token only pay for the interrupt check.
+//
+//  A token can be cancelled from any thread.
+//
+//  Setup work, like computing the shared constants of a RatPackContext, is
+//  done with NONE bound, half computed constants are of no use to anybody.
+//
+//-----------------------------------------------------------------------------
+public final class CancellationToken {
+    private static final ThreadLocal<CancellationToken> current = new ThreadLocal<>();
+
+    // Never expires, and hides the interrupt flag while bound.
+    public static final CancellationToken NONE = new CancellationToken(false, 0);
+
+    // System.nanoTime() based, only meaningful when hasDeadline is set.
+    private final long deadline;
+    private final boolean hasDeadline;
+
+    private volatile boolean cancelled = false;
+
+    private CancellationToken(boolean hasDeadline, long deadline) {
+        this.hasDeadline = hasDeadline;
+        this.deadline = deadline;
+    }
+
+    //----------------------------------------------------------------------------
+    //
+    //  FUNCTION: create
+    //
+    //  RETURN: A token that expires only when cancel() is called.
+    //
+    //----------------------------------------------------------------------------
+    public static CancellationToken create()
+    {
+        return new CancellationToken(false, Long.MAX_VALUE);
+    }
+
+    //----------------------------------------------------------------------------
+    //
+    //  FUNCTION: withTimeout
+    //
+    //  ARGUMENTS: time budget, measured from now.
+    //
+    //  RETURN: A token that expires when the budget is used up or when
+    //  cancel() is called, whichever comes first.
+    //
+    //----------------------------------------------------------------------------
+    public static CancellationToken withTimeout(Duration timeout)
+    {
+        return new CancellationToken(true, System.nanoTime() + timeout.toNanos());
+    }
+
+    public void cancel()
+    {
+        cancelled = true;
+    }
+
+    public boolean isCancelled()
+    {
+        return cancelled || (hasDeadline && (System.nanoTime() - deadline) >= 0);
+    }
+
+    //----------------------------------------------------------------------------
+    //
+    //  FUNCTION: bind
+    //
+    //  ARGUMENTS: token checked by all ratpack calls made by this thread,
+    //  null unbinds the current one.
+    //
+    //  RETURN: The previously bound token (possibly null), so that callers
+    //  can restore it when they are done.
+    //
+    //----------------------------------------------------------------------------
+    public static CancellationToken bind(CancellationToken token)
+    {
+        CancellationToken previous = current.get();
+        if (token == null)
+        {
+            current.remove();
+        }
+        else
+        {
+            current.set(token);
+        }
+        return previous;
+    }
+
+    //----------------------------------------------------------------------------
+    //
+    //  FUNCTION: check
+    //
+    //  DESCRIPTION: Throws CALC_E_ABORTED if the token bound to the calling
+    //  thread has expired or the thread was interrupted. The interrupt flag
+    //  is left set for the caller to see.
+    //
+    //----------------------------------------------------------------------------
+    public static void check()
+    {
+        CancellationToken token = current.get();
+        if (token == NONE)
+        {
+            return;
+        }
+
+        if ((token != null && token.isCancelled()) || Thread.currentThread().isInterrupted())
+        {
+            throw new ErrorCodeException(CALC_E_ABORTED);
+        }
+    }
+}
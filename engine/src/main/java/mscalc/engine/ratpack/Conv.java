@@ -27,10 +27,21 @@ public interface Conv {
     String DIGITS = "0123456789ABCDEFGHIJKLMNOPQRSTUVWXYZabcdefghijklmnopqrstuvwxyz_@";
 
     // ratio of internal 'digits' to output 'digits'
-    // Calculated elsewhere as part of initialization and when base is changed
-    AtomicInteger g_ratio = new AtomicInteger(); // int(log(2L^BASEXPWR)/log(radix))
-    // Default decimal separator
-    Ptr<Character> g_decimalSeparator = new Ptr<>('.');
+    // Calculated as part of the RatPackContext bound to the calling thread
+    static int g_ratio() // int(log(2L^BASEXPWR)/log(radix))
+    {
+        return RatPackContext.current().ratio;
+    }
+
+    // Numbers longer than this many BASEX digits (or the radix digits that
+    // fit in them) are converted between radixes by divide and conquer,
+    // shorter ones digit by digit.
+    // Tunable at runtime or with -Dmscalc.ratpack.radixConversionThreshold=N.
+    AtomicInteger RADIX_CONVERSION_THRESHOLD = new AtomicInteger(Integer.getInteger("mscalc.ratpack.radixConversionThreshold", 8));
+
+    // Decimal separator used when the caller does not pass one. Engines pass
+    // their own, so that engines with different separators can coexist.
+    char DEFAULT_DECIMAL_SEPARATOR = '.';
 
     int CALC_INTSAFE_E_ARITHMETIC_OVERFLOW = (0x80070216); // 0x216 = 534 = ERROR_ARITHMETIC_OVERFLOW
     int CALC_ULONG_ERROR = ((int) 0xffffffff);
@@ -131,10 +142,6 @@ public interface Conv {
         return Calc_ULongLongToULong(ull64Result, pulResult);
     }
 
-    static void SetDecimalSeparator(char decimalSeparator) {
-        g_decimalSeparator.set(decimalSeparator);
-    }
-
     //-----------------------------------------------------------------------------
     //
     //    FUNCTION: _dupnum
@@ -148,9 +155,7 @@ public interface Conv {
     //-----------------------------------------------------------------------------
     static void dupnum(NUMBER dest, NUMBER src) {
         dest.sign = src.sign;
-        for (int i = 0; i < src.cdigit; i++) {
-            dest.mant.set(i, src.mant.at(i));
-        }
+        System.arraycopy(src.mant.raw(), 0, dest.mant.raw(), 0, src.cdigit);
         dest.exp = src.exp;
         dest.cdigit = src.cdigit;
     }
@@ -296,36 +301,140 @@ public interface Conv {
     //
     //-----------------------------------------------------------------------------
     static NUMBER numtonRadixx(NUMBER a, uint radix) {
-        Ptr<NUMBER> pnumret = new Ptr<>(i32tonum(0, BASEX)); // pnumret is the number in internal form.
-        Ptr<NUMBER> num_radix = new Ptr<>(i32tonum(radix.toInt(), BASEX));
+        NUMBER pnumret = i32tonum(0, BASEX); // pnumret is the number in internal form.
+        NUMBER num_radix = i32tonum(radix.toInt(), BASEX);
         UIntArrayPtr ptrdigit = a.mant.pointer(); // pointer to digit being worked on.
 
         // Digits are in reverse order, back over them LSD first.
         ptrdigit.advance(a.cdigit - 1);
 
-        NUMBER thisdigit = null; // thisdigit holds the current digit of a
-        for (int idigit = 0; idigit < a.cdigit; idigit++) {
-            mulnumx(pnumret, num_radix.deref());
-            // WARNING:
-            // This should just smack in each digit into a 'special' thisdigit.
-            // and not do the overhead of recreating the number type each time.
-            thisdigit = i32tonum(ptrdigit.deref().raw(), BASEX);
-            ptrdigit.advance(-1);
-
-            addnum(pnumret, thisdigit, BASEX);
-            destroynum(thisdigit);
+        int unit = RADIX_CONVERSION_THRESHOLD.get() * digitsperword(radix.toInt());
+        if (a.cdigit > unit) {
+            // Long numbers are split up, see radixtobasex.
+            pnumret = digitstonum(radixtobasex(a.mant.raw(), 0, a.cdigit, radix.toInt(), unit));
+        } else {
+            NUMBER thisdigit = null; // thisdigit holds the current digit of a
+            for (int idigit = 0; idigit < a.cdigit; idigit++) {
+                pnumret = mulnumx(pnumret, num_radix);
+                // WARNING:
+                // This should just smack in each digit into a 'special' thisdigit.
+                // and not do the overhead of recreating the number type each time.
+                thisdigit = i32tonum(ptrdigit.deref().raw(), BASEX);
+                ptrdigit.advance(-1);
+
+                pnumret = addnum(pnumret, thisdigit, BASEX);
+                destroynum(thisdigit);
+            }
         }
 
         // Calculate the exponent of the external base for scaling.
-        numpowi32x(num_radix, a.exp);
+        NUMBER scale = radixpowx(radix, a.exp);
 
         // ... and scale the result.
-        mulnumx(pnumret, num_radix.deref());
+        pnumret = mulnumx(pnumret, scale);
 
         // And propagate the sign.
-        pnumret.deref().sign = a.sign;
+        pnumret.sign = a.sign;
+
+        return pnumret;
+    }
+
+    // Number of radix digits that always fit in one BASEX digit.
+    private static int digitsperword(int radix) {
+        int digits = 0;
+        for (long power = radix; power <= (1L << BASEXPWR); power *= radix) {
+            digits++;
+        }
+        return Math.max(digits, 1);
+    }
+
+    // Wraps integer digits, least significant first, in a new number.
+    private static NUMBER digitstonum(int[] digits) {
+        int cdigit = NumKernel.significant(digits, digits.length);
 
-        return (pnumret.deref());
+        NUMBER pnumret = createnum(uint.of(cdigit));
+        System.arraycopy(digits, 0, pnumret.mant.raw(), 0, cdigit);
+        pnumret.cdigit = cdigit;
+        pnumret.exp = 0;
+        pnumret.sign = 1;
+
+        return (pnumret);
+    }
+
+    //-----------------------------------------------------------------------------
+    //
+    //    FUNCTION: radixtobasex
+    //
+    //    ARGUMENTS: radix digits d[off .. off+len), least significant first,
+    //    the radix and the length below which digits are converted one by one.
+    //
+    //    RETURN: The same integer with BASEX digits.
+    //
+    //    DESCRIPTION: Divide and conquer conversion. The digits are split at
+    //    unit * 2^k, the largest such length below len, so that
+    //      value = high * radix^(unit * 2^k) + low
+    //    where both halves are converted recursively and the power comes from
+    //    RadixPowers. With Karatsuba multiplication this is subquadratic,
+    //    the digit by digit conversion is quadratic.
+    //
+    //-----------------------------------------------------------------------------
+    static int[] radixtobasex(int[] d, int off, int len, int radix, int unit) {
+        if (len <= unit) {
+            return RadixPowers.hornertobasex(d, off, len, radix);
+        }
+
+        int k = 0;
+        while ((long) unit << (k + 1) < len) {
+            k++;
+        }
+        int lowlen = unit << k;
+
+        int[] low = radixtobasex(d, off, lowlen, radix, unit);
+        int[] high = radixtobasex(d, off + lowlen, len - lowlen, radix, unit);
+        int[] power = RadixPowers.basexpower(radix, unit, k);
+
+        int highlen = NumKernel.significant(high, high.length);
+        int[] ret = new int[highlen + power.length + 1];
+        NumKernel.mulx(high, highlen, power, power.length, ret);
+        NumKernel.addInto(ret, 0, low, NumKernel.significant(low, low.length));
+
+        return ret;
+    }
+
+    //-----------------------------------------------------------------------------
+    //
+    //    FUNCTION: basextoradix
+    //
+    //    ARGUMENTS: BASEX digits w[off .. off+len), least significant first,
+    //    the radix and the length below which digits are converted one by one.
+    //
+    //    RETURN: The same integer with digits of the radix.
+    //
+    //    DESCRIPTION: The inverse of radixtobasex, the halves are combined
+    //    with arithmetic in the radix.
+    //
+    //-----------------------------------------------------------------------------
+    static int[] basextoradix(int[] w, int off, int len, int radix, int unit) {
+        if (len <= unit) {
+            return RadixPowers.hornertoradix(w, off, len, radix);
+        }
+
+        int k = 0;
+        while ((long) unit << (k + 1) < len) {
+            k++;
+        }
+        int lowlen = unit << k;
+
+        int[] low = basextoradix(w, off, lowlen, radix, unit);
+        int[] high = basextoradix(w, off + lowlen, len - lowlen, radix, unit);
+        int[] power = RadixPowers.radixpower(radix, unit, k);
+
+        int highlen = NumKernel.significant(high, high.length);
+        int[] ret = new int[highlen + power.length + 1];
+        NumKernel.mul(high, highlen, power, power.length, ret, radix);
+        NumKernel.addInto(ret, 0, low, NumKernel.significant(low, low.length), radix);
+
+        return ret;
     }
 
     //-----------------------------------------------------------------------------
@@ -365,6 +474,29 @@ public interface Conv {
         return (pnumret);
     }
 
+    //-----------------------------------------------------------------------------
+    //
+    //    FUNCTION: pow2num
+    //
+    //    ARGUMENTS: non negative power of two.
+    //
+    //    RETURN: number
+    //
+    //    DESCRIPTION: Returns 2^power in the internal BASEX radix, that is
+    //    a single digit shifted by power/BASEXPWR digits.
+    //
+    //-----------------------------------------------------------------------------
+    static NUMBER pow2num(int power) {
+        NUMBER pnumret = createnum(uint.of(1));
+
+        pnumret.mant.raw()[0] = 1 << (power % BASEXPWR);
+        pnumret.cdigit = 1;
+        pnumret.exp = power / BASEXPWR;
+        pnumret.sign = 1;
+
+        return (pnumret);
+    }
+
     //-----------------------------------------------------------------------------
     //
     //    FUNCTION: rattoUi64
@@ -384,19 +516,191 @@ public interface Conv {
         // first get the LO 32 bit word
         Ptr<RAT> pint = new Ptr<>(DUPRAT(prat));
 
-        andrat(pint, rat_dword, radix, precision);      // & 0xFFFFFFFF   (2 ^ 32 -1)
+        andrat(pint, rat_dword(), radix, precision);      // & 0xFFFFFFFF   (2 ^ 32 -1)
         uint lo = rattoUi32(pint.deref(), radix, precision); // wont throw exception because already hi-dword chopped off
 
         pint.set(DUPRAT(prat)); // previous pint will get freed by this as well
         RAT prat32 = i32torat(32);
         rshrat(pint, prat32, radix, precision);
         intrat(pint, radix, precision);
-        andrat(pint, rat_dword, radix, precision); // & 0xFFFFFFFF   (2 ^ 32 -1)
+        andrat(pint, rat_dword(), radix, precision); // & 0xFFFFFFFF   (2 ^ 32 -1)
         uint hi = rattoUi32(pint.deref(), radix, precision);
 
         return (hi.toULong().shiftLeft(32)).bitOr(lo);
     }
 
+    //-----------------------------------------------------------------------------
+    //
+    //    FUNCTION: numbitlen
+    //
+    //    ARGUMENTS: integer number in internal base
+    //
+    //    RETURN: number of bits of the magnitude, -1 if the number has digits
+    //    after the radix point.
+    //
+    //-----------------------------------------------------------------------------
+    static long numbitlen(NUMBER pnum)
+    {
+        if (zernum(pnum))
+        {
+            return 0;
+        }
+        if (pnum.exp < 0)
+        {
+            return -1;
+        }
+
+        // Count the bits of the most significant digit, every other digit
+        // (and exponent step) adds BASEXPWR bits.
+        int msd = pnum.mant.raw()[pnum.cdigit - 1];
+        return (32 - Integer.numberOfLeadingZeros(msd)) + (long) (pnum.cdigit - 1 + pnum.exp) * BASEXPWR;
+    }
+
+    //-----------------------------------------------------------------------------
+    //
+    //    FUNCTION: isratUi64
+    //
+    //    ARGUMENTS: rational number in internal base
+    //
+    //    RETURN: true if the number is an integer in [0, 2^64) and q is one.
+    //
+    //    DESCRIPTION: Tells if rattoUi64bits can read the number directly
+    //    from its digits. Only looks at the representation, an integer with
+    //    q other than one, e.g. 4/2, is not recognised.
+    //
+    //-----------------------------------------------------------------------------
+    static boolean isratUi64(RAT prat)
+    {
+        NUMBER pq = prat.pq;
+        if (pq.cdigit != 1 || pq.exp != 0 || pq.mant.raw()[0] != 1)
+        {
+            return false;
+        }
+
+        NUMBER pp = prat.pp;
+        if (zernum(pp))
+        {
+            return true;
+        }
+        if (pp.sign * pq.sign != 1)
+        {
+            return false;
+        }
+
+        long bits = numbitlen(pp);
+        return bits >= 0 && bits <= 64;
+    }
+
+    //-----------------------------------------------------------------------------
+    //
+    //    FUNCTION: rattoUi64bits
+    //
+    //    ARGUMENTS: rational number accepted by isratUi64
+    //
+    //    RETURN: the 64 bits of the number, read them as unsigned
+    //
+    //-----------------------------------------------------------------------------
+    static long rattoUi64bits(RAT prat)
+    {
+        return numtoUi64bits(prat.pp);
+    }
+
+    //-----------------------------------------------------------------------------
+    //
+    //    FUNCTION: Ui64torat
+    //
+    //    ARGUMENTS: 64 bits, read as an unsigned integer
+    //
+    //    RETURN: Rational representation of the input.
+    //
+    //-----------------------------------------------------------------------------
+    static RAT Ui64torat(long bits)
+    {
+        RAT pratret = createrat();
+        pratret.pp = Ui64tonum(bits);
+        pratret.pq = i32tonum(1, BASEX);
+        return pratret;
+    }
+
+    //-----------------------------------------------------------------------------
+    //
+    //    FUNCTION: isnumi64
+    //
+    //    ARGUMENTS: number in internal base
+    //
+    //    RETURN: true if the number is an integer that numtoi64 can convert,
+    //    i.e. its magnitude is below 2^63.
+    //
+    //-----------------------------------------------------------------------------
+    static boolean isnumi64(NUMBER pnum)
+    {
+        long bits = numbitlen(pnum);
+        return bits >= 0 && bits <= 63;
+    }
+
+    //-----------------------------------------------------------------------------
+    //
+    //    FUNCTION: numtoi64
+    //
+    //    ARGUMENTS: number accepted by isnumi64
+    //
+    //    RETURN: the number as a signed long
+    //
+    //-----------------------------------------------------------------------------
+    static long numtoi64(NUMBER pnum)
+    {
+        long magnitude = numtoUi64bits(pnum);
+        return (pnum.sign < 0) ? -magnitude : magnitude;
+    }
+
+    //-----------------------------------------------------------------------------
+    //
+    //    FUNCTION: i64tonum
+    //
+    //    ARGUMENTS: signed long
+    //
+    //    RETURN: number in internal base
+    //
+    //-----------------------------------------------------------------------------
+    static NUMBER i64tonum(long ini64)
+    {
+        // The magnitude of Long.MIN_VALUE is 2^63, which is still right read as unsigned
+        NUMBER pnumret = Ui64tonum(Math.abs(ini64));
+        pnumret.sign = (ini64 < 0) ? -1 : 1;
+        return pnumret;
+    }
+
+    // Digits of the magnitude of an integer number, at most 64 bits.
+    private static long numtoUi64bits(NUMBER pnum)
+    {
+        int[] mant = pnum.mant.raw();
+
+        long bits = 0;
+        for (int i = pnum.cdigit - 1; i >= 0; i--)
+        {
+            bits = (bits << BASEXPWR) | mant[i];
+        }
+        return bits << (pnum.exp * BASEXPWR);
+    }
+
+    // 64 bits, read as unsigned, as a positive number in internal base.
+    private static NUMBER Ui64tonum(long bits)
+    {
+        NUMBER pnumret = createnum(uint.of(3));
+        int[] mant = pnumret.mant.raw();
+        pnumret.cdigit = 0;
+        pnumret.exp = 0;
+        pnumret.sign = 1;
+
+        do
+        {
+            mant[pnumret.cdigit++] = (int) (bits & ((1L << BASEXPWR) - 1));
+            bits >>>= BASEXPWR;
+        } while (bits != 0);
+
+        return pnumret;
+    }
+
     //-----------------------------------------------------------------------------
     //
     //    FUNCTION: numtoi32
@@ -501,6 +805,12 @@ public interface Conv {
     //
     //-----------------------------------------------------------------------------
     static String NumberToString(Ptr<NUMBER> pnum, NumberFormat format, uint radix, int precision)
+    {
+        return NumberToString(pnum, format, radix, precision, DEFAULT_DECIMAL_SEPARATOR);
+    }
+
+    // As above, with the given decimal separator.
+    static String NumberToString(Ptr<NUMBER> pnum, NumberFormat format, uint radix, int precision, char decimalSeparator)
     {
         stripzeroesnum(pnum, precision + 2);
         int length = pnum.deref().cdigit;
@@ -527,7 +837,7 @@ public interface Conv {
         {
             // Otherwise round.
             round.set(i32tonum(radix.toInt(), radix));
-            divnum(round, num_two, radix, precision);
+            divnum(round, num_two(), radix, precision);
 
             // Make round number exponent one below the LSD for the number.
             if (exponent > 0 || format == NumberFormat.Float)
@@ -576,7 +886,7 @@ public interface Conv {
             {
                 // WARNING: nesting/recursion, too much has been changed, need to
                 // re-figure format.
-                return NumberToString(pnum, oldFormat, radix, precision);
+                return NumberToString(pnum, oldFormat, radix, precision, decimalSeparator);
             }
         }
         else
@@ -632,7 +942,7 @@ public interface Conv {
         if (exponent <= 0 && !useSciForm)
         {
             result.append('0');
-            result.append(g_decimalSeparator.deref());
+            result.append(decimalSeparator);
             // Used up a digit unaccounted for.
         }
 
@@ -651,7 +961,7 @@ public interface Conv {
             // Be more regular in using a decimal point.
             if (exponent == 0)
             {
-                result.append(g_decimalSeparator.deref());
+                result.append(decimalSeparator);
             }
         }
 
@@ -662,7 +972,7 @@ public interface Conv {
             // Be more regular in using a decimal point.
             if (exponent == 0)
             {
-                result.append(g_decimalSeparator.deref());
+                result.append(decimalSeparator);
             }
         }
 
@@ -686,7 +996,7 @@ public interface Conv {
         }
 
         // Remove trailing decimal
-        if (!result.isEmpty() && result.charAt(result.length()-1) == g_decimalSeparator.deref())
+        if (!result.isEmpty() && result.charAt(result.length()-1) == decimalSeparator)
         {
             result.setLength(result.length()-1);
         }
@@ -753,6 +1063,12 @@ public interface Conv {
     }
 
     static NUMBER StringToNumber(String numberString, uint radix, int precision)
+    {
+        return StringToNumber(numberString, radix, precision, DEFAULT_DECIMAL_SEPARATOR);
+    }
+
+    // As above, with the given decimal separator.
+    static NUMBER StringToNumber(String numberString, uint radix, int precision, char decimalSeparator)
     {
         int expSign = 1;  // expSign is exponent sign ( +/- 1 )
         int expValue = 0; // expValue is exponent mantissa, should be unsigned
@@ -769,7 +1085,7 @@ public interface Conv {
         for (char c : numberString.toCharArray())
         {
             // If the character is the decimal separator, use L'.' for the purposes of the state machine.
-            char curChar = (c == g_decimalSeparator.deref() ? '.' : c);
+            char curChar = (c == decimalSeparator ? '.' : c);
 
             // Switch states based on the character we encountered
             switch (curChar)
@@ -894,25 +1210,19 @@ public interface Conv {
     //  ARGUMENTS:
     //              PNUMBER representation of a number.
     //              PNUMBER representation of a number.
-    //              int for Radix
     //
-    //  RETURN: Greatest common divisor in internal BASEX PNUMBER form.
+    //  RETURN: Greatest common divisor in internal BASEX PNUMBER form, it is
+    //          always positive. If one of the numbers is zero the other one
+    //          is returned, not a copy.
     //
-    //  DESCRIPTION: gcd uses remainders to find the greatest common divisor.
+    //  DESCRIPTION: gcd uses Lehmer's algorithm (NumKernel.gcd) on the
+    //  digits, a power of BASEX common to both numbers is kept as exponent.
     //
     //  ASSUMPTIONS: gcd assumes inputs are integers.
     //
-    //  NOTE: Before it was found that the TRIM macro actually kept the
-    //        size down cheaper than GCD, this routine was used extensively.
-    //        now it is not used but might be later.
-    //
     //-----------------------------------------------------------------------------
     static NUMBER gcd(NUMBER a, NUMBER b)
     {
-        NUMBER r = null;
-        Ptr<NUMBER> larger = new Ptr<>();
-        NUMBER smaller = null;
-
         if (zernum(a))
         {
             return b;
@@ -922,27 +1232,27 @@ public interface Conv {
             return a;
         }
 
-        if (lessnum(a, b))
-        {
-            larger.set( DUPNUM(b) );
-            smaller = DUPNUM(a);
-        }
-        else
-        {
-            larger.set( DUPNUM(a) );
-            smaller = DUPNUM(b);
-        }
+        int exp = Math.min(a.exp, b.exp);
+        int[] adigits = digitsfromexp(a, exp);
+        int[] bdigits = digitsfromexp(b, exp);
 
-        while (!zernum(smaller))
-        {
-            remnum(larger, smaller, BASEX);
-            // swap larger and smaller
-            r = larger.deref();
-            larger.set(smaller);
-            smaller = r;
-        }
+        int[] g = NumKernel.gcd(adigits, adigits.length, bdigits, bdigits.length);
 
-        return larger.deref();
+        NUMBER pnumret = createnum(uint.of(g.length));
+        System.arraycopy(g, 0, pnumret.mant.raw(), 0, g.length);
+        pnumret.cdigit = g.length;
+        pnumret.exp = exp;
+        pnumret.sign = 1;
+        return pnumret;
+    }
+
+    // Digits of the magnitude of a / BASEX^exp, exp is at most a.exp.
+    private static int[] digitsfromexp(NUMBER a, int exp)
+    {
+        int shift = a.exp - exp;
+        int[] digits = new int[a.cdigit + shift];
+        System.arraycopy(a.mant.raw(), 0, digits, shift, a.cdigit);
+        return digits;
     }
 
     //-----------------------------------------------------------------------------
@@ -960,20 +1270,50 @@ public interface Conv {
     //-----------------------------------------------------------------------------
     static void numpowi32(Ptr<NUMBER> proot, int power, uint radix, int precision)
     {
-        Ptr<NUMBER> lret = new Ptr<>(i32tonum(1, radix));
+        NUMBER lret = i32tonum(1, radix);
+        NUMBER root = proot.deref();
 
         while (power > 0)
         {
+            CancellationToken.check();
             if ((power & 1) != 0)
             {
-                mulnum(lret, proot.deref(), radix);
+                lret = mulnum(lret, root, radix);
             }
-            mulnum(proot, proot.deref(), radix);
-            proot.deref().TRIMNUM(precision);
+            root = mulnum(root, root, radix);
+            root.TRIMNUM(precision);
             power >>= 1;
         }
 
-        proot.set(lret.deref());
+        proot.set(lret);
+    }
+
+    // radix ** power in BASEX, from the table of the current context when it
+    // has the power, callers must not change the result.
+    private static NUMBER radixpowx(uint radix, int power)
+    {
+        NUMBER pow = RatPackContext.current().radix_pow(radix, power);
+        if (pow == null)
+        {
+            Ptr<NUMBER> root = new Ptr<>(i32tonum(radix.toInt(), BASEX));
+            numpowi32x(root, power);
+            pow = root.deref();
+        }
+        return pow;
+    }
+
+    // BASEX ** power in radix trimmed to precision, from the table of the
+    // current context when it has the power, callers must not change the result.
+    private static NUMBER basexpow(uint radix, int power, int precision)
+    {
+        NUMBER pow = RatPackContext.current().basex_pow(radix, power, precision);
+        if (pow == null)
+        {
+            Ptr<NUMBER> root = new Ptr<>(i32tonum(BASEX.toInt(), radix));
+            numpowi32(root, power, radix, precision);
+            pow = root.deref();
+        }
+        return pow;
     }
 
     //----------------------------------------------------------------------------
@@ -991,8 +1331,7 @@ public interface Conv {
 
     static NUMBER nRadixxtonum(NUMBER a, uint radix, int precision)
     {
-        Ptr<NUMBER> sum = new Ptr<>(i32tonum(0, radix));
-        Ptr<NUMBER> powofnRadix = new Ptr<>(i32tonum(BASEX.toInt(), radix));
+        NUMBER sum = i32tonum(0, radix);
 
         // A large penalty is paid for conversion of digits no one will see anyway.
         // limit the digits to the minimum of the existing precision or the
@@ -1005,7 +1344,15 @@ public interface Conv {
         }
 
         // scale by the internal base to the internal exponent offset of the LSD
-        numpowi32(powofnRadix, a.exp + (a.cdigit - cdigits), radix, precision);
+        NUMBER powofnRadix = basexpow(radix, a.exp + (a.cdigit - cdigits), precision);
+
+        int unit = RADIX_CONVERSION_THRESHOLD.get();
+        if (cdigits > unit)
+        {
+            int[] digits = basextoradix(a.mant.raw(), a.cdigit - cdigits, cdigits, radix.toInt(), unit);
+            sum = digitstonum(digits);
+            cdigits = 0;
+        }
 
         // Loop over all the relative digits from MSD to LSD
         UIntArrayPtr ptr = a.mant.pointer();
@@ -1015,20 +1362,20 @@ public interface Conv {
             // Loop over all the bits from MSB to LSB
             for (uint bitmask = BASEX.divide(uint.of(2)); !bitmask.isZero(); bitmask = bitmask.divide(uint.of(2)))
             {
-                addnum(sum, sum.deref(), radix);
+                sum = addnum(sum, sum, radix);
                 if (ptr.deref().bitAnd(bitmask).toBool())
                 {
-                    uint tmp = sum.deref().mant.at(0).bitOr(uint.ONE);
-                    sum.deref().mant.set(0, tmp);
+                    uint tmp = sum.mant.at(0).bitOr(uint.ONE);
+                    sum.mant.set(0, tmp);
                 }
             }
         }
 
         // Scale answer by power of internal exponent.
-        mulnum(sum, powofnRadix.deref(), radix);
+        sum = mulnum(sum, powofnRadix, radix);
 
-        sum.deref().sign = a.sign;
-        return sum.deref();
+        sum.sign = a.sign;
+        return sum;
     }
 
     static NUMBER RatToNumber(RAT prat, uint radix, int precision)
@@ -1042,20 +1389,23 @@ public interface Conv {
         temprat.pp.exp -= scaleby;
         temprat.pq.exp -= scaleby;
 
-        Ptr<NUMBER> p = new Ptr<>( nRadixxtonum(temprat.pp, radix, precision) );
+        NUMBER p = nRadixxtonum(temprat.pp, radix, precision);
         NUMBER q = nRadixxtonum(temprat.pq, radix, precision);
 
         // finally take the time hit to actually divide.
-        divnum(p, q, radix, precision);
-
-        return p.deref();
+        return divnum(p, q, radix, precision);
     }
 
     // Converts a PRAT to a PNUMBER and back to a PRAT, flattening/simplifying the rational in the process
+    static RAT flatrat(RAT rat, uint radix, int precision)
+    {
+        NUMBER pnum = RatToNumber(rat, radix, precision);
+        return numtorat(pnum, radix);
+    }
+
     static void flatrat(Ptr<RAT> prat, uint radix, int precision)
     {
-        NUMBER pnum = RatToNumber(prat.deref(), radix, precision);
-        prat.set( numtorat(pnum, radix) );
+        prat.set(flatrat(prat.deref(), radix, precision));
     }
 
     //-----------------------------------------------------------------------------
@@ -1084,49 +1434,57 @@ public interface Conv {
     //
     //    ARGUMENTS: root as rational, power as int32_t and precision as int32_t.
     //
-    //    RETURN: None root is changed.
-    //
-    //    DESCRIPTION: changes rational representation of root to
-    //    root ** power.
+    //    RETURN: root ** power, root may be changed in place.
     //
     //-----------------------------------------------------------------------------
-    static void ratpowi32(Ptr<RAT> proot, int power, int precision)
+    static RAT ratpowi32(RAT root, int power, int precision)
     {
         if (power < 0)
         {
             // Take the positive power and invert answer.
-            NUMBER pnumtemp = null;
-            ratpowi32(proot, -power, precision);
-            pnumtemp = proot.deref().pp;
-            proot.deref().pp = proot.deref().pq;
-            proot.deref().pq = pnumtemp;
+            root = ratpowi32(root, -power, precision);
+            NUMBER pnumtemp = root.pp;
+            root.pp = root.pq;
+            root.pq = pnumtemp;
+            return root;
         }
-        else
-        {
-            Ptr<RAT> lret = new Ptr<>();
-            lret.set( i32torat(1) );
 
-            while (power > 0)
-            {
-                if ((power & 1) != 0)
-                {
-                    Ptr<NUMBER> ppp = new Ptr<>(lret.deref().pp);
-                    mulnumx(ppp, proot.deref().pp);
-                    lret.deref().pp = ppp.deref();
+        RAT lret = i32torat(1);
 
-                    Ptr<NUMBER> ppq = new Ptr<>(lret.deref().pq);
-                    mulnumx(ppq, proot.deref().pq);
-                    lret.deref().pq = ppq.deref();
-                }
-
-                Rat.mulrat(proot, proot.deref(), precision);
-                trimit(lret, precision);
-                trimit(proot, precision);
-                power >>>= 1;
+        while (power > 0)
+        {
+            CancellationToken.check();
+            if ((power & 1) != 0)
+            {
+                lret.pp = mulnumx(lret.pp, root.pp);
+                lret.pq = mulnumx(lret.pq, root.pq);
             }
 
-            proot.set(lret.deref());
+            root = Rat.mulrat(root, root, precision);
+            trimit(lret, precision);
+            trimit(root, precision);
+            power >>>= 1;
         }
+
+        return lret;
+    }
+
+    //-----------------------------------------------------------------------------
+    //
+    //    FUNCTION: ratpowi32
+    //
+    //    ARGUMENTS: pointer to root as rational, power as int32_t and
+    //    precision as int32_t.
+    //
+    //    RETURN: None root is changed.
+    //
+    //    DESCRIPTION: changes rational representation of root to
+    //    root ** power.
+    //
+    //-----------------------------------------------------------------------------
+    static void ratpowi32(Ptr<RAT> proot, int power, int precision)
+    {
+        proot.set(ratpowi32(proot.deref(), power, precision));
     }
 
     //-----------------------------------------------------------------------------
@@ -1200,7 +1558,7 @@ public interface Conv {
     //-----------------------------------------------------------------------------
     static int rattoi32(RAT prat, uint radix, int precision)
     {
-        if (rat_gt(prat, rat_max_i32, precision) || rat_lt(prat, rat_min_i32, precision))
+        if (rat_gt(prat, rat_max_i32(), precision) || rat_lt(prat, rat_min_i32(), precision))
         {
             // Don't attempt rattoi32 of anything too big or small
             throw new ErrorCodeException(CALC_E_DOMAIN);
@@ -1213,7 +1571,7 @@ public interface Conv {
         divnumx(ppp, pint.deref().pq, precision);
         pint.deref().pp = ppp.deref();
 
-        pint.deref().pq = DUPNUM(num_one);
+        pint.deref().pq = DUPNUM(num_one());
 
         int lret = numtoi32(pint.deref().pp, BASEX);
         return (lret);
@@ -1234,7 +1592,7 @@ public interface Conv {
     //-----------------------------------------------------------------------------
     static uint rattoUi32(RAT prat, uint radix, int precision)
     {
-        if (rat_gt(prat, rat_dword, precision) || rat_lt(prat, rat_zero, precision))
+        if (rat_gt(prat, rat_dword(), precision) || rat_lt(prat, rat_zero(), precision))
         {
             // Don't attempt rattoui32 of anything too big or small
             throw new ErrorCodeException(CALC_E_DOMAIN);
@@ -1247,7 +1605,7 @@ public interface Conv {
         divnumx(ppp, pint.deref().pq, precision);
         pint.deref().pp = ppp.deref();
 
-        pint.deref().pq = DUPNUM(num_one);
+        pint.deref().pq = DUPNUM(num_one());
 
         int lret = numtoi32(pint.deref().pp, BASEX); // This happens to work even if it is only signed
         return uint.of(lret);
@@ -1274,9 +1632,15 @@ public interface Conv {
     //
     //-----------------------------------------------------------------------------
     static String RatToString(Ptr<RAT> prat, NumberFormat format, uint radix, int precision)
+    {
+        return RatToString(prat, format, radix, precision, DEFAULT_DECIMAL_SEPARATOR);
+    }
+
+    // As above, with the given decimal separator.
+    static String RatToString(Ptr<RAT> prat, NumberFormat format, uint radix, int precision, char decimalSeparator)
     {
         NUMBER p = RatToNumber(prat.deref(), radix, precision);
-        String result = NumberToString(new Ptr<>(p), format, radix, precision);
+        String result = NumberToString(new Ptr<>(p), format, radix, precision, decimalSeparator);
         return result;
     }
 
@@ -1301,6 +1665,15 @@ public interface Conv {
     static RAT StringToRat(boolean mantissaIsNegative, String mantissa,
                            boolean exponentIsNegative, String exponent,
                            uint radix, int precision)
+    {
+        return StringToRat(mantissaIsNegative, mantissa, exponentIsNegative, exponent,
+                radix, precision, DEFAULT_DECIMAL_SEPARATOR);
+    }
+
+    // As above, with the given decimal separator in the mantissa.
+    static RAT StringToRat(boolean mantissaIsNegative, String mantissa,
+                           boolean exponentIsNegative, String exponent,
+                           uint radix, int precision, char decimalSeparator)
     {
         Ptr<RAT> resultRat = new Ptr<>(); // holds exponent in rational form.
 
@@ -1311,18 +1684,18 @@ public interface Conv {
             if (exponent.isEmpty())
             {
                 // Exponent not specified, preset value to zero
-                resultRat.set(DUPRAT(rat_zero));
+                resultRat.set(DUPRAT(rat_zero()));
             }
             else
             {
                 // Exponent specified, preset value to one
-                resultRat.set(DUPRAT(rat_one));
+                resultRat.set(DUPRAT(rat_one()));
             }
         }
         else
         {
             // Mantissa specified, convert to number form.
-            NUMBER pnummant = StringToNumber(mantissa, radix, precision);
+            NUMBER pnummant = StringToNumber(mantissa, radix, precision, decimalSeparator);
             if (pnummant == null)
             {
                 return null;
@@ -1352,11 +1725,8 @@ public interface Conv {
         }
 
         // Convert native integral exponent form to rational multiplier form.
-        Ptr<NUMBER> pnumexp = new Ptr<>(i32tonum(radix.toInt(), BASEX));
-        numpowi32x(pnumexp, abs(expt));
-
         RAT pratexp = createrat();
-        pratexp.pp = DUPNUM(pnumexp.deref());
+        pratexp.pp = DUPNUM(radixpowx(radix, abs(expt)));
         pratexp.pq = i32tonum(1, BASEX);
 
         if (exponentIsNegative)
@@ -36,56 +36,137 @@ public interface Exp {
     //           0                              n
     //
     //-----------------------------------------------------------------------------
-    static void _exprat(Ptr<RAT> px, uint radix, int precision)
+    static RAT _exprat(RAT x, uint radix, int precision)
     {
-        TYLOR t = new TYLOR(px.deref(), precision);
+        if (Series.usebinarysplitting(precision))
+        {
+            return Series.exprat(x, precision);
+        }
 
-        t.pret.ppPtr(ppp -> addnum(ppp, num_one, radix));
-        t.pret.pqPtr(ppq -> addnum(ppq, num_one, radix));
+        TYLOR t = new TYLOR(x, precision);
+
+        t.pret.pp = addnum(t.pret.pp, num_one(), radix);
+        t.pret.pq = addnum(t.pret.pq, num_one(), radix);
 
         t.thisterm = DUPRAT(t.pret);
         t.n2 = Conv.i32tonum(0, radix);
 
         do
         {
-            t.NEXTTERM(px.deref(), () -> {
+            t.NEXTTERM(x, () -> {
                 t.n2 = t.INC(t.n2);
                 t.DIVNUM(t.n2);
             }, precision);
 
         } while (!t.thisterm.SMALL_ENOUGH_RAT(precision));
 
-        px.set(t.RESULT());
+        return t.RESULT();
     }
 
-    static void exprat(Ptr<RAT> px, uint radix, int precision)
+    static void _exprat(Ptr<RAT> px, uint radix, int precision)
     {
-        if (rat_gt(px.deref(), rat_max_exp, precision) || rat_lt(px.deref(), rat_min_exp, precision))
+        px.set(_exprat(px.deref(), radix, precision));
+    }
+
+    //-----------------------------------------------------------------------------
+    //
+    //  FUNCTION: exprat
+    //
+    //  ARGUMENTS: x PRAT representation of number to exponentiate
+    //
+    //  RETURN: exp  of x in PRAT form.
+    //
+    //  EXPLANATION: The argument is reduced before the series is used
+    //
+    //      x = k*ln(2) + r ; 0 <= r < ln(2)
+    //
+    //   so exp(x) = 2^k * exp(r), where 2^k is exact. The bits of r down to
+    //   2^-EXP_TABLE_SIZE are taken out with the cached e^(2^-j) table and
+    //   what remains is halved h more times
+    //
+    //                  -j1    -j2                h  2^h
+    //   exp(r) = e^(2^  ) * e^(2^  ) * ... * exp(s/2 )
+    //
+    //   so that the series needs only a few terms. Every halving costs one
+    //   squaring, h is chosen to balance squarings and series terms.
+    //
+    //-----------------------------------------------------------------------------
+    static RAT exprat(RAT x, uint radix, int precision)
+    {
+        if (rat_gt(x, rat_max_exp(), precision) || rat_lt(x, rat_min_exp(), precision))
         {
             // Don't attempt exp of anything large.
             throw new ErrorCodeException(CALC_E_DOMAIN);
         }
 
-        Ptr<RAT> pwr = new Ptr<>(DUPRAT(rat_exp));
-        Ptr<RAT> pint = new Ptr<>(DUPRAT(px.deref()));
+        // One extra digit in BASEX, the squarings below double the error.
+        final int wprecision = precision + Conv.g_ratio();
+
+        // k = floor(x/ln(2)), r = x - k*ln(2). A double is plenty to find k
+        // for abs(x) <= rat_max_exp, off by one is fixed up below.
+        int intpwr = (int)Math.floor(Series.rattodouble(x) / Math.log(2));
+
+        RAT pint = Rat.mulrat(Conv.i32torat(intpwr), ln_two(), wprecision);
+        x = Rat.subrat(x, pint, wprecision);
+        if (rat_lt(x, rat_zero(), wprecision))
+        {
+            x = Rat.addrat(x, ln_two(), wprecision);
+            intpwr--;
+        }
+        else if (rat_ge(x, ln_two(), wprecision))
+        {
+            x = Rat.subrat(x, ln_two(), wprecision);
+            intpwr++;
+        }
+
+        RAT pwr = DUPRAT(rat_one());
+        for (int j = 1; j <= RatPackContext.EXP_TABLE_SIZE; j++)
+        {
+            RAT bit = Conv.createrat();
+            bit.pp = DUPNUM(num_one());
+            bit.pq = Conv.pow2num(j);
+            if (rat_ge(x, bit, wprecision))
+            {
+                x = Rat.subrat(x, bit, wprecision);
+                pwr = Rat.mulrat(pwr, e_to_pow2(j), wprecision);
+            }
+        }
 
-        intrat(pint, radix, precision);
+        // Binary splitting does not get faster for smaller arguments.
+        int halvings = 0;
+        if (!Series.usebinarysplitting(wprecision))
+        {
+            int bits = wprecision * BASEXPWR / Conv.g_ratio();
+            halvings = Math.max(0, (int)Math.sqrt(bits) - RatPackContext.EXP_TABLE_SIZE);
+        }
 
-        final int intpwr = Conv.rattoi32(pint.deref(), radix, precision);
-        Conv.ratpowi32(pwr, intpwr, precision);
+        x.pq = BaseX.mulnumx(x.pq, Conv.pow2num(halvings));
+        x = _exprat(x, radix, wprecision);
+        for (int i = 0; i < halvings; i++)
+        {
+            x = Rat.mulrat(x, DUPRAT(x), wprecision);
+        }
 
-        Rat.subrat(px, pint.deref(), precision);
+        x = Rat.mulrat(x, pwr, wprecision);
 
-        // It just so happens to be an integral power of e.
-        if (rat_gt(px.deref(), rat_negsmallest, precision) && rat_lt(px.deref(), rat_smallest, precision))
+        // Multiply by 2^k, BASEX is a power of two so this is exact.
+        final NUMBER pow2 = Conv.pow2num(Math.abs(intpwr));
+        if (intpwr >= 0)
         {
-            px.set(DUPRAT(pwr.deref()));
+            x.pp = BaseX.mulnumx(x.pp, pow2);
         }
         else
         {
-            _exprat(px, radix, precision);
-            Rat.mulrat(px, pwr.deref(), precision);
+            x.pq = BaseX.mulnumx(x.pq, pow2);
         }
+
+        trimit(x, precision);
+        return x;
+    }
+
+    static void exprat(Ptr<RAT> px, uint radix, int precision)
+    {
+        px.set(exprat(px.deref(), radix, precision));
     }
 
     //-----------------------------------------------------------------------------
@@ -114,105 +195,132 @@ public interface Exp {
     //
     //
     //-----------------------------------------------------------------------------
-    static void _lograt(Ptr<RAT> px, int precision)
+    static RAT _lograt(RAT x, int precision)
     {
-        TYLOR t = new TYLOR(px.deref(), precision);
+        if (Series.usebinarysplitting(precision))
+        {
+            // Close to one the Taylor series converges quickly on its own.
+            RAT xm1 = Rat.subrat(DUPRAT(x), rat_one(), precision);
+            if (!Num.zernum(xm1.pp) && xm1.LOGRAT2() >= 0)
+            {
+                return Series.lograt(x, precision);
+            }
+        }
+
+        TYLOR t = new TYLOR(x, precision);
 
         t.thisterm = Conv.createrat();
 
         // sub one from x
-        px.deref().pq.sign *= -1;
-        px.deref().ppPtr(ppp -> addnum(ppp, px.deref().pq, BASEX));
-        px.deref().pq.sign *= -1;
+        x.pq.sign *= -1;
+        x.pp = addnum(x.pp, x.pq, BASEX);
+        x.pq.sign *= -1;
 
-        t.pret = DUPRAT(px.deref());
-        t.thisterm = DUPRAT(px.deref());
+        t.pret = DUPRAT(x);
+        t.thisterm = DUPRAT(x);
 
         t.n2 = Conv.i32tonum(1, BASEX);
-        px.deref().pp.sign *= -1;
+        x.pp.sign *= -1;
 
         do
         {
-            t.NEXTTERM(px.deref(), () -> {
+            t.NEXTTERM(x, () -> {
                 t.MULNUM(t.n2);
                 t.n2 = t.INC(t.n2);
                 t.DIVNUM(t.n2);
             }, precision);
 
-            px.deref().TRIMTOP(precision);
+            x.TRIMTOP(precision);
         } while (!t.thisterm.SMALL_ENOUGH_RAT(precision));
 
-        px.set( t.RESULT() );
+        return t.RESULT();
     }
 
-    static void lograt(Ptr<RAT> px, int precision)
+    static void _lograt(Ptr<RAT> px, int precision)
     {
-        Ptr<RAT> pwr = new Ptr<>();    // pwr is the large scaling factor.
-        Ptr<RAT> offset = new Ptr<>(); // offset is the incremental scaling factor.
+        px.set(_lograt(px.deref(), precision));
+    }
+
+    static RAT lograt(RAT x, int precision)
+    {
+        RAT pwr;    // pwr is the large scaling factor.
+        RAT offset; // offset is the incremental scaling factor.
 
         // Check for someone taking the log of zero or a negative number.
-        if (rat_le(px.deref(), rat_zero, precision))
+        if (rat_le(x, rat_zero(), precision))
         {
             throw new ErrorCodeException(CALC_E_DOMAIN);
         }
 
         // Get number > 1, for scaling
-        boolean fneglog = rat_lt(px.deref(), rat_one, precision);
+        boolean fneglog = rat_lt(x, rat_one(), precision);
         if (fneglog)
         {
-            NUMBER pnumtemp = px.deref().pp;
-            px.deref().pp = px.deref().pq;
-            px.deref().pq = pnumtemp;
+            NUMBER pnumtemp = x.pp;
+            x.pp = x.pq;
+            x.pq = pnumtemp;
         }
 
         // Scale the number within BASEX factor of 1, for the large scale.
         // log(x*2^(BASEXPWR*k)) = BASEXPWR*k*log(2)+log(x)
-        if (px.deref().LOGRAT2() > 1)
+        if (x.LOGRAT2() > 1)
         {
-            final int intpwr = px.deref().LOGRAT2() - 1;
-            px.deref().pq.exp += intpwr;
-            pwr.set( Conv.i32torat(intpwr * BASEXPWR) );
-            Rat.mulrat(pwr, ln_two, precision);
+            final int intpwr = x.LOGRAT2() - 1;
+            x.pq.exp += intpwr;
+            pwr = Conv.i32torat(intpwr * BASEXPWR);
+            pwr = Rat.mulrat(pwr, ln_two(), precision);
             // ln(x+e)-ln(x) looks close to e when x is close to one using some
             // expansions.  This means we can trim past precision digits+1.
-            px.deref().TRIMTOP(precision);
+            x.TRIMTOP(precision);
         }
         else
         {
-            pwr.set( DUPRAT(rat_zero) );
+            pwr = DUPRAT(rat_zero());
         }
 
-        offset.set( DUPRAT(rat_zero) );
+        offset = DUPRAT(rat_zero());
         // Scale the number between 1 and e_to_one_half, for the small scale.
-        while (rat_gt(px.deref(), e_to_one_half, precision))
+        while (rat_gt(x, e_to_one_half(), precision))
         {
-            Rat.divrat(px, e_to_one_half, precision);
-            Rat.addrat(offset, rat_one, precision);
+            x = Rat.divrat(x, e_to_one_half(), precision);
+            offset = Rat.addrat(offset, rat_one(), precision);
         }
 
-        _lograt(px, precision);
+        x = _lograt(x, precision);
 
         // Add the large and small scaling factors, take into account
         // small scaling was done in e_to_one_half chunks.
-        Rat.divrat(offset, rat_two, precision);
-        Rat.addrat(pwr, offset.deref(), precision);
+        offset = Rat.divrat(offset, rat_two(), precision);
+        pwr = Rat.addrat(pwr, offset, precision);
 
         // And add the resulting scaling factor to the answer.
-        Rat.addrat(px, pwr.deref(), precision);
+        x = Rat.addrat(x, pwr, precision);
 
-        trimit(px, precision);
+        trimit(x, precision);
 
         // If number started out < 1 rescale answer to negative.
         if (fneglog)
         {
-            px.deref().pp.sign *= -1;
+            x.pp.sign *= -1;
         }
+
+        return x;
+    }
+
+    static void lograt(Ptr<RAT> px, int precision)
+    {
+        px.set(lograt(px.deref(), precision));
+    }
+
+    static RAT log10rat(RAT x, int precision)
+    {
+        x = lograt(x, precision);
+        return Rat.divrat(x, ln_ten(), precision);
     }
 
     static void log10rat(Ptr<RAT> px, int precision)
     {
-        lograt(px, precision);
-        Rat.divrat(px, ln_ten, precision);
+        px.set(log10rat(px.deref(), precision));
     }
 
     //
@@ -220,29 +328,21 @@ public interface Exp {
     // even or not
     static boolean IsEven(RAT x, uint radix, int precision)
     {
-        Ptr<RAT> tmp = new Ptr<>();
-        boolean bRet = false;
-
-        tmp.set( DUPRAT(x) );
-        Rat.divrat(tmp, rat_two, precision);
-        Rat.fracrat(tmp, radix, precision);
-        Rat.addrat(tmp, tmp.deref(), precision);
-        Rat.subrat(tmp, rat_one, precision);
-        if (rat_lt(tmp.deref(), rat_zero, precision))
-        {
-            bRet = true;
-        }
-
-        return bRet;
+        RAT tmp = DUPRAT(x);
+        tmp = Rat.divrat(tmp, rat_two(), precision);
+        tmp = Rat.fracrat(tmp, radix, precision);
+        tmp = Rat.addrat(tmp, tmp, precision);
+        tmp = Rat.subrat(tmp, rat_one(), precision);
+        return rat_lt(tmp, rat_zero(), precision);
     }
 
     //---------------------------------------------------------------------------
     //
     //  FUNCTION: powrat
     //
-    //  ARGUMENTS: PRAT *px, PRAT y, uint32_t radix, int32_t precision
+    //  ARGUMENTS: PRAT x, PRAT y, uint32_t radix, int32_t precision
     //
-    //  RETURN: none, sets *px to *px to the y.
+    //  RETURN: x to the y, x may be changed in place.
     //
     //  EXPLANATION: Calculates the power of both px and
     //  handles special cases where px is a perfect root.
@@ -250,23 +350,22 @@ public interface Exp {
     //
     //
     //---------------------------------------------------------------------------
-    static void powrat(Ptr<RAT> px, RAT y, uint radix, int precision)
+    static RAT powrat(RAT x, RAT y, uint radix, int precision)
     {
-        // Handle cases where px or y is 0 by calling powratcomp directly
-        if (Rat.zerrat(px.deref()) || Rat.zerrat(y))
+        // Handle cases where x or y is 0 by calling powratcomp directly
+        if (Rat.zerrat(x) || Rat.zerrat(y))
         {
-            powratcomp(px, y, radix, precision);
-            return;
+            return powratcomp(x, y, radix, precision);
         }
-        // When y is 1, return px
-        if (rat_equ(y, rat_one, precision))
+        // When y is 1, return x
+        if (rat_equ(y, rat_one(), precision))
         {
-            return;
+            return x;
         }
 
         try
         {
-            powratNumeratorDenominator(px, y, radix, precision);
+            return powratNumeratorDenominator(x, y, radix, precision);
         }
         catch (ErrorCodeException e)
         {
@@ -275,98 +374,103 @@ public interface Exp {
             // If calculating the power using numerator/denominator
             // failed, fall back to the less accurate method of
             // passing in the original y
-            powratcomp(px, y, radix, precision);
+            return powratcomp(x, y, radix, precision);
         }
     }
 
-    static void powratNumeratorDenominator(Ptr<RAT> px, RAT y, uint radix, int precision)
+    static void powrat(Ptr<RAT> px, RAT y, uint radix, int precision)
+    {
+        px.set(powrat(px.deref(), y, radix, precision));
+    }
+
+    static RAT powratNumeratorDenominator(RAT x, RAT y, uint radix, int precision)
     {
         // Prepare rationals
-        Ptr<RAT> yNumerator = new Ptr<>();
-        Ptr<RAT> yDenominator = new Ptr<>();
-        yNumerator.set( DUPRAT(rat_zero) );   // yNumerator->pq is 1 one
-        yDenominator.set( DUPRAT(rat_zero) ); // yDenominator->pq is 1 one
-        yNumerator.deref().pp = DUPNUM(y.pp);
-        yDenominator.deref().pp = DUPNUM(y.pq);
+        RAT yNumerator = DUPRAT(rat_zero());   // yNumerator->pq is 1 one
+        RAT yDenominator = DUPRAT(rat_zero()); // yDenominator->pq is 1 one
+        yNumerator.pp = DUPNUM(y.pp);
+        yDenominator.pp = DUPNUM(y.pq);
 
         // Calculate the following use the Powers of Powers rule:
-        // px ^ (yNum/yDenom) == px ^ yNum ^ (1/yDenom)
-        // 1. For px ^ yNum, we call powratcomp directly which will call ratpowi32
-        //    and store the result in pxPowNum
-        // 2. For pxPowNum ^ (1/yDenom), we call powratcomp
+        // x ^ (yNum/yDenom) == x ^ yNum ^ (1/yDenom)
+        // 1. For x ^ yNum, we call powratcomp directly which will call ratpowi32
+        //    and store the result in xPowNum
+        // 2. For xPowNum ^ (1/yDenom), we call powratcomp
         // 3. Validate the result of 2 by adding/subtracting 0.5, flooring and call powratcomp with yDenom
         //    on the floored result.
 
         // 1. Initialize result.
-        Ptr<RAT> pxPow = new Ptr<>(DUPRAT(px.deref()));
+        RAT xPow = DUPRAT(x);
 
-        // 2. Calculate pxPow = px ^ yNumerator
+        // 2. Calculate xPow = x ^ yNumerator
         // if yNumerator is not 1
-        if (!rat_equ(yNumerator.deref(), rat_one, precision))
+        if (!rat_equ(yNumerator, rat_one(), precision))
         {
-            powratcomp(pxPow, yNumerator.deref(), radix, precision);
+            xPow = powratcomp(xPow, yNumerator, radix, precision);
         }
 
-        // 2. Calculate pxPowNumDenom = pxPowNum ^ (1/yDenominator),
+        // 2. Calculate xPowNumDenom = xPowNum ^ (1/yDenominator),
         // if yDenominator is not 1
-        if (!rat_equ(yDenominator.deref(), rat_one, precision))
+        if (!rat_equ(yDenominator, rat_one(), precision))
         {
             // Calculate 1 over y
-            Ptr<RAT> oneoveryDenom = new Ptr<>( DUPRAT(rat_one) );
-            Rat.divrat(oneoveryDenom, yDenominator.deref(), precision);
+            RAT oneoveryDenom = Rat.divrat(DUPRAT(rat_one()), yDenominator, precision);
 
             // ##################################
             // Take the oneoveryDenom power
             // ##################################
-            Ptr<RAT> originalResult = new Ptr<>(DUPRAT(pxPow.deref()));
-            powratcomp(originalResult, oneoveryDenom.deref(), radix, precision);
+            RAT originalResult = powratcomp(DUPRAT(xPow), oneoveryDenom, radix, precision);
 
             // ##################################
             // Round the originalResult to roundedResult
             // ##################################
-            Ptr<RAT> roundedResult = new Ptr<>(DUPRAT(originalResult.deref()));
-            if (roundedResult.deref().pp.sign == -1)
+            RAT roundedResult = DUPRAT(originalResult);
+            if (roundedResult.pp.sign == -1)
             {
-                Rat.subrat(roundedResult, rat_half, precision);
+                roundedResult = Rat.subrat(roundedResult, rat_half(), precision);
             }
             else
             {
-                Rat.addrat(roundedResult, rat_half, precision);
+                roundedResult = Rat.addrat(roundedResult, rat_half(), precision);
             }
-            intrat(roundedResult, radix, precision);
+            roundedResult = intrat(roundedResult, radix, precision);
 
             // ##################################
             // Take the yDenom power of the roundedResult.
             // ##################################
-            Ptr<RAT> roundedPower = new Ptr<>(DUPRAT(roundedResult.deref()));
-            powratcomp(roundedPower, yDenominator.deref(), radix, precision);
+            RAT roundedPower = powratcomp(DUPRAT(roundedResult), yDenominator, radix, precision);
 
             // ##################################
-            // if roundedPower == px,
+            // if roundedPower == x,
             // we found an exact power in roundedResult
             // ##################################
-            if (rat_equ(roundedPower.deref(), pxPow.deref(), precision))
+            if (rat_equ(roundedPower, xPow, precision))
             {
-                px.set(DUPRAT(roundedResult.deref()));
+                return DUPRAT(roundedResult);
             }
             else
             {
-                px.set(DUPRAT(originalResult.deref()));
+                return DUPRAT(originalResult);
             }
         }
         else
         {
-            px.set(DUPRAT(pxPow.deref()));
+            return DUPRAT(xPow);
         }
     }
 
+    static void powratNumeratorDenominator(Ptr<RAT> px, RAT y, uint radix, int precision)
+    {
+        px.set(powratNumeratorDenominator(px.deref(), y, radix, precision));
+    }
+
     //---------------------------------------------------------------------------
     //
     //  FUNCTION: powratcomp
     //
-    //  ARGUMENTS: PRAT *px, and PRAT y
+    //  ARGUMENTS: PRAT x, and PRAT y
     //
-    //  RETURN: none, sets *px to *px to the y.
+    //  RETURN: x to the y, x may be changed in place.
     //
     //  EXPLANATION: This uses x^y=e(y*ln(x)), or a more exact calculation where
     //  y is an integer.
@@ -374,66 +478,60 @@ public interface Exp {
     //
     //
     //---------------------------------------------------------------------------
-    static void powratcomp(Ptr<RAT> px, RAT y, uint radix, int precision)
+    static RAT powratcomp(RAT x, RAT y, uint radix, int precision)
     {
-        int sign = px.deref().SIGN();
+        int sign = x.SIGN();
 
         // Take the absolute value
-        px.deref().pp.sign = 1;
-        px.deref().pq.sign = 1;
+        x.pp.sign = 1;
+        x.pq.sign = 1;
 
-        if (Rat.zerrat(px.deref()))
+        if (Rat.zerrat(x))
         {
-            // *px is zero.
-            if (rat_lt(y, rat_zero, precision))
+            // x is zero.
+            if (rat_lt(y, rat_zero(), precision))
             {
                 throw new ErrorCodeException(CALC_E_DOMAIN);
             }
             else if (Rat.zerrat(y))
             {
-                // *px and y are both zero, special case a 1 return.
-                px.set( DUPRAT(rat_one) );
+                // x and y are both zero, special case a 1 return.
+                x = DUPRAT(rat_one());
                 // Ensure sign is positive.
                 sign = 1;
             }
         }
         else
         {
-            Ptr<RAT> pxint = new Ptr<>();
-            pxint.set( DUPRAT(px.deref()) );
+            RAT xint = Rat.subrat(DUPRAT(x), rat_one(), precision);
 
-            Rat.subrat(pxint, rat_one, precision);
-
-            if (rat_gt(pxint.deref(), rat_negsmallest, precision) && rat_lt(pxint.deref(), rat_smallest, precision) && (sign == 1))
+            if (rat_gt(xint, rat_negsmallest(), precision) && rat_lt(xint, rat_smallest(), precision) && (sign == 1))
             {
-                // *px is one, special case a 1 return.
-                px.set( DUPRAT(rat_one) );
+                // x is one, special case a 1 return.
+                x = DUPRAT(rat_one());
                 // Ensure sign is positive.
                 sign = 1;
             }
             else
             {
                 // Only do the exp if the number isn't zero or one
-                Ptr<RAT> podd = new Ptr<>(DUPRAT(y));
-                Rat.fracrat(podd, radix, precision);
+                RAT odd = Rat.fracrat(DUPRAT(y), radix, precision);
 
-                if (rat_gt(podd.deref(), rat_negsmallest, precision) && rat_lt(podd.deref(), rat_smallest, precision))
+                if (rat_gt(odd, rat_negsmallest(), precision) && rat_lt(odd, rat_smallest(), precision))
                 {
                     // If power is an integer let ratpowi32 deal with it.
-                    Ptr<RAT> iy = new Ptr<>(DUPRAT(y));
-                    Rat.subrat(iy, podd.deref(), precision);
-                    int inty = Conv.rattoi32(iy.deref(), radix, precision);
+                    RAT iy = Rat.subrat(DUPRAT(y), odd, precision);
+                    int inty = Conv.rattoi32(iy, radix, precision);
 
-                    Ptr<RAT> plnx = new Ptr<>(DUPRAT(px.deref()));
-                    lograt(plnx, precision);
-                    Rat.mulrat(plnx, iy.deref(), precision);
+                    RAT lnx = lograt(DUPRAT(x), precision);
+                    lnx = Rat.mulrat(lnx, iy, precision);
 
-                    if (rat_gt(plnx.deref(), rat_max_exp, precision) || rat_lt(plnx.deref(), rat_min_exp, precision))
+                    if (rat_gt(lnx, rat_max_exp(), precision) || rat_lt(lnx, rat_min_exp(), precision))
                     {
                         // Don't attempt exp of anything large or small.A
                         throw new ErrorCodeException(CALC_E_DOMAIN);
                     }
-                    Conv.ratpowi32(px, inty, precision);
+                    x = Conv.ratpowi32(x, inty, precision);
                     if ((inty & 1) == 0)
                     {
                         sign = 1;
@@ -448,30 +546,28 @@ public interface Exp {
                         // As a first step, the numerator and denominator must be divided by 2 as many times as
                         //     possible, so that 2/6 is allowed.
                         // If the final numerator is still even, the end result should be positive.
-                        Ptr<RAT> pNumerator = new Ptr<>();
-                        Ptr<RAT> pDenominator = new Ptr<>();
                         boolean fBadExponent = false;
 
                         // Get the numbers in arbitrary precision rational number format
-                        pNumerator.set( DUPRAT(rat_zero) );   // pNumerator->pq is 1 one
-                        pDenominator.set( DUPRAT(rat_zero) ); // pDenominator->pq is 1 one
+                        RAT numerator = DUPRAT(rat_zero());   // numerator->pq is 1 one
+                        RAT denominator = DUPRAT(rat_zero()); // denominator->pq is 1 one
 
-                        pNumerator.deref().pp = DUPNUM(y.pp);
-                        pNumerator.deref().pp.sign = 1;
+                        numerator.pp = DUPNUM(y.pp);
+                        numerator.pp.sign = 1;
 
-                        pDenominator.deref().pp = DUPNUM(y.pq);
-                        pDenominator.deref().pp.sign = 1;
+                        denominator.pp = DUPNUM(y.pq);
+                        denominator.pp.sign = 1;
 
-                        while (IsEven(pNumerator.deref(), radix, precision) && IsEven(pDenominator.deref(), radix, precision)) // both Numerator & denominator is even
+                        while (IsEven(numerator, radix, precision) && IsEven(denominator, radix, precision)) // both Numerator & denominator is even
                         {
-                            Rat.divrat(pNumerator, rat_two, precision);
-                            Rat.divrat(pDenominator, rat_two, precision);
+                            numerator = Rat.divrat(numerator, rat_two(), precision);
+                            denominator = Rat.divrat(denominator, rat_two(), precision);
                         }
-                        if (IsEven(pDenominator.deref(), radix, precision)) // denominator is still even
+                        if (IsEven(denominator, radix, precision)) // denominator is still even
                         {
                             fBadExponent = true;
                         }
-                        if (IsEven(pNumerator.deref(), radix, precision)) // numerator is still even
+                        if (IsEven(numerator, radix, precision)) // numerator is still even
                         {
                             sign = 1;
                         }
@@ -487,12 +583,18 @@ public interface Exp {
                         sign = 1;
                     }
 
-                    lograt(px, precision);
-                    Rat.mulrat(px, y, precision);
-                    exprat(px, radix, precision);
+                    x = lograt(x, precision);
+                    x = Rat.mulrat(x, y, precision);
+                    x = exprat(x, radix, precision);
                 }
             }
         }
-        px.deref().pp.sign *= sign;
+        x.pp.sign *= sign;
+        return x;
+    }
+
+    static void powratcomp(Ptr<RAT> px, RAT y, uint radix, int precision)
+    {
+        px.set(powratcomp(px.deref(), y, radix, precision));
     }
 }
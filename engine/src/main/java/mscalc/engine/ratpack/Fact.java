@@ -4,7 +4,31 @@ import mscalc.engine.cpp.ErrorCodeException;
 import mscalc.engine.cpp.Ptr;
 import mscalc.engine.cpp.uint;
 
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
 public class Fact {
+    // Exact n! is kept for every multiple of FACT_CHECKPOINT_INTERVAL, any
+    // other n! is extended from the checkpoint below it.
+    static final int FACT_CHECKPOINT_INTERVAL = 64;
+
+    // Maximum number of exact factorials kept in the cache.
+    public static final int FACT_CACHE_CAPACITY = 64;
+
+    // Guarded by itself, checkpoints.get(c) is (c*FACT_CHECKPOINT_INTERVAL)!
+    private static final List<RatPack.NUMBER> checkpoints = new ArrayList<>(List.of(Conv.i32tonum(1, RatPack.BASEX)));
+
+    // Guarded by itself, access ordered so that the eldest entry is the
+    // least recently used one.
+    private static final Map<Integer, RatPack.NUMBER> cache = new LinkedHashMap<>(16, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<Integer, RatPack.NUMBER> eldest) {
+            return size() > FACT_CACHE_CAPACITY;
+        }
+    };
+
     static void ABSRAT(RatPack.RAT x) {
         x.pp.sign = 1;
         x.pq.sign = 1;
@@ -49,177 +73,242 @@ public class Fact {
     //
     //
     //-----------------------------------------------------------------------------
-    static void _gamma(Ptr<RatPack.RAT> pn, uint radix, int precision)
+    static RatPack.RAT _gamma(RatPack.RAT n, uint radix, int precision)
     {
-        Ptr<RatPack.RAT> factorial = new Ptr<>();
+        RatPack.RAT factorial;
         RatPack.NUMBER count = null;
-        Ptr<RatPack.RAT> tmp = new Ptr<>();
-        Ptr<RatPack.RAT> one_pt_five = new Ptr<>();
-        Ptr<RatPack.RAT> a = new Ptr<>();
-        Ptr<RatPack.RAT> a2 = new Ptr<>();
-        Ptr<RatPack.RAT> term = new Ptr<>();
-        Ptr<RatPack.RAT> sum = new Ptr<>();
-        Ptr<RatPack.RAT> err = new Ptr<>();
-        Ptr<RatPack.RAT> mpy = new Ptr<>();
+        RatPack.RAT tmp;
+        RatPack.RAT one_pt_five;
+        RatPack.RAT a;
+        RatPack.RAT a2;
+        RatPack.RAT term;
+        RatPack.RAT sum;
+        RatPack.RAT err;
+        RatPack.RAT mpy;
 
         // Set up constants and initial conditions
         RatPack.RAT ratprec = Conv.i32torat(precision);
 
         // Find the best 'A' for convergence to the required precision.
-        a.set( Conv.i32torat(radix.toInt()) );
-        Exp.lograt(a, precision);
-        Rat.mulrat(a, ratprec, precision);
+        a = Conv.i32torat(radix.toInt());
+        a = Exp.lograt(a, precision);
+        a = Rat.mulrat(a, ratprec, precision);
 
         // Really is -ln(n)+1, but -ln(n) will be < 1
         // if we scale n between 0.5 and 1.5
-        Rat.addrat(a, Support.Global.rat_two, precision);
-        tmp.set(RatPack.DUPRAT(a.deref()));
-        Exp.lograt(tmp, precision);
-        Rat.mulrat(tmp, pn.deref(), precision);
-        Rat.addrat(a, tmp.deref(), precision);
-        Rat.addrat(a, Support.Global.rat_one, precision);
+        a = Rat.addrat(a, Support.Global.rat_two(), precision);
+        tmp = Exp.lograt(RatPack.DUPRAT(a), precision);
+        tmp = Rat.mulrat(tmp, n, precision);
+        a = Rat.addrat(a, tmp, precision);
+        a = Rat.addrat(a, Support.Global.rat_one(), precision);
 
         // Calculate the necessary bump in precision and up the precision.
         // The following code is equivalent to
         // precision += ln(exp(a)*pow(a,n+1.5))-ln(radix));
-        tmp.set( RatPack.DUPRAT(pn.deref()) );
-        one_pt_five.set( Conv.i32torat(3) );
-        Rat.divrat(one_pt_five, Support.Global.rat_two, precision);
-        Rat.addrat(tmp, one_pt_five.deref(), precision);
-        term.set( RatPack.DUPRAT(a.deref()) );
-        Exp.powratcomp(term, tmp.deref(), radix, precision);
-        tmp.set( RatPack.DUPRAT(a.deref()) );
-        Exp.exprat(tmp, radix, precision);
-        Rat.mulrat(term, tmp.deref(), precision);
-        Exp.lograt(term, precision);
+        tmp = RatPack.DUPRAT(n);
+        one_pt_five = Rat.divrat(Conv.i32torat(3), Support.Global.rat_two(), precision);
+        tmp = Rat.addrat(tmp, one_pt_five, precision);
+        term = Exp.powratcomp(RatPack.DUPRAT(a), tmp, radix, precision);
+        tmp = Exp.exprat(RatPack.DUPRAT(a), radix, precision);
+        term = Rat.mulrat(term, tmp, precision);
+        term = Exp.lograt(term, precision);
 
         RatPack.RAT ratRadix = Conv.i32torat(radix.toInt());
-        tmp.set(RatPack.DUPRAT(ratRadix));
-        Exp.lograt(tmp, precision);
-        Rat.subrat(term, tmp.deref(), precision);
-        precision += Conv.rattoi32(term.deref(), radix, precision);
+        tmp = Exp.lograt(RatPack.DUPRAT(ratRadix), precision);
+        term = Rat.subrat(term, tmp, precision);
+        precision += Conv.rattoi32(term, radix, precision);
 
         // Set up initial terms for series, refer to series in above comment block.
-        factorial.set( RatPack.DUPRAT(Support.Global.rat_one) ); // Start factorial out with one
+        factorial = RatPack.DUPRAT(Support.Global.rat_one()); // Start factorial out with one
         count = Conv.i32tonum(0, RatPack.BASEX);
 
-        mpy.set(RatPack.DUPRAT(a.deref()));
-        Exp.powratcomp(mpy, pn.deref(), radix, precision);
+        mpy = Exp.powratcomp(RatPack.DUPRAT(a), n, radix, precision);
         // a2=a^2
-        a2.set(RatPack.DUPRAT(a.deref()));
-        Rat.mulrat(a2, a.deref(), precision);
+        a2 = Rat.mulrat(RatPack.DUPRAT(a), a, precision);
 
         // sum=(1/n)-(a/(n+1))
-        sum.set(RatPack.DUPRAT(Support.Global.rat_one));
-        Rat.divrat(sum, pn.deref(), precision);
-        tmp.set(RatPack.DUPRAT(pn.deref()));
-        Rat.addrat(tmp, Support.Global.rat_one, precision);
-        term.set(RatPack.DUPRAT(a.deref()));
-        Rat.divrat(term, tmp.deref(), precision);
-        Rat.subrat(sum, term.deref(), precision);
-
-        err.set(RatPack.DUPRAT(ratRadix));
+        sum = Rat.divrat(RatPack.DUPRAT(Support.Global.rat_one()), n, precision);
+        tmp = Rat.addrat(RatPack.DUPRAT(n), Support.Global.rat_one(), precision);
+        term = Rat.divrat(RatPack.DUPRAT(a), tmp, precision);
+        sum = Rat.subrat(sum, term, precision);
+
+        err = RatPack.DUPRAT(ratRadix);
         NEGATE(ratprec);
-        Exp.powratcomp(err, ratprec, radix, precision);
-        Rat.divrat(err, ratRadix, precision);
+        err = Exp.powratcomp(err, ratprec, radix, precision);
+        err = Rat.divrat(err, ratRadix, precision);
 
         // Just get something not tiny in term
-        term.set(RatPack.DUPRAT(Support.Global.rat_two));
+        term = RatPack.DUPRAT(Support.Global.rat_two());
 
         // Loop until precision is reached, or asked to halt.
-        while (!Rat.zerrat(term.deref()) && Support.rat_gt(term.deref(), err.deref(), precision))
+        while (!Rat.zerrat(term) && Support.rat_gt(term, err, precision))
         {
-            Rat.addrat(pn, Support.Global.rat_two, precision);
+            CancellationToken.check();
+            n = Rat.addrat(n, Support.Global.rat_two(), precision);
 
             // WARNING: mixing numbers and  rationals here.
             // for speed and efficiency.
             RatPack.TYLOR.INC(count);
-            final var lambdaCount = count; // variable must be final when ref inside lambda
-            factorial.deref().ppPtr(ppp -> BaseX.mulnumx(ppp, lambdaCount));
+            factorial.pp = BaseX.mulnumx(factorial.pp, count);
             RatPack.TYLOR.INC(count);
-            factorial.deref().ppPtr(ppp -> BaseX.mulnumx(ppp, lambdaCount));
+            factorial.pp = BaseX.mulnumx(factorial.pp, count);
 
-            Rat.divrat(factorial, a2.deref(), precision);
+            factorial = Rat.divrat(factorial, a2, precision);
 
-            tmp.set( RatPack.DUPRAT(pn.deref()) );
-            Rat.addrat(tmp, Support.Global.rat_one, precision);
+            tmp = Rat.addrat(RatPack.DUPRAT(n), Support.Global.rat_one(), precision);
 
-            term.set( Conv.createrat() );
-            term.deref().pp = RatPack.DUPNUM(count);
-            term.deref().pq = RatPack.DUPNUM(Support.Global.num_one);
-            Rat.addrat(term, Support.Global.rat_one, precision);
-            Rat.mulrat(term, tmp.deref(), precision);
-            tmp.set(RatPack.DUPRAT(a.deref()));
-            Rat.divrat(tmp, term.deref(), precision);
+            term = Conv.createrat();
+            term.pp = RatPack.DUPNUM(count);
+            term.pq = RatPack.DUPNUM(Support.Global.num_one());
+            term = Rat.addrat(term, Support.Global.rat_one(), precision);
+            term = Rat.mulrat(term, tmp, precision);
+            tmp = Rat.divrat(RatPack.DUPRAT(a), term, precision);
 
-            term.set(RatPack.DUPRAT(Support.Global.rat_one));
-            Rat.divrat(term, pn.deref(), precision);
-            Rat.subrat(term, tmp.deref(), precision);
+            term = Rat.divrat(RatPack.DUPRAT(Support.Global.rat_one()), n, precision);
+            term = Rat.subrat(term, tmp, precision);
 
-            Rat.divrat(term, factorial.deref(), precision);
-            Rat.addrat(sum, term.deref(), precision);
-            ABSRAT(term.deref());
+            term = Rat.divrat(term, factorial, precision);
+            sum = Rat.addrat(sum, term, precision);
+            ABSRAT(term);
         }
 
         // Multiply by factor.
-        Rat.mulrat(sum, mpy.deref(), precision);
+        sum = Rat.mulrat(sum, mpy, precision);
 
-        pn.set(RatPack.DUPRAT(sum.deref()));
+        return RatPack.DUPRAT(sum);
     }
 
-    public static void factrat(Ptr<RatPack.RAT> px, uint radix, int precision)
+    static void _gamma(Ptr<RatPack.RAT> pn, uint radix, int precision)
+    {
+        pn.set(_gamma(pn.deref(), radix, precision));
+    }
+
+    //-----------------------------------------------------------------------------
+    //
+    //  FUNCTION: intfactnum
+    //
+    //  ARGUMENTS:  n, 0 <= n <= rat_max_fact
+    //
+    //  RETURN: exact n! in BASEX, shared with the cache and other threads so
+    //  it must not be changed.
+    //
+    //  EXPLANATION: Exact integers do not depend on the radix or precision,
+    //  so one cache serves every context. A miss multiplies at most
+    //  FACT_CHECKPOINT_INTERVAL-1 numbers into the nearest checkpoint.
+    //
+    //-----------------------------------------------------------------------------
+    static RatPack.NUMBER intfactnum(int n)
+    {
+        synchronized (cache)
+        {
+            RatPack.NUMBER f = cache.get(n);
+            if (f != null)
+            {
+                return f;
+            }
+        }
+
+        int c = n / FACT_CHECKPOINT_INTERVAL;
+        RatPack.NUMBER f = mulrange(RatPack.DUPNUM(checkpoint(c)), c * FACT_CHECKPOINT_INTERVAL + 1, n);
+
+        synchronized (cache)
+        {
+            cache.putIfAbsent(n, f);
+        }
+        return f;
+    }
+
+    private static RatPack.NUMBER checkpoint(int c)
     {
-        Ptr<RatPack.RAT> fact = new Ptr<>();
-        Ptr<RatPack.RAT> frac = new Ptr<>();
-        Ptr<RatPack.RAT> neg_rat_one = new Ptr<>();
+        synchronized (checkpoints)
+        {
+            while (checkpoints.size() <= c)
+            {
+                int last = checkpoints.size() - 1;
+                checkpoints.add(mulrange(RatPack.DUPNUM(checkpoints.get(last)),
+                        last * FACT_CHECKPOINT_INTERVAL + 1, (last + 1) * FACT_CHECKPOINT_INTERVAL));
+            }
+            return checkpoints.get(c);
+        }
+    }
+
+    // f * from * (from+1) * ... * to, two factors at a time, for the
+    // factorial range their product always fits in a BASEX digit.
+    private static RatPack.NUMBER mulrange(RatPack.NUMBER f, int from, int to)
+    {
+        for (int k = from; k <= to; k += 2)
+        {
+            CancellationToken.check();
+            int factor = (k < to) ? k * (k + 1) : k;
+            f = BaseX.mulnumx(f, Conv.i32tonum(factor, RatPack.BASEX));
+        }
+        return f;
+    }
 
-        if (Support.rat_gt(px.deref(), Support.Global.rat_max_fact, precision) || Support.rat_lt(px.deref(), Support.Global.rat_min_fact, precision))
+    public static RatPack.RAT factrat(RatPack.RAT x, uint radix, int precision)
+    {
+        if (Support.rat_gt(x, Support.Global.rat_max_fact(), precision) || Support.rat_lt(x, Support.Global.rat_min_fact(), precision))
         {
             // Don't attempt factorial of anything too large or small.
             throw new ErrorCodeException(CalcErr.CALC_E_OVERFLOW);
         }
 
-        fact.set(RatPack.DUPRAT(Support.Global.rat_one));
+        RatPack.RAT fact = RatPack.DUPRAT(Support.Global.rat_one());
 
-        neg_rat_one.set(RatPack.DUPRAT(Support.Global.rat_one));
-        neg_rat_one.deref().pp.sign *= -1;
+        RatPack.RAT neg_rat_one = RatPack.DUPRAT(Support.Global.rat_one());
+        neg_rat_one.pp.sign *= -1;
 
-        frac.set(RatPack.DUPRAT(px.deref()));
-        Rat.fracrat(frac, radix, precision);
+        RatPack.RAT frac = Rat.fracrat(RatPack.DUPRAT(x), radix, precision);
 
         // Check for negative integers and throw an error.
-        if ((Rat.zerrat(frac.deref()) || (frac.deref().LOGRATRADIX() <= -precision)) && (px.deref().SIGN() == -1))
+        if ((Rat.zerrat(frac) || (frac.LOGRATRADIX() <= -precision)) && (x.SIGN() == -1))
         {
             throw new ErrorCodeException(CalcErr.CALC_E_DOMAIN);
         }
-        while (Support.rat_gt(px.deref(), Support.Global.rat_zero, precision) && (px.deref().LOGRATRADIX() > -precision))
+
+        // Exact for non negative integers, the product below would not be
+        // trimmed either.
+        if (Rat.zerrat(frac))
         {
-            Rat.mulrat(fact, px.deref(), precision);
-            Rat.subrat(px, Support.Global.rat_one, precision);
+            int n = Conv.rattoi32(x, radix, precision);
+            RatPack.RAT ret = Conv.createrat();
+            ret.pp = RatPack.DUPNUM(intfactnum(n));
+            ret.pq = RatPack.DUPNUM(Support.Global.num_one());
+            return ret;
         }
 
-        // Added to make numbers 'close enough' to integers use integer factorial.
-        if (px.deref().LOGRATRADIX() <= -precision)
+        while (Support.rat_gt(x, Support.Global.rat_zero(), precision) && (x.LOGRATRADIX() > -precision))
         {
-            px.set(RatPack.DUPRAT(Support.Global.rat_zero));
-            Support.intrat(fact, radix, precision);
+            CancellationToken.check();
+            fact = Rat.mulrat(fact, x, precision);
+            x = Rat.subrat(x, Support.Global.rat_one(), precision);
         }
 
-        while (Support.rat_lt(px.deref(), neg_rat_one.deref(), precision))
+        // Added to make numbers 'close enough' to integers use integer factorial.
+        if (x.LOGRATRADIX() <= -precision)
         {
-            Rat.addrat(px, Support.Global.rat_one, precision);
-            Rat.divrat(fact, px.deref(), precision);
+            x = RatPack.DUPRAT(Support.Global.rat_zero());
+            fact = Support.intrat(fact, radix, precision);
         }
 
-        if (Support.rat_neq(px.deref(), Support.Global.rat_zero, precision))
+        while (Support.rat_lt(x, neg_rat_one, precision))
         {
-            Rat.addrat(px, Support.Global.rat_one, precision);
-            _gamma(px, radix, precision);
-            Rat.mulrat(px, fact.deref(), precision);
+            x = Rat.addrat(x, Support.Global.rat_one(), precision);
+            fact = Rat.divrat(fact, x, precision);
         }
-        else
+
+        if (Support.rat_neq(x, Support.Global.rat_zero(), precision))
         {
-            px.set(RatPack.DUPRAT(fact.deref()));
+            x = Rat.addrat(x, Support.Global.rat_one(), precision);
+            x = _gamma(x, radix, precision);
+            return Rat.mulrat(x, fact, precision);
         }
+
+        return RatPack.DUPRAT(fact);
+    }
+
+    public static void factrat(Ptr<RatPack.RAT> px, uint radix, int precision)
+    {
+        px.set(factrat(px.deref(), radix, precision));
     }
 }
@@ -0,0 +1,112 @@
+package mscalc.engine.ratpack;
+
+import mscalc.engine.ratpack.RatPack.NUMBER;
+import mscalc.engine.ratpack.RatPack.RAT;
+
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+import static mscalc.engine.ratpack.BaseX.divnumx;
+import static mscalc.engine.ratpack.Conv.gcd;
+import static mscalc.engine.ratpack.Num.equnum;
+import static mscalc.engine.ratpack.Num.zernum;
+
+//-----------------------------------------------------------------------------
+//
+//  Decides when addrat, mulrat and divrat, called with reduce set, divide
+//  p and q of their result by the gcd of both.
+//
+//  Without it p and q of a chain of exact operations keep growing until
+//  trimit cuts them down, which loses the exactness. Running the gcd after
+//  every operation is too expensive, so it only runs when the size of the
+//  result, the smaller of p and q in BASEX digits (the gcd can not remove
+//  more than that), is at least THRESHOLD and the operation grew it past a
+//  power of two that the size of its larger operand was below. A chain
+//  that stays irreducible pays for the gcd a logarithmic number of times.
+//
+//  The series in Trans and Exp do not reduce, their terms are approximations
+//  that trimit keeps small, the gcd would only slow them down.
+//
+//-----------------------------------------------------------------------------
+public final class GcdPolicy
+{
+    // Size (in BASEX digits) from which results are reduced by their gcd,
+    // zero disables the reduction.
+    // Tunable at runtime or with -Dmscalc.ratpack.gcdThreshold=N.
+    public static final AtomicInteger THRESHOLD =
+            new AtomicInteger(Integer.getInteger("mscalc.ratpack.gcdThreshold", 4));
+
+    private static final LongAdder runs = new LongAdder();
+    private static final LongAdder reductions = new LongAdder();
+    private static final LongAdder digitsRemoved = new LongAdder();
+
+    private GcdPolicy() { }
+
+    // Size of the rational as used by the policy.
+    static int size(RAT a)
+    {
+        return Math.min(a.pp.cdigit + a.pp.exp, a.pq.cdigit + a.pq.exp);
+    }
+
+    //-----------------------------------------------------------------------------
+    //
+    //    FUNCTION: normalize
+    //
+    //    ARGUMENTS: result of an operation, the size of its larger operand
+    //    before the operation and the precision.
+    //
+    //    RETURN: None, changes p and q of a.
+    //
+    //    DESCRIPTION: Divides p and q by their gcd if the policy says so.
+    //
+    //-----------------------------------------------------------------------------
+    static void normalize(RAT a, int operandSize, int precision)
+    {
+        int threshold = THRESHOLD.get();
+        int size = size(a);
+        if (threshold <= 0 || size < threshold || Integer.highestOneBit(size) <= operandSize)
+        {
+            return;
+        }
+
+        runs.increment();
+
+        NUMBER pgcd = gcd(a.pp, a.pq);
+        if (zernum(pgcd) || equnum(pgcd, Support.Global.num_one()))
+        {
+            return;
+        }
+
+        a.pp = divnumx(a.pp, pgcd, precision);
+        a.pq = divnumx(a.pq, pgcd, precision);
+        a.RENORMALIZE();
+
+        reductions.increment();
+        digitsRemoved.add(size - size(a));
+    }
+
+    // Number of times the gcd was computed.
+    public static long runs()
+    {
+        return runs.sum();
+    }
+
+    // Number of times the gcd was not one, so p and q got smaller.
+    public static long reductions()
+    {
+        return reductions.sum();
+    }
+
+    // BASEX digits removed from the results by the reductions.
+    public static long digitsRemoved()
+    {
+        return digitsRemoved.sum();
+    }
+
+    public static void resetMetrics()
+    {
+        runs.reset();
+        reductions.reset();
+        digitsRemoved.reset();
+    }
+}
@@ -5,21 +5,27 @@ import mscalc.engine.cpp.Ptr;
 import mscalc.engine.cpp.uint;
 
 public interface ITrans {
-    static void ascalerat(Ptr<RatPack.RAT> pa, RatPack.AngleType angletype, int precision)
+    static RatPack.RAT ascalerat(RatPack.RAT a, RatPack.AngleType angletype, int precision)
     {
         switch (angletype)
         {
             case RatPack.AngleType.Radians:
                 break;
             case RatPack.AngleType.Degrees:
-                Rat.divrat(pa, Support.Global.two_pi, precision);
-                Rat.mulrat(pa, Support.Global.rat_360, precision);
+                a = Rat.divrat(a, Support.Global.two_pi(), precision);
+                a = Rat.mulrat(a, Support.Global.rat_360(), precision);
                 break;
             case RatPack.AngleType.Gradians:
-                Rat.divrat(pa, Support.Global.two_pi, precision);
-                Rat.mulrat(pa, Support.Global.rat_400, precision);
+                a = Rat.divrat(a, Support.Global.two_pi(), precision);
+                a = Rat.mulrat(a, Support.Global.rat_400(), precision);
                 break;
         }
+        return a;
+    }
+
+    static void ascalerat(Ptr<RatPack.RAT> pa, RatPack.AngleType angletype, int precision)
+    {
+        pa.set(ascalerat(pa.deref(), angletype, precision));
     }
 
     //-----------------------------------------------------------------------------
@@ -48,13 +54,18 @@ public interface ITrans {
     //
     //
     //-----------------------------------------------------------------------------
-    static void _asinrat(Ptr<RatPack.RAT> px, int precision)
+    static RatPack.RAT _asinrat(RatPack.RAT x, int precision)
     {
-        RatPack.TYLOR t = new RatPack.TYLOR(px.deref(), precision);
+        if (Series.usebinarysplitting(precision))
+        {
+            return Series.asinrat(x, precision);
+        }
+
+        RatPack.TYLOR t = new RatPack.TYLOR(x, precision);
 
-        t.pret = RatPack.DUPRAT(px.deref());
-        t.thisterm = RatPack.DUPRAT(px.deref());
-        t.n2 = RatPack.DUPNUM(Support.Global.num_one);
+        t.pret = RatPack.DUPRAT(x);
+        t.thisterm = RatPack.DUPRAT(x);
+        t.n2 = RatPack.DUPNUM(Support.Global.num_one());
 
         do
         {
@@ -69,65 +80,78 @@ public interface ITrans {
 
         } while (!t.thisterm.SMALL_ENOUGH_RAT(precision));
 
-        px.set(t.RESULT());
+        return t.RESULT();
+    }
+
+    static void _asinrat(Ptr<RatPack.RAT> px, int precision)
+    {
+        px.set(_asinrat(px.deref(), precision));
+    }
+
+    static RatPack.RAT asinanglerat(RatPack.RAT a, RatPack.AngleType angletype, uint radix, int precision)
+    {
+        a = asinrat(a, radix, precision);
+        return ascalerat(a, angletype, precision);
     }
 
     static void asinanglerat(Ptr<RatPack.RAT> pa, RatPack.AngleType angletype, uint radix, int precision)
     {
-        asinrat(pa, radix, precision);
-        ascalerat(pa, angletype, precision);
+        pa.set(asinanglerat(pa.deref(), angletype, radix, precision));
     }
 
-    static void asinrat(Ptr<RatPack.RAT> px, uint radix, int precision)
+    static RatPack.RAT asinrat(RatPack.RAT x, uint radix, int precision)
     {
-        Ptr<RatPack.RAT> pret = new Ptr<>();
-        Ptr<RatPack.RAT> phack = new Ptr<>();
-        int sgn = px.deref().SIGN();
+        int sgn = x.SIGN();
 
-        px.deref().pp.sign = 1;
-        px.deref().pq.sign = 1;
+        x.pp.sign = 1;
+        x.pq.sign = 1;
 
         // Avoid the really bad part of the asin curve near +/-1.
-        phack.set(RatPack.DUPRAT(px.deref()));
-        Rat.subrat(phack, Support.Global.rat_one, precision);
-        // Since *px might be epsilon near zero we must set it to zero.
-        if (Support.rat_le(phack.deref(), Support.Global.rat_smallest, precision) && Support.rat_ge(phack.deref(), Support.Global.rat_negsmallest, precision))
+        RatPack.RAT hack = Rat.subrat(RatPack.DUPRAT(x), Support.Global.rat_one(), precision);
+        // Since x might be epsilon near zero we must set it to zero.
+        if (Support.rat_le(hack, Support.Global.rat_smallest(), precision) && Support.rat_ge(hack, Support.Global.rat_negsmallest(), precision))
         {
-            px.set(RatPack.DUPRAT(Support.Global.pi_over_two));
+            x = RatPack.DUPRAT(Support.Global.pi_over_two());
         }
         else
         {
-            if (Support.rat_gt(px.deref(), Support.Global.pt_eight_five, precision))
+            if (Support.rat_gt(x, Support.Global.pt_eight_five(), precision))
             {
-                if (Support.rat_gt(px.deref(), Support.Global.rat_one, precision))
+                if (Support.rat_gt(x, Support.Global.rat_one(), precision))
                 {
-                    Rat.subrat(px, Support.Global.rat_one, precision);
-                    if (Support.rat_gt(px.deref(), Support.Global.rat_smallest, precision))
+                    x = Rat.subrat(x, Support.Global.rat_one(), precision);
+                    if (Support.rat_gt(x, Support.Global.rat_smallest(), precision))
                     {
                         throw new ErrorCodeException(CalcErr.CALC_E_DOMAIN);
                     }
                     else
                     {
-                        px.set(RatPack.DUPRAT(Support.Global.rat_one));
+                        x = RatPack.DUPRAT(Support.Global.rat_one());
                     }
                 }
-                pret.set(RatPack.DUPRAT(px.deref()));
-                Rat.mulrat(px, pret.deref(), precision);
-                px.deref().pp.sign *= -1;
-                Rat.addrat(px, Support.Global.rat_one, precision);
-                Rat.rootrat(px, Support.Global.rat_two, radix, precision);
-                _asinrat(px, precision);
-                px.deref().pp.sign *= -1;
-                Rat.addrat(px, Support.Global.pi_over_two, precision);
+                RatPack.RAT ret = RatPack.DUPRAT(x);
+                x = Rat.mulrat(x, ret, precision);
+                x.pp.sign *= -1;
+                x = Rat.addrat(x, Support.Global.rat_one(), precision);
+                x = Rat.rootrat(x, Support.Global.rat_two(), radix, precision);
+                x = _asinrat(x, precision);
+                x.pp.sign *= -1;
+                x = Rat.addrat(x, Support.Global.pi_over_two(), precision);
             }
             else
             {
-                _asinrat(px, precision);
+                x = _asinrat(x, precision);
             }
         }
 
-        px.deref().pp.sign = sgn;
-        px.deref().pq.sign = 1;
+        x.pp.sign = sgn;
+        x.pq.sign = 1;
+        return x;
+    }
+
+    static void asinrat(Ptr<RatPack.RAT> px, uint radix, int precision)
+    {
+        px.set(asinrat(px.deref(), radix, precision));
     }
 
 
@@ -156,20 +180,25 @@ public interface ITrans {
     //      called.
     //
     //-----------------------------------------------------------------------------
+    static RatPack.RAT acosanglerat(RatPack.RAT a, RatPack.AngleType angletype, uint radix, int precision)
+    {
+        a = acosrat(a, radix, precision);
+        return ascalerat(a, angletype, precision);
+    }
+
     static void acosanglerat(Ptr<RatPack.RAT> pa, RatPack.AngleType angletype, uint radix, int precision)
     {
-        acosrat(pa, radix, precision);
-        ascalerat(pa, angletype, precision);
+        pa.set(acosanglerat(pa.deref(), angletype, radix, precision));
     }
 
-    static void _acosrat(Ptr<RatPack.RAT> px, int precision)
+    static RatPack.RAT _acosrat(RatPack.RAT x, int precision)
     {
-        RatPack.TYLOR t = new RatPack.TYLOR(px.deref(), precision);
+        RatPack.TYLOR t = new RatPack.TYLOR(x, precision);
         t.thisterm = Conv.createrat();
         t.thisterm.pp = Conv.i32tonum(1, RatPack.BASEX);
         t.thisterm.pq = Conv.i32tonum(1, RatPack.BASEX);
 
-        t.n2 = RatPack.DUPNUM(Support.Global.num_one);
+        t.n2 = RatPack.DUPNUM(Support.Global.num_one());
 
         do
         {
@@ -183,34 +212,42 @@ public interface ITrans {
             }, precision);
         } while (!t.thisterm.SMALL_ENOUGH_RAT(precision));
 
-        px.set(t.RESULT());
+        return t.RESULT();
     }
 
-    static void acosrat(Ptr<RatPack.RAT> px, uint radix, int precision)
+    static void _acosrat(Ptr<RatPack.RAT> px, int precision)
     {
-        int sgn = px.deref().SIGN();
+        px.set(_acosrat(px.deref(), precision));
+    }
 
-        px.deref().pp.sign = 1;
-        px.deref().pq.sign = 1;
+    static RatPack.RAT acosrat(RatPack.RAT x, uint radix, int precision)
+    {
+        int sgn = x.SIGN();
+
+        x.pp.sign = 1;
+        x.pq.sign = 1;
 
-        if (Support.rat_equ(px.deref(), Support.Global.rat_one, precision))
+        if (Support.rat_equ(x, Support.Global.rat_one(), precision))
         {
             if (sgn == -1)
             {
-                px.set(RatPack.DUPRAT(Support.Global.pi));
+                return RatPack.DUPRAT(Support.Global.pi());
             }
             else
             {
-                px.set(RatPack.DUPRAT(Support.Global.rat_zero));
+                return RatPack.DUPRAT(Support.Global.rat_zero());
             }
         }
-        else
-        {
-            px.deref().pp.sign = sgn;
-            asinrat(px, radix, precision);
-            px.deref().pp.sign *= -1;
-            Rat.addrat(px, Support.Global.pi_over_two, precision);
-        }
+
+        x.pp.sign = sgn;
+        x = asinrat(x, radix, precision);
+        x.pp.sign *= -1;
+        return Rat.addrat(x, Support.Global.pi_over_two(), precision);
+    }
+
+    static void acosrat(Ptr<RatPack.RAT> px, uint radix, int precision)
+    {
+        px.set(acosrat(px.deref(), radix, precision));
     }
 
     //-----------------------------------------------------------------------------
@@ -243,20 +280,30 @@ public interface ITrans {
     //   pi/2 - atan(1/x)
     //
     //-----------------------------------------------------------------------------
+    static RatPack.RAT atananglerat(RatPack.RAT a, RatPack.AngleType angletype, uint radix, int precision)
+    {
+        a = atanrat(a, radix, precision);
+        return ascalerat(a, angletype, precision);
+    }
+
     static void atananglerat(Ptr<RatPack.RAT> pa, RatPack.AngleType angletype, uint radix, int precision)
     {
-        atanrat(pa, radix, precision);
-        ascalerat(pa, angletype, precision);
+        pa.set(atananglerat(pa.deref(), angletype, radix, precision));
     }
 
-    static void _atanrat(Ptr<RatPack.RAT> px, int precision)
+    static RatPack.RAT _atanrat(RatPack.RAT x, int precision)
     {
-        RatPack.TYLOR t = new RatPack.TYLOR(px.deref(), precision);
+        if (Series.usebinarysplitting(precision))
+        {
+            return Series.atanrat(x, precision);
+        }
 
-        t.pret = RatPack.DUPRAT(px.deref());
-        t.thisterm = RatPack.DUPRAT(px.deref());
+        RatPack.TYLOR t = new RatPack.TYLOR(x, precision);
 
-        t.n2 = RatPack.DUPNUM(Support.Global.num_one);
+        t.pret = RatPack.DUPRAT(x);
+        t.thisterm = RatPack.DUPRAT(x);
+
+        t.n2 = RatPack.DUPNUM(Support.Global.num_one());
 
         t.xx.pp.sign *= -1;
 
@@ -270,54 +317,62 @@ public interface ITrans {
             }, precision);
         } while (!t.thisterm.SMALL_ENOUGH_RAT(precision));
 
-        px.set(t.RESULT());
+        return t.RESULT();
     }
 
-    static void atanrat(Ptr<RatPack.RAT> px, uint radix, int precision)
+    static void _atanrat(Ptr<RatPack.RAT> px, int precision)
     {
-        Ptr<RatPack.RAT> tmpx = new Ptr<>();
-        int sgn = px.deref().SIGN();
+        px.set(_atanrat(px.deref(), precision));
+    }
 
-        px.deref().pp.sign = 1;
-        px.deref().pq.sign = 1;
+    static RatPack.RAT atanrat(RatPack.RAT x, uint radix, int precision)
+    {
+        int sgn = x.SIGN();
 
-        if (Support.rat_gt(px.deref(), Support.Global.pt_eight_five, precision))
+        x.pp.sign = 1;
+        x.pq.sign = 1;
+
+        if (Support.rat_gt(x, Support.Global.pt_eight_five(), precision))
         {
-            if (Support.rat_gt(px.deref(), Support.Global.rat_two, precision))
+            if (Support.rat_gt(x, Support.Global.rat_two(), precision))
             {
-                px.deref().pp.sign = sgn;
-                px.deref().pq.sign = 1;
-                tmpx.set(RatPack.DUPRAT(Support.Global.rat_one));
-                Rat.divrat(tmpx, px.deref(), precision);
-                _atanrat(tmpx, precision);
-                tmpx.deref().pp.sign = sgn;
-                tmpx.deref().pq.sign = 1;
-                px.set(RatPack.DUPRAT(Support.Global.pi_over_two));
-                Rat.subrat(px, tmpx.deref(), precision);
+                x.pp.sign = sgn;
+                x.pq.sign = 1;
+                RatPack.RAT tmpx = Rat.divrat(RatPack.DUPRAT(Support.Global.rat_one()), x, precision);
+                tmpx = _atanrat(tmpx, precision);
+                tmpx.pp.sign = sgn;
+                tmpx.pq.sign = 1;
+                x = Rat.subrat(RatPack.DUPRAT(Support.Global.pi_over_two()), tmpx, precision);
             }
             else
             {
-                px.deref().pp.sign = sgn;
-                tmpx.set(RatPack.DUPRAT(px.deref()));
-                Rat.mulrat(tmpx, px.deref(), precision);
-                Rat.addrat(tmpx, Support.Global.rat_one, precision);
-                Rat.rootrat(tmpx, Support.Global.rat_two, radix, precision);
-                Rat.divrat(px, tmpx.deref(), precision);
-                asinrat(px, radix, precision);
-                px.deref().pp.sign = sgn;
-                px.deref().pq.sign = 1;
+                x.pp.sign = sgn;
+                RatPack.RAT tmpx = Rat.mulrat(RatPack.DUPRAT(x), x, precision);
+                tmpx = Rat.addrat(tmpx, Support.Global.rat_one(), precision);
+                tmpx = Rat.rootrat(tmpx, Support.Global.rat_two(), radix, precision);
+                x = Rat.divrat(x, tmpx, precision);
+                x = asinrat(x, radix, precision);
+                x.pp.sign = sgn;
+                x.pq.sign = 1;
             }
         }
         else
         {
-            px.deref().pp.sign = sgn;
-            px.deref().pq.sign = 1;
-            _atanrat(px, precision);
+            x.pp.sign = sgn;
+            x.pq.sign = 1;
+            x = _atanrat(x, precision);
         }
 
-        if (Support.rat_gt(px.deref(), Support.Global.pi_over_two, precision))
+        if (Support.rat_gt(x, Support.Global.pi_over_two(), precision))
         {
-            Rat.subrat(px, Support.Global.pi, precision);
+            x = Rat.subrat(x, Support.Global.pi(), precision);
         }
+
+        return x;
+    }
+
+    static void atanrat(Ptr<RatPack.RAT> px, uint radix, int precision)
+    {
+        px.set(atanrat(px.deref(), radix, precision));
     }
 }
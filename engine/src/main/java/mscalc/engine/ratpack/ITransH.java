@@ -33,46 +33,46 @@ public class ITransH {
     //   For abs(x) >= .85
     //
     //-----------------------------------------------------------------------------
-    public static void asinhrat(Ptr<RatPack.RAT> px, uint radix, int precision)
+    public static RatPack.RAT asinhrat(RatPack.RAT x, uint radix, int precision)
     {
-        Ptr<RatPack.RAT> neg_pt_eight_five = new Ptr<>();
-
-        neg_pt_eight_five.set(RatPack.DUPRAT(Support.Global.pt_eight_five));
-        neg_pt_eight_five.deref().pp.sign *= -1;
+        RatPack.RAT neg_pt_eight_five = RatPack.DUPRAT(Support.Global.pt_eight_five());
+        neg_pt_eight_five.pp.sign *= -1;
 
-        if (Support.rat_gt(px.deref(), Support.Global.pt_eight_five, precision) || Support.rat_lt(px.deref(), neg_pt_eight_five.deref(), precision))
+        if (Support.rat_gt(x, Support.Global.pt_eight_five(), precision) || Support.rat_lt(x, neg_pt_eight_five, precision))
         {
-            Ptr<RatPack.RAT> ptmp = new Ptr<>(RatPack.DUPRAT(px.deref()));
-            Rat.mulrat(ptmp, px.deref(), precision);
-            Rat.addrat(ptmp, Support.Global.rat_one, precision);
-            Rat.rootrat(ptmp, Support.Global.rat_two, radix, precision);
-            Rat.addrat(px, ptmp.deref(), precision);
-            Exp.lograt(px, precision);
+            RatPack.RAT tmp = Rat.mulrat(RatPack.DUPRAT(x), x, precision);
+            tmp = Rat.addrat(tmp, Support.Global.rat_one(), precision);
+            tmp = Rat.rootrat(tmp, Support.Global.rat_two(), radix, precision);
+            x = Rat.addrat(x, tmp, precision);
+            return Exp.lograt(x, precision);
         }
-        else
-        {
-            RatPack.TYLOR t = new RatPack.TYLOR(px.deref(), precision);
-            t.xx.pp.sign *= -1;
 
-            t.pret = RatPack.DUPRAT(px.deref());
-            t.thisterm = RatPack.DUPRAT(px.deref());
+        RatPack.TYLOR t = new RatPack.TYLOR(x, precision);
+        t.xx.pp.sign *= -1;
 
-            t.n2 = RatPack.DUPNUM(Support.Global.num_one);
+        t.pret = RatPack.DUPRAT(x);
+        t.thisterm = RatPack.DUPRAT(x);
 
-            do
-            {
-                t.NEXTTERM(t.xx, () -> {
-                    t.MULNUM(t.n2);
-                    t.MULNUM(t.n2);
-                    t.n2 = t.INC(t.n2);
-                    t.DIVNUM(t.n2);
-                    t.n2 = t.INC(t.n2);
-                    t.DIVNUM(t.n2);
-                }, precision);
-            } while (!t.thisterm.SMALL_ENOUGH_RAT(precision));
+        t.n2 = RatPack.DUPNUM(Support.Global.num_one());
 
-            px.set(t.RESULT());
-        }
+        do
+        {
+            t.NEXTTERM(t.xx, () -> {
+                t.MULNUM(t.n2);
+                t.MULNUM(t.n2);
+                t.n2 = t.INC(t.n2);
+                t.DIVNUM(t.n2);
+                t.n2 = t.INC(t.n2);
+                t.DIVNUM(t.n2);
+            }, precision);
+        } while (!t.thisterm.SMALL_ENOUGH_RAT(precision));
+
+        return t.RESULT();
+    }
+
+    public static void asinhrat(Ptr<RatPack.RAT> px, uint radix, int precision)
+    {
+        px.set(asinhrat(px.deref(), radix, precision));
     }
 
     //-----------------------------------------------------------------------------
@@ -90,21 +90,23 @@ public class ITransH {
     //   For x >= 1
     //
     //-----------------------------------------------------------------------------
-    public static void acoshrat(Ptr<RatPack.RAT> px, uint radix, int precision)
+    public static RatPack.RAT acoshrat(RatPack.RAT x, uint radix, int precision)
     {
-        if (Support.rat_lt(px.deref(), Support.Global.rat_one, precision))
+        if (Support.rat_lt(x, Support.Global.rat_one(), precision))
         {
             throw new ErrorCodeException(CalcErr.CALC_E_DOMAIN);
         }
-        else
-        {
-            Ptr<RatPack.RAT> ptmp = new Ptr<>(RatPack.DUPRAT(px.deref()));
-            Rat.mulrat(ptmp, px.deref(), precision);
-            Rat.subrat(ptmp, Support.Global.rat_one, precision);
-            Rat.rootrat(ptmp, Support.Global.rat_two, radix, precision);
-            Rat.addrat(px, ptmp.deref(), precision);
-            Exp.lograt(px, precision);
-        }
+
+        RatPack.RAT tmp = Rat.mulrat(RatPack.DUPRAT(x), x, precision);
+        tmp = Rat.subrat(tmp, Support.Global.rat_one(), precision);
+        tmp = Rat.rootrat(tmp, Support.Global.rat_two(), radix, precision);
+        x = Rat.addrat(x, tmp, precision);
+        return Exp.lograt(x, precision);
+    }
+
+    public static void acoshrat(Ptr<RatPack.RAT> px, uint radix, int precision)
+    {
+        px.set(acoshrat(px.deref(), radix, precision));
     }
 
     //-----------------------------------------------------------------------------
@@ -123,15 +125,19 @@ public class ITransH {
     //             2     x-1
     //
     //-----------------------------------------------------------------------------
+    public static RatPack.RAT atanhrat(RatPack.RAT x, int precision)
+    {
+        RatPack.RAT tmp = Rat.subrat(RatPack.DUPRAT(x), Support.Global.rat_one(), precision);
+        x = Rat.addrat(x, Support.Global.rat_one(), precision);
+        x = Rat.divrat(x, tmp, precision);
+        x.pp.sign *= -1;
+        x = Exp.lograt(x, precision);
+        return Rat.divrat(x, Support.Global.rat_two(), precision);
+    }
+
     public static void atanhrat(Ptr<RatPack.RAT> px, int precision)
     {
-        Ptr<RatPack.RAT> ptmp = new Ptr<>(RatPack.DUPRAT(px.deref()));
-        Rat.subrat(ptmp, Support.Global.rat_one, precision);
-        Rat.addrat(px, Support.Global.rat_one, precision);
-        Rat.divrat(px, ptmp.deref(), precision);
-        px.deref().pp.sign *= -1;
-        Exp.lograt(px, precision);
-        Rat.divrat(px, Support.Global.rat_two, precision);
+        px.set(atanhrat(px.deref(), precision));
     }
 
 }
@@ -8,6 +8,7 @@ import mscalc.engine.ratpack.RatPack.NUMBER;
 import mscalc.engine.ratpack.RatPack.RAT;
 
 import static mscalc.engine.ratpack.BaseX.mulnumx;
+import static mscalc.engine.ratpack.BaseX.shlnumx;
 import static mscalc.engine.ratpack.CalcErr.CALC_E_DOMAIN;
 import static mscalc.engine.ratpack.CalcErr.CALC_E_INDEFINITE;
 import static mscalc.engine.ratpack.Conv.*;
@@ -22,143 +23,231 @@ import static mscalc.engine.ratpack.Support.Global.*;
 
 public interface Logic {
 
-    static void lshrat(Ptr<RAT> pa, RAT b, uint radix, int precision)
+    static RAT lshrat(RAT a, RAT b, uint radix, int precision)
     {
-        Ptr<RAT> pwr = new Ptr<>();
-
-        intrat(pa, radix, precision);
-        if (!zernum(pa.deref().pp))
+        a = intrat(a, radix, precision);
+        if (!zernum(a.pp))
         {
             // If input is zero we're done.
-            if (rat_gt(b, rat_max_exp, precision))
+            if (rat_gt(b, rat_max_exp(), precision))
             {
                 // Don't attempt lsh of anything big
                 throw new ErrorCodeException(CALC_E_DOMAIN);
             }
 
             final int intb = rattoi32(b, radix, precision);
-            pwr.set(DUPRAT(rat_two));
-            ratpowi32(pwr, intb, precision);
-            mulrat(pa, pwr.deref(), precision);
+            shiftrat(a, intb, precision);
         }
+        return a;
     }
 
-    static void rshrat(Ptr<RAT> pa, RAT b, uint radix, int precision)
+    static void lshrat(Ptr<RAT> pa, RAT b, uint radix, int precision)
     {
-        Ptr<RAT> pwr = new Ptr<>();
+        pa.set(lshrat(pa.deref(), b, radix, precision));
+    }
 
-        intrat(pa, radix, precision);
-        if (!zernum(pa.deref().pp))
+    static RAT rshrat(RAT a, RAT b, uint radix, int precision)
+    {
+        a = intrat(a, radix, precision);
+        if (!zernum(a.pp))
         {
             // If input is zero we're done.
-            if (rat_lt(b, rat_min_exp, precision))
+            if (rat_lt(b, rat_min_exp(), precision))
             {
                 // Don't attempt rsh of anything big and negative.
                 throw new ErrorCodeException(CALC_E_DOMAIN);
             }
 
             final int intb = rattoi32(b, radix, precision);
-            pwr.set(DUPRAT(rat_two));
-            ratpowi32(pwr, intb, precision);
-            divrat(pa, pwr.deref(), precision);
+            shiftrat(a, -intb, precision);
         }
+        return a;
+    }
+
+    static void rshrat(Ptr<RAT> pa, RAT b, uint radix, int precision)
+    {
+        pa.set(rshrat(pa.deref(), b, radix, precision));
+    }
+
+    //-----------------------------------------------------------------------------
+    //
+    //    FUNCTION: shiftrat
+    //
+    //    ARGUMENTS: non zero rational, number of bits and precision.
+    //
+    //    RETURN: None, changes a to a * 2 ** bits.
+    //
+    //    DESCRIPTION: Shifts p left for positive bits and q left for negative
+    //    ones, which gives the same p and q as multiplying or dividing by
+    //    2 ** |bits| but without computing the power.
+    //
+    //-----------------------------------------------------------------------------
+    private static void shiftrat(RAT a, int bits, int precision)
+    {
+        if (bits >= 0)
+        {
+            a.pp = shlnumx(a.pp, bits);
+        }
+        else
+        {
+            a.pq = shlnumx(a.pq, -bits);
+        }
+        trimit(a, precision);
     }
 
     //-----------------------------------------------------------------------------
     //
     //    FUNCTION: remrat
     //
-    //    ARGUMENTS: pointer to a rational a second rational.
+    //    ARGUMENTS: a rational and a second rational.
     //
-    //    RETURN: None, changes pointer.
+    //    RETURN: a, changed in place to a % b.
     //
-    //    DESCRIPTION: Calculate the remainder of *pa / b,
-    //                 equivalent of 'pa % b' in C/C++ and produces a result
+    //    DESCRIPTION: Calculate the remainder of a / b,
+    //                 equivalent of 'a % b' in C/C++ and produces a result
     //                 that is either zero or has the same sign as the dividend.
     //
     //-----------------------------------------------------------------------------
-    static void remrat(Ptr<RAT> pa, RAT b)
+    static RAT remrat(RAT a, RAT b)
     {
         if (zerrat(b))
         {
             throw new ErrorCodeException(CALC_E_INDEFINITE);
         }
 
-        Ptr<RAT> tmp = new Ptr<>(DUPRAT(b));
-
-        Ptr<NUMBER> ppp = new Ptr<>(pa.deref().pp);
-        mulnumx(ppp, tmp.deref().pq);
-        pa.deref().pp = ppp.deref();
-
-        ppp = new Ptr<>(tmp.deref().pp);
-        mulnumx(ppp, pa.deref().pq);
-        tmp.deref().pp = ppp.deref();
+        RAT tmp = DUPRAT(b);
 
-        ppp = new Ptr<>(pa.deref().pp);
-        remnum(ppp, tmp.deref().pp, BASEX);
-        pa.deref().pp = ppp.deref();
+        a.pp = mulnumx(a.pp, tmp.pq);
+        tmp.pp = mulnumx(tmp.pp, a.pq);
+        a.pp = remnum(a.pp, tmp.pp, BASEX);
+        a.pq = mulnumx(a.pq, tmp.pq);
 
-        Ptr<NUMBER> ppq = new Ptr<>(pa.deref().pq);
-        mulnumx(ppq, tmp.deref().pq);
-        pa.deref().pq = ppq.deref();
-
-        // Get *pa back in the integer over integer form.
-        pa.deref().RENORMALIZE();
+        // Get a back in the integer over integer form.
+        a.RENORMALIZE();
+        return a;
     }
 
     //-----------------------------------------------------------------------------
     //
-    //    FUNCTION: modrat
+    //    FUNCTION: remrat
     //
     //    ARGUMENTS: pointer to a rational a second rational.
     //
     //    RETURN: None, changes pointer.
     //
-    //    DESCRIPTION: Calculate the remainder of *pa / b, with the sign of the result
+    //    DESCRIPTION: Calculate the remainder of *pa / b.
+    //
+    //-----------------------------------------------------------------------------
+    static void remrat(Ptr<RAT> pa, RAT b)
+    {
+        pa.set(remrat(pa.deref(), b));
+    }
+
+    //-----------------------------------------------------------------------------
+    //
+    //    FUNCTION: modrat
+    //
+    //    ARGUMENTS: a rational and a second rational.
+    //
+    //    RETURN: a, changed in place to a mod b.
+    //
+    //    DESCRIPTION: Calculate the remainder of a / b, with the sign of the result
     //                 either zero or has the same sign as the divisor.
-    //    NOTE: When *pa or b are negative, the result won't be the same as
+    //    NOTE: When a or b are negative, the result won't be the same as
     //          the C/C++ operator %, use remrat if it's the behavior you expect.
     //
     //-----------------------------------------------------------------------------
-    static void modrat(Ptr<RAT> pa, RAT b)
+    static RAT modrat(RAT a, RAT b)
     {
         // contrary to remrat(X, 0) returning 0, modrat(X, 0) must return X
         if (zerrat(b))
         {
-            return;
+            return a;
         }
 
-        Ptr<RAT> tmp = new Ptr<>(DUPRAT(b));
+        RAT tmp = DUPRAT(b);
 
-        var needAdjust = (pa.deref().SIGN() == -1 ? (b.SIGN() == 1) : (b.SIGN() == -1));
+        var needAdjust = (a.SIGN() == -1 ? (b.SIGN() == 1) : (b.SIGN() == -1));
 
-        pa.deref().ppPtr(ppp -> mulnumx(ppp, tmp.deref().pq));
-        tmp.deref().ppPtr(ppp -> mulnumx(ppp, pa.deref().pq));
-        pa.deref().ppPtr(ppp -> remnum(ppp, tmp.deref().pp, BASEX));
-        pa.deref().pqPtr(ppq -> mulnumx(ppq, tmp.deref().pq));
+        a.pp = mulnumx(a.pp, tmp.pq);
+        tmp.pp = mulnumx(tmp.pp, a.pq);
+        a.pp = remnum(a.pp, tmp.pp, BASEX);
+        a.pq = mulnumx(a.pq, tmp.pq);
 
-        if (needAdjust && !zerrat(pa.deref()))
+        if (needAdjust && !zerrat(a))
         {
-            addrat(pa, b, BASEX.toInt());
+            a = addrat(a, b, BASEX.toInt());
         }
 
-        // Get *pa back in the integer over integer form.
-        pa.deref().RENORMALIZE();
+        // Get a back in the integer over integer form.
+        a.RENORMALIZE();
+        return a;
+    }
+
+    //-----------------------------------------------------------------------------
+    //
+    //    FUNCTION: modrat
+    //
+    //    ARGUMENTS: pointer to a rational a second rational.
+    //
+    //    RETURN: None, changes pointer.
+    //
+    //    DESCRIPTION: Calculate *pa mod b, see above.
+    //
+    //-----------------------------------------------------------------------------
+    static void modrat(Ptr<RAT> pa, RAT b)
+    {
+        pa.set(modrat(pa.deref(), b));
+    }
+
+    static RAT andrat(RAT a, RAT b, uint radix, int precision)
+    {
+        return boolrat(a, b, FUNC_AND, radix, precision);
     }
 
     static void andrat(Ptr<RAT> pa, RAT b, uint radix, int precision)
     {
-        boolrat(pa, b, FUNC_AND, radix, precision);
+        pa.set(andrat(pa.deref(), b, radix, precision));
+    }
+
+    static RAT orrat(RAT a, RAT b, uint radix, int precision)
+    {
+        return boolrat(a, b, FUNC_OR, radix, precision);
     }
 
     static void orrat(Ptr<RAT> pa, RAT b, uint radix, int precision)
     {
-        boolrat(pa, b, FUNC_OR, radix, precision);
+        pa.set(orrat(pa.deref(), b, radix, precision));
+    }
+
+    static RAT xorrat(RAT a, RAT b, uint radix, int precision)
+    {
+        return boolrat(a, b, FUNC_XOR, radix, precision);
     }
 
     static void xorrat(Ptr<RAT> pa, RAT b, uint radix, int precision)
     {
-        boolrat(pa, b, FUNC_XOR, radix, precision);
+        pa.set(xorrat(pa.deref(), b, radix, precision));
+    }
+
+    //---------------------------------------------------------------------------
+    //
+    //    FUNCTION: boolrat
+    //
+    //    ARGUMENTS: a rational and a second rational.
+    //
+    //    RETURN: a op b, a may be changed in place.
+    //
+    //    DESCRIPTION: Does the rational equivalent of a op b;
+    //
+    //---------------------------------------------------------------------------
+    static RAT boolrat(RAT a, RAT b, BOOL_FUNCS func, uint radix, int precision)
+    {
+        a = intrat(a, radix, precision);
+        RAT tmp = intrat(DUPRAT(b), radix, precision);
+
+        a.pp = boolnum(a.pp, tmp.pp, func);
+        return a;
     }
 
     //---------------------------------------------------------------------------
@@ -174,12 +263,7 @@ public interface Logic {
     //---------------------------------------------------------------------------
     static void boolrat(Ptr<RAT> pa, RAT b, BOOL_FUNCS func, uint radix, int precision)
     {
-        Ptr<RAT> tmp = new Ptr<>();
-        intrat(pa, radix, precision);
-        tmp.set(DUPRAT(b));
-        intrat(tmp, radix, precision);
-
-        pa.deref().ppPtr(ppp -> boolnum(ppp, tmp.deref().pp, func));
+        pa.set(boolrat(pa.deref(), b, func, radix, precision));
     }
 
 
@@ -187,19 +271,18 @@ public interface Logic {
     //
     //    FUNCTION: boolnum
     //
-    //    ARGUMENTS: pointer to a number a second number
+    //    ARGUMENTS: a number and a second number
     //
-    //    RETURN: None, changes first pointer.
+    //    RETURN: a op b, as a new number.
     //
-    //    DESCRIPTION: Does the number equivalent of *pa &= b.
+    //    DESCRIPTION: Does the number equivalent of a & b.
     //    radix doesn't matter for logicals.
     //    WARNING: Assumes numbers are unsigned.
     //
     //---------------------------------------------------------------------------
-    static void boolnum(Ptr<NUMBER> pa, NUMBER b, BOOL_FUNCS func)
+    static NUMBER boolnum(NUMBER a, NUMBER b, BOOL_FUNCS func)
     {
         NUMBER c = null;
-        NUMBER a = null;
         UIntArrayPtr pcha;
         UIntArrayPtr pchb;
         UIntArrayPtr pchc;
@@ -208,7 +291,6 @@ public interface Logic {
         uint da;
         uint db;
 
-        a = pa.deref();
         cdigits = Math.max(a.cdigit + a.exp, b.cdigit + b.exp) - Math.min(a.exp, b.exp);
         c = createnum(uint.of(cdigits));
         c.exp = Math.min(a.exp, b.exp);
@@ -244,7 +326,23 @@ public interface Logic {
             c.cdigit--;
         }
 
-        pa.set(c);
+        return c;
+    }
+
+    //---------------------------------------------------------------------------
+    //
+    //    FUNCTION: boolnum
+    //
+    //    ARGUMENTS: pointer to a number a second number
+    //
+    //    RETURN: None, changes first pointer.
+    //
+    //    DESCRIPTION: Does the number equivalent of *pa &= b.
+    //
+    //---------------------------------------------------------------------------
+    static void boolnum(Ptr<NUMBER> pa, NUMBER b, BOOL_FUNCS func)
+    {
+        pa.set(boolnum(pa.deref(), b, func));
     }
 
     enum BOOL_FUNCS
@@ -3,7 +3,6 @@ package mscalc.engine.ratpack;
 import mscalc.engine.cpp.UIntArrayPtr;
 import mscalc.engine.cpp.Ptr;
 import mscalc.engine.cpp.uint;
-import mscalc.engine.cpp.ulong;
 
 import java.util.ArrayList;
 import java.util.List;
@@ -16,12 +15,11 @@ public interface Num {
     //
     //    FUNCTION: addnum
     //
-    //    ARGUMENTS: pointer to a number a second number, and the
-    //               radix.
+    //    ARGUMENTS: a number a second number, and the radix.
     //
-    //    RETURN: None, changes first pointer.
+    //    RETURN: a + b, either a new number or a itself when b is zero.
     //
-    //    DESCRIPTION: Does the number equivalent of *pa += b.
+    //    DESCRIPTION: Does the number equivalent of a + b.
     //    Assumes radix is the base of both numbers.
     //
     //    ALGORITHM: Adds each digit from least significant to most
@@ -29,39 +27,57 @@ public interface Num {
     //
     //
     //----------------------------------------------------------------------------
-    static void addnum(Ptr<RatPack.NUMBER> pa, RatPack.NUMBER b, uint radix)
+    static RatPack.NUMBER addnum(RatPack.NUMBER a, RatPack.NUMBER b, uint radix)
     {
         if (b.cdigit > 1 || b.mant.at(0).notEq(0))
         { // If b is zero we are done.
-            if (pa.deref().cdigit > 1 || pa.deref().mant.at(0).notEq(0))
-            { // pa and b are both nonzero.
-                _addnum(pa, b, radix);
+            if (a.cdigit > 1 || a.mant.at(0).notEq(0))
+            { // a and b are both nonzero.
+                return _addnum(a, b, radix);
             }
-        else
-            { // if pa is zero and b isn't just copy b.
-                pa.set(RatPack.DUPNUM(b));
+            else
+            { // if a is zero and b isn't just copy b.
+                return RatPack.DUPNUM(b);
             }
         }
+        return a;
     }
 
-    static void _addnum(Ptr<RatPack.NUMBER> pa, RatPack.NUMBER b, uint radix)
+    //----------------------------------------------------------------------------
+    //
+    //    FUNCTION: addnum
+    //
+    //    ARGUMENTS: pointer to a number a second number, and the
+    //               radix.
+    //
+    //    RETURN: None, changes first pointer.
+    //
+    //    DESCRIPTION: Does the number equivalent of *pa += b.
+    //
+    //----------------------------------------------------------------------------
+    static void addnum(Ptr<RatPack.NUMBER> pa, RatPack.NUMBER b, uint radix)
+    {
+        pa.set(addnum(pa.deref(), b, radix));
+    }
 
+    static RatPack.NUMBER _addnum(RatPack.NUMBER a, RatPack.NUMBER b, uint radix)
     {
         RatPack.NUMBER c = null; // c will contain the result.
-        RatPack.NUMBER a = null; // a is the dereferenced number pointer from *pa
-        UIntArrayPtr pcha;      // pcha is a pointer to the mantissa of a.
-        UIntArrayPtr pchb;      // pchb is a pointer to the mantissa of b.
-        UIntArrayPtr pchc;      // pchc is a pointer to the mantissa of c.
+        int[] pcha;      // pcha is the mantissa of a.
+        int[] pchb;      // pchb is the mantissa of b.
+        int[] pchc;      // pchc is the mantissa of c.
+        int ia = 0;      // ia is the index of the next digit of a.
+        int ib = 0;      // ib is the index of the next digit of b.
+        int ic = 0;      // ic is the index of the next digit of c.
         int cdigits;     // cdigits is the max count of the digits results used as a counter.
         int mexp;        // mexp is the exponent of the result.
-        uint da;         // da is a single 'digit' after possible padding.
-        uint db;         // db is a single 'digit' after possible padding.
-        uint cy = uint.of(0);     // cy is the value of a carry after adding two 'digits'
+        long da;         // da is a single 'digit' after possible padding.
+        long db;         // db is a single 'digit' after possible padding.
+        long cy = 0;     // cy is the value of a carry after adding two 'digits'
+        long nRadix = radix.toULong().raw();
         int fcompla = 0; // fcompla is a flag to signal a is negative.
         int fcomplb = 0; // fcomplb is a flag to signal b is negative.
 
-        a = pa.deref();
-
         // Calculate the overlap of the numbers after alignment, this includes
         // necessary padding 0's
         cdigits = max(a.cdigit + a.exp, b.cdigit + b.exp) - min(a.exp, b.exp);
@@ -70,14 +86,14 @@ public interface Num {
         c.exp = min(a.exp, b.exp);
         mexp = c.exp;
         c.cdigit = cdigits;
-        pcha = a.mant.pointer();
-        pchb = b.mant.pointer();
-        pchc = c.mant.pointer();
+        pcha = a.mant.raw();
+        pchb = b.mant.raw();
+        pchc = c.mant.raw();
 
         // Figure out the sign of the numbers
         if (a.sign != b.sign)
         {
-            cy = uint.of(1);
+            cy = 1;
             fcompla = (a.sign == -1) ? 1 : 0;
             fcomplb = (b.sign == -1) ? 1 : 0;
         }
@@ -87,34 +103,33 @@ public interface Num {
         for (; cdigits > 0; cdigits--, mexp++)
         {
             // Get digit from a, taking padding into account.
-            da = (((mexp >= a.exp) && (cdigits + a.exp - c.exp > (c.cdigit - a.cdigit))) ? pcha.derefPlusPlus() : uint.ZERO);
+            da = (((mexp >= a.exp) && (cdigits + a.exp - c.exp > (c.cdigit - a.cdigit))) ? Integer.toUnsignedLong(pcha[ia++]) : 0);
             // Get digit from b, taking padding into account.
-            db = (((mexp >= b.exp) && (cdigits + b.exp - c.exp > (c.cdigit - b.cdigit))) ? pchb.derefPlusPlus() : uint.ZERO);
+            db = (((mexp >= b.exp) && (cdigits + b.exp - c.exp > (c.cdigit - b.cdigit))) ? Integer.toUnsignedLong(pchb[ib++]) : 0);
 
             // Handle complementing for a and b digit. Might be a better way, but
             // haven't found it yet.
             if (fcompla != 0)
             {
-                da = radix.subtract(uint.ONE).subtract(da);
+                da = nRadix - 1 - da;
             }
             if (fcomplb != 0)
             {
-                db = radix.subtract(uint.ONE).subtract(db);
+                db = nRadix - 1 - db;
             }
 
             // Update carry as necessary
-            cy = da.add(db).add(cy);
+            cy = da + db + cy;
 
-            pchc.set(cy.modulo(radix));
-            pchc.advance();
+            pchc[ic++] = (int) (cy % nRadix);
 
-            cy = cy.divide(radix);
+            cy = cy / nRadix;
         }
 
         // Handle carry from last sum as extra digit
-        if (cy.toBool() && !(fcompla != 0 || fcomplb != 0))
+        if (cy != 0 && !(fcompla != 0 || fcomplb != 0))
         {
-            pchc.set(cy); pchc.advance();
+            pchc[ic] = (int) cy;
             c.cdigit++;
         }
 
@@ -125,7 +140,7 @@ public interface Num {
         }
         else
         {
-            if (cy.toBool())
+            if (cy != 0)
             {
                 c.sign = 1;
             }
@@ -136,26 +151,21 @@ public interface Num {
                 // attempt to handle this above was made, it turned out to be much
                 // slower on average.
                 c.sign = -1;
-                cy = uint.ONE;
-                pchc = c.mant.pointer();
-                for (cdigits = c.cdigit; cdigits > 0; cdigits--)
+                cy = 1;
+                for (ic = 0; ic < c.cdigit; ic++)
                 {
-                    cy = radix.subtract(uint.ONE).subtract(pchc.deref()).add(cy);
-                    pchc.set(cy.modulo(radix));
-                    pchc.advance();
-                    cy = cy.divide(radix);
+                    cy = nRadix - 1 - Integer.toUnsignedLong(pchc[ic]) + cy;
+                    pchc[ic] = (int) (cy % nRadix);
+                    cy = cy / nRadix;
                 }
             }
         }
 
         // Remove leading zeros, remember digits are in order of
         // increasing significance. i.e. 100 would be 0,0,1
-        while (c.cdigit > 1 && pchc.minusMinusDeref().isZero())
-        {
-            c.cdigit--;
-        }
+        c.cdigit = NumKernel.significant(pchc, c.cdigit);
 
-        pa.set(c);
+        return c;
     }
 
 
@@ -163,114 +173,71 @@ public interface Num {
     //
     //    FUNCTION: mulnum
     //
-    //    ARGUMENTS: pointer to a number a second number, and the
-    //               radix.
+    //    ARGUMENTS: a number a second number, and the radix.
     //
-    //    RETURN: None, changes first pointer.
+    //    RETURN: a * b as a new number, a is never changed.
     //
-    //    DESCRIPTION: Does the number equivalent of *pa *= b.
+    //    DESCRIPTION: Does the number equivalent of a * b.
     //    Assumes radix is the radix of both numbers.  This algorithm is the
     //    same one you learned in grade school.
     //
     //----------------------------------------------------------------------------
-    static void mulnum(Ptr<RatPack.NUMBER> pa, RatPack.NUMBER b, uint radix)
+    static RatPack.NUMBER mulnum(RatPack.NUMBER a, RatPack.NUMBER b, uint radix)
     {
         if (b.cdigit > 1 || b.mant.at(0).notEq(1) || b.exp != 0)
         { // If b is one we don't multiply exactly.
-            if (pa.deref().cdigit > 1 || pa.deref().mant.at(0).notEq(1) || pa.deref().exp != 0)
-            { // pa and b are both non-one.
-                _mulnum(pa, b, radix);
+            if (a.cdigit > 1 || a.mant.at(0).notEq(1) || a.exp != 0)
+            { // a and b are both non-one.
+                return _mulnum(a, b, radix);
             }
-        else
-            { // if pa is one and b isn't just copy b, and adjust the sign.
-                int sign = pa.deref().sign;
-                pa.set(RatPack.DUPNUM(b));
-                pa.deref().sign *= sign;
+            else
+            { // if a is one and b isn't just copy b, and adjust the sign.
+                RatPack.NUMBER c = RatPack.DUPNUM(b);
+                c.sign *= a.sign;
+                return c;
             }
         }
         else
         { // But we do have to set the sign.
-            pa.set(RatPack.DUPNUM(pa.deref())); // mc: Make a defensive copy to not modify original argument
-            pa.deref().sign *= b.sign;
+            RatPack.NUMBER c = RatPack.DUPNUM(a); // mc: Make a defensive copy to not modify original argument
+            c.sign *= b.sign;
+            return c;
         }
     }
 
-    static void _mulnum(Ptr<RatPack.NUMBER> pa, RatPack.NUMBER b, uint radix)
+    //----------------------------------------------------------------------------
+    //
+    //    FUNCTION: mulnum
+    //
+    //    ARGUMENTS: pointer to a number a second number, and the
+    //               radix.
+    //
+    //    RETURN: None, changes first pointer.
+    //
+    //    DESCRIPTION: Does the number equivalent of *pa *= b.
+    //
+    //----------------------------------------------------------------------------
+    static void mulnum(Ptr<RatPack.NUMBER> pa, RatPack.NUMBER b, uint radix)
+    {
+        pa.set(mulnum(pa.deref(), b, radix));
+    }
+
+    static RatPack.NUMBER _mulnum(RatPack.NUMBER a, RatPack.NUMBER b, uint radix)
     {
         RatPack.NUMBER c = null;  // c will contain the result.
-        RatPack.NUMBER a = null;  // a is the dereferenced number pointer from *pa
-        UIntArrayPtr pcha;       // pcha is a pointer to the mantissa of a.
-        UIntArrayPtr pchb;       // pchb is a pointer to the mantissa of b.
-        UIntArrayPtr pchc;       // pchc is a pointer to the mantissa of c.
-        UIntArrayPtr pchcoffset; // pchcoffset, is the anchor location of the next
-        // single digit multiply partial result.
-        int iadigit = 0;  // Index of digit being used in the first number.
-        int ibdigit = 0;  // Index of digit being used in the second number.
-        uint da = uint.ZERO;      // da is the digit from the fist number.
-        ulong cy = ulong.ZERO;  // cy is the carry resulting from the addition of
-        // a multiplied row into the result.
-        ulong mcy = ulong.ZERO; // mcy is the resultant from a single
-        // multiply, AND the carry of that multiply.
-        int icdigit = 0;  // Index of digit being calculated in final result.
-
-        a = pa.deref();
-        ibdigit = a.cdigit + b.cdigit - 1;
-        c = Conv.createnum(uint.of(ibdigit + 1));
-        c.cdigit = ibdigit;
-        c.sign = a.sign * b.sign;
 
+        c = Conv.createnum(uint.of(a.cdigit + b.cdigit - 1));
+        c.cdigit = a.cdigit + b.cdigit;
+        c.sign = a.sign * b.sign;
         c.exp = a.exp + b.exp;
-        pcha = a.mant.pointer();
-        pchcoffset = c.mant.pointer();
-
-        for (iadigit = a.cdigit; iadigit > 0; iadigit--)
-        {
-            da = pcha.derefPlusPlus();
-            pchb = b.mant.pointer();
 
-            // Shift pchc, and pchcoffset, one for each digit
-            pchc = pchcoffset.copy();
-            pchcoffset.advance();
-
-            for (ibdigit = b.cdigit; ibdigit > 0; ibdigit--)
-            {
-                cy = ulong.ZERO;
-                mcy = da.multiply(pchb.deref());
-                if (mcy.toBool())
-                {
-                    icdigit = 0;
-                    if (ibdigit == 1 && iadigit == 1)
-                    {
-                        c.cdigit++;
-                    }
-                }
-                // If result is nonzero, or while result of carry is nonzero...
-                while (mcy.toBool() || cy.toBool())
-                {
-                    // update carry from addition(s) and multiply.
-                    cy = cy.plus( pchc.at(icdigit).toULong().plus(mcy.modulo(radix.toULong())) );
-
-                    // update result digit from
-                    pchc.setAt(icdigit++, (cy.modulo(radix)).toUInt());
-
-                    // update carries from
-                    mcy = mcy.divide(radix);
-                    cy = cy.divide(radix);
-                }
-
-                pchb.advance();
-                pchc.advance();
-            }
-        }
+        NumKernel.mul(a.mant.raw(), a.cdigit, b.mant.raw(), b.cdigit, c.mant.raw(), radix.toULong().raw());
 
         // prevent different kinds of zeros, by stripping leading duplicate zeros.
         // digits are in order of increasing significance.
-        while (c.cdigit > 1 && c.mant.at(c.cdigit - 1).isZero())
-        {
-            c.cdigit--;
-        }
+        c.cdigit = NumKernel.significant(c.mant.raw(), c.cdigit);
 
-        pa.set(c);
+        return c;
     }
 
 
@@ -278,87 +245,121 @@ public interface Num {
     //
     //    FUNCTION: remnum
     //
-    //    ARGUMENTS: pointer to a number a second number, and the
-    //               radix.
+    //    ARGUMENTS: a number a second number, and the radix.
     //
-    //    RETURN: None, changes first pointer.
+    //    RETURN: a % b, a itself when a is already less than b.
     //
-    //    DESCRIPTION: Does the number equivalent of *pa %= b.
-    //            Repeatedly subtracts off powers of 2 of b until *pa < b.
+    //    DESCRIPTION: Does the number equivalent of a % b.
+    //            Repeatedly subtracts off powers of 2 of b until a < b.
     //
     //
     //----------------------------------------------------------------------------
-    static void remnum(Ptr<RatPack.NUMBER> pa, RatPack.NUMBER b, uint radix)
+    static RatPack.NUMBER remnum(RatPack.NUMBER a, RatPack.NUMBER b, uint radix)
     {
-        Ptr<RatPack.NUMBER> tmp = new Ptr<>(null);     // tmp is the working remainder.
+        RatPack.NUMBER tmp = null;     // tmp is the working remainder.
         RatPack.NUMBER lasttmp = null; // lasttmp is the last remainder which worked.
 
-        // Once *pa is less than b, *pa is the remainder.
-        while (!lessnum(pa.deref(), b))
+        // Once a is less than b, a is the remainder.
+        while (!lessnum(a, b))
         {
-            tmp.set(RatPack.DUPNUM(b));
-            if (lessnum(tmp.deref(), pa.deref()))
+            tmp = RatPack.DUPNUM(b);
+            if (lessnum(tmp, a))
             {
                 // Start off close to the right answer for subtraction.
-                tmp.deref().exp = pa.deref().cdigit + pa.deref().exp - tmp.deref().cdigit;
-                if (pa.deref().MSD().compareTo(tmp.deref().MSD()) <= 0)
+                tmp.exp = a.cdigit + a.exp - tmp.cdigit;
+                if (a.MSD().compareTo(tmp.MSD()) <= 0)
                 {
                     // Don't take the chance that the numbers are equal.
-                    tmp.deref().exp--;
+                    tmp.exp--;
                 }
             }
 
             lasttmp = Conv.i32tonum(0, radix);
 
-            while (lessnum(tmp.deref(), pa.deref()))
+            while (lessnum(tmp, a))
             {
-                lasttmp = RatPack.DUPNUM(tmp.deref());
-                addnum(tmp, tmp.deref(), radix);
+                lasttmp = RatPack.DUPNUM(tmp);
+                tmp = addnum(tmp, tmp, radix);
             }
 
-            if (lessnum(pa.deref(), tmp.deref()))
+            if (lessnum(a, tmp))
             {
                 // too far, back up...
-                tmp.set(lasttmp);
+                tmp = lasttmp;
                 lasttmp = null;
             }
 
             // Subtract the working remainder from the remainder holder.
-            tmp.deref().sign = -1 * pa.deref().sign;
-            addnum(pa, tmp.deref(), radix);
+            tmp.sign = -1 * a.sign;
+            a = addnum(a, tmp, radix);
         }
+
+        return a;
     }
 
-    //---------------------------------------------------------------------------
+    //----------------------------------------------------------------------------
     //
-    //    FUNCTION: divnum
+    //    FUNCTION: remnum
     //
     //    ARGUMENTS: pointer to a number a second number, and the
     //               radix.
     //
     //    RETURN: None, changes first pointer.
     //
-    //    DESCRIPTION: Does the number equivalent of *pa /= b.
+    //    DESCRIPTION: Does the number equivalent of *pa %= b.
+    //
+    //----------------------------------------------------------------------------
+    static void remnum(Ptr<RatPack.NUMBER> pa, RatPack.NUMBER b, uint radix)
+    {
+        pa.set(remnum(pa.deref(), b, radix));
+    }
+
+    //---------------------------------------------------------------------------
+    //
+    //    FUNCTION: divnum
+    //
+    //    ARGUMENTS: a number a second number, and the radix.
+    //
+    //    RETURN: a / b as a new number, a is never changed.
+    //
+    //    DESCRIPTION: Does the number equivalent of a / b.
     //    Assumes radix is the radix of both numbers.
     //
     //---------------------------------------------------------------------------
-    static void divnum(Ptr<RatPack.NUMBER> pa, RatPack.NUMBER b, uint radix, int precision)
+    static RatPack.NUMBER divnum(RatPack.NUMBER a, RatPack.NUMBER b, uint radix, int precision)
     {
         if (b.cdigit > 1 || b.mant.at(0).notEq(1) || b.exp != 0)
         {
             // b is not one
-            _divnum(pa, b, radix, precision);
+            return _divnum(a, b, radix, precision);
         }
         else
         { // But we do have to set the sign.
-            pa.set(RatPack.DUPNUM(pa.deref()));
-            pa.deref().sign *= b.sign;
+            RatPack.NUMBER c = RatPack.DUPNUM(a);
+            c.sign *= b.sign;
+            return c;
         }
     }
 
-    static void _divnum(Ptr<RatPack.NUMBER> pa, RatPack.NUMBER b, uint radix, int precision)
+    //---------------------------------------------------------------------------
+    //
+    //    FUNCTION: divnum
+    //
+    //    ARGUMENTS: pointer to a number a second number, and the
+    //               radix.
+    //
+    //    RETURN: None, changes first pointer.
+    //
+    //    DESCRIPTION: Does the number equivalent of *pa /= b.
+    //
+    //---------------------------------------------------------------------------
+    static void divnum(Ptr<RatPack.NUMBER> pa, RatPack.NUMBER b, uint radix, int precision)
+    {
+        pa.set(divnum(pa.deref(), b, radix, precision));
+    }
+
+    static RatPack.NUMBER _divnum(RatPack.NUMBER a, RatPack.NUMBER b, uint radix, int precision)
     {
-        RatPack.NUMBER a = pa.deref();
         int thismax = precision + 2;
         if (thismax < a.cdigit)
         {
@@ -377,12 +378,10 @@ public interface Num {
         UIntArrayPtr ptrc = c.mant.pointer();
         ptrc.advance(thismax);
 
-        Ptr<RatPack.NUMBER> rem = new Ptr<>(null);
-        RatPack.NUMBER tmp = null;
-        rem.set(RatPack.DUPNUM(a));
-        tmp = RatPack.DUPNUM(b);
+        RatPack.NUMBER rem = RatPack.DUPNUM(a);
+        RatPack.NUMBER tmp = RatPack.DUPNUM(b);
         tmp.sign = a.sign;
-        rem.deref().exp = b.cdigit + b.exp - rem.deref().cdigit;
+        rem.exp = b.cdigit + b.exp - rem.cdigit;
 
         // Build a table of multiplications of the divisor, this is quicker for
         // more than radix 'digits'
@@ -392,22 +391,19 @@ public interface Num {
         for (long i = 1; i < radix.toULong().raw(); i++)
         {
             // TODO: Very inefficient
-            Ptr<RatPack.NUMBER> newValue = new Ptr<>(RatPack.DUPNUM(numberList.getFirst()));
-            addnum(newValue, tmp, radix);
-
-            numberList.addFirst(newValue.deref());
+            numberList.addFirst(addnum(RatPack.DUPNUM(numberList.getFirst()), tmp, radix));
         }
         tmp = null;
 
         int digit;
         int cdigits = 0;
-        while (cdigits++ < thismax && !zernum(rem.deref()))
+        while (cdigits++ < thismax && !zernum(rem))
         {
             digit = radix.toInt() - 1;
             RatPack.NUMBER multiple = null;
             for (RatPack.NUMBER num : numberList)
             {
-                if (!lessnum(rem.deref(), num) || 0 == --digit)
+                if (!lessnum(rem, num) || 0 == --digit)
                 {
                     multiple = num;
                     break;
@@ -417,10 +413,10 @@ public interface Num {
             if (digit != 0)
             {
                 multiple.sign *= -1;
-                addnum(rem, multiple, radix);
+                rem = addnum(rem, multiple, radix);
                 multiple.sign *= -1;
             }
-            rem.deref().exp++;
+            rem.exp++;
 
             ptrc.set(uint.of(digit));
             ptrc.advance(-1);
@@ -451,7 +447,7 @@ public interface Num {
             }
         }
 
-        pa.set(c);
+        return c;
     }
 
     //---------------------------------------------------------------------------
@@ -469,12 +465,14 @@ public interface Num {
     static boolean equnum(RatPack.NUMBER a, RatPack.NUMBER b)
     {
         int diff;
-        UIntArrayPtr pa;
-        UIntArrayPtr pb;
+        int[] pa;
+        int[] pb;
+        int ia;
+        int ib;
         int cdigits;
         int ccdigits;
-        uint da;
-        uint db;
+        int da;
+        int db;
 
         diff = (a.cdigit + a.exp) - (b.cdigit + b.exp);
         if (diff < 0)
@@ -492,10 +490,10 @@ public interface Num {
             else
             {
                 // OK the exponents match.
-                pa = a.mant.pointer();
-                pb = b.mant.pointer();
-                pa.advance(a.cdigit - 1);
-                pb.advance(b.cdigit - 1);
+                pa = a.mant.raw();
+                pb = b.mant.raw();
+                ia = a.cdigit - 1;
+                ib = b.cdigit - 1;
                 cdigits = max(a.cdigit, b.cdigit);
                 ccdigits = cdigits;
 
@@ -503,9 +501,9 @@ public interface Num {
                 // difference in the digits.
                 for (; cdigits > 0; cdigits--)
                 {
-                    da = ((cdigits > (ccdigits - a.cdigit)) ? pa.derefMinusMinus() : uint.ZERO);
-                    db = ((cdigits > (ccdigits - b.cdigit)) ? pb.derefMinusMinus() : uint.ZERO);
-                    if (da.compareTo(db) != 0)
+                    da = ((cdigits > (ccdigits - a.cdigit)) ? pa[ia--] : 0);
+                    db = ((cdigits > (ccdigits - b.cdigit)) ? pb[ib--] : 0);
+                    if (da != db)
                     {
                         return false;
                     }
@@ -542,20 +540,19 @@ public interface Num {
         {
             return false;
         }
-        UIntArrayPtr pa = a.mant.pointer();
-        UIntArrayPtr pb = b.mant.pointer();
-        pa.advance( a.cdigit - 1 );
-        pb.advance( b.cdigit - 1 );
+        int[] pa = a.mant.raw();
+        int[] pb = b.mant.raw();
+        int ia = a.cdigit - 1;
+        int ib = b.cdigit - 1;
         int cdigits = max(a.cdigit, b.cdigit);
         int ccdigits = cdigits;
         for (; cdigits > 0; cdigits--)
         {
-            uint da = ((cdigits > (ccdigits - a.cdigit)) ? pa.derefMinusMinus() : uint.ZERO);
-            uint db = ((cdigits > (ccdigits - b.cdigit)) ? pb.derefMinusMinus() : uint.ZERO);
-            diff = da.subtract(db).toInt();
-            if (diff != 0)
+            int da = ((cdigits > (ccdigits - a.cdigit)) ? pa[ia--] : 0);
+            int db = ((cdigits > (ccdigits - b.cdigit)) ? pb[ib--] : 0);
+            if (da != db)
             {
-                return (diff < 0);
+                return Integer.compareUnsigned(da, db) < 0;
             }
         }
         // In this case, they are equal.
@@ -575,22 +572,8 @@ public interface Num {
     //----------------------------------------------------------------------------
     static boolean zernum(RatPack.NUMBER a)
     {
-        int length;
-        UIntArrayPtr pcha;
-        length = a.cdigit;
-        pcha = a.mant.pointer();
-
         // loop over all the digits until you find a nonzero or until you run
         // out of digits
-        while (length-- > 0)
-        {
-            if (pcha.derefPlusPlus().notEq(0))
-            {
-                // One of the digits isn't zero, therefore the number isn't zero
-                return false;
-            }
-        }
-        // All of the digits are zero, therefore the number is zero
-        return true;
+        return NumKernel.isZero(a.mant.raw(), a.cdigit);
     }
 }
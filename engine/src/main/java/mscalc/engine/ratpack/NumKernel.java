@@ -0,0 +1,803 @@
+package mscalc.engine.ratpack;
+
+import mscalc.engine.cpp.ErrorCodeException;
+
+import java.util.Arrays;
+
+import static mscalc.engine.ratpack.CalcErr.CALC_E_DIVIDEBYZERO;
+import static mscalc.engine.ratpack.RatPack.BASEXPWR;
+
+//-----------------------------------------------------------------------------
+//
+//  Primitive mantissa kernels used by Num and BaseX.
+//
+//  All routines work directly on the int[] backing a UIntArray, digits are
+//  stored least significant first. Digits are always smaller than the radix
+//  and the radix is never bigger than BASEX (2^31), so every digit is a non
+//  negative int and every digit product (plus carries) fits in a signed long.
+//  None of the routines allocate per digit.
+//
+//-----------------------------------------------------------------------------
+interface NumKernel {
+    // Mask selecting a single BASEX digit out of a long.
+    long BASEX_MASK = 0x7fffffffL;
+
+    //-----------------------------------------------------------------------------
+    //
+    //    FUNCTION: mul
+    //
+    //    ARGUMENTS: digits of a, digits of b, destination array and radix.
+    //
+    //    RETURN: None, c[0 .. alen+blen) is set to a * b.
+    //
+    //    DESCRIPTION: Multiplication in an arbitrary radix. Uses grade school
+    //    multiplication while the shorter operand has less than
+    //    BaseX.KARATSUBA_THRESHOLD digits and Karatsuba above that.
+    //    c must not alias a or b.
+    //
+    //-----------------------------------------------------------------------------
+    static void mul(int[] a, int alen, int[] b, int blen, int[] c, long radix)
+    {
+        Arrays.fill(c, 0, alen + blen, 0);
+
+        if (Math.min(alen, blen) < karatsubaThreshold())
+        {
+            mulBasecase(a, 0, alen, b, 0, blen, c, 0, radix);
+        }
+        else
+        {
+            int[] r = karatsuba(a, 0, alen, b, 0, blen, radix);
+            System.arraycopy(r, 0, c, 0, alen + blen);
+        }
+    }
+
+    // Grade school multiplication in an arbitrary radix, c[coff ..) must be zero.
+    static void mulBasecase(int[] a, int aoff, int alen, int[] b, int boff, int blen, int[] c, int coff, long radix)
+    {
+        for (int i = 0; i < alen; i++)
+        {
+            long da = a[aoff + i];
+            if (da == 0)
+            {
+                continue;
+            }
+
+            long cy = 0;
+            for (int j = 0; j < blen; j++)
+            {
+                cy += c[coff + i + j] + da * b[boff + j];
+                c[coff + i + j] = (int) (cy % radix);
+                cy /= radix;
+            }
+            c[coff + i + blen] = (int) cy;
+        }
+    }
+
+    //-----------------------------------------------------------------------------
+    //
+    //    FUNCTION: mulx
+    //
+    //    ARGUMENTS: digits of a, digits of b and destination array.
+    //
+    //    RETURN: None, c[0 .. alen+blen) is set to a * b.
+    //
+    //    DESCRIPTION: Multiplication in the internal BASEX radix. Uses grade
+    //    school multiplication while the shorter operand has less than
+    //    BaseX.KARATSUBA_THRESHOLD digits and Karatsuba above that.
+    //    c must not alias a or b.
+    //
+    //-----------------------------------------------------------------------------
+    static void mulx(int[] a, int alen, int[] b, int blen, int[] c)
+    {
+        Arrays.fill(c, 0, alen + blen, 0);
+
+        if (Math.min(alen, blen) < karatsubaThreshold())
+        {
+            mulxBasecase(a, 0, alen, b, 0, blen, c, 0);
+        }
+        else
+        {
+            int[] r = karatsuba(a, 0, alen, b, 0, blen);
+            System.arraycopy(r, 0, c, 0, alen + blen);
+        }
+    }
+
+    // Karatsuba needs at least two digits per half to make progress.
+    private static int karatsubaThreshold()
+    {
+        return Math.max(BaseX.KARATSUBA_THRESHOLD.get(), 4);
+    }
+
+    //-----------------------------------------------------------------------------
+    //
+    //    FUNCTION: mulxBasecase
+    //
+    //    ARGUMENTS: a[aoff .. aoff+alen), b[boff .. boff+blen) and destination
+    //               c[coff .. coff+alen+blen) which must be zero.
+    //
+    //    RETURN: None, the product is stored in c.
+    //
+    //    DESCRIPTION: Grade school multiplication specialized for the internal
+    //    BASEX radix, so that divisions become shifts and masks.
+    //
+    //-----------------------------------------------------------------------------
+    static void mulxBasecase(int[] a, int aoff, int alen, int[] b, int boff, int blen, int[] c, int coff)
+    {
+        for (int i = 0; i < alen; i++)
+        {
+            long da = a[aoff + i];
+            if (da == 0)
+            {
+                continue;
+            }
+
+            long cy = 0;
+            for (int j = 0; j < blen; j++)
+            {
+                cy += c[coff + i + j] + da * b[boff + j];
+                c[coff + i + j] = (int) (cy & BASEX_MASK);
+                cy >>>= BASEXPWR;
+            }
+            c[coff + i + blen] = (int) cy;
+        }
+    }
+
+    //-----------------------------------------------------------------------------
+    //
+    //    FUNCTION: karatsuba
+    //
+    //    ARGUMENTS: a[aoff .. aoff+alen) and b[boff .. boff+blen).
+    //
+    //    RETURN: A new array of alen+blen digits holding a * b.
+    //
+    //    DESCRIPTION: Splits both numbers at m digits, a = a1*B^m + a0 and
+    //    b = b1*B^m + b0, and uses
+    //      a*b = z2*B^2m + ((a0+a1)*(b0+b1) - z2 - z0)*B^m + z0
+    //    with z0 = a0*b0 and z2 = a1*b1, three half size multiplications
+    //    instead of four. When one number is much shorter than the other the
+    //    longer one is cut into chunks of the length of the shorter one.
+    //
+    //-----------------------------------------------------------------------------
+    static int[] karatsuba(int[] a, int aoff, int alen, int[] b, int boff, int blen)
+    {
+        int[] r = new int[alen + blen];
+
+        if (Math.min(alen, blen) < karatsubaThreshold())
+        {
+            mulxBasecase(a, aoff, alen, b, boff, blen, r, 0);
+            return r;
+        }
+
+        int m = Math.max(alen, blen) / 2;
+
+        if (alen <= m || blen <= m)
+        {
+            // Unbalanced, multiply the short number by chunks of the long one.
+            if (alen < blen)
+            {
+                return karatsuba(b, boff, blen, a, aoff, alen);
+            }
+
+            for (int i = 0; i < alen; i += blen)
+            {
+                int chunk = Math.min(blen, alen - i);
+                int[] p = karatsuba(a, aoff + i, chunk, b, boff, blen);
+                addInto(r, i, p, significant(p, p.length));
+            }
+            return r;
+        }
+
+        int[] z0 = karatsuba(a, aoff, m, b, boff, m);
+        int[] z2 = karatsuba(a, aoff + m, alen - m, b, boff + m, blen - m);
+
+        int[] sa = addHalves(a, aoff, alen, m);
+        int[] sb = addHalves(b, boff, blen, m);
+        int[] z1 = karatsuba(sa, 0, sa.length, sb, 0, sb.length);
+
+        subtract(z1, z0, z0.length);
+        subtract(z1, z2, z2.length);
+
+        System.arraycopy(z0, 0, r, 0, z0.length);
+        System.arraycopy(z2, 0, r, 2 * m, z2.length);
+        addInto(r, m, z1, significant(z1, z1.length));
+        return r;
+    }
+
+    //-----------------------------------------------------------------------------
+    //
+    //    FUNCTION: karatsuba
+    //
+    //    ARGUMENTS: a[aoff .. aoff+alen), b[boff .. boff+blen) and the radix.
+    //
+    //    RETURN: A new array of alen+blen digits holding a * b.
+    //
+    //    DESCRIPTION: Same as the BASEX karatsuba above, for the digits of an
+    //    arbitrary radix. Used by the radix conversions, which multiply long
+    //    numbers in the output radix.
+    //
+    //-----------------------------------------------------------------------------
+    static int[] karatsuba(int[] a, int aoff, int alen, int[] b, int boff, int blen, long radix)
+    {
+        int[] r = new int[alen + blen];
+
+        if (Math.min(alen, blen) < karatsubaThreshold())
+        {
+            mulBasecase(a, aoff, alen, b, boff, blen, r, 0, radix);
+            return r;
+        }
+
+        int m = Math.max(alen, blen) / 2;
+
+        if (alen <= m || blen <= m)
+        {
+            if (alen < blen)
+            {
+                return karatsuba(b, boff, blen, a, aoff, alen, radix);
+            }
+
+            for (int i = 0; i < alen; i += blen)
+            {
+                int chunk = Math.min(blen, alen - i);
+                int[] p = karatsuba(a, aoff + i, chunk, b, boff, blen, radix);
+                addInto(r, i, p, significant(p, p.length), radix);
+            }
+            return r;
+        }
+
+        int[] z0 = karatsuba(a, aoff, m, b, boff, m, radix);
+        int[] z2 = karatsuba(a, aoff + m, alen - m, b, boff + m, blen - m, radix);
+
+        int[] sa = addHalves(a, aoff, alen, m, radix);
+        int[] sb = addHalves(b, boff, blen, m, radix);
+        int[] z1 = karatsuba(sa, 0, sa.length, sb, 0, sb.length, radix);
+
+        subtract(z1, z0, z0.length, radix);
+        subtract(z1, z2, z2.length, radix);
+
+        System.arraycopy(z0, 0, r, 0, z0.length);
+        System.arraycopy(z2, 0, r, 2 * m, z2.length);
+        addInto(r, m, z1, significant(z1, z1.length), radix);
+        return r;
+    }
+
+    // Returns the low m digits plus the high alen-m digits of x[off .. off+alen)
+    static int[] addHalves(int[] x, int off, int alen, int m)
+    {
+        int hlen = alen - m;
+        int len = Math.max(m, hlen);
+        int[] s = new int[len + 1];
+
+        long cy = 0;
+        for (int i = 0; i < len; i++)
+        {
+            cy += (i < m ? x[off + i] : 0) + (long) (i < hlen ? x[off + m + i] : 0);
+            s[i] = (int) (cy & BASEX_MASK);
+            cy >>>= BASEXPWR;
+        }
+        s[len] = (int) cy;
+        return s;
+    }
+
+    static int[] addHalves(int[] x, int off, int alen, int m, long radix)
+    {
+        int hlen = alen - m;
+        int len = Math.max(m, hlen);
+        int[] s = new int[len + 1];
+
+        long cy = 0;
+        for (int i = 0; i < len; i++)
+        {
+            cy += (i < m ? x[off + i] : 0) + (long) (i < hlen ? x[off + m + i] : 0);
+            s[i] = (int) (cy % radix);
+            cy /= radix;
+        }
+        s[len] = (int) cy;
+        return s;
+    }
+
+    // r[off ..) += x[0 .. xlen), the sum must fit in r.
+    static void addInto(int[] r, int off, int[] x, int xlen)
+    {
+        long cy = 0;
+        int i = 0;
+        for (; i < xlen; i++)
+        {
+            cy += (long) r[off + i] + x[i];
+            r[off + i] = (int) (cy & BASEX_MASK);
+            cy >>>= BASEXPWR;
+        }
+        for (; cy != 0; i++)
+        {
+            cy += r[off + i];
+            r[off + i] = (int) (cy & BASEX_MASK);
+            cy >>>= BASEXPWR;
+        }
+    }
+
+    static void addInto(int[] r, int off, int[] x, int xlen, long radix)
+    {
+        long cy = 0;
+        int i = 0;
+        for (; i < xlen; i++)
+        {
+            cy += (long) r[off + i] + x[i];
+            r[off + i] = (int) (cy % radix);
+            cy /= radix;
+        }
+        for (; cy != 0; i++)
+        {
+            cy += r[off + i];
+            r[off + i] = (int) (cy % radix);
+            cy /= radix;
+        }
+    }
+
+    //-----------------------------------------------------------------------------
+    //
+    //    FUNCTION: divx
+    //
+    //    ARGUMENTS: digits of a, digits of b, destination array and the maximum
+    //               number of quotient digits to produce.
+    //
+    //    RETURN: Number of quotient digits written to q[0 ..), least
+    //            significant first.
+    //
+    //    DESCRIPTION: Long division in the internal BASEX radix. The most
+    //    significant digits of a and b are aligned, so the first quotient
+    //    digit is the one for the radix position (a.cdigit - b.cdigit).
+    //    Stops when qmax digits were produced or the remainder became zero.
+    //
+    //    This is Knuth's Algorithm D (TAOCP vol. 2, 4.3.1): a and b are
+    //    shifted left until the top bit of b's leading digit is set, then each
+    //    quotient digit is estimated from the top two remainder digits and the
+    //    top divisor digit. The estimate is at most one too big, so a single
+    //    multiply and subtract (plus an add back in the rare case it was too
+    //    big) produces the digit. Scaling both numbers by the same power of
+    //    two does not change any of the partial quotients, so the digits are
+    //    the same ones plain long division would produce.
+    //
+    //-----------------------------------------------------------------------------
+    static int divx(int[] a, int alen, int[] b, int blen, int[] q, int qmax)
+    {
+        // Only the significant digits of b take part in the digit estimate,
+        // the remainder window keeps the full width for alignment.
+        int bsig = significant(b, blen);
+        if (b[bsig - 1] == 0)
+        {
+            throw new ErrorCodeException(CALC_E_DIVIDEBYZERO);
+        }
+
+        int shift = Integer.numberOfLeadingZeros(b[bsig - 1]) - (32 - BASEXPWR);
+
+        int[] bn = new int[bsig];
+        shiftLeft(b, bsig, shift, bn, bsig);
+
+        int[] an = new int[alen + 1];
+        shiftLeft(a, alen, shift, an, alen + 1);
+
+        // Digits of an below alow are zeros, they can't make the remainder nonzero.
+        int alow = 0;
+        while (alow <= alen && an[alow] == 0)
+        {
+            alow++;
+        }
+
+        if (alow > alen)
+        {
+            return 0;
+        }
+
+        int[] rem = new int[blen + 1];
+
+        // Next digit of an to bring down into the remainder window.
+        int next = alen;
+        for (int i = blen; i >= 0; i--)
+        {
+            rem[i] = (next >= 0) ? an[next--] : 0;
+        }
+
+        long btop = bn[bsig - 1];
+        long bsecond = (bsig > 1) ? bn[bsig - 2] : 0;
+
+        int cdigits = 0;
+        while (cdigits < qmax && (next >= alow || !isZero(rem, blen + 1)))
+        {
+            // Long divisions at big precisions take a while, look for
+            // cancellation every 64 quotient digits.
+            if (cdigits > 0 && (cdigits & 63) == 0)
+            {
+                CancellationToken.check();
+            }
+
+            // rem < BASEX * b so only rem[0 .. bsig] can be nonzero.
+            long top = ((long) rem[bsig] << BASEXPWR) | rem[bsig - 1];
+            long qhat = top / btop;
+            long rhat = top % btop;
+            long below = (bsig > 1) ? rem[bsig - 2] : 0;
+
+            while (qhat > BASEX_MASK || (qhat * bsecond > ((rhat << BASEXPWR) | below)))
+            {
+                qhat--;
+                rhat += btop;
+                if (rhat > BASEX_MASK)
+                {
+                    break;
+                }
+            }
+
+            if (qhat != 0 && mulsub(rem, bn, bsig, qhat))
+            {
+                // qhat was one too big, add b back.
+                qhat--;
+                addBack(rem, bn, bsig);
+            }
+
+            q[qmax - 1 - cdigits] = (int) qhat;
+            cdigits++;
+
+            // rem < b here so the top digit is free, rem = rem * BASEX + next.
+            System.arraycopy(rem, 0, rem, 1, blen);
+            rem[0] = (next >= 0) ? an[next--] : 0;
+        }
+
+        System.arraycopy(q, qmax - cdigits, q, 0, cdigits);
+        Arrays.fill(q, cdigits, qmax, 0);
+        return cdigits;
+    }
+
+    // rem[0 .. len] -= qhat * b[0 .. len), returns true if the result went
+    // negative, in which case rem holds it modulo BASEX^(len+1).
+    static boolean mulsub(int[] rem, int[] b, int len, long qhat)
+    {
+        return mulsub(rem, 0, b, len, qhat);
+    }
+
+    // Same as above on rem[off .. off+len].
+    static boolean mulsub(int[] rem, int off, int[] b, int len, long qhat)
+    {
+        long carry = 0;
+        long borrow = 0;
+        for (int j = 0; j < len; j++)
+        {
+            long p = qhat * b[j] + carry;
+            carry = p >>> BASEXPWR;
+            long t = rem[off + j] - (p & BASEX_MASK) - borrow;
+            borrow = (t < 0) ? 1 : 0;
+            rem[off + j] = (int) (t & BASEX_MASK);
+        }
+        long t = rem[off + len] - carry - borrow;
+        rem[off + len] = (int) (t & BASEX_MASK);
+        return t < 0;
+    }
+
+    // rem[0 .. len] += b[0 .. len), dropping the final carry out.
+    static void addBack(int[] rem, int[] b, int len)
+    {
+        addBack(rem, 0, b, len);
+    }
+
+    // Same as above on rem[off .. off+len].
+    static void addBack(int[] rem, int off, int[] b, int len)
+    {
+        long cy = 0;
+        for (int j = 0; j < len; j++)
+        {
+            cy += (long) rem[off + j] + b[j];
+            rem[off + j] = (int) (cy & BASEX_MASK);
+            cy >>>= BASEXPWR;
+        }
+        rem[off + len] = (int) ((rem[off + len] + cy) & BASEX_MASK);
+    }
+
+    // t[0 .. tlen) = x[0 .. xlen) * 2^k, 0 <= k < BASEXPWR, tlen >= xlen.
+    static void shiftLeft(int[] x, int xlen, int k, int[] t, int tlen)
+    {
+        shiftLeft(x, xlen, k, t, 0, tlen);
+    }
+
+    // t[toff .. toff + tlen) = x[0 .. xlen) * 2^k, 0 <= k < BASEXPWR, tlen >= xlen.
+    static void shiftLeft(int[] x, int xlen, int k, int[] t, int toff, int tlen)
+    {
+        long cy = 0;
+        for (int i = 0; i < xlen; i++)
+        {
+            long v = ((long) x[i] << k) | cy;
+            t[toff + i] = (int) (v & BASEX_MASK);
+            cy = v >>> BASEXPWR;
+        }
+        if (xlen < tlen)
+        {
+            t[toff + xlen] = (int) cy;
+        }
+    }
+
+    //-----------------------------------------------------------------------------
+    //
+    //    FUNCTION: remx
+    //
+    //    ARGUMENTS: digits of a and b, b's most significant digit is not zero.
+    //
+    //    RETURN: None, a[0 .. alen) is set to a mod b.
+    //
+    //    DESCRIPTION: The remainder of Knuth's Algorithm D, see divx, without
+    //    keeping the quotient digits.
+    //
+    //-----------------------------------------------------------------------------
+    static void remx(int[] a, int alen, int[] b, int blen)
+    {
+        if (compare(a, b, alen, blen) < 0)
+        {
+            return;
+        }
+
+        int shift = Integer.numberOfLeadingZeros(b[blen - 1]) - (32 - BASEXPWR);
+
+        int[] bn = new int[blen];
+        shiftLeft(b, blen, shift, bn, blen);
+
+        int[] an = new int[alen + 1];
+        shiftLeft(a, alen, shift, an, alen + 1);
+
+        long btop = bn[blen - 1];
+        long bsecond = (blen > 1) ? bn[blen - 2] : 0;
+
+        // an[j .. j+blen] is the remainder window, it is always less than BASEX * b.
+        for (int j = alen - blen; j >= 0; j--)
+        {
+            long top = ((long) an[j + blen] << BASEXPWR) | an[j + blen - 1];
+            long qhat = top / btop;
+            long rhat = top % btop;
+            long below = (blen > 1) ? an[j + blen - 2] : 0;
+
+            while (qhat > BASEX_MASK || (qhat * bsecond > ((rhat << BASEXPWR) | below)))
+            {
+                qhat--;
+                rhat += btop;
+                if (rhat > BASEX_MASK)
+                {
+                    break;
+                }
+            }
+
+            if (qhat != 0 && mulsub(an, j, bn, blen, qhat))
+            {
+                // qhat was one too big, add b back.
+                addBack(an, j, bn, blen);
+            }
+        }
+
+        // Undo the scaling, the remainder fits in blen digits.
+        Arrays.fill(a, 0, alen, 0);
+        for (int i = 0; i < blen; i++)
+        {
+            long v = ((long) an[i] >>> shift) | ((long) an[i + 1] << (BASEXPWR - shift));
+            a[i] = (int) (v & BASEX_MASK);
+        }
+    }
+
+    //-----------------------------------------------------------------------------
+    //
+    //    FUNCTION: gcd
+    //
+    //    ARGUMENTS: digits of a and b, neither of them zero.
+    //
+    //    RETURN: digits of gcd(a, b), without leading zeros.
+    //
+    //    DESCRIPTION: Lehmer's gcd (Knuth's Algorithm L, TAOCP vol. 2, 4.5.2).
+    //    The Euclid steps are emulated on the leading 62 bits of both numbers
+    //    for as long as the quotients they produce are certainly the right
+    //    ones, the cofactors are then applied to the full numbers at once.
+    //    Cofactors are kept below BASEX so that applying them never overflows
+    //    a long. Only when not even one quotient is certain a multiprecision
+    //    remainder is computed. Numbers of at most two digits finish with the
+    //    Euclid loop on longs.
+    //
+    //-----------------------------------------------------------------------------
+    static int[] gcd(int[] a, int alen, int[] b, int blen)
+    {
+        alen = significant(a, alen);
+        blen = significant(b, blen);
+        int len = Math.max(alen, blen);
+
+        int[] u = Arrays.copyOf(a, len);
+        int[] v = Arrays.copyOf(b, len);
+        int ulen = alen;
+        int vlen = blen;
+        if (compare(u, v, ulen, vlen) < 0)
+        {
+            int[] t = u; u = v; v = t;
+            ulen = blen;
+            vlen = alen;
+        }
+
+        int[] t1 = new int[len];
+        int[] t2 = new int[len];
+
+        while (!isZero(v, vlen))
+        {
+            if (ulen <= 2)
+            {
+                long x = toLong(u, ulen);
+                long y = toLong(v, vlen);
+                while (y != 0)
+                {
+                    long r = x % y;
+                    x = y;
+                    y = r;
+                }
+                return (x > BASEX_MASK) ? new int[] { (int) (x & BASEX_MASK), (int) (x >>> BASEXPWR) } : new int[] { (int) x };
+            }
+
+            // Leading 62 bits of u, v shifted by the same amount.
+            int ubits = (ulen - 1) * BASEXPWR + (32 - Integer.numberOfLeadingZeros(u[ulen - 1]));
+            int shift = ubits - 2 * BASEXPWR;
+            long uh = topBits(u, ulen, shift);
+            long vh = topBits(v, vlen, shift);
+
+            long A = 1, B = 0, C = 0, D = 1;
+            while (vh + C != 0 && vh + D != 0)
+            {
+                long q = (uh + A) / (vh + C);
+                if (q != (uh + B) / (vh + D) || q > BASEX_MASK)
+                {
+                    break;
+                }
+
+                long nextC = A - q * C;
+                long nextD = B - q * D;
+                if (Math.abs(nextC) > BASEX_MASK || Math.abs(nextD) > BASEX_MASK)
+                {
+                    break;
+                }
+
+                A = C;
+                C = nextC;
+                B = D;
+                D = nextD;
+
+                long nextv = uh - q * vh;
+                uh = vh;
+                vh = nextv;
+            }
+
+            if (B == 0)
+            {
+                // u, v = v, u mod v
+                remx(u, ulen, v, vlen);
+                int[] t = u; u = v; v = t;
+                ulen = vlen;
+                vlen = significant(v, vlen);
+            }
+            else
+            {
+                // u, v = A u + B v, C u + D v
+                combine(u, v, ulen, A, B, t1);
+                combine(u, v, ulen, C, D, t2);
+                int[] oldu = u, oldv = v;
+                u = t1;
+                v = t2;
+                t1 = oldu;
+                t2 = oldv;
+                vlen = significant(v, ulen);
+                ulen = significant(u, ulen);
+            }
+        }
+
+        return Arrays.copyOf(u, ulen);
+    }
+
+    // x[0 .. len) / 2^shift, the result must fit in 62 bits.
+    private static long topBits(int[] x, int len, int shift)
+    {
+        int d = shift / BASEXPWR;
+        int o = shift % BASEXPWR;
+
+        long r = (long) x[d] >>> o;
+        for (int k = 1; k <= 2 && d + k < len; k++)
+        {
+            r |= (long) x[d + k] << (k * BASEXPWR - o);
+        }
+        return r;
+    }
+
+    // r[0 .. len) = x * u + y * v, x and y have opposite signs (or one is zero),
+    // are less than BASEX in magnitude and the result is not negative.
+    private static void combine(int[] u, int[] v, int len, long x, long y, int[] r)
+    {
+        long carry = 0;
+        for (int i = 0; i < len; i++)
+        {
+            long t = x * u[i] + y * v[i] + carry;
+            r[i] = (int) (t & BASEX_MASK);
+            carry = t >> BASEXPWR;
+        }
+    }
+
+    private static long toLong(int[] x, int len)
+    {
+        return (len > 1) ? ((long) x[1] << BASEXPWR) | x[0] : x[0];
+    }
+
+    //-----------------------------------------------------------------------------
+    //
+    //    FUNCTION: compare
+    //
+    //    ARGUMENTS: digits of a and b, both aligned at digit 0.
+    //
+    //    RETURN: negative, zero or positive as a is less than, equal to or
+    //            greater than b. Missing digits are treated as zeros.
+    //
+    //-----------------------------------------------------------------------------
+    static int compare(int[] a, int[] b, int alen, int blen)
+    {
+        for (int i = Math.max(alen, blen) - 1; i >= 0; i--)
+        {
+            int da = (i < alen) ? a[i] : 0;
+            int db = (i < blen) ? b[i] : 0;
+            if (da != db)
+            {
+                return Integer.compareUnsigned(da, db);
+            }
+        }
+        return 0;
+    }
+
+    static boolean isZero(int[] a, int len)
+    {
+        for (int i = 0; i < len; i++)
+        {
+            if (a[i] != 0)
+            {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    // a -= b[0 .. len), a may be longer than b, assumes a >= b.
+    static void subtract(int[] a, int[] b, int len)
+    {
+        long borrow = 0;
+        int i = 0;
+        for (; i < len; i++)
+        {
+            long d = (long) a[i] - b[i] - borrow;
+            borrow = (d < 0) ? 1 : 0;
+            a[i] = (int) (d & BASEX_MASK);
+        }
+        for (; borrow != 0 && i < a.length; i++)
+        {
+            long d = (long) a[i] - borrow;
+            borrow = (d < 0) ? 1 : 0;
+            a[i] = (int) (d & BASEX_MASK);
+        }
+    }
+
+    static void subtract(int[] a, int[] b, int len, long radix)
+    {
+        long borrow = 0;
+        int i = 0;
+        for (; i < len; i++)
+        {
+            long d = (long) a[i] - b[i] - borrow;
+            borrow = (d < 0) ? 1 : 0;
+            a[i] = (int) ((d < 0) ? d + radix : d);
+        }
+        for (; borrow != 0 && i < a.length; i++)
+        {
+            long d = (long) a[i] - borrow;
+            borrow = (d < 0) ? 1 : 0;
+            a[i] = (int) ((d < 0) ? d + radix : d);
+        }
+    }
+
+    // Number of significant digits, never less than one.
+    static int significant(int[] a, int len)
+    {
+        while (len > 1 && a[len - 1] == 0)
+        {
+            len--;
+        }
+        return len;
+    }
+}
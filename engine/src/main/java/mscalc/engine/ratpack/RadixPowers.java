@@ -0,0 +1,174 @@
+package mscalc.engine.ratpack;
+
+import java.util.Arrays;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+import static mscalc.engine.ratpack.RatPack.BASEXPWR;
+
+//-----------------------------------------------------------------------------
+//
+//  Powers used by the divide and conquer radix conversions in Conv.
+//
+//  Converting n digits splits the number at unit * 2^k digits, so the only
+//  powers ever needed are radix^(unit * 2^k) in BASEX for numtonRadixx and
+//  BASEX^(unit * 2^k) in the radix for nRadixxtonum. Each one is the square
+//  of the previous one, they are computed on first use.
+//
+//  Every RatPackContext owns one RadixPowers, so the powers live as long as
+//  the context, together with its other tables. No lock is held while a
+//  power is squared, threads that need the same missing power compute it
+//  both and the first one to finish publishes it.
+//
+//  Powers are plain digit arrays, least significant first, without leading
+//  zeros. Callers must not modify them.
+//
+//-----------------------------------------------------------------------------
+final class RadixPowers {
+    // Powers of unit * 2^k digits for k up to this, more than any int length.
+    private static final int MAX_POWERS = 32;
+
+    private record Key(int radix, int unit, boolean toBasex) { }
+
+    private final ConcurrentHashMap<Key, AtomicReferenceArray<int[]>> powers = new ConcurrentHashMap<>();
+
+    // radix^(unit * 2^k) with BASEX digits, from the current context.
+    static int[] basexpower(int radix, int unit, int k)
+    {
+        return RatPackContext.current().radix_powers.power(new Key(radix, unit, true), k);
+    }
+
+    // BASEX^(unit * 2^k) with digits of the radix, from the current context.
+    static int[] radixpower(int radix, int unit, int k)
+    {
+        return RatPackContext.current().radix_powers.power(new Key(radix, unit, false), k);
+    }
+
+    private int[] power(Key key, int k)
+    {
+        AtomicReferenceArray<int[]> table = powers.computeIfAbsent(key, unused -> new AtomicReferenceArray<>(MAX_POWERS));
+
+        int[] pow = table.get(k);
+        if (pow != null)
+        {
+            return pow;
+        }
+
+        // Start from the largest power computed so far.
+        int known = k - 1;
+        while (known >= 0 && table.get(known) == null)
+        {
+            known--;
+        }
+        int[] last = (known >= 0) ? table.get(known) : publish(table, 0, first(key));
+
+        for (int i = Math.max(known, 0) + 1; i <= k; i++)
+        {
+            int[] square = new int[2 * last.length];
+            if (key.toBasex())
+            {
+                NumKernel.mulx(last, last.length, last, last.length, square);
+            }
+            else
+            {
+                NumKernel.mul(last, last.length, last, last.length, square, key.radix());
+            }
+            last = publish(table, i, trimmed(square));
+        }
+        return last;
+    }
+
+    // Stores pow unless another thread was first, returns the stored power.
+    private static int[] publish(AtomicReferenceArray<int[]> table, int k, int[] pow)
+    {
+        return table.compareAndSet(k, null, pow) ? pow : table.get(k);
+    }
+
+    private static int[] first(Key key)
+    {
+        // 1 followed by unit zero digits, converted like any other number.
+        int[] one = new int[key.unit() + 1];
+        one[key.unit()] = 1;
+
+        return trimmed(key.toBasex()
+                ? hornertobasex(one, 0, one.length, key.radix())
+                : hornertoradix(one, 0, one.length, key.radix()));
+    }
+
+    //-----------------------------------------------------------------------------
+    //
+    //    FUNCTION: hornertobasex
+    //
+    //    ARGUMENTS: radix digits d[off .. off+len), least significant first.
+    //
+    //    RETURN: The same integer with BASEX digits, possibly with leading zeros.
+    //
+    //    DESCRIPTION: One multiply by the radix and add per input digit, done in
+    //    place on a single array.
+    //
+    //-----------------------------------------------------------------------------
+    static int[] hornertobasex(int[] d, int off, int len, int radix)
+    {
+        int bitsperdigit = 32 - Integer.numberOfLeadingZeros(radix - 1);
+        int[] r = new int[(int) ((long) len * bitsperdigit / BASEXPWR) + 2];
+        int n = 1;
+
+        for (int i = off + len - 1; i >= off; i--)
+        {
+            long cy = d[i];
+            for (int j = 0; j < n; j++)
+            {
+                cy += (long) r[j] * radix;
+                r[j] = (int) (cy & NumKernel.BASEX_MASK);
+                cy >>>= BASEXPWR;
+            }
+            if (cy != 0)
+            {
+                r[n++] = (int) cy;
+            }
+        }
+
+        return r;
+    }
+
+    //-----------------------------------------------------------------------------
+    //
+    //    FUNCTION: hornertoradix
+    //
+    //    ARGUMENTS: BASEX digits w[off .. off+len), least significant first.
+    //
+    //    RETURN: The same integer with digits of the radix, possibly with
+    //    leading zeros.
+    //
+    //-----------------------------------------------------------------------------
+    static int[] hornertoradix(int[] w, int off, int len, int radix)
+    {
+        int bitsperdigit = 31 - Integer.numberOfLeadingZeros(radix);
+        int[] r = new int[(int) ((long) len * BASEXPWR / bitsperdigit) + 2];
+        int n = 1;
+
+        for (int i = off + len - 1; i >= off; i--)
+        {
+            long cy = w[i];
+            for (int j = 0; j < n; j++)
+            {
+                cy += (long) r[j] << BASEXPWR;
+                r[j] = (int) (cy % radix);
+                cy /= radix;
+            }
+            while (cy != 0)
+            {
+                r[n++] = (int) (cy % radix);
+                cy /= radix;
+            }
+        }
+
+        return r;
+    }
+
+    static int[] trimmed(int[] a)
+    {
+        int len = NumKernel.significant(a, a.length);
+        return (len == a.length) ? a : Arrays.copyOf(a, len);
+    }
+}
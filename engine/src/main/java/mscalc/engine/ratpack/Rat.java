@@ -37,24 +37,15 @@ public interface Rat {
     //-----------------------------------------------------------------------------
     static void gcdrat(Ptr<RAT> pa, int precision)
     {
-        Ptr<NUMBER> pgcd = new Ptr<>();
-        RAT a = null;
+        RAT a = pa.deref();
+        NUMBER pgcd = gcd(a.pp, a.pq);
 
-        a = pa.deref();
-        pgcd.set( gcd(a.pp, a.pq) );
-
-        if (!zernum(pgcd.deref()))
+        if (!zernum(pgcd))
         {
-            Ptr<NUMBER> ppp = new Ptr<>(a.pp);
-            divnumx(ppp, pgcd.deref(), precision);
-            a.pp = ppp.deref();
-
-            Ptr<NUMBER> ppq = new Ptr<>(a.pq);
-            divnumx(ppq, pgcd.deref(), precision);
-            a.pq = ppq.deref();
+            a.pp = divnumx(a.pp, pgcd, precision);
+            a.pq = divnumx(a.pq, pgcd, precision);
         }
 
-        pa.set(a);
         a.RENORMALIZE();
     }
 
@@ -63,100 +54,166 @@ public interface Rat {
     //
     //    FUNCTION: fracrat
     //
-    //    ARGUMENTS: pointer to a rational a second rational.
+    //    ARGUMENTS: a rational.
     //
-    //    RETURN: None, changes pointer.
+    //    RETURN: frac(a), a may be changed in place.
     //
-    //    DESCRIPTION: Does the rational equivalent of frac(*pa);
+    //    DESCRIPTION: Does the rational equivalent of frac(a);
     //
     //-----------------------------------------------------------------------------
-    static void fracrat(Ptr<RAT> pa, uint radix, int precision)
+    static RAT fracrat(RAT a, uint radix, int precision)
     {
         // Only do the flatrat operation if number is nonzero.
         // and only if the bottom part is not one.
-        if (!zernum(pa.deref().pp) && !equnum(pa.deref().pq, Support.Global.num_one))
+        if (!zernum(a.pp) && !equnum(a.pq, Support.Global.num_one()))
         {
-            // flatrat(*pa, radix, precision);
-            // *pa passed by reference
-            flatrat(pa, radix, precision);
+            a = flatrat(a, radix, precision);
         }
 
-        Ptr<NUMBER> ppp = new Ptr<>(pa.deref().pp);
-        remnum(ppp, pa.deref().pq, BASEX);
-        pa.deref().pp = ppp.deref();
+        a.pp = remnum(a.pp, a.pq, BASEX);
 
-        // Get *pa back in the integer over integer form.
-        pa.deref().RENORMALIZE();
+        // Get a back in the integer over integer form.
+        a.RENORMALIZE();
+        return a;
+    }
+
+    //-----------------------------------------------------------------------------
+    //
+    //    FUNCTION: fracrat
+    //
+    //    ARGUMENTS: pointer to a rational.
+    //
+    //    RETURN: None, changes pointer.
+    //
+    //    DESCRIPTION: Does the rational equivalent of frac(*pa);
+    //
+    //-----------------------------------------------------------------------------
+    static void fracrat(Ptr<RAT> pa, uint radix, int precision)
+    {
+        pa.set(fracrat(pa.deref(), radix, precision));
     }
 
     //-----------------------------------------------------------------------------
     //
     //    FUNCTION: mulrat
     //
-    //    ARGUMENTS: pointer to a rational a second rational.
+    //    ARGUMENTS: a rational and a second rational.
     //
-    //    RETURN: None, changes first pointer.
+    //    RETURN: a, changed in place to a * b.
     //
-    //    DESCRIPTION: Does the rational equivalent of *pa *= b.
+    //    DESCRIPTION: Does the rational equivalent of a *= b.
     //    Assumes radix is the radix of both numbers.
     //
     //-----------------------------------------------------------------------------
-    static void mulrat(Ptr<RAT> pa, RAT b, int precision)
+    static RAT mulrat(RAT a, RAT b, int precision)
+    {
+        return mulrat(a, b, precision, false);
+    }
+
+    //-----------------------------------------------------------------------------
+    //
+    //    FUNCTION: mulrat
+    //
+    //    ARGUMENTS: a rational, a second rational and whether the result
+    //    may be reduced.
+    //
+    //    RETURN: a, changed in place to a * b.
+    //
+    //    DESCRIPTION: Does the rational equivalent of a *= b, if reduce is
+    //    set p and q of the result are divided by their gcd when GcdPolicy
+    //    says so. Meant for chains of exact operations, the series keep
+    //    their terms small with trimit alone.
+    //
+    //-----------------------------------------------------------------------------
+    static RAT mulrat(RAT a, RAT b, int precision, boolean reduce)
     {
         // Only do the multiply if it isn't zero.
-        if (!zernum(pa.deref().pp))
+        if (!zernum(a.pp))
         {
-            Ptr<NUMBER> ppp = new Ptr<>(pa.deref().pp);
-            mulnumx(ppp, b.pp);
-            pa.deref().pp = ppp.deref();
-
-            Ptr<NUMBER> ppq = new Ptr<>(pa.deref().pq);
-            mulnumx(ppq, b.pq);
-            pa.deref().pq = ppq.deref();
-
-            trimit(pa, precision);
+            int operandSize = reduce ? Math.max(GcdPolicy.size(a), GcdPolicy.size(b)) : 0;
+            a.pp = mulnumx(a.pp, b.pp);
+            a.pq = mulnumx(a.pq, b.pq);
+            if (reduce)
+            {
+                GcdPolicy.normalize(a, operandSize, precision);
+            }
+            trimit(a, precision);
         }
         else
         {
             // If it is zero, blast a one in the denominator.
-            pa.deref().pq = DUPNUM(Support.Global.num_one);
+            a.pq = DUPNUM(Support.Global.num_one());
         }
 
-        // gcdrat(pa);
+        return a;
     }
 
-
     //-----------------------------------------------------------------------------
     //
-    //    FUNCTION: divrat
+    //    FUNCTION: mulrat
     //
     //    ARGUMENTS: pointer to a rational a second rational.
     //
     //    RETURN: None, changes first pointer.
     //
-    //    DESCRIPTION: Does the rational equivalent of *pa /= b.
+    //    DESCRIPTION: Does the rational equivalent of *pa *= b.
+    //
+    //-----------------------------------------------------------------------------
+    static void mulrat(Ptr<RAT> pa, RAT b, int precision)
+    {
+        pa.set(mulrat(pa.deref(), b, precision));
+    }
+
+
+    //-----------------------------------------------------------------------------
+    //
+    //    FUNCTION: divrat
+    //
+    //    ARGUMENTS: a rational and a second rational.
+    //
+    //    RETURN: a, changed in place to a / b.
+    //
+    //    DESCRIPTION: Does the rational equivalent of a /= b.
     //    Assumes radix is the radix of both numbers.
     //
     //-----------------------------------------------------------------------------
-    static void divrat(Ptr<RAT> pa, RAT b, int precision)
+    static RAT divrat(RAT a, RAT b, int precision)
     {
-        if (!zernum(pa.deref().pp))
+        return divrat(a, b, precision, false);
+    }
+
+    //-----------------------------------------------------------------------------
+    //
+    //    FUNCTION: divrat
+    //
+    //    ARGUMENTS: a rational, a second rational and whether the result
+    //    may be reduced.
+    //
+    //    RETURN: a, changed in place to a / b.
+    //
+    //    DESCRIPTION: Does the rational equivalent of a /= b, reduces the
+    //    result like mulrat.
+    //
+    //-----------------------------------------------------------------------------
+    static RAT divrat(RAT a, RAT b, int precision, boolean reduce)
+    {
+        if (!zernum(a.pp))
         {
             // Only do the divide if the top isn't zero.
-            Ptr<NUMBER> ppp = new Ptr<>(pa.deref().pp);
-            mulnumx(ppp, b.pq);
-            pa.deref().pp = ppp.deref();
-
-            Ptr<NUMBER> ppq = new Ptr<>(pa.deref().pq);
-            mulnumx(ppq, b.pp);
-            pa.deref().pq = ppq.deref();
+            int operandSize = reduce ? Math.max(GcdPolicy.size(a), GcdPolicy.size(b)) : 0;
+            a.pp = mulnumx(a.pp, b.pq);
+            a.pq = mulnumx(a.pq, b.pp);
 
-            if (zernum(pa.deref().pq))
+            if (zernum(a.pq))
             {
                 // raise an exception if the bottom is 0.
                 throw new ErrorCodeException(CALC_E_DIVIDEBYZERO);
             }
-            trimit(pa, precision);
+            if (reduce)
+            {
+                GcdPolicy.normalize(a, operandSize, precision);
+            }
+            trimit(a, precision);
         }
         else
         {
@@ -170,90 +227,164 @@ public interface Rat {
             else
             {
                 // 0/x make a unique 0.
-                pa.deref().pq = DUPNUM(Support.Global.num_one);
+                a.pq = DUPNUM(Support.Global.num_one());
             }
         }
 
-        // gcdrat(pa);
+        return a;
     }
 
     //-----------------------------------------------------------------------------
     //
-    //    FUNCTION: subrat
+    //    FUNCTION: divrat
     //
     //    ARGUMENTS: pointer to a rational a second rational.
     //
     //    RETURN: None, changes first pointer.
     //
-    //    DESCRIPTION: Does the rational equivalent of *pa += b.
+    //    DESCRIPTION: Does the rational equivalent of *pa /= b.
+    //
+    //-----------------------------------------------------------------------------
+    static void divrat(Ptr<RAT> pa, RAT b, int precision)
+    {
+        pa.set(divrat(pa.deref(), b, precision));
+    }
+
+    //-----------------------------------------------------------------------------
+    //
+    //    FUNCTION: subrat
+    //
+    //    ARGUMENTS: a rational and a second rational.
+    //
+    //    RETURN: a, changed in place to a - b.
+    //
+    //    DESCRIPTION: Does the rational equivalent of a -= b.
     //    Assumes base is internal throughout.
     //
     //-----------------------------------------------------------------------------
-    static void subrat(Ptr<RAT> pa, RAT b, int precision)
+    static RAT subrat(RAT a, RAT b, int precision)
     {
-        b.pp.sign *= -1;
-        addrat(pa, b, precision);
-        b.pp.sign *= -1;
+        return subrat(a, b, precision, false);
     }
 
     //-----------------------------------------------------------------------------
     //
-    //    FUNCTION: addrat
+    //    FUNCTION: subrat
+    //
+    //    ARGUMENTS: a rational, a second rational and whether the result
+    //    may be reduced.
+    //
+    //    RETURN: a, changed in place to a - b.
+    //
+    //    DESCRIPTION: Does the rational equivalent of a -= b, reduces the
+    //    result like mulrat.
+    //
+    //-----------------------------------------------------------------------------
+    static RAT subrat(RAT a, RAT b, int precision, boolean reduce)
+    {
+        return addrat(a, NEGRAT(b), precision, reduce);
+    }
+
+    //-----------------------------------------------------------------------------
+    //
+    //    FUNCTION: subrat
     //
     //    ARGUMENTS: pointer to a rational a second rational.
     //
     //    RETURN: None, changes first pointer.
     //
-    //    DESCRIPTION: Does the rational equivalent of *pa += b.
+    //    DESCRIPTION: Does the rational equivalent of *pa -= b.
+    //
+    //-----------------------------------------------------------------------------
+    static void subrat(Ptr<RAT> pa, RAT b, int precision)
+    {
+        pa.set(subrat(pa.deref(), b, precision));
+    }
+
+    //-----------------------------------------------------------------------------
+    //
+    //    FUNCTION: addrat
+    //
+    //    ARGUMENTS: a rational and a second rational.
+    //
+    //    RETURN: a, changed in place to a + b.
+    //
+    //    DESCRIPTION: Does the rational equivalent of a += b.
     //    Assumes base is internal throughout.
     //
     //-----------------------------------------------------------------------------
-    static void addrat(Ptr<RAT> pa, RAT b, int precision)
+    static RAT addrat(RAT a, RAT b, int precision)
     {
-        Ptr<NUMBER> bot = new Ptr<>();
+        return addrat(a, b, precision, false);
+    }
 
-        if (equnum(pa.deref().pq, b.pq))
+    //-----------------------------------------------------------------------------
+    //
+    //    FUNCTION: addrat
+    //
+    //    ARGUMENTS: a rational, a second rational and whether the result
+    //    may be reduced.
+    //
+    //    RETURN: a, changed in place to a + b.
+    //
+    //    DESCRIPTION: Does the rational equivalent of a += b, reduces the
+    //    result like mulrat.
+    //
+    //-----------------------------------------------------------------------------
+    static RAT addrat(RAT a, RAT b, int precision, boolean reduce)
+    {
+        if (equnum(a.pq, b.pq))
         {
             // Very special case, q's match.,
             // make sure signs are involved in the calculation
             // we have to do this since the optimization here is only
             // working with the top half of the rationals.
-            pa.deref().pp.sign *= pa.deref().pq.sign;
-            pa.deref().pq.sign = 1;
+            a.pp.sign *= a.pq.sign;
+            a.pq.sign = 1;
             b.pp.sign *= b.pq.sign;
             b.pq.sign = 1;
 
-            Ptr<NUMBER> ppp = new Ptr<>(pa.deref().pp);
-            addnum(ppp, b.pp, BASEX);
-            pa.deref().pp = ppp.deref();
+            a.pp = addnum(a.pp, b.pp, BASEX);
         }
         else
         {
             // Usual case q's aren't the same.
-            bot.set(DUPNUM(pa.deref().pq));
-            mulnumx(bot, b.pq);
-
-            Ptr<NUMBER> ppp = new Ptr<>(pa.deref().pp);
-            mulnumx(ppp, b.pq);
-            pa.deref().pp = ppp.deref();
+            int operandSize = reduce ? Math.max(GcdPolicy.size(a), GcdPolicy.size(b)) : 0;
+            NUMBER bot = mulnumx(DUPNUM(a.pq), b.pq);
 
-            Ptr<NUMBER> ppq = new Ptr<>(pa.deref().pq);
-            mulnumx(ppq, b.pp);
-            pa.deref().pq = ppq.deref();
+            a.pp = mulnumx(a.pp, b.pq);
+            a.pq = mulnumx(a.pq, b.pp);
+            a.pp = addnum(a.pp, a.pq, BASEX);
 
-            ppp = new Ptr<>(pa.deref().pp);
-            addnum(ppp, pa.deref().pq, BASEX);
-            pa.deref().pp = ppp.deref();
-
-            pa.deref().pq = bot.deref();
-            trimit(pa, precision);
+            a.pq = bot;
+            if (reduce)
+            {
+                GcdPolicy.normalize(a, operandSize, precision);
+            }
+            trimit(a, precision);
 
             // Get rid of negative zeros here.
-            pa.deref().pp.sign *= pa.deref().pq.sign;
-            pa.deref().pq.sign = 1;
+            a.pp.sign *= a.pq.sign;
+            a.pq.sign = 1;
         }
 
-        // gcdrat(pa);
+        return a;
+    }
+
+    //-----------------------------------------------------------------------------
+    //
+    //    FUNCTION: addrat
+    //
+    //    ARGUMENTS: pointer to a rational a second rational.
+    //
+    //    RETURN: None, changes first pointer.
+    //
+    //    DESCRIPTION: Does the rational equivalent of *pa += b.
+    //
+    //-----------------------------------------------------------------------------
+    static void addrat(Ptr<RAT> pa, RAT b, int precision)
+    {
+        pa.set(addrat(pa.deref(), b, precision));
     }
 
     //-----------------------------------------------------------------------------
@@ -268,12 +399,16 @@ public interface Rat {
     //  EXPLANATION: This is now a stub function to powrat().
     //
     //-----------------------------------------------------------------------------
-    static void rootrat(Ptr<RAT> py, RAT n, uint radix, int precision)
+    static RAT rootrat(RAT y, RAT n, uint radix, int precision)
     {
         // Initialize 1/n
-        Ptr<RAT> oneovern = new Ptr<>(DUPRAT(rat_one));
-        divrat(oneovern, n, precision);
-        powrat(py, oneovern.deref(), radix, precision);
+        RAT oneovern = divrat(DUPRAT(rat_one()), n, precision);
+        return powrat(y, oneovern, radix, precision);
+    }
+
+    static void rootrat(Ptr<RAT> py, RAT n, uint radix, int precision)
+    {
+        py.set(rootrat(py.deref(), n, radix, precision));
     }
 
     //-----------------------------------------------------------------------------
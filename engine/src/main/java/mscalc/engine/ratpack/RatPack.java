@@ -42,6 +42,17 @@ public interface RatPack {
         return a;
     };
 
+        // NEGRAT returns -b without copying the mantissas, the result shares
+        // them with b so it must only be read, never changed in place.
+    static RAT NEGRAT(RAT b) {
+        RAT a = Conv.createrat();
+        a.pp = new NUMBER(-b.pp.sign, b.pp.cdigit, b.pp.exp, null);
+        a.pp.mant = b.pp.mant;
+        a.pq = new NUMBER(b.pq.sign, b.pq.cdigit, b.pq.exp, null);
+        a.pq.mant = b.pq.mant;
+        return a;
+    };
+
 enum NumberFormat
     {
         Float,      // returns floating point, or exponential if number is too big
@@ -108,7 +119,7 @@ enum AngleType
         // LOG*RADIX calculates the integral portion of the log of a number in
         // the base currently being used, only accurate to within g_ratio
         public int LOGNUMRADIX() {
-            return ((this.cdigit + this.exp) * Conv.g_ratio.get());
+            return ((this.cdigit + this.exp) * Conv.g_ratio());
         }
 
         // LOG*2 calculates the integral portion of the log of a number in
@@ -119,13 +130,11 @@ enum AngleType
 
         // TRIMNUM ASSUMES the number is in radix form NOT INTERNAL BASEX!!!
         public void TRIMNUM(int precision) {
-            if (!Support.g_ftrueinfinite.get()) {
-                int trim = this.cdigit - precision - Conv.g_ratio.get();
+            if (!Support.g_ftrueinfinite()) {
+                int trim = this.cdigit - precision - Conv.g_ratio();
                 if (trim > 1) {
                     // memmove((x) -> mant, & ((x) -> mant[trim]), sizeof(MANTTYPE) * ((x) -> cdigit - trim));
-                    for (int k = 0; k < cdigit - trim; k++) {
-                        mant.set(k, mant.at(k + trim));
-                    }
+                    System.arraycopy(mant.raw(), trim, mant.raw(), 0, cdigit - trim);
 
                     this.cdigit -= trim;
                     this.exp += trim;
@@ -196,13 +205,11 @@ enum AngleType
 
         // TRIMTOP ASSUMES the number is in INTERNAL BASEX!!!
         public void TRIMTOP(int precision) {
-            if (!Support.g_ftrueinfinite.get()) {
-                int trim = pp.cdigit - (precision / Conv.g_ratio.get()) - 2;
+            if (!Support.g_ftrueinfinite()) {
+                int trim = pp.cdigit - (precision / Conv.g_ratio()) - 2;
                 if (trim > 1) {
                     // memmove((x) -> pp -> mant, & ((x) -> pp -> mant[trim]), sizeof(MANTTYPE) * ((x) -> pp -> cdigit - trim));
-                    for (int k = 0; k < pp.cdigit - trim; k++) {
-                        pp.mant.set(k, pp.mant.at(k + trim));
-                    }
+                    System.arraycopy(pp.mant.raw(), trim, pp.mant.raw(), 0, pp.cdigit - trim);
 
                     pp.cdigit -= trim;
                     pp.exp += trim;
@@ -214,7 +221,7 @@ enum AngleType
         }
 
         public boolean SMALL_ENOUGH_RAT(int precision) {
-            return zernum(pp) || (((pq.cdigit + pq.exp) - (pp.cdigit + pp.exp) - 1) * Conv.g_ratio.get() > precision);
+            return zernum(pp) || (((pq.cdigit + pq.exp) - (pp.cdigit + pp.exp) - 1) * Conv.g_ratio() > precision);
         }
 
         @Override
@@ -250,9 +257,7 @@ enum AngleType
         public TYLOR(RAT px, int precision) {
             this.precision = precision;
 
-            Ptr<RAT> pxx = new Ptr<>(DUPRAT(px));
-            Rat.mulrat(pxx, px, precision);
-            this.xx = pxx.deref();
+            this.xx = Rat.mulrat(DUPRAT(px), px, precision);
 
             this.pret = new RAT();
             pret.pp = Conv.i32tonum(0, BASEX);
@@ -266,16 +271,12 @@ enum AngleType
                 a.mant.set(0, a.mant.at(0).add(uint.ONE));
                 return a;
             } else {
-                Ptr<NUMBER> tmp = new Ptr<>(a);
-                addnum(tmp, Support.Global.num_one, BASEX);
-                return tmp.deref();
+                return addnum(a, Support.Global.num_one(), BASEX);
             }
         }
 
         public RAT RESULT() {
-            Ptr<RAT> prat = new Ptr<>(pret);
-            Support.trimit(prat, precision);
-            this.pret = prat.deref();
+            Support.trimit(pret, precision);
 
             return this.pret;
         }
@@ -284,18 +285,14 @@ enum AngleType
         // a rational and b is a number, NOTE this is a mixed type operation for
         // efficiency reasons.
         public void MULNUM(NUMBER b) {
-            Ptr<NUMBER> ppp = new Ptr<>(thisterm.pp);
-            BaseX.mulnumx(ppp, b);
-            thisterm.pp = ppp.deref();
+            thisterm.pp = BaseX.mulnumx(thisterm.pp, b);
         }
 
         // DIVNUM(b) is the rational equivalent of thisterm /= b where thisterm is
         // a rational and b is a number, NOTE this is a mixed type operation for
         // efficiency reasons.
         public void DIVNUM(NUMBER b) {
-            Ptr<NUMBER> ppq = new Ptr<>(thisterm.pq);
-            BaseX.mulnumx(ppq, b);
-            thisterm.pq = ppq.deref();
+            thisterm.pq = BaseX.mulnumx(thisterm.pq, b);
         }
 
         // NEXTTERM(p,d) is the rational equivalent of
@@ -303,15 +300,13 @@ enum AngleType
         // d    <d is usually an expansion of operations to get thisterm updated.>
         // pret += thisterm
         public void NEXTTERM(RAT p, Runnable d, int precision) {
-            Ptr<RAT> pthisterm = new Ptr<>(thisterm);
-            Rat.mulrat(pthisterm, p, precision);
-            thisterm = pthisterm.deref();
+            CancellationToken.check();
+
+            thisterm = Rat.mulrat(thisterm, p, precision);
 
             d.run();
 
-            Ptr<RAT> ppret = new Ptr<>(pret);
-            Rat.addrat(ppret, thisterm, precision);
-            pret = ppret.deref();
+            pret = Rat.addrat(pret, thisterm, precision);
         }
     }
 }
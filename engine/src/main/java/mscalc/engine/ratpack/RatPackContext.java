@@ -0,0 +1,601 @@
+package mscalc.engine.ratpack;
+
+import mscalc.engine.cpp.Ptr;
+import mscalc.engine.cpp.uint;
+import mscalc.engine.ratpack.RatPack.NUMBER;
+import mscalc.engine.ratpack.RatPack.RAT;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+import static mscalc.engine.ratpack.ITrans.asinrat;
+import static mscalc.engine.ratpack.RatPack.*;
+import static mscalc.engine.ratpack.Support.CALC_DECIMAL_DIGITS_DEFAULT;
+import static mscalc.engine.ratpack.Support.DECIMAL;
+import static mscalc.engine.ratpack.Support.RATIO_FOR_DECIMAL;
+
+//-----------------------------------------------------------------------------
+//
+//  RatPackContext holds everything that ChangeConstants used to keep in
+//  process wide globals: the radix/precision ratio, the "true infinite" flag
+//  and the table of RAT and NUMBER constants (pi, ln 2, 2^64-1, ...).
+//
+//  A context is built once for a (radix, precision) pair and never changes
+//  afterwards, so it can be shared by any number of threads. The ratpack
+//  functions read the context bound to the calling thread, see bind().
+//  Threads that never bound a context use the default one, which is the
+//  radix 10, CALC_DECIMAL_DIGITS_DEFAULT precision context.
+//
+//  Computing the constants for a big precision means evaluating pi, e and
+//  the logarithms with full series, which can take seconds. Contexts are
+//  therefore kept in a small LRU cache keyed by (radix, precision), so
+//  toggling between radixes costs a lookup after the first time.
+//
+//-----------------------------------------------------------------------------
+public final class RatPackContext {
+    // Number of bits of precision the constants in RatConst were dumped with.
+    private static final int RATCONST_BITS_OF_PRECISION = RATIO_FOR_DECIMAL * DECIMAL * CALC_DECIMAL_DIGITS_DEFAULT;
+
+    private static final class DefaultHolder {
+        static final RatPackContext DEFAULT = RatPackContext.of(uint.of(DECIMAL), CALC_DECIMAL_DIGITS_DEFAULT);
+    }
+
+    // Maximum number of (radix, precision) pairs kept in the cache.
+    public static final int CACHE_CAPACITY = 32;
+
+    // Number of e^(2^-j) entries used by exprat, see e_to_pow2().
+    static final int EXP_TABLE_SIZE = 8;
+
+    // Radixes and precisions preloaded by preload().
+    private static final int[] PRELOAD_RADIXES = { 2, 8, 10, 16 };
+    private static final int[] PRELOAD_PRECISIONS = { 32, 128 };
+
+    private record Key(int radix, int precision) { }
+
+    // Guarded by itself, access ordered so that the eldest entry is the
+    // least recently used one.
+    private static final Map<Key, RatPackContext> cache = new LinkedHashMap<>(16, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<Key, RatPackContext> eldest) {
+            return size() > CACHE_CAPACITY;
+        }
+    };
+
+    private static final ThreadLocal<RatPackContext> current = new ThreadLocal<>();
+
+    private final uint radix;
+    private final int precision;
+
+    // ratio is set to the number of digits in the current radix, you can get
+    // in the internal BASEX radix, this is important for length calculations
+    // in translating from radix to BASEX and back.
+    final int ratio;
+
+    // Set to true if you don't want chopping internally
+    final boolean ftrueinfinite = false;
+
+    NUMBER num_one;
+    NUMBER num_two;
+    NUMBER num_five;
+    NUMBER num_six;
+    NUMBER num_ten;
+
+    RAT ln_ten;
+    RAT ln_two;
+    RAT rat_zero;
+    RAT rat_one;
+    RAT rat_neg_one;
+    RAT rat_two;
+    RAT rat_six;
+    RAT rat_half;
+    RAT rat_ten;
+    RAT pt_eight_five;
+    RAT pi;
+    RAT pi_over_two;
+    RAT two_pi;
+    RAT one_pt_five_pi;
+    RAT e_to_one_half;
+    RAT rat_exp;
+    RAT rad_to_deg;
+    RAT rad_to_grad;
+    RAT rat_qword;
+    RAT rat_dword; // unsigned max ui32
+    RAT rat_word;
+    RAT rat_byte;
+    RAT rat_360;
+    RAT rat_400;
+    RAT rat_180;
+    RAT rat_200;
+    RAT rat_nRadix;
+    RAT rat_smallest;
+    RAT rat_negsmallest;
+    RAT rat_max_exp;
+    RAT rat_min_exp;
+    RAT rat_max_fact;
+    RAT rat_min_fact;
+    RAT rat_min_i32; // min signed i32
+    RAT rat_max_i32; // max signed i32
+
+    // e^(2^-j) for j = 1 .. EXP_TABLE_SIZE, computed on first use.
+    private volatile RAT[] e_to_pow2_table;
+
+    // radix^k in BASEX and BASEX^k in radix, for k = 0 .. precision, each
+    // entry computed on first use, see radix_pow() and basex_pow().
+    private final AtomicReferenceArray<NUMBER> radix_pow_table;
+    private final AtomicReferenceArray<NUMBER> basex_pow_table;
+
+    // Powers for the divide and conquer radix conversions.
+    final RadixPowers radix_powers = new RadixPowers();
+
+    private RatPackContext(uint radix, int precision) {
+        this.radix = radix;
+        this.precision = precision;
+        this.ratio = (int)Math.ceil(BASEXPWR / log2(radix.toULong().raw())) - 1;
+        this.radix_pow_table = new AtomicReferenceArray<>(precision + 1);
+        this.basex_pow_table = new AtomicReferenceArray<>(precision + 1);
+    }
+
+    public uint radix() {
+        return radix;
+    }
+
+    public int precision() {
+        return precision;
+    }
+
+    //----------------------------------------------------------------------------
+    //
+    //  FUNCTION: current
+    //
+    //  RETURN: The context bound to the calling thread, or the default context
+    //  if the thread never bound one.
+    //
+    //----------------------------------------------------------------------------
+    public static RatPackContext current()
+    {
+        RatPackContext ctx = current.get();
+        return (ctx != null) ? ctx : DefaultHolder.DEFAULT;
+    }
+
+    //----------------------------------------------------------------------------
+    //
+    //  FUNCTION: bind
+    //
+    //  ARGUMENTS: context to use for all ratpack calls made by this thread,
+    //  null reverts the thread to the default context.
+    //
+    //  RETURN: The previously bound context (possibly null), so that callers
+    //  can restore it when they are done.
+    //
+    //----------------------------------------------------------------------------
+    public static RatPackContext bind(RatPackContext ctx)
+    {
+        RatPackContext previous = current.get();
+        if (ctx == null)
+        {
+            current.remove();
+        }
+        else
+        {
+            current.set(ctx);
+        }
+        return previous;
+    }
+
+    //----------------------------------------------------------------------------
+    //
+    //  FUNCTION: of
+    //
+    //  ARGUMENTS:  base changing to, and precision to use.
+    //
+    //  RETURN: The context with all the constants computed for the given
+    //  radix and precision.
+    //
+    //  DESCRIPTION: Returns the cached context if there is one, otherwise
+    //  builds it and adds it to the cache. The cache lock is not held while
+    //  building, two threads asking for the same missing context may both
+    //  build it, the first one stored wins.
+    //
+    //----------------------------------------------------------------------------
+    public static RatPackContext of(uint radix, int precision)
+    {
+        Key key = new Key(radix.toInt(), precision);
+
+        synchronized (cache)
+        {
+            RatPackContext ctx = cache.get(key);
+            if (ctx != null)
+            {
+                return ctx;
+            }
+        }
+
+        RatPackContext ctx = build(radix, precision);
+
+        synchronized (cache)
+        {
+            RatPackContext other = cache.putIfAbsent(key, ctx);
+            return (other != null) ? other : ctx;
+        }
+    }
+
+    //----------------------------------------------------------------------------
+    //
+    //  FUNCTION: preload
+    //
+    //  DESCRIPTION: Fills the cache with the contexts used most often, radix
+    //  2, 8, 10 and 16 at precision 32 and 128, so that the first switch to
+    //  any of them does not have to evaluate the series. Meant to be called
+    //  once at startup, possibly from a background thread.
+    //
+    //----------------------------------------------------------------------------
+    public static void preload()
+    {
+        for (int precision : PRELOAD_PRECISIONS)
+        {
+            for (int radix : PRELOAD_RADIXES)
+            {
+                of(uint.of(radix), precision);
+            }
+        }
+    }
+
+    //----------------------------------------------------------------------------
+    //
+    //  FUNCTION: build
+    //
+    //  ARGUMENTS:  base changing to, and precision to use.
+    //
+    //  RETURN: A new context, bypassing the cache.
+    //
+    //  DESCRIPTION: Constants that fit in the precision RatConst was dumped with
+    //  are read from there, everything else is recalculated. While computing
+    //  the new context is bound to the calling thread, since the series used
+    //  for pi, e and the logarithms need the constants calculated before them.
+    //
+    //----------------------------------------------------------------------------
+    static RatPackContext build(uint radix, int precision)
+    {
+        RatPackContext ctx = new RatPackContext(radix, precision);
+
+        RatPackContext previous = bind(ctx);
+        CancellationToken previousToken = CancellationToken.bind(CancellationToken.NONE);
+        try
+        {
+            ctx.rat_nRadix = Conv.i32torat(radix.toInt());
+
+            // Check to see what we have to recalculate and what we don't
+            if (RATCONST_BITS_OF_PRECISION < (ctx.ratio * radix.toInt() * precision))
+            {
+                ctx.computeconstants();
+            }
+            else
+            {
+                ctx.readconstants();
+                ctx.computesmallest();
+            }
+        }
+        finally
+        {
+            CancellationToken.bind(previousToken);
+            bind(previous);
+        }
+
+        return ctx;
+    }
+
+    //----------------------------------------------------------------------------
+    //
+    //  FUNCTION: e_to_pow2
+    //
+    //  ARGUMENTS: j, between 1 and EXP_TABLE_SIZE.
+    //
+    //  RETURN: e^(2^-j) at the precision of this context.
+    //
+    //  DESCRIPTION: Only exprat needs the table, so it is not computed with
+    //  the other constants but the first time it is used. Once computed it
+    //  is shared by all threads using the context.
+    //
+    //----------------------------------------------------------------------------
+    RAT e_to_pow2(int j)
+    {
+        RAT[] table = e_to_pow2_table;
+        if (table == null)
+        {
+            synchronized (this)
+            {
+                table = e_to_pow2_table;
+                if (table == null)
+                {
+                    table = computeexptable();
+                    e_to_pow2_table = table;
+                }
+            }
+        }
+        return table[j - 1];
+    }
+
+    //----------------------------------------------------------------------------
+    //
+    //  FUNCTION: radix_pow
+    //
+    //  ARGUMENTS: radix and power.
+    //
+    //  RETURN: radix ** power in BASEX, or null if radix is not the radix of
+    //  this context or power is not between 0 and the precision. The number
+    //  is shared, callers must not change it.
+    //
+    //  DESCRIPTION: Converting numbers from the radix of the context scales
+    //  them by a power of the radix, the table saves recomputing it for every
+    //  number.
+    //
+    //----------------------------------------------------------------------------
+    NUMBER radix_pow(uint radix, int power)
+    {
+        if (radix.raw() != this.radix.raw() || power < 0 || power > precision)
+        {
+            return null;
+        }
+
+        NUMBER pow = radix_pow_table.get(power);
+        if (pow == null)
+        {
+            Ptr<NUMBER> root = new Ptr<>(Conv.i32tonum(radix.toInt(), BASEX));
+            BaseX.numpowi32x(root, power);
+            pow = publish(radix_pow_table, power, root.deref());
+        }
+        return pow;
+    }
+
+    //----------------------------------------------------------------------------
+    //
+    //  FUNCTION: basex_pow
+    //
+    //  ARGUMENTS: radix, power and precision.
+    //
+    //  RETURN: BASEX ** power in radix, trimmed to precision like numpowi32
+    //  does, or null if radix and precision are not the ones of this context
+    //  or power is not between 0 and the precision. The number is shared,
+    //  callers must not change it.
+    //
+    //  DESCRIPTION: The counterpart of radix_pow for converting numbers to
+    //  the radix of the context. It is only used through the current
+    //  context, numpowi32 trims with its ratio.
+    //
+    //----------------------------------------------------------------------------
+    NUMBER basex_pow(uint radix, int power, int precision)
+    {
+        if (radix.raw() != this.radix.raw() || precision != this.precision || power < 0 || power > precision)
+        {
+            return null;
+        }
+
+        NUMBER pow = basex_pow_table.get(power);
+        if (pow == null)
+        {
+            Ptr<NUMBER> root = new Ptr<>(Conv.i32tonum(BASEX.toInt(), radix));
+            Conv.numpowi32(root, power, radix, precision);
+            pow = publish(basex_pow_table, power, root.deref());
+        }
+        return pow;
+    }
+
+    // Stores pow unless another thread was first, returns the stored number.
+    private static NUMBER publish(AtomicReferenceArray<NUMBER> table, int power, NUMBER pow)
+    {
+        return table.compareAndSet(power, null, pow) ? pow : table.get(power);
+    }
+
+    private RAT[] computeexptable()
+    {
+        RAT[] table = new RAT[EXP_TABLE_SIZE];
+        table[0] = e_to_one_half;
+
+        RatPackContext previous = bind(this);
+        CancellationToken previousToken = CancellationToken.bind(CancellationToken.NONE);
+        try
+        {
+            int extraPrecision = precision + ratio;
+            for (int j = 2; j <= EXP_TABLE_SIZE; j++)
+            {
+                Ptr<RAT> ratp = new Ptr<>(Conv.createrat());
+                ratp.deref().pp = DUPNUM(num_one);
+                ratp.deref().pq = Conv.pow2num(j);
+                Exp._exprat(ratp, radix, extraPrecision);
+                table[j - 1] = ratp.deref();
+            }
+        }
+        finally
+        {
+            CancellationToken.bind(previousToken);
+            bind(previous);
+        }
+
+        return table;
+    }
+
+    private static double log2(double x) {
+        // TODO: Try https://github.com/evanphx/ulysses-libc/blob/master/src/math/log2.c
+        return Math.log10(x) / Math.log10(2);
+    }
+
+    private void computeconstants()
+    {
+        num_one = Conv.i32tonum(1, BASEX);
+        num_two = Conv.i32tonum(2, BASEX);
+        num_five = Conv.i32tonum(5, BASEX);
+        num_six = Conv.i32tonum(6, BASEX);
+        num_ten = Conv.i32tonum(10, BASEX);
+        rat_six = Conv.i32torat(6);
+        rat_two = Conv.i32torat(2);
+        rat_zero = Conv.i32torat(0);
+        rat_one = Conv.i32torat(1);
+        rat_neg_one = Conv.i32torat(-1);
+        rat_ten = Conv.i32torat(10);
+        rat_word = Conv.i32torat(0xffff);
+        rat_byte = Conv.i32torat(0xff);
+        rat_400 = Conv.i32torat(400);
+        rat_360 = Conv.i32torat(360);
+        rat_200 = Conv.i32torat(200);
+        rat_180 = Conv.i32torat(180);
+        rat_max_exp = Conv.i32torat(100000);
+
+        // 3248, is the max number for which calc is able to compute factorial, after that it is unable to compute due to overflow.
+        // Hence restricted factorial range as at most 3248.Beyond that calc will throw overflow error immediately.
+        rat_max_fact = Conv.i32torat(3249);
+
+        // -1000, is the min number for which calc is able to compute factorial, after that it takes too long to compute.
+        rat_min_fact = Conv.i32torat(-1000);
+
+        computesmallest();
+
+        rat_half = Conv.createrat();
+        rat_half.pp = DUPNUM(num_one);
+        rat_half.pq = DUPNUM(num_two);
+
+        pt_eight_five = Conv.createrat();
+        pt_eight_five.pp = Conv.i32tonum(85, BASEX);
+        pt_eight_five.pq = Conv.i32tonum(100, BASEX);
+
+        rat_qword = DUPRAT(rat_two);
+        Ptr<NUMBER> ppp = new Ptr<>(rat_qword.pp);
+        Conv.numpowi32(ppp, 64, BASEX, precision);
+        rat_qword.pp = ppp.deref();
+        Ptr<RAT> ratp = new Ptr<>(rat_qword);
+        Rat.subrat(ratp, rat_one, precision);
+        rat_qword = ratp.deref();
+
+        rat_dword = DUPRAT(rat_two);
+        ppp = new Ptr<>(rat_dword.pp);
+        Conv.numpowi32(ppp, 32, BASEX, precision);
+        rat_dword.pp = ppp.deref();
+        ratp = new Ptr<>(rat_dword);
+        Rat.subrat(ratp, rat_one, precision);
+        rat_dword = ratp.deref();
+
+        rat_max_i32 = DUPRAT(rat_two);
+        ppp = new Ptr<>(rat_max_i32.pp);
+        Conv.numpowi32(ppp, 31, BASEX, precision);
+        rat_max_i32.pp = ppp.deref();
+        rat_min_i32 = DUPRAT(rat_max_i32);
+        ratp = new Ptr<>(rat_max_i32);
+        Rat.subrat(ratp, rat_one, precision); // rat_max_i32 = 2^31 -1
+        rat_max_i32 = ratp.deref();
+
+        rat_min_i32.pp.sign *= -1; // rat_min_i32 = -2^31
+
+        rat_min_exp = DUPRAT(rat_max_exp);
+        rat_min_exp.pp.sign *= -1;
+
+        // Apparently when dividing 180 by pi, another (internal) digit of
+        // precision is needed.
+        int extraPrecision = precision + ratio;
+        pi = DUPRAT(rat_half);
+        ratp = new Ptr<>(pi);
+        asinrat(ratp, radix, extraPrecision);
+        Rat.mulrat(ratp, rat_six, extraPrecision);
+        pi = ratp.deref();
+
+        two_pi = DUPRAT(pi);
+        pi_over_two = DUPRAT(pi);
+        one_pt_five_pi = DUPRAT(pi);
+
+        ratp = new Ptr<>(two_pi);
+        Rat.addrat(ratp, pi, extraPrecision);
+        two_pi = ratp.deref();
+
+        ratp = new Ptr<>(pi_over_two);
+        Rat.divrat(ratp, rat_two, extraPrecision);
+        pi_over_two = ratp.deref();
+
+        ratp = new Ptr<>(one_pt_five_pi);
+        Rat.addrat(ratp, pi_over_two, extraPrecision);
+        one_pt_five_pi = ratp.deref();
+
+        e_to_one_half = DUPRAT(rat_half);
+        ratp = new Ptr<>(e_to_one_half);
+        Exp._exprat(ratp, radix, extraPrecision);
+        e_to_one_half = ratp.deref();
+
+        rat_exp = DUPRAT(rat_one);
+        ratp = new Ptr<>(rat_exp);
+        Exp._exprat(ratp, radix, extraPrecision);
+        rat_exp = ratp.deref();
+
+        // WARNING: remember lograt uses exponent constants calculated above...
+
+        ln_ten = DUPRAT(rat_ten);
+        ratp = new Ptr<>(ln_ten);
+        Exp.lograt(ratp, extraPrecision);
+        ln_ten = ratp.deref();
+
+        ln_two = DUPRAT(rat_two);
+        ratp = new Ptr<>(ln_two);
+        Exp.lograt(ratp, extraPrecision);
+        ln_two = ratp.deref();
+
+        rad_to_deg = Conv.i32torat(180);
+        ratp = new Ptr<>(rad_to_deg);
+        Rat.divrat(ratp, pi, extraPrecision);
+        rad_to_deg = ratp.deref();
+
+        rad_to_grad = Conv.i32torat(200);
+        ratp = new Ptr<>(rad_to_grad);
+        Rat.divrat(ratp, pi, extraPrecision);
+        rad_to_grad = ratp.deref();
+    }
+
+    private void computesmallest()
+    {
+        rat_smallest = DUPRAT(rat_nRadix);
+        Ptr<RAT> ratp = new Ptr<>(rat_smallest);
+        Conv.ratpowi32(ratp, -precision, precision);
+        rat_smallest = ratp.deref();
+
+        rat_negsmallest = DUPRAT(rat_smallest);
+        rat_negsmallest.pp.sign = -1;
+    }
+
+    private void readconstants()
+    {
+        num_one = RatConst.init_num_one.clone();
+        num_two = RatConst.init_num_two.clone();
+        num_five = RatConst.init_num_five.clone();
+        num_six = RatConst.init_num_six.clone();
+        num_ten = RatConst.init_num_ten.clone();
+
+        pt_eight_five = new RAT(RatConst.init_p_pt_eight_five, RatConst.init_q_pt_eight_five);
+        rat_six = new RAT(RatConst.init_p_rat_six, RatConst.init_q_rat_six);
+        rat_two = new RAT(RatConst.init_p_rat_two, RatConst.init_q_rat_two);
+        rat_zero = new RAT(RatConst.init_p_rat_zero, RatConst.init_q_rat_zero);
+        rat_one = new RAT(RatConst.init_p_rat_one, RatConst.init_q_rat_one);
+        rat_neg_one = new RAT(RatConst.init_p_rat_neg_one, RatConst.init_q_rat_neg_one);
+        rat_half = new RAT(RatConst.init_p_rat_half, RatConst.init_q_rat_half);
+        rat_ten = new RAT(RatConst.init_p_rat_ten, RatConst.init_q_rat_ten);
+        pi = new RAT(RatConst.init_p_pi, RatConst.init_q_pi);
+        two_pi = new RAT(RatConst.init_p_two_pi, RatConst.init_q_two_pi);
+        pi_over_two = new RAT(RatConst.init_p_pi_over_two, RatConst.init_q_pi_over_two);
+        one_pt_five_pi = new RAT(RatConst.init_p_one_pt_five_pi, RatConst.init_q_one_pt_five_pi);
+        e_to_one_half = new RAT(RatConst.init_p_e_to_one_half, RatConst.init_q_e_to_one_half);
+        rat_exp = new RAT(RatConst.init_p_rat_exp, RatConst.init_q_rat_exp);
+        ln_ten = new RAT(RatConst.init_p_ln_ten, RatConst.init_q_ln_ten);
+        ln_two = new RAT(RatConst.init_p_ln_two, RatConst.init_q_ln_two);
+        rad_to_deg = new RAT(RatConst.init_p_rad_to_deg, RatConst.init_q_rad_to_deg);
+        rad_to_grad = new RAT(RatConst.init_p_rad_to_grad, RatConst.init_q_rad_to_grad);
+        rat_qword = new RAT(RatConst.init_p_rat_qword, RatConst.init_q_rat_qword);
+        rat_dword = new RAT(RatConst.init_p_rat_dword, RatConst.init_q_rat_dword);
+        rat_word = new RAT(RatConst.init_p_rat_word, RatConst.init_q_rat_word);
+        rat_byte = new RAT(RatConst.init_p_rat_byte, RatConst.init_q_rat_byte);
+        rat_360 = new RAT(RatConst.init_p_rat_360, RatConst.init_q_rat_360);
+        rat_400 = new RAT(RatConst.init_p_rat_400, RatConst.init_q_rat_400);
+        rat_180 = new RAT(RatConst.init_p_rat_180, RatConst.init_q_rat_180);
+        rat_200 = new RAT(RatConst.init_p_rat_200, RatConst.init_q_rat_200);
+        rat_max_exp = new RAT(RatConst.init_p_rat_max_exp, RatConst.init_q_rat_max_exp);
+        rat_min_exp = new RAT(RatConst.init_p_rat_min_exp, RatConst.init_q_rat_min_exp);
+        rat_max_fact = new RAT(RatConst.init_p_rat_max_fact, RatConst.init_q_rat_max_fact);
+        rat_min_fact = new RAT(RatConst.init_p_rat_min_fact, RatConst.init_q_rat_min_fact);
+        rat_min_i32 = new RAT(RatConst.init_p_rat_min_i32, RatConst.init_q_rat_min_i32);
+        rat_max_i32 = new RAT(RatConst.init_p_rat_max_i32, RatConst.init_q_rat_max_i32);
+    }
+}
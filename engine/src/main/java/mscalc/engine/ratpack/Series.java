@@ -0,0 +1,597 @@
+package mscalc.engine.ratpack;
+
+import mscalc.engine.cpp.Ptr;
+import mscalc.engine.cpp.uint;
+import mscalc.engine.ratpack.RatPack.NUMBER;
+import mscalc.engine.ratpack.RatPack.RAT;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.IntFunction;
+
+import static mscalc.engine.ratpack.RatPack.*;
+
+//-----------------------------------------------------------------------------
+//
+//  High precision evaluation of the elementary functions.
+//
+//  The TYLOR based series in Exp, Trans and ITrans multiply and trim a full
+//  precision rational for every term. Above BINARY_SPLITTING_PRECISION the
+//  functions below are used instead:
+//
+//  exp, sin and cos use the "bit-burst" scheme. The argument is cut into
+//  chunks of BASEX digits of doubling length, x = u0 + u1 + u2 + ... where
+//  u0 holds the integer part and the first fraction digit, u1 the next digit,
+//  u2 the next two, u3 the next four and so on. Every chunk is a short
+//  integer times a power of BASEX so its series can be summed exactly with
+//  binary splitting, combining terms as integer P/Q/T trees. Only the chunk
+//  results are multiplied at full precision.
+//
+//  ln, asin and atan are computed with Halley's (cubically convergent)
+//  iteration on top of exp, sin and cos, tripling the working precision on
+//  every step.
+//
+//  Like the TYLOR series the results are correct up to the last few digits
+//  of precision, but they are not bit-identical to the TYLOR results.
+//
+//-----------------------------------------------------------------------------
+public interface Series
+{
+    // Precision (in digits of the current radix) from which the binary
+    // splitting evaluation is used.
+    AtomicInteger BINARY_SPLITTING_PRECISION = new AtomicInteger(Integer.getInteger("mscalc.ratpack.binarySplittingPrecision", 128));
+
+    static boolean usebinarysplitting(int precision)
+    {
+        return precision >= BINARY_SPLITTING_PRECISION.get();
+    }
+
+    //-----------------------------------------------------------------------------
+    //
+    //  FUNCTION: exprat
+    //
+    //  ARGUMENTS: x PRAT representation of number to exponentiate
+    //
+    //  RETURN: exp of x in PRAT form.
+    //
+    //  EXPLANATION: exp(x) = exp(u0) * exp(u1) * ... for the bit-burst chunks
+    //  of x, every exp(uj) is summed by binary splitting.
+    //
+    //-----------------------------------------------------------------------------
+    static RAT exprat(RAT x, int precision)
+    {
+        int wprecision = precision + 2 * Conv.g_ratio();
+        int bits = targetbits(x, wprecision);
+
+        RAT ret = Conv.i32torat(1);
+        for (NUMBER u : burst(x, bits))
+        {
+            ret = Rat.mulrat(ret, expchunk(u, bits), wprecision);
+        }
+
+        Support.trimit(ret, precision);
+        return ret;
+    }
+
+    static void exprat(Ptr<RAT> px, int precision)
+    {
+        px.set(exprat(px.deref(), precision));
+    }
+
+    //-----------------------------------------------------------------------------
+    //
+    //  FUNCTION: sincosrat
+    //
+    //  ARGUMENTS: x PRAT representation of an angle in radians.
+    //
+    //  RETURN: sin and cos of x in PRAT form.
+    //
+    //  EXPLANATION: Sums sin(uj) and cos(uj) of every bit-burst chunk by binary
+    //  splitting and combines them with
+    //      sin(a+b) = sin(a)cos(b) + cos(a)sin(b)
+    //      cos(a+b) = cos(a)cos(b) - sin(a)sin(b)
+    //
+    //-----------------------------------------------------------------------------
+    record SinCos(RAT sin, RAT cos) { }
+
+    static SinCos sincosrat(RAT x, int precision)
+    {
+        int wprecision = precision + 2 * Conv.g_ratio();
+        int bits = targetbits(x, wprecision);
+
+        RAT s = Conv.i32torat(0);
+        RAT c = Conv.i32torat(1);
+        boolean first = true;
+        for (NUMBER u : burst(x, bits))
+        {
+            RAT su = sinchunk(u, bits);
+            RAT cu = coschunk(u, bits);
+
+            if (first)
+            {
+                s = su;
+                c = cu;
+                first = false;
+                continue;
+            }
+
+            RAT sc = Rat.mulrat(DUPRAT(s), cu, wprecision);
+            RAT cs = Rat.mulrat(DUPRAT(c), su, wprecision);
+            RAT cc = Rat.mulrat(DUPRAT(c), cu, wprecision);
+            RAT ss = Rat.mulrat(DUPRAT(s), su, wprecision);
+
+            s = Rat.addrat(sc, cs, wprecision);
+            c = Rat.subrat(cc, ss, wprecision);
+        }
+
+        Support.trimit(s, precision);
+        Support.trimit(c, precision);
+        return new SinCos(s, c);
+    }
+
+    //-----------------------------------------------------------------------------
+    //
+    //  FUNCTION: lograt
+    //
+    //  ARGUMENTS: x PRAT representation of number to take the log of, x > 0
+    //
+    //  RETURN: ln of x in PRAT form.
+    //
+    //  EXPLANATION: Halley iteration for exp(y) = x
+    //
+    //                          x - exp(y)
+    //      y      = y  + 2 * --------------
+    //       j+1      j         x + exp(y)
+    //
+    //  The caller should keep x away from 1, close to 1 the cancellation in
+    //  x - exp(y) costs as many digits as x - 1 has leading zeros.
+    //
+    //-----------------------------------------------------------------------------
+    static RAT lograt(RAT x, int precision)
+    {
+        RAT y = doubletorat(Math.log(rattodouble(x)));
+
+        for (int wprecision : newtonsteps(precision, 3))
+        {
+            RAT e = exprat(DUPRAT(y), wprecision);
+
+            RAT num = Rat.subrat(DUPRAT(x), e, wprecision);
+            RAT den = Rat.addrat(DUPRAT(x), e, wprecision);
+
+            num = Rat.divrat(num, den, wprecision);
+            num = Rat.addrat(num, num, wprecision);
+            y = Rat.addrat(y, num, wprecision);
+        }
+
+        Support.trimit(y, precision);
+        return y;
+    }
+
+    static void lograt(Ptr<RAT> px, int precision)
+    {
+        px.set(lograt(px.deref(), precision));
+    }
+
+    //-----------------------------------------------------------------------------
+    //
+    //  FUNCTION: asinrat
+    //
+    //  ARGUMENTS: x PRAT representation of number to take the inverse sine of,
+    //             abs(x) must be well below one.
+    //
+    //  RETURN: asin of x in PRAT form.
+    //
+    //  EXPLANATION: Halley iteration for sin(y) = x, with d = x - sin(y)
+    //
+    //                        2 * d * cos(y)
+    //      y      = y  + -----------------------
+    //       j+1      j    2 * cos(y)^2 - d * sin(y)
+    //
+    //-----------------------------------------------------------------------------
+    static RAT asinrat(RAT x, int precision)
+    {
+        RAT y = initialguess(x, Math.asin(rattodouble(x)));
+
+        for (int wprecision : newtonsteps(precision, 3))
+        {
+            SinCos sc = sincosrat(y, wprecision);
+            RAT s = sc.sin();
+            RAT c = sc.cos();
+
+            RAT d = Rat.subrat(DUPRAT(x), s, wprecision);
+
+            RAT num = Rat.mulrat(DUPRAT(d), c, wprecision);
+            num = Rat.addrat(num, num, wprecision);
+
+            RAT den = Rat.mulrat(DUPRAT(c), c, wprecision);
+            den = Rat.addrat(den, den, wprecision);
+            d = Rat.mulrat(d, s, wprecision);
+            den = Rat.subrat(den, d, wprecision);
+
+            num = Rat.divrat(num, den, wprecision);
+            y = Rat.addrat(y, num, wprecision);
+        }
+
+        Support.trimit(y, precision);
+        return y;
+    }
+
+    static void asinrat(Ptr<RAT> px, int precision)
+    {
+        px.set(asinrat(px.deref(), precision));
+    }
+
+    //-----------------------------------------------------------------------------
+    //
+    //  FUNCTION: atanrat
+    //
+    //  ARGUMENTS: x PRAT representation of number to take the inverse tangent
+    //             of, abs(x) must be below two.
+    //
+    //  RETURN: atan of x in PRAT form.
+    //
+    //  EXPLANATION: tan(atan(x) - y) = (x*cos(y) - sin(y)) / (cos(y) + x*sin(y))
+    //  and atan(t) = t - t^3/3 + ..., so the iteration
+    //
+    //                    x*cos(y) - sin(y)
+    //      y      = y  + -----------------
+    //       j+1      j   cos(y) + x*sin(y)
+    //
+    //  converges cubically.
+    //
+    //-----------------------------------------------------------------------------
+    static RAT atanrat(RAT x, int precision)
+    {
+        RAT y = initialguess(x, Math.atan(rattodouble(x)));
+
+        for (int wprecision : newtonsteps(precision, 3))
+        {
+            SinCos sc = sincosrat(y, wprecision);
+            RAT s = sc.sin();
+            RAT c = sc.cos();
+
+            RAT num = Rat.mulrat(DUPRAT(x), c, wprecision);
+            num = Rat.subrat(num, s, wprecision);
+
+            RAT den = Rat.mulrat(DUPRAT(x), s, wprecision);
+            den = Rat.addrat(den, c, wprecision);
+
+            num = Rat.divrat(num, den, wprecision);
+            y = Rat.addrat(y, num, wprecision);
+        }
+
+        Support.trimit(y, precision);
+        return y;
+    }
+
+    static void atanrat(Ptr<RAT> px, int precision)
+    {
+        px.set(atanrat(px.deref(), precision));
+    }
+
+    //-----------------------------------------------------------------------------
+    //
+    //  Binary splitting.
+    //
+    //  For the series 1 + sum(k = lo .. hi-1) p/q(lo) * p/q(lo+1) * ... * p/q(k)
+    //  split computes the integers
+    //      P = p^(hi-lo), Q = q(lo) * ... * q(hi-1)
+    //      T = Q * (sum - 1)
+    //  recursively, so the sum is (Q + T) / Q with a single final division.
+    //
+    //-----------------------------------------------------------------------------
+    record PQT(NUMBER p, NUMBER q, NUMBER t) { }
+
+    static PQT split(NUMBER p, IntFunction<NUMBER> q, int lo, int hi)
+    {
+        CancellationToken.check();
+
+        if (hi - lo == 1)
+        {
+            return new PQT(p, q.apply(lo), p);
+        }
+
+        int mid = (lo + hi) >>> 1;
+        PQT left = split(p, q, lo, mid);
+        PQT right = split(p, q, mid, hi);
+
+        Ptr<NUMBER> pt = new Ptr<>(mul(left.t(), right.q()));
+        Num.addnum(pt, mul(left.p(), right.t()), BASEX);
+
+        return new PQT(mul(left.p(), right.p()), mul(left.q(), right.q()), pt.deref());
+    }
+
+    // Sums the series, terms lo .. hi-1, and returns (Q + T) / Q.
+    static RAT sumseries(NUMBER p, IntFunction<NUMBER> q, int lo, int hi)
+    {
+        RAT ret = Conv.createrat();
+        if (hi <= lo)
+        {
+            ret.pp = Conv.i32tonum(1, BASEX);
+            ret.pq = Conv.i32tonum(1, BASEX);
+            return ret;
+        }
+
+        PQT pqt = split(p, q, lo, hi);
+        Ptr<NUMBER> pp = new Ptr<>(DUPNUM(pqt.q()));
+        Num.addnum(pp, pqt.t(), BASEX);
+
+        ret.pp = pp.deref();
+        ret.pq = DUPNUM(pqt.q());
+        return ret;
+    }
+
+    //    k
+    //   u
+    //  ---  summed until the terms drop below 2^-bits
+    //   k!
+    static RAT expchunk(NUMBER u, int bits)
+    {
+        int n = termcount(log2num(u), bits, 1, 0);
+        return sumseries(u, k -> longtonum(k), 1, n + 1);
+    }
+
+    //     2k+1
+    //    u
+    //  -------- * (-1)^k
+    //  (2k+1)!
+    static RAT sinchunk(NUMBER u, int bits)
+    {
+        int n = termcount(log2num(u), bits, 2, 1);
+
+        NUMBER uu = mul(u, u);
+        uu.sign = -uu.sign;
+        RAT ret = sumseries(uu, k -> longtonum((2L * k) * (2L * k + 1)), 1, n + 1);
+        ret.pp = mul(ret.pp, u);
+        return ret;
+    }
+
+    //     2k
+    //    u
+    //  ------ * (-1)^k
+    //  (2k)!
+    static RAT coschunk(NUMBER u, int bits)
+    {
+        int n = termcount(log2num(u), bits, 2, 0);
+
+        NUMBER uu = mul(u, u);
+        uu.sign = -uu.sign;
+        return sumseries(uu, k -> longtonum((2L * k - 1) * (2L * k)), 1, n + 1);
+    }
+
+    // Index of the first term u^(stride*k+offset) / (stride*k+offset)! below 2^-bits.
+    static int termcount(double log2u, int bits, int stride, int offset)
+    {
+        double log2term = 0;
+        for (int i = 1; i <= offset; i++)
+        {
+            log2term += log2u - log2(i);
+        }
+
+        int k = 0;
+        while (log2term >= -bits)
+        {
+            k++;
+            for (int i = 1; i <= stride; i++)
+            {
+                log2term += log2u - log2(stride * (k - 1) + offset + i);
+            }
+        }
+        return k;
+    }
+
+    //-----------------------------------------------------------------------------
+    //
+    //  Bit-burst decomposition.
+    //
+    //-----------------------------------------------------------------------------
+
+    // Number of bits of the fixed point approximation of x that is accurate
+    // enough for precision, including the leading zero digits of small x.
+    static int targetbits(RAT x, int precision)
+    {
+        int digits = precision / Conv.g_ratio() + 2;
+        int leadingzeros = Math.max(0, -x.LOGRAT2());
+        return (digits + leadingzeros) * BASEXPWR;
+    }
+
+    // Splits x into u0 + u1 + ... where every uj is a slice of the BASEX
+    // digits of x; the slices double in length. Zero slices are skipped.
+    static List<NUMBER> burst(RAT x, int bits)
+    {
+        NUMBER num = DUPNUM(x.pp);
+        NUMBER den = DUPNUM(x.pq);
+        int sign = num.sign * den.sign;
+        num.sign = 1;
+        den.sign = 1;
+
+        // Not divnumx, it returns a copy of den when num is one.
+        NUMBER q = BaseX._divnumx(num, den, bits / BASEXPWR + 2);
+
+        List<NUMBER> chunks = new ArrayList<>();
+        if (Num.zernum(q))
+        {
+            return chunks;
+        }
+
+        int[] mant = q.mant.raw();
+        int lowest = q.exp;
+        int highest = q.cdigit - 1 + q.exp;
+
+        // Powers of BASEX -1 and above form the first chunk, then -2, -3..-4, -5..-8, ...
+        int hi = highest;
+        int lo = Math.min(-1, highest);
+        int length = 1;
+        while (hi >= lowest)
+        {
+            lo = Math.max(lo, lowest);
+            NUMBER u = slice(mant, lo - q.exp, hi - q.exp, lo, sign);
+            if (u != null)
+            {
+                chunks.add(u);
+            }
+
+            hi = lo - 1;
+            lo = hi - length + 1;
+            if (lo <= -2)
+            {
+                length *= 2;
+            }
+        }
+
+        return chunks;
+    }
+
+    // Digits from..to (inclusive) of mant as a NUMBER with the given exponent,
+    // null when all of them are zero.
+    static NUMBER slice(int[] mant, int from, int to, int exp, int sign)
+    {
+        while (from <= to && mant[from] == 0)
+        {
+            from++;
+            exp++;
+        }
+        while (to >= from && mant[to] == 0)
+        {
+            to--;
+        }
+        if (from > to)
+        {
+            return null;
+        }
+
+        NUMBER u = Conv.createnum(uint.of(to - from + 1));
+        System.arraycopy(mant, from, u.mant.raw(), 0, to - from + 1);
+        u.cdigit = to - from + 1;
+        u.exp = exp;
+        u.sign = sign;
+        return u;
+    }
+
+    //-----------------------------------------------------------------------------
+    //
+    //  Helpers.
+    //
+    //-----------------------------------------------------------------------------
+
+    // Working precisions for an iteration that multiplies the number of
+    // correct digits by order, the last one is the target precision.
+    static List<Integer> newtonsteps(int precision, int order)
+    {
+        int ratio = Conv.g_ratio();
+        // A double is good for about 50 bits.
+        int start = Math.max(1, 50 * ratio / BASEXPWR);
+
+        List<Integer> steps = new ArrayList<>();
+        int wprecision = precision + 2 * ratio;
+        do
+        {
+            steps.addFirst(wprecision);
+            wprecision = wprecision / order + ratio;
+        }
+        while (wprecision > start && wprecision < steps.getFirst());
+
+        return steps;
+    }
+
+    // Start value of an iteration, x itself when it is too small for a double;
+    // asin(x) and atan(x) are x for such x anyway.
+    static RAT initialguess(RAT x, double guess)
+    {
+        if (guess == 0 || Math.abs(guess) < 0x1p-500)
+        {
+            return DUPRAT(x);
+        }
+        return doubletorat(guess);
+    }
+
+    static NUMBER mul(NUMBER a, NUMBER b)
+    {
+        return BaseX._mulnumx(a, b);
+    }
+
+    // v must be non negative.
+    static NUMBER longtonum(long v)
+    {
+        NUMBER n = Conv.createnum(uint.of(2));
+        int[] mant = n.mant.raw();
+        mant[0] = (int) (v & 0x7fffffffL);
+        mant[1] = (int) (v >>> BASEXPWR);
+        n.cdigit = mant[1] == 0 ? 1 : 2;
+        n.exp = 0;
+        n.sign = 1;
+        return n;
+    }
+
+    // An upper bound of log2(abs(n)).
+    static double log2num(NUMBER n)
+    {
+        if (Num.zernum(n))
+        {
+            return Double.NEGATIVE_INFINITY;
+        }
+        int[] mant = n.mant.raw();
+        return (double) BASEXPWR * (n.cdigit - 1 + n.exp) + log2(mant[n.cdigit - 1] + 1.0);
+    }
+
+    // Value of the top digits of n scaled into [2^-31, 1).
+    static double topdigits(NUMBER n)
+    {
+        int[] mant = n.mant.raw();
+        double ret = 0;
+        double scale = 1;
+        for (int i = n.cdigit - 1; i >= Math.max(0, n.cdigit - 3); i--)
+        {
+            scale = Math.scalb(scale, -BASEXPWR);
+            ret += mant[i] * scale;
+        }
+        return ret;
+    }
+
+    static double rattodouble(RAT x)
+    {
+        if (Num.zernum(x.pp))
+        {
+            return 0;
+        }
+        double ret = topdigits(x.pp) / topdigits(x.pq);
+        int scale = (x.pp.cdigit + x.pp.exp) - (x.pq.cdigit + x.pq.exp);
+        return x.SIGN() * Math.scalb(ret, BASEXPWR * scale);
+    }
+
+    // Exact conversion of a finite double.
+    static RAT doubletorat(double d)
+    {
+        RAT ret = Conv.createrat();
+        if (d == 0)
+        {
+            ret.pp = Conv.i32tonum(0, BASEX);
+            ret.pq = Conv.i32tonum(1, BASEX);
+            return ret;
+        }
+
+        int exponent = Math.getExponent(d) - 52;
+        long mantissa = (long) Math.scalb(Math.abs(d), -exponent);
+
+        ret.pp = longtonum(mantissa);
+        ret.pp.sign = d < 0 ? -1 : 1;
+        ret.pq = Conv.i32tonum(1, BASEX);
+
+        NUMBER pow2 = Conv.pow2num(Math.abs(exponent));
+        if (exponent >= 0)
+        {
+            ret.pp = mul(ret.pp, pow2);
+        }
+        else
+        {
+            ret.pq = pow2;
+        }
+        return ret;
+    }
+
+    static double log2(double x)
+    {
+        return Math.log(x) / Math.log(2);
+    }
+}
@@ -5,20 +5,23 @@ import mscalc.engine.cpp.Ptr;
 import mscalc.engine.cpp.uint;
 
 public interface Trans {
-    static void scalerat(Ptr<RatPack.RAT> pa, RatPack.AngleType angletype, uint radix, int precision)
+    static RatPack.RAT scalerat(RatPack.RAT a, RatPack.AngleType angletype, uint radix, int precision)
     {
         switch (angletype)
         {
             case RatPack.AngleType.Radians:
-                Support.scale2pi(pa, radix, precision);
-                break;
+                return Support.scale2pi(a, radix, precision);
             case RatPack.AngleType.Degrees:
-                Support.scale(pa, Support.Global.rat_360, radix, precision);
-                break;
+                return Support.scale(a, Support.Global.rat_360(), radix, precision);
             case RatPack.AngleType.Gradians:
-                Support.scale(pa, Support.Global.rat_400, radix, precision);
-                break;
+                return Support.scale(a, Support.Global.rat_400(), radix, precision);
         }
+        return a;
+    }
+
+    static void scalerat(Ptr<RatPack.RAT> pa, RatPack.AngleType angletype, uint radix, int precision)
+    {
+        pa.set(scalerat(pa.deref(), angletype, radix, precision));
     }
 
     //-----------------------------------------------------------------------------
@@ -51,68 +54,92 @@ public interface Trans {
     //           0                              n
     //
     //-----------------------------------------------------------------------------
-    static void _sinrat(Ptr<RatPack.RAT> px, int precision)
+    static RatPack.RAT _sinrat(RatPack.RAT x, int precision)
     {
-        RatPack.TYLOR t = new RatPack.TYLOR(px.deref(), precision);
+        if (Series.usebinarysplitting(precision))
+        {
+            x = Series.sincosrat(x, precision).sin();
+        }
+        else
+        {
+            RatPack.TYLOR t = new RatPack.TYLOR(x, precision);
 
-        t.pret = RatPack.DUPRAT(px.deref());
-        t.thisterm = RatPack.DUPRAT(px.deref());
+            t.pret = RatPack.DUPRAT(x);
+            t.thisterm = RatPack.DUPRAT(x);
 
-        t.n2 = RatPack.DUPNUM(Support.Global.num_one);
-        t.xx.pp.sign *= -1;
+            t.n2 = RatPack.DUPNUM(Support.Global.num_one());
+            t.xx.pp.sign *= -1;
 
-        do
-        {
-            t.NEXTTERM(t.xx, () -> {
-                t.n2 = t.INC(t.n2);
-                t.DIVNUM(t.n2);
-                t.n2 = t.INC(t.n2);
-                t.DIVNUM(t.n2);
-            }, precision);
-        } while (!t.thisterm.SMALL_ENOUGH_RAT(precision));
+            do
+            {
+                t.NEXTTERM(t.xx, () -> {
+                    t.n2 = t.INC(t.n2);
+                    t.DIVNUM(t.n2);
+                    t.n2 = t.INC(t.n2);
+                    t.DIVNUM(t.n2);
+                }, precision);
+            } while (!t.thisterm.SMALL_ENOUGH_RAT(precision));
 
-        px.set(t.RESULT());
+            x = t.RESULT();
+        }
 
-        // Since *px might be epsilon above 1 or below -1, due to TRIMIT we need
+        // Since x might be epsilon above 1 or below -1, due to TRIMIT we need
         // this trick here.
-        Support.inbetween(px, Support.Global.rat_one, precision);
+        x = Support.inbetween(x, Support.Global.rat_one(), precision);
 
-        // Since *px might be epsilon near zero we must set it to zero.
-        if (Support.rat_le(px.deref(), Support.Global.rat_smallest, precision) && Support.rat_ge(px.deref(), Support.Global.rat_negsmallest, precision))
+        // Since x might be epsilon near zero we must set it to zero.
+        if (Support.rat_le(x, Support.Global.rat_smallest(), precision) && Support.rat_ge(x, Support.Global.rat_negsmallest(), precision))
         {
-            px.set(RatPack.DUPRAT(Support.Global.rat_zero));
+            x = RatPack.DUPRAT(Support.Global.rat_zero());
         }
+
+        return x;
+    }
+
+    static void _sinrat(Ptr<RatPack.RAT> px, int precision)
+    {
+        px.set(_sinrat(px.deref(), precision));
+    }
+
+    static RatPack.RAT sinrat(RatPack.RAT x, uint radix, int precision)
+    {
+        x = Support.scale2pi(x, radix, precision);
+        return _sinrat(x, precision);
     }
 
     static void sinrat(Ptr<RatPack.RAT> px, uint radix, int precision)
     {
-        Support.scale2pi(px, radix, precision);
-        _sinrat(px, precision);
+        px.set(sinrat(px.deref(), radix, precision));
     }
 
-    static void sinanglerat(Ptr<RatPack.RAT> pa, RatPack.AngleType angletype, uint radix, int precision)
+    static RatPack.RAT sinanglerat(RatPack.RAT a, RatPack.AngleType angletype, uint radix, int precision)
     {
-        scalerat(pa, angletype, radix, precision);
+        a = scalerat(a, angletype, radix, precision);
         switch (angletype)
         {
             case RatPack.AngleType.Degrees:
-                if (Support.rat_gt(pa.deref(), Support.Global.rat_180, precision))
+                if (Support.rat_gt(a, Support.Global.rat_180(), precision))
                 {
-                    Rat.subrat(pa, Support.Global.rat_360, precision);
+                    a = Rat.subrat(a, Support.Global.rat_360(), precision);
                 }
-                Rat.divrat(pa, Support.Global.rat_180, precision);
-                Rat.mulrat(pa, Support.Global.pi, precision);
+                a = Rat.divrat(a, Support.Global.rat_180(), precision);
+                a = Rat.mulrat(a, Support.Global.pi(), precision);
                 break;
             case RatPack.AngleType.Gradians:
-                if (Support.rat_gt(pa.deref(), Support.Global.rat_200, precision))
+                if (Support.rat_gt(a, Support.Global.rat_200(), precision))
                 {
-                    Rat.subrat(pa, Support.Global.rat_400, precision);
+                    a = Rat.subrat(a, Support.Global.rat_400(), precision);
                 }
-                Rat.divrat(pa, Support.Global.rat_200, precision);
-                Rat.mulrat(pa, Support.Global.pi, precision);
+                a = Rat.divrat(a, Support.Global.rat_200(), precision);
+                a = Rat.mulrat(a, Support.Global.pi(), precision);
             break;
         }
-        _sinrat(pa, precision);
+        return _sinrat(a, precision);
+    }
+
+    static void sinanglerat(Ptr<RatPack.RAT> pa, RatPack.AngleType angletype, uint radix, int precision)
+    {
+        pa.set(sinanglerat(pa.deref(), angletype, radix, precision));
     }
 
     //-----------------------------------------------------------------------------
@@ -145,74 +172,94 @@ public interface Trans {
     //           0                              n
     //
     //-----------------------------------------------------------------------------
-    static void _cosrat(Ptr<RatPack.RAT> px, uint radix, int precision)
+    static RatPack.RAT _cosrat(RatPack.RAT x, uint radix, int precision)
     {
-        RatPack.TYLOR t = new RatPack.TYLOR(px.deref(), precision);
+        if (Series.usebinarysplitting(precision))
+        {
+            x = Series.sincosrat(x, precision).cos();
+        }
+        else
+        {
+            RatPack.TYLOR t = new RatPack.TYLOR(x, precision);
 
-        t.pret.pp = Conv.i32tonum(1, radix);
-        t.pret.pq = Conv.i32tonum(1, radix);
+            t.pret.pp = Conv.i32tonum(1, radix);
+            t.pret.pq = Conv.i32tonum(1, radix);
 
-        t.thisterm = RatPack.DUPRAT(t.pret);
+            t.thisterm = RatPack.DUPRAT(t.pret);
 
-        t.n2 = Conv.i32tonum(0, radix);
-        t.xx.pp.sign *= -1;
+            t.n2 = Conv.i32tonum(0, radix);
+            t.xx.pp.sign *= -1;
 
-        do
-        {
-            t.NEXTTERM(t.xx, () -> {
-                t.n2 = t.INC(t.n2);
-                t.DIVNUM(t.n2);
-                t.n2 = t.INC(t.n2);
-                t.DIVNUM(t.n2);
-            }, precision);
-        } while (!t.thisterm.SMALL_ENOUGH_RAT(precision));
+            do
+            {
+                t.NEXTTERM(t.xx, () -> {
+                    t.n2 = t.INC(t.n2);
+                    t.DIVNUM(t.n2);
+                    t.n2 = t.INC(t.n2);
+                    t.DIVNUM(t.n2);
+                }, precision);
+            } while (!t.thisterm.SMALL_ENOUGH_RAT(precision));
 
-        px.set(t.RESULT());
+            x = t.RESULT();
+        }
 
-        // Since *px might be epsilon above 1 or below -1, due to TRIMIT we need
+        // Since x might be epsilon above 1 or below -1, due to TRIMIT we need
         // this trick here.
-        Support.inbetween(px, Support.Global.rat_one, precision);
+        x = Support.inbetween(x, Support.Global.rat_one(), precision);
 
-        // Since *px might be epsilon near zero we must set it to zero.
-        if (Support.rat_le(px.deref(), Support.Global.rat_smallest, precision) && Support.rat_ge(px.deref(), Support.Global.rat_negsmallest, precision))
+        // Since x might be epsilon near zero we must set it to zero.
+        if (Support.rat_le(x, Support.Global.rat_smallest(), precision) && Support.rat_ge(x, Support.Global.rat_negsmallest(), precision))
         {
-            px.set(RatPack.DUPRAT(Support.Global.rat_zero));
+            x = RatPack.DUPRAT(Support.Global.rat_zero());
         }
+
+        return x;
+    }
+
+    static void _cosrat(Ptr<RatPack.RAT> px, uint radix, int precision)
+    {
+        px.set(_cosrat(px.deref(), radix, precision));
+    }
+
+    static RatPack.RAT cosrat(RatPack.RAT x, uint radix, int precision)
+    {
+        x = Support.scale2pi(x, radix, precision);
+        return _cosrat(x, radix, precision);
     }
 
     static void cosrat(Ptr<RatPack.RAT> px, uint radix, int precision)
     {
-        Support.scale2pi(px, radix, precision);
-        _cosrat(px, radix, precision);
+        px.set(cosrat(px.deref(), radix, precision));
     }
 
-    static void cosanglerat(Ptr<RatPack.RAT> pa, RatPack.AngleType angletype, uint radix, int precision)
+    static RatPack.RAT cosanglerat(RatPack.RAT a, RatPack.AngleType angletype, uint radix, int precision)
     {
-        scalerat(pa, angletype, radix, precision);
+        a = scalerat(a, angletype, radix, precision);
         switch (angletype)
         {
             case RatPack.AngleType.Degrees:
-                if (Support.rat_gt(pa.deref(), Support.Global.rat_180, precision))
+                if (Support.rat_gt(a, Support.Global.rat_180(), precision))
                 {
-                    Ptr<RatPack.RAT> ptmp = new Ptr<>(RatPack.DUPRAT(Support.Global.rat_360));
-                    Rat.subrat(ptmp, pa.deref(), precision);
-                    pa.set(ptmp.deref());
+                    a = Rat.subrat(RatPack.DUPRAT(Support.Global.rat_360()), a, precision);
                 }
-                Rat.divrat(pa, Support.Global.rat_180, precision);
-                Rat.mulrat(pa, Support.Global.pi, precision);
+                a = Rat.divrat(a, Support.Global.rat_180(), precision);
+                a = Rat.mulrat(a, Support.Global.pi(), precision);
                 break;
             case RatPack.AngleType.Gradians:
-                if (Support.rat_gt(pa.deref(), Support.Global.rat_200, precision))
+                if (Support.rat_gt(a, Support.Global.rat_200(), precision))
                 {
-                    Ptr<RatPack.RAT> ptmp = new Ptr<>(RatPack.DUPRAT(Support.Global.rat_400));
-                    Rat.subrat(ptmp, pa.deref(), precision);
-                    pa.set(ptmp.deref());
+                    a = Rat.subrat(RatPack.DUPRAT(Support.Global.rat_400()), a, precision);
                 }
-                Rat.divrat(pa, Support.Global.rat_200, precision);
-                Rat.mulrat(pa, Support.Global.pi, precision);
+                a = Rat.divrat(a, Support.Global.rat_200(), precision);
+                a = Rat.mulrat(a, Support.Global.pi(), precision);
                 break;
         }
-        _cosrat(pa, radix, precision);
+        return _cosrat(a, radix, precision);
+    }
+
+    static void cosanglerat(Ptr<RatPack.RAT> pa, RatPack.AngleType angletype, uint radix, int precision)
+    {
+        pa.set(cosanglerat(pa.deref(), angletype, radix, precision));
     }
 
     //-----------------------------------------------------------------------------
@@ -226,48 +273,63 @@ public interface Trans {
     //  EXPLANATION: This uses sinrat and cosrat
     //
     //-----------------------------------------------------------------------------
-    static void _tanrat(Ptr<RatPack.RAT> px, uint radix, int precision)
+    static RatPack.RAT _tanrat(RatPack.RAT x, uint radix, int precision)
     {
-        Ptr<RatPack.RAT> ptmp = new Ptr<>(RatPack.DUPRAT(px.deref()));
+        RatPack.RAT tmp = RatPack.DUPRAT(x);
 
-        _sinrat(px, precision);
-        _cosrat(ptmp, radix, precision);
+        x = _sinrat(x, precision);
+        tmp = _cosrat(tmp, radix, precision);
 
-        if (Rat.zerrat(ptmp.deref()))
+        if (Rat.zerrat(tmp))
         {
             throw new ErrorCodeException(CalcErr.CALC_E_DOMAIN);
         }
-        Rat.divrat(px, ptmp.deref(), precision);
+        return Rat.divrat(x, tmp, precision);
+    }
+
+    static void _tanrat(Ptr<RatPack.RAT> px, uint radix, int precision)
+    {
+        px.set(_tanrat(px.deref(), radix, precision));
+    }
+
+    static RatPack.RAT tanrat(RatPack.RAT x, uint radix, int precision)
+    {
+        x = Support.scale2pi(x, radix, precision);
+        return _tanrat(x, radix, precision);
     }
 
     static void tanrat(Ptr<RatPack.RAT> px, uint radix, int precision)
     {
-        Support.scale2pi(px, radix, precision);
-        _tanrat(px, radix, precision);
+        px.set(tanrat(px.deref(), radix, precision));
     }
 
-    static void tananglerat(Ptr<RatPack.RAT> pa, RatPack.AngleType angletype, uint radix, int precision)
+    static RatPack.RAT tananglerat(RatPack.RAT a, RatPack.AngleType angletype, uint radix, int precision)
     {
-        scalerat(pa, angletype, radix, precision);
+        a = scalerat(a, angletype, radix, precision);
         switch (angletype)
         {
             case RatPack.AngleType.Degrees:
-                if (Support.rat_gt(pa.deref(), Support.Global.rat_180, precision))
+                if (Support.rat_gt(a, Support.Global.rat_180(), precision))
                 {
-                    Rat.subrat(pa, Support.Global.rat_180, precision);
+                    a = Rat.subrat(a, Support.Global.rat_180(), precision);
                 }
-                Rat.divrat(pa, Support.Global.rat_180, precision);
-                Rat.mulrat(pa, Support.Global.pi, precision);
+                a = Rat.divrat(a, Support.Global.rat_180(), precision);
+                a = Rat.mulrat(a, Support.Global.pi(), precision);
                 break;
             case RatPack.AngleType.Gradians:
-                if (Support.rat_gt(pa.deref(), Support.Global.rat_200, precision))
+                if (Support.rat_gt(a, Support.Global.rat_200(), precision))
                 {
-                    Rat.subrat(pa, Support.Global.rat_200, precision);
+                    a = Rat.subrat(a, Support.Global.rat_200(), precision);
                 }
-                Rat.divrat(pa, Support.Global.rat_200, precision);
-                Rat.mulrat(pa, Support.Global.pi, precision);
+                a = Rat.divrat(a, Support.Global.rat_200(), precision);
+                a = Rat.mulrat(a, Support.Global.pi(), precision);
                 break;
         }
-        _tanrat(pa, radix, precision);
+        return _tanrat(a, radix, precision);
+    }
+
+    static void tananglerat(Ptr<RatPack.RAT> pa, RatPack.AngleType angletype, uint radix, int precision)
+    {
+        pa.set(tananglerat(pa.deref(), angletype, radix, precision));
     }
 }
@@ -14,8 +14,8 @@ public class TransH {
         Ptr<RAT> ptmp = new Ptr<>();
         boolean bRet = true;
 
-        ptmp.set( DUPRAT(Support.Global.rat_min_exp) );
-        Rat.divrat(ptmp, Support.Global.rat_ten, precision);
+        ptmp.set( DUPRAT(Support.Global.rat_min_exp()) );
+        Rat.divrat(ptmp, Support.Global.rat_ten(), precision);
         if (Support.rat_lt(px, ptmp.deref(), precision))
         {
             bRet = false;
@@ -55,20 +55,20 @@ public class TransH {
     //   if x is bigger than 1.0 (e^x-e^-x)/2 is used.
     //
     //-----------------------------------------------------------------------------
-    static void _sinhrat(Ptr<RAT> px, int precision)
+    static RAT _sinhrat(RAT x, int precision)
     {
-        if (!IsValidForHypFunc(px.deref(), precision))
+        if (!IsValidForHypFunc(x, precision))
         {
             // Don't attempt exp of anything large or small
             throw new ErrorCodeException(CalcErr.CALC_E_DOMAIN);
         }
 
-        RatPack.TYLOR t = new RatPack.TYLOR(px.deref(), precision);
+        RatPack.TYLOR t = new RatPack.TYLOR(x, precision);
 
-        t.pret = DUPRAT(px.deref());
+        t.pret = DUPRAT(x);
         t.thisterm = DUPRAT(t.pret);
 
-        t.n2 = DUPNUM(Support.Global.num_one);
+        t.n2 = DUPNUM(Support.Global.num_one());
 
         do
         {
@@ -81,26 +81,32 @@ public class TransH {
 
         } while (!t.thisterm.SMALL_ENOUGH_RAT(precision));
 
-        px.set(t.RESULT());
+        return t.RESULT();
     }
 
-    public static void sinhrat(Ptr<RAT> px, uint radix, int precision)
+    static void _sinhrat(Ptr<RAT> px, int precision)
     {
-        Ptr<RAT> tmpx = new Ptr<>();
+        px.set(_sinhrat(px.deref(), precision));
+    }
 
-        if (Support.rat_ge(px.deref(), Support.Global.rat_one, precision))
-        {
-            tmpx.set(DUPRAT(px.deref()));
-            Exp.exprat(px, radix, precision);
-            tmpx.deref().pp.sign *= -1;
-            Exp.exprat(tmpx, radix, precision);
-            Rat.subrat(px, tmpx.deref(), precision);
-            Rat.divrat(px, Support.Global.rat_two, precision);
-        }
-        else
+    public static RAT sinhrat(RAT x, uint radix, int precision)
+    {
+        if (Support.rat_ge(x, Support.Global.rat_one(), precision))
         {
-            _sinhrat(px, precision);
+            RAT tmpx = DUPRAT(x);
+            x = Exp.exprat(x, radix, precision);
+            tmpx.pp.sign *= -1;
+            tmpx = Exp.exprat(tmpx, radix, precision);
+            x = Rat.subrat(x, tmpx, precision);
+            return Rat.divrat(x, Support.Global.rat_two(), precision);
         }
+
+        return _sinhrat(x, precision);
+    }
+
+    public static void sinhrat(Ptr<RAT> px, uint radix, int precision)
+    {
+        px.set(sinhrat(px.deref(), radix, precision));
     }
 
     //-----------------------------------------------------------------------------
@@ -136,15 +142,15 @@ public class TransH {
     //   if x is bigger than 1.0 (e^x+e^-x)/2 is used.
     //
     //-----------------------------------------------------------------------------
-    static void _coshrat(Ptr<RAT> px, uint radix, int precision)
+    static RAT _coshrat(RAT x, uint radix, int precision)
     {
-        if (!IsValidForHypFunc(px.deref(), precision))
+        if (!IsValidForHypFunc(x, precision))
         {
             // Don't attempt exp of anything large or small
             throw new ErrorCodeException(CalcErr.CALC_E_DOMAIN);
         }
 
-        RatPack.TYLOR t = new RatPack.TYLOR(px.deref(), precision);
+        RatPack.TYLOR t = new RatPack.TYLOR(x, precision);
 
         t.pret.pp = Conv.i32tonum(1, radix);
         t.pret.pq = Conv.i32tonum(1, radix);
@@ -163,35 +169,45 @@ public class TransH {
             }, precision);
         } while (!t.thisterm.SMALL_ENOUGH_RAT(precision));
 
-        px.set(t.RESULT());
+        return t.RESULT();
     }
 
-    public static void coshrat(Ptr<RAT> px, uint radix, int precision)
+    static void _coshrat(Ptr<RAT> px, uint radix, int precision)
     {
-        Ptr<RAT> tmpx = new Ptr<>();
+        px.set(_coshrat(px.deref(), radix, precision));
+    }
 
-        px.deref().pp.sign = 1;
-        px.deref().pq.sign = 1;
+    public static RAT coshrat(RAT x, uint radix, int precision)
+    {
+        x.pp.sign = 1;
+        x.pq.sign = 1;
 
-        if (Support.rat_ge(px.deref(), Support.Global.rat_one, precision))
+        if (Support.rat_ge(x, Support.Global.rat_one(), precision))
         {
-            tmpx.set(DUPRAT(px.deref()));
-            Exp.exprat(px, radix, precision);
-            tmpx.deref().pp.sign *= -1;
-            Exp.exprat(tmpx, radix, precision);
-            Rat.addrat(px, tmpx.deref(), precision);
-            Rat.divrat(px, Support.Global.rat_two, precision);
+            RAT tmpx = DUPRAT(x);
+            x = Exp.exprat(x, radix, precision);
+            tmpx.pp.sign *= -1;
+            tmpx = Exp.exprat(tmpx, radix, precision);
+            x = Rat.addrat(x, tmpx, precision);
+            x = Rat.divrat(x, Support.Global.rat_two(), precision);
         }
         else
         {
-            _coshrat(px, radix, precision);
+            x = _coshrat(x, radix, precision);
         }
-        // Since *px might be epsilon below 1 due to TRIMIT
+        // Since x might be epsilon below 1 due to TRIMIT
         // we need this trick here.
-        if (Support.rat_lt(px.deref(), Support.Global.rat_one, precision))
+        if (Support.rat_lt(x, Support.Global.rat_one(), precision))
         {
-            px.set(DUPRAT(Support.Global.rat_one));
+            x = DUPRAT(Support.Global.rat_one());
         }
+
+        return x;
+    }
+
+    public static void coshrat(Ptr<RAT> px, uint radix, int precision)
+    {
+        px.set(coshrat(px.deref(), radix, precision));
     }
 
     //-----------------------------------------------------------------------------
@@ -206,16 +222,21 @@ public class TransH {
     //  EXPLANATION: This uses sinhrat and coshrat
     //
     //-----------------------------------------------------------------------------
-    public static void tanhrat(Ptr<RAT> px, uint radix, int precision)
+    public static RAT tanhrat(RAT x, uint radix, int precision)
     {
-        Ptr<RAT> ptmp = new Ptr<>();
-        ptmp.set(DUPRAT(px.deref()));
+        RAT tmp = DUPRAT(x);
 
-        sinhrat(px, radix, precision);
-        coshrat(ptmp, radix, precision);
+        x = sinhrat(x, radix, precision);
+        tmp = coshrat(tmp, radix, precision);
 
-        px.deref().ppPtr(ppp -> BaseX.mulnumx(ppp, ptmp.deref().pq));
-        px.deref().pqPtr(ppq -> BaseX.mulnumx(ppq, ptmp.deref().pp));
+        x.pp = BaseX.mulnumx(x.pp, tmp.pq);
+        x.pq = BaseX.mulnumx(x.pq, tmp.pp);
+        return x;
+    }
+
+    public static void tanhrat(Ptr<RAT> px, uint radix, int precision)
+    {
+        px.set(tanhrat(px.deref(), radix, precision));
     }
 }
 
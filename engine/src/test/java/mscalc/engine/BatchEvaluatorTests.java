@@ -0,0 +1,111 @@
+package mscalc.engine;
+
+import mscalc.engine.commands.Command;
+import mscalc.engine.resource.JavaBundleResourceProvider;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class BatchEvaluatorTests {
+
+    private static final List<List<Command>> SEQUENCES = List.of(
+            List.of(Command.Command1, Command.Command2, Command.Command3, Command.CommandPNT, Command.Command4),
+            List.of(Command.Command2, Command.CommandADD, Command.Command3, Command.CommandEQU),
+            List.of(Command.Command1, Command.CommandDIV, Command.Command0, Command.CommandEQU),
+            List.of(Command.ModeScientific, Command.Command1, Command.CommandADD, Command.Command2,
+                    Command.CommandMUL, Command.Command3, Command.CommandEQU),
+            List.of(Command.ModeScientific, Command.Command3, Command.Command0, Command.CommandSIN),
+            List.of(Command.ModeProgrammer, Command.CommandHex, Command.Command1, Command.CommandF,
+                    Command.CommandADD, Command.Command1, Command.CommandEQU),
+            List.of(Command.Command9, Command.CommandNULL, Command.Command9),
+            List.of());
+
+    @Test
+    void batch_results_match_interactive_calculator() {
+        List<BatchEvaluator.Result> expected = new ArrayList<>();
+        for (List<Command> sequence : SEQUENCES) {
+            expected.add(evaluateInteractively(sequence));
+        }
+
+        try (BatchEvaluator evaluator = new BatchEvaluator(new JavaBundleResourceProvider(), 3)) {
+            List<List<Command>> sequences = new ArrayList<>();
+            for (int i = 0; i < 20; i++) {
+                sequences.addAll(SEQUENCES);
+            }
+
+            List<BatchEvaluator.Result> results = evaluator.evaluate(sequences);
+
+            assertEquals(sequences.size(), results.size());
+            for (int i = 0; i < results.size(); i++) {
+                assertEquals(expected.get(i % SEQUENCES.size()), results.get(i), "sequence " + i);
+            }
+        }
+    }
+
+    @Test
+    void batch_reports_final_display_only() {
+        try (BatchEvaluator evaluator = new BatchEvaluator(new JavaBundleResourceProvider(), 1)) {
+            List<BatchEvaluator.Result> results = evaluator.evaluate(SEQUENCES.subList(0, 3));
+
+            assertEquals(new BatchEvaluator.Result("123.4", false), results.get(0));
+            assertEquals(new BatchEvaluator.Result("5", false), results.get(1));
+            assertEquals(new BatchEvaluator.Result("Cannot divide by zero", true), results.get(2));
+        }
+    }
+
+    @Test
+    void sequences_over_time_budget_are_aborted() {
+        try (BatchEvaluator evaluator = new BatchEvaluator(new JavaBundleResourceProvider(), 1, Duration.ZERO)) {
+            List<BatchEvaluator.Result> results = evaluator.evaluate(List.of(
+                    List.of(Command.ModeScientific, Command.Command2, Command.CommandSIN),
+                    SEQUENCES.get(1)));
+
+            assertEquals(new BatchEvaluator.Result("Calculation aborted", true), results.get(0));
+            assertEquals(new BatchEvaluator.Result("5", false), results.get(1));
+        }
+    }
+
+    @Test
+    void expressions_are_replayed_from_history_commands() {
+        CalculatorManagerDisplayTester display = new CalculatorManagerDisplayTester();
+        CalculatorManager manager = new CalculatorManager(display, new JavaBundleResourceProvider());
+        manager.Reset();
+        manager.sendCommand(Command.ModeScientific);
+        for (Command command : List.of(Command.Command1, Command.Command2, Command.CommandSIGN, Command.CommandMUL,
+                Command.CommandOPENP, Command.Command3, Command.CommandSUB, Command.Command5, Command.CommandCLOSEP,
+                Command.CommandSQR)) {
+            manager.sendCommand(command);
+        }
+        var expression = manager.GetDisplayCommandsSnapshot();
+        manager.sendCommand(Command.CommandEQU);
+        String expected = display.GetPrimaryDisplay();
+
+        List<Command> commands = new ArrayList<>();
+        commands.add(Command.ModeScientific);
+        commands.addAll(BatchEvaluator.toCommands(expression));
+
+        try (BatchEvaluator evaluator = new BatchEvaluator(new JavaBundleResourceProvider(), 1)) {
+            assertEquals("-48", expected);
+            assertEquals(new BatchEvaluator.Result(expected, false), evaluator.evaluate(List.of(commands)).getFirst());
+        }
+    }
+
+    private static BatchEvaluator.Result evaluateInteractively(List<Command> sequence) {
+        CalculatorManagerDisplayTester display = new CalculatorManagerDisplayTester();
+        CalculatorManager manager = new CalculatorManager(display, new JavaBundleResourceProvider());
+        manager.Reset();
+
+        for (Command command : sequence) {
+            if (command == Command.CommandNULL) {
+                break;
+            }
+            manager.sendCommand(command);
+        }
+
+        return new BatchEvaluator.Result(display.GetPrimaryDisplay(), display.GetIsError());
+    }
+}
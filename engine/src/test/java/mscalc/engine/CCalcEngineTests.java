@@ -2,6 +2,9 @@ package mscalc.engine;
 
 import mscalc.engine.commands.IExpressionCommand;
 import mscalc.engine.cpp.uint;
+import mscalc.engine.cpp.ulong;
+import mscalc.engine.ratpack.RatPack;
+import mscalc.engine.ratpack.RatPackContext;
 import mscalc.engine.resource.JavaBundleResourceProvider;
 import mscalc.engine.resource.ResourceProvider;
 import org.junit.jupiter.api.BeforeAll;
@@ -10,10 +13,15 @@ import org.junit.jupiter.api.Test;
 
 import java.util.ArrayList;
 import java.util.List;
+import java.util.Random;
 
+import static mscalc.engine.Commands.*;
 import static mscalc.engine.EngineStrings.IDS_ERR_INPUT_OVERFLOW;
 import static mscalc.engine.EngineStrings.IDS_ERR_UNK_CH;
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertSame;
 import static org.junit.jupiter.api.Assertions.assertTrue;
 
 public class CCalcEngineTests {
@@ -248,5 +256,136 @@ public class CCalcEngineTests {
                 "Verify expanded form multigroup non-repeating grouping.");
     }
 
+    @Test void TestIntegerOperationsMatchRationalOperations()
+    {
+        CCalcEngine engine = new CCalcEngine(
+                false /* Respect Order of Operations */, true /* Set to Integer Mode */, m_resourceProvider, null, m_history);
+        engine.BindRatPackContext();
+
+        int[] operations = { IDC_AND, IDC_OR, IDC_XOR, IDC_NAND, IDC_NOR, IDC_LSHF, IDC_RSHF, IDC_RSHFL,
+                IDC_ADD, IDC_SUB, IDC_MUL, IDC_DIV, IDC_MOD };
+        Random random = new Random(20240611);
+
+        for (NumberWidth width : List.of(NumberWidth.QWORD_WIDTH, NumberWidth.DWORD_WIDTH, NumberWidth.WORD_WIDTH, NumberWidth.BYTE_WIDTH)) {
+            engine.SetRadixTypeAndNumWidth(RadixType.Hex, width);
+            long chop = engine.GetChopBits();
+
+            for (int i = 0; i < 2000; i++) {
+                long lhs = operand(random, chop);
+                long rhs = operand(random, chop);
+
+                for (int operation : operations) {
+                    Rational integerResult = engine.DoIntegerOperation(operation, lhs, rhs);
+                    if (integerResult == null) {
+                        continue;
+                    }
+
+                    // An integer kept as a fraction is not an exact ulong, DoOperation falls back to ratpack
+                    engine.m_bError = false;
+                    Rational rationalResult = engine.DoOperation(operation, asFraction(lhs), asFraction(rhs));
+
+                    String message = "width " + width + ", operation " + operation
+                            + ", lhs " + Long.toHexString(lhs) + ", rhs " + Long.toHexString(rhs);
+                    assertFalse(engine.m_bError, message);
+                    assertTrue(integerResult.isEqual(rationalResult), message
+                            + ": " + integerResult.toString(uint.of(16), RatPack.NumberFormat.Float, 64)
+                            + " != " + rationalResult.toString(uint.of(16), RatPack.NumberFormat.Float, 64));
+                }
+            }
+        }
+    }
+
+    @Test void TestRotateKeepsHighBits()
+    {
+        CCalcEngine engine = new CCalcEngine(
+                false /* Respect Order of Operations */, true /* Set to Integer Mode */, m_resourceProvider, null, m_history);
+        engine.BindRatPackContext();
+
+        engine.SetRadixTypeAndNumWidth(RadixType.Hex, NumberWidth.DWORD_WIDTH);
+        assertEquals(0x1L, rotate(engine, new Rational(ulong.of(0x80000000L)), IDC_ROL));
+        assertEquals(0xFFFFFFFFL, rotate(engine, new Rational(ulong.of(0xFFFFFFFFL)), IDC_ROR));
+
+        engine.SetRadixTypeAndNumWidth(RadixType.Hex, NumberWidth.QWORD_WIDTH);
+        assertEquals(0x1L, rotate(engine, new Rational(ulong.of(0x8000000000000000L)), IDC_ROL));
+        assertEquals(0x8000000000000000L, rotate(engine, new Rational(ulong.of(0x1L)), IDC_ROR));
+    }
+
+    @Test void TestEntryPointsRestoreRatPackContext()
+    {
+        RatPackContext outer = RatPackContext.of(uint.of(10), 50);
+        RatPackContext previous = RatPackContext.bind(outer);
+        try {
+            CCalcEngine engine = new CCalcEngine(
+                    false /* Respect Order of Operations */, true /* Set to Integer Mode */, m_resourceProvider, null, m_history);
+            assertSame(outer, RatPackContext.current());
+
+            engine.ProcessCommand(IDC_HEX);
+            engine.ProcessCommand(IDC_5);
+            engine.ProcessCommand(IDC_ADD);
+            engine.ProcessCommand(IDC_5);
+            assertSame(outer, RatPackContext.current());
+            assertNotSame(outer, engine.m_ratpackContext);
+
+            engine.ChangePrecision(40);
+            assertSame(outer, RatPackContext.current());
+
+            assertEquals("101", engine.GetCurrentResultForRadix(uint.of(2), 64, false));
+            assertSame(outer, RatPackContext.current());
+
+            assertEquals("A", engine.GetStringForDisplay(Rational.of(10), uint.of(16)));
+            assertSame(outer, RatPackContext.current());
+        } finally {
+            RatPackContext.bind(previous);
+        }
+    }
+
+    @Test void TestDecimalSeparatorIsPerEngine()
+    {
+        String pointString = CCalcEngine.OpCodeToString(IDC_PNT);
+        ResourceProvider commaProvider = id -> id.equals("sDecimal") ? "," : m_resourceProvider.getCEngineString(id);
+
+        CCalcEngine commaEngine = new CCalcEngine(
+                false /* Respect Order of Operations */, false /* Set to Integer Mode */, commaProvider, null, m_history);
 
+        assertEquals(',', commaEngine.DecimalSeparator());
+        assertEquals('.', m_calcEngine.DecimalSeparator());
+        assertEquals(pointString, CCalcEngine.OpCodeToString(IDC_PNT));
+
+        // Both engines parse 1.25 with their own separator and render it with it,
+        // the hexadecimal form shows the value was parsed and not just echoed.
+        for (CCalcEngine engine : List.of(commaEngine, m_calcEngine))
+        {
+            engine.ProcessCommand(IDC_1);
+            engine.ProcessCommand(IDC_PNT);
+            engine.ProcessCommand(IDC_2);
+            engine.ProcessCommand(IDC_5);
+        }
+
+        assertEquals("1,25", commaEngine.GetCurrentResultForRadix(uint.of(10), 32, false));
+        assertEquals("1.25", m_calcEngine.GetCurrentResultForRadix(uint.of(10), 32, false));
+        assertEquals("1,4", commaEngine.GetCurrentResultForRadix(uint.of(16), 32, false));
+        assertEquals("1.4", m_calcEngine.GetCurrentResultForRadix(uint.of(16), 32, false));
+        assertEquals("0,25", commaEngine.GetStringForDisplay(Rational.of(1).dividedBy(Rational.of(4)), uint.of(10)));
+        assertEquals("0.25", m_calcEngine.GetStringForDisplay(Rational.of(1).dividedBy(Rational.of(4)), uint.of(10)));
+    }
+
+    private static long rotate(CCalcEngine engine, Rational value, int op)
+    {
+        return engine.TruncateNumForIntMath(engine.SciCalcFunctions(value, op)).toULong().raw();
+    }
+
+    private static long operand(Random random, long chop)
+    {
+        return switch (random.nextInt(4)) {
+            case 0 -> random.nextInt(70);
+            case 1 -> chop - random.nextInt(70);
+            case 2 -> random.nextLong() & (chop >>> random.nextInt(64));
+            default -> random.nextLong() & chop;
+        };
+    }
+
+    private static Rational asFraction(long bits)
+    {
+        return new Rational(ulong.of(bits)).times(Rational.of(3)).dividedBy(Rational.of(3));
+    }
 }
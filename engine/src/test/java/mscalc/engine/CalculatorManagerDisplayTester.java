@@ -8,6 +8,8 @@ import java.util.List;
 public class CalculatorManagerDisplayTester implements CalcDisplay {
     private String m_primaryDisplay;
     private String m_expression;
+    private final List<String> m_expressionTokens = new ArrayList<>();
+    private List<Integer> m_lastChangedTokens = new ArrayList<>();
     private int m_parenDisplay;
     private boolean m_isError;
     private List<String> m_memorizedNumberStrings = new ArrayList<>();
@@ -38,14 +40,27 @@ public class CalculatorManagerDisplayTester implements CalcDisplay {
 
     @Override
     public void setExpressionDisplay(List<Pair<String, Integer>> tokens, List<IExpressionCommand> commands) {
-        StringBuilder tmp = new StringBuilder();
+        m_expressionTokens.clear();
 
         for (var currentPair : tokens)
         {
-            tmp.append( currentPair.getKey() );
+            m_expressionTokens.add( currentPair.getKey() );
         }
 
-        m_expression = tmp.toString();
+        m_expression = String.join("", m_expressionTokens);
+        m_lastChangedTokens = new ArrayList<>();
+    }
+
+    @Override
+    public void setExpressionDisplay(List<Pair<String, Integer>> tokens, List<IExpressionCommand> commands, List<Integer> changedTokens) {
+        // Patch only the changed tokens, so that a wrong diff shows up in the expression
+        for (int index : changedTokens)
+        {
+            m_expressionTokens.set(index, tokens.get(index).getKey());
+        }
+
+        m_expression = String.join("", m_expressionTokens);
+        m_lastChangedTokens = new ArrayList<>(changedTokens);
     }
 
     @Override
@@ -98,6 +113,11 @@ public class CalculatorManagerDisplayTester implements CalcDisplay {
         return m_expression;
     }
 
+    public List<Integer> GetLastChangedTokens()
+    {
+        return m_lastChangedTokens;
+    }
+
     public List<String> GetMemorizedNumbers()
     {
         return m_memorizedNumberStrings;
@@ -532,6 +532,28 @@ public class CalculatorManagerTests {
         TestDriver.Test("-9,223,372,036,854,775,808", "RoR(RoR(1))", commands10, true, false);
     }
 
+    @Test
+    void CalculatorManagerTestRadixChangeUpdatesOnlyChangedOperands() {
+        Command commands[] = {Command.ModeProgrammer, Command.Command1, Command.CommandADD, Command.Command1,
+                Command.Command2, Command.CommandMUL, Command.Command1, Command.Command0, Command.CommandSUB,
+                Command.CommandNULL};
+        TestDriver.Test("121", "1 + 12 \u00D7 10 - ", commands, true, false);
+
+        m_calculatorManager.sendCommand(Command.CommandHex);
+        assertEquals("1 + C \u00D7 A - ", m_calculatorDisplayTester.GetExpression());
+        assertEquals(List.of(4, 8), m_calculatorDisplayTester.GetLastChangedTokens());
+
+        m_calculatorManager.sendCommand(Command.CommandBin);
+        assertEquals("1 + 1100 \u00D7 1010 - ", m_calculatorDisplayTester.GetExpression());
+
+        m_calculatorManager.sendCommand(Command.CommandDec);
+        assertEquals("1 + 12 \u00D7 10 - ", m_calculatorDisplayTester.GetExpression());
+
+        m_calculatorManager.sendCommand(Command.Command3);
+        m_calculatorManager.sendCommand(Command.CommandEQU);
+        assertEquals("118", m_calculatorDisplayTester.GetPrimaryDisplay());
+    }
+
     void Cleanup() {
         m_calculatorManager.Reset();
         m_calculatorDisplayTester.reset();
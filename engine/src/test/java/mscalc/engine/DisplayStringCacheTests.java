@@ -0,0 +1,117 @@
+package mscalc.engine;
+
+import mscalc.engine.cpp.uint;
+import mscalc.engine.ratpack.RatPack.NumberFormat;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import static mscalc.engine.ratpack.Support.ChangeConstants;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+public class DisplayStringCacheTests {
+    private static final uint BASE_10 = uint.of(10);
+    private static final uint BASE_16 = uint.of(16);
+    private static final int PRECISION = 32;
+
+    private int savedCapacity;
+
+    @BeforeAll
+    public static void setup() {
+        ChangeConstants(BASE_10, PRECISION);
+    }
+
+    @BeforeEach
+    public void beforeEach() {
+        savedCapacity = DisplayStringCache.CAPACITY.get();
+        DisplayStringCache.clear();
+    }
+
+    @AfterEach
+    public void afterEach() {
+        DisplayStringCache.CAPACITY.set(savedCapacity);
+        DisplayStringCache.clear();
+    }
+
+    @Test
+    void repeated_rendering_hits_the_cache() {
+        Rational third = Rational.of(1).dividedBy(Rational.of(3));
+
+        String first = third.toString(BASE_10, NumberFormat.Float, PRECISION);
+        String second = third.toString(BASE_10, NumberFormat.Float, PRECISION);
+
+        assertEquals("0.33333333333333333333333333333333", first);
+        assertEquals(first, second);
+        assertEquals(1, DisplayStringCache.misses());
+        assertEquals(1, DisplayStringCache.hits());
+    }
+
+    @Test
+    void equal_values_share_an_entry() {
+        Rational a = Rational.of(20).plus(Rational.of(22));
+        Rational b = Rational.of(6).times(Rational.of(7));
+
+        assertEquals("42", a.toString(BASE_10, NumberFormat.Float, PRECISION));
+        assertEquals("42", b.toString(BASE_10, NumberFormat.Float, PRECISION));
+        assertEquals(1, DisplayStringCache.misses());
+        assertEquals(1, DisplayStringCache.hits());
+        assertEquals(1, DisplayStringCache.size());
+    }
+
+    @Test
+    void radix_format_and_precision_are_part_of_the_key() {
+        Rational x = Rational.of(255);
+
+        assertEquals("255", x.toString(BASE_10, NumberFormat.Float, PRECISION));
+        assertEquals("FF", x.toString(BASE_16, NumberFormat.Float, PRECISION));
+        assertEquals("2.55e+2", x.toString(BASE_10, NumberFormat.Scientific, PRECISION));
+        assertEquals("255", x.toString(BASE_10, NumberFormat.Float, PRECISION - 1));
+
+        assertEquals(4, DisplayStringCache.misses());
+        assertEquals(0, DisplayStringCache.hits());
+    }
+
+    @Test
+    void decimal_separator_is_part_of_the_key() {
+        Rational x = Rational.of(1).dividedBy(Rational.of(4));
+
+        assertEquals("0.25", x.toString(BASE_10, NumberFormat.Float, PRECISION, '.'));
+        assertEquals("0,25", x.toString(BASE_10, NumberFormat.Float, PRECISION, ','));
+        assertEquals("0.25", x.toString(BASE_10, NumberFormat.Float, PRECISION, '.'));
+
+        assertEquals(2, DisplayStringCache.misses());
+        assertEquals(1, DisplayStringCache.hits());
+    }
+
+    @Test
+    void least_recently_used_entries_are_evicted() {
+        DisplayStringCache.CAPACITY.set(2);
+
+        Rational one = Rational.of(1), two = Rational.of(2), three = Rational.of(3);
+        one.toString(BASE_10, NumberFormat.Float, PRECISION);
+        two.toString(BASE_10, NumberFormat.Float, PRECISION);
+        one.toString(BASE_10, NumberFormat.Float, PRECISION);   // two is now the eldest
+        three.toString(BASE_10, NumberFormat.Float, PRECISION);
+
+        assertEquals(2, DisplayStringCache.size());
+
+        one.toString(BASE_10, NumberFormat.Float, PRECISION);
+        assertEquals(2, DisplayStringCache.hits());
+
+        two.toString(BASE_10, NumberFormat.Float, PRECISION);
+        assertEquals(4, DisplayStringCache.misses());
+    }
+
+    @Test
+    void zero_capacity_disables_the_cache() {
+        DisplayStringCache.CAPACITY.set(0);
+
+        Rational x = Rational.of(7);
+        x.toString(BASE_10, NumberFormat.Float, PRECISION);
+        x.toString(BASE_10, NumberFormat.Float, PRECISION);
+
+        assertEquals(0, DisplayStringCache.size());
+        assertEquals(0, DisplayStringCache.hits());
+    }
+}
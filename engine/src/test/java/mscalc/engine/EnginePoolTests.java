@@ -0,0 +1,183 @@
+package mscalc.engine;
+
+import mscalc.engine.commands.Command;
+import mscalc.engine.cpp.uint;
+import mscalc.engine.resource.JavaBundleResourceProvider;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class EnginePoolTests {
+    private static final Command[] MODES = {
+            Command.ModeBasic, Command.ModeScientific, Command.ModeProgrammer };
+
+    private static final Command[] DIGITS = {
+            Command.Command0, Command.Command1, Command.Command2, Command.Command3, Command.Command4,
+            Command.Command5, Command.Command6, Command.Command7, Command.Command8, Command.Command9 };
+
+    private static final Command[] BINARY_OPERATORS = {
+            Command.CommandADD, Command.CommandSUB, Command.CommandMUL, Command.CommandDIV };
+
+    private static final Command[] SCIENTIFIC_OPERATORS = {
+            Command.CommandPWR, Command.CommandMOD, Command.CommandROOT };
+
+    private static final Command[] SCIENTIFIC_FUNCTIONS = {
+            Command.CommandSIN, Command.CommandCOS, Command.CommandTAN, Command.CommandLN, Command.CommandSQRT,
+            Command.CommandFAC, Command.CommandREC, Command.CommandSQR, Command.CommandSIGN, Command.CommandPERCENT };
+
+    private static final Command[] PROGRAMMER_COMMANDS = {
+            Command.CommandHex, Command.CommandBin, Command.CommandOct, Command.CommandDec,
+            Command.CommandAnd, Command.CommandOR, Command.CommandXor, Command.CommandLSHF, Command.CommandRSHF,
+            Command.CommandNot, Command.CommandROL, Command.CommandROR };
+
+    private record Outcome(String display, boolean isError, String result, String expression) { }
+
+    // A calculator that is reused for many sequences, like the ones kept by BatchEvaluator.
+    private record Calculator(CalculatorManager manager, CalculatorManagerDisplayTester display) {
+        static Calculator create() {
+            CalculatorManagerDisplayTester display = new CalculatorManagerDisplayTester();
+            return new Calculator(new CalculatorManager(display, new JavaBundleResourceProvider()), display);
+        }
+
+        Outcome evaluate(List<Command> sequence) {
+            manager.Reset();
+            for (Command command : sequence) {
+                manager.sendCommand(command);
+            }
+
+            return new Outcome(
+                    display.GetPrimaryDisplay(),
+                    display.GetIsError(),
+                    manager.GetResultForRadix(uint.of(16), 64, false),
+                    display.GetExpression());
+        }
+    }
+
+    @Test
+    void parallel_results_are_identical_to_serial_results() {
+        List<List<Command>> corpus = corpus(new Random(20240607), 1500);
+
+        Calculator serialCalculator = Calculator.create();
+        List<Outcome> expected = new ArrayList<>();
+        for (List<Command> sequence : corpus) {
+            expected.add(serialCalculator.evaluate(sequence));
+        }
+
+        try (EnginePool<Calculator> pool = new EnginePool<>(4, Calculator::create)) {
+            List<Outcome> actual = pool.map(corpus, Calculator::evaluate);
+
+            assertEquals(expected.size(), actual.size());
+            for (int i = 0; i < expected.size(); i++) {
+                assertEquals(expected.get(i), actual.get(i), "sequence " + i + ": " + corpus.get(i));
+            }
+        }
+    }
+
+    @Test
+    void engine_is_used_by_one_task_at_a_time() throws Exception {
+        AtomicInteger created = new AtomicInteger();
+        try (EnginePool<AtomicInteger> pool = new EnginePool<>(3, () -> {
+            created.incrementAndGet();
+            return new AtomicInteger();
+        })) {
+            List<Integer> inputs = new ArrayList<>();
+            for (int i = 0; i < 300; i++) {
+                inputs.add(i);
+            }
+
+            List<Integer> results = pool.map(inputs, (busy, input) -> {
+                assertEquals(1, busy.incrementAndGet());
+                Thread.onSpinWait();
+                busy.decrementAndGet();
+                return input * 2;
+            });
+
+            for (int i = 0; i < inputs.size(); i++) {
+                assertEquals(2 * i, (int) results.get(i));
+            }
+            assertEquals(3, created.get());
+            assertEquals(Integer.valueOf(42), pool.submit(busy -> 42).get());
+        }
+    }
+
+    @Test
+    void task_failures_are_rethrown() {
+        try (EnginePool<Object> pool = new EnginePool<>(2, Object::new)) {
+            IllegalStateException e = assertThrows(IllegalStateException.class, () ->
+                    pool.map(List.of(1, 2, 3), (engine, input) -> {
+                        if (input == 2) {
+                            throw new IllegalStateException("failed " + input);
+                        }
+                        return input;
+                    }));
+            assertEquals("failed 2", e.getMessage());
+
+            ExecutionException executionException = assertThrows(ExecutionException.class, () ->
+                    pool.submit(engine -> { throw new ArithmeticException(); }).get());
+            assertTrue(executionException.getCause() instanceof ArithmeticException);
+        }
+    }
+
+    @Test
+    void pool_needs_at_least_one_engine() {
+        assertThrows(IllegalArgumentException.class, () -> new EnginePool<>(0, Object::new));
+    }
+
+    private static List<List<Command>> corpus(Random random, int size) {
+        List<List<Command>> corpus = new ArrayList<>(size);
+        for (int i = 0; i < size; i++) {
+            corpus.add(sequence(random));
+        }
+        return corpus;
+    }
+
+    private static List<Command> sequence(Random random) {
+        List<Command> sequence = new ArrayList<>();
+
+        Command mode = MODES[random.nextInt(MODES.length)];
+        sequence.add(mode);
+
+        int terms = 1 + random.nextInt(5);
+        for (int term = 0; term < terms; term++) {
+            if (term > 0) {
+                sequence.add(operator(random, mode));
+            }
+
+            int digits = 1 + random.nextInt(4);
+            for (int d = 0; d < digits; d++) {
+                sequence.add(DIGITS[random.nextInt(DIGITS.length)]);
+            }
+            if (mode != Command.ModeProgrammer && random.nextInt(4) == 0) {
+                sequence.add(Command.CommandPNT);
+                sequence.add(DIGITS[random.nextInt(DIGITS.length)]);
+            }
+
+            if (mode == Command.ModeScientific && random.nextInt(3) == 0) {
+                sequence.add(SCIENTIFIC_FUNCTIONS[random.nextInt(SCIENTIFIC_FUNCTIONS.length)]);
+            } else if (mode == Command.ModeProgrammer && random.nextInt(3) == 0) {
+                sequence.add(PROGRAMMER_COMMANDS[random.nextInt(PROGRAMMER_COMMANDS.length)]);
+            }
+        }
+
+        if (random.nextInt(5) != 0) {
+            sequence.add(Command.CommandEQU);
+        }
+        return sequence;
+    }
+
+    private static Command operator(Random random, Command mode) {
+        if (mode == Command.ModeScientific && random.nextInt(3) == 0) {
+            return SCIENTIFIC_OPERATORS[random.nextInt(SCIENTIFIC_OPERATORS.length)];
+        }
+        if (mode == Command.ModeProgrammer && random.nextInt(3) == 0) {
+            return PROGRAMMER_COMMANDS[4 + random.nextInt(5)];
+        }
+        return BINARY_OPERATORS[random.nextInt(BINARY_OPERATORS.length)];
+    }
+}
@@ -0,0 +1,135 @@
+package mscalc.engine;
+
+import mscalc.engine.commands.CBinaryCommand;
+import mscalc.engine.commands.COpndCommand;
+import mscalc.engine.commands.Command;
+import mscalc.engine.commands.IExpressionCommand;
+import mscalc.engine.cpp.ErrorCodeException;
+import mscalc.engine.cpp.uint;
+import mscalc.engine.ratpack.RatPack.NumberFormat;
+import mscalc.engine.resource.JavaBundleResourceProvider;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static mscalc.engine.Commands.*;
+import static mscalc.engine.ratpack.CalcErr.CALC_E_DIVIDEBYZERO;
+import static org.junit.jupiter.api.Assertions.*;
+
+public class ExpressionPlanTests {
+    private CalculatorManagerDisplayTester display;
+    private CalculatorManager calculatorManager;
+
+    @BeforeEach
+    void setup() {
+        display = new CalculatorManagerDisplayTester();
+        calculatorManager = new CalculatorManager(display, new JavaBundleResourceProvider());
+    }
+
+    @Test
+    void scientific_plan_respects_operator_precedence() {
+        ExpressionPlan plan = compileScientific(Command.Command1, Command.CommandADD, Command.Command2,
+                Command.CommandMUL, Command.Command3, Command.CommandPWR, Command.Command2, Command.CommandEQU);
+
+        assertEquals(4, plan.operandCount());
+        assertEquals("19", format(plan.evaluate()));
+        assertEquals("19", display.GetPrimaryDisplay());
+    }
+
+    @Test
+    void standard_plan_evaluates_left_to_right() {
+        List<IExpressionCommand> commands = List.of(operand(1), new CBinaryCommand(IDC_ADD), operand(2),
+                new CBinaryCommand(IDC_MUL), operand(3));
+
+        assertEquals("9", format(ExpressionPlan.compile(commands, false).evaluate()));
+        assertEquals("7", format(ExpressionPlan.compile(commands, true).evaluate()));
+
+        // Standard mode records every intermediate step as a separate history item.
+        calculatorManager.SetStandardMode();
+        execute(Command.Command1, Command.CommandADD, Command.Command2, Command.CommandMUL, Command.Command3,
+                Command.CommandEQU);
+
+        ExpressionPlan plan = calculatorManager.CompileHistoryItem(calculatorManager.GetHistoryItems().size() - 1);
+        assertEquals("9", format(plan.evaluate()));
+        assertEquals("9", display.GetPrimaryDisplay());
+    }
+
+    @Test
+    void plan_handles_parentheses_and_unary_functions() {
+        ExpressionPlan plan = compileScientific(Command.CommandOPENP, Command.Command1, Command.CommandADD,
+                Command.Command3, Command.CommandCLOSEP, Command.CommandSQRT, Command.CommandMUL, Command.Command3,
+                Command.Command0, Command.CommandSIN, Command.CommandSUB, Command.Command2, Command.CommandSIGN,
+                Command.CommandEQU);
+
+        // sqrt(1 + 3) * sin(30 deg) - (-2)
+        assertEquals("3", format(plan.evaluate()));
+        assertEquals("3", display.GetPrimaryDisplay());
+    }
+
+    @Test
+    void plan_reevaluates_with_new_operands_like_the_engine() {
+        ExpressionPlan plan = compileScientific(Command.Command1, Command.CommandADD, Command.Command2,
+                Command.CommandMUL, Command.Command3, Command.CommandSUB, Command.Command8,
+                Command.CommandDIV, Command.Command4, Command.CommandEQU);
+        assertEquals("5", format(plan.evaluate()));
+
+        Rational whatIf = plan.evaluate(List.of(Rational.of(4), Rational.of(5), Rational.of(6), Rational.of(9),
+                Rational.of(2)));
+
+        calculatorManager.Reset();
+        execute(Command.ModeScientific, Command.Command4, Command.CommandADD, Command.Command5,
+                Command.CommandMUL, Command.Command6, Command.CommandSUB, Command.Command9,
+                Command.CommandDIV, Command.Command2, Command.CommandEQU);
+        assertEquals(display.GetPrimaryDisplay(), format(whatIf));
+        assertEquals("29.5", format(whatIf));
+
+        // The plan itself is immutable.
+        assertEquals("5", format(plan.evaluate()));
+    }
+
+    @Test
+    void plan_reports_engine_errors() {
+        ExpressionPlan plan = compileScientific(Command.Command6, Command.CommandDIV, Command.Command3,
+                Command.CommandEQU);
+
+        ErrorCodeException e = assertThrows(ErrorCodeException.class,
+                () -> plan.evaluate(List.of(Rational.of(6), Rational.of(0))));
+        assertEquals(CALC_E_DIVIDEBYZERO, e.errorCode());
+    }
+
+    @Test
+    void incomplete_or_unsupported_expressions_are_rejected() {
+        COpndCommand one = operand(1);
+
+        List<IExpressionCommand> trailingOperator = List.of(one, new CBinaryCommand(IDC_ADD));
+        assertThrows(IllegalArgumentException.class, () -> ExpressionPlan.compile(trailingOperator, true));
+
+        List<IExpressionCommand> bitwise = List.of(one, new CBinaryCommand(IDC_AND), one);
+        assertThrows(IllegalArgumentException.class, () -> ExpressionPlan.compile(bitwise, true));
+
+        assertThrows(IllegalArgumentException.class, () -> ExpressionPlan.compile(List.of(), true));
+    }
+
+    private static COpndCommand operand(int value) {
+        COpndCommand operand = new COpndCommand(List.of(IDC_0 + value), false, false, false);
+        operand.initialize(Rational.of(value));
+        return operand;
+    }
+
+    private ExpressionPlan compileScientific(Command... commands) {
+        calculatorManager.sendCommand(Command.ModeScientific);
+        execute(commands);
+        return calculatorManager.CompileHistoryItem(0);
+    }
+
+    private void execute(Command... commands) {
+        for (Command command : commands) {
+            calculatorManager.sendCommand(command);
+        }
+    }
+
+    private static String format(Rational r) {
+        return r.toString(uint.of(10), NumberFormat.Float, 32);
+    }
+}
@@ -3,14 +3,24 @@ package mscalc.engine;
 import mscalc.engine.cpp.ErrorCodeException;
 import mscalc.engine.cpp.UIntArray;
 import mscalc.engine.cpp.uint;
+import mscalc.engine.cpp.ulong;
+import mscalc.engine.ratpack.Num;
+import mscalc.engine.ratpack.Rat;
+import mscalc.engine.ratpack.RatPack;
 import mscalc.engine.ratpack.RatPack.NumberFormat;
+import mscalc.engine.ratpack.Support;
 import org.junit.jupiter.api.Assertions.*;
 import org.junit.jupiter.api.BeforeAll;
 import org.junit.jupiter.api.Test;
 
+import java.util.Random;
+
 import static mscalc.engine.ratpack.CalcErr.CALC_E_INDEFINITE;
+import static mscalc.engine.ratpack.RatPack.DUPRAT;
 import static mscalc.engine.ratpack.Support.ChangeConstants;
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
 import static org.junit.jupiter.api.Assertions.fail;
 
 public class RationalTests {
@@ -91,6 +101,24 @@ public class RationalTests {
         assertRatEquals(res, 11621);
     }
 
+    @Test
+    void TestFunctionsOfSimpleFractions() {
+        // 1/10 and 1/2, RationalMath works at RATIONAL_PRECISION.
+        Rational tenth = Rational.of(1).dividedBy(Rational.of(10));
+        Rational half = Rational.of(1).dividedBy(Rational.of(2));
+
+        assertEquals("0.09983341664682815231",
+                RationalMath.sin(tenth, RatPack.AngleType.Radians).toString(BASE_10, NumberFormat.Float, 20));
+        assertEquals("0.9950041652780257661",
+                RationalMath.cos(tenth, RatPack.AngleType.Radians).toString(BASE_10, NumberFormat.Float, 20));
+        assertEquals("1.1051709180756476248",
+                RationalMath.exp(tenth).toString(BASE_10, NumberFormat.Float, 20));
+        assertEquals("1.6487212707001281468",
+                RationalMath.exp(half).toString(BASE_10, NumberFormat.Float, 20));
+        assertEquals("-0.69314718055994530942",
+                RationalMath.ln(half).toString(BASE_10, NumberFormat.Float, 20));
+    }
+
     @Test
     void TestModuloRational() {
         // Test with rational numbers
@@ -225,4 +253,95 @@ public class RationalTests {
         res = Rational.of(-834345).modulo(new Rational(Number(1, 0, new int[]{103}), Number(1, 0, new int[]{100})));
         assertEquals(res.toString(BASE_10, NumberFormat.Float, 8), "-0.71");
     }
+
+    @Test
+    void TestArithmeticOperandsNotModified() {
+        Rational a = new Rational(Number(1, 0, new int[]{7}), Number(-1, 0, new int[]{3}));
+        Rational b = Rational.of(-5);
+        String aBefore = a.toString(BASE_10, NumberFormat.Float, 8);
+
+        assertEquals("-2.3333333", aBefore);
+        assertEquals("-7.3333333", a.plus(b).toString(BASE_10, NumberFormat.Float, 8));
+        assertEquals("2.6666667", a.minus(b).toString(BASE_10, NumberFormat.Float, 8));
+        assertEquals("11.666667", a.times(b).toString(BASE_10, NumberFormat.Float, 8));
+        assertEquals("0.46666667", a.dividedBy(b).toString(BASE_10, NumberFormat.Float, 8));
+        assertEquals("2.3333333", a.negated().toString(BASE_10, NumberFormat.Float, 8));
+        assertEquals("-2.3333333", RationalMath.abs(a).negated().toString(BASE_10, NumberFormat.Float, 8));
+
+        assertEquals(aBefore, a.toString(BASE_10, NumberFormat.Float, 8));
+        assertRatEquals(b, -5);
+        assertEquals(-1, a.p().sign());
+        assertEquals(1, a.q().sign());
+    }
+
+    @Test
+    void TestSmallValuesMatchRatpack() {
+        Random random = new Random(20240612);
+
+        for (int chain = 0; chain < 300; chain++) {
+            Rational value = operand(random);
+            RatPack.RAT expected = value.toCRational();
+
+            // Long enough to overflow 64 bits, so promotion and demotion are exercised too
+            for (int step = 0; step < 12; step++) {
+                Rational other = operand(random);
+                int operation = random.nextInt(4);
+
+                RatPack.RAT expectedResult = DUPRAT(expected);
+                try {
+                    switch (operation) {
+                        case 0 -> expectedResult = Rat.addrat(expectedResult, other.cRational(), PRECISION, true);
+                        case 1 -> expectedResult = Rat.subrat(expectedResult, other.cRational(), PRECISION, true);
+                        case 2 -> expectedResult = Rat.mulrat(expectedResult, other.cRational(), PRECISION, true);
+                        default -> expectedResult = Rat.divrat(expectedResult, other.cRational(), PRECISION, true);
+                    }
+                } catch (ErrorCodeException e) {
+                    Rational dividend = value;
+                    int errorCode = assertThrows(ErrorCodeException.class, () -> dividend.dividedBy(other)).errorCode();
+                    assertEquals(e.errorCode(), errorCode);
+                    continue;
+                }
+
+                Rational result = switch (operation) {
+                    case 0 -> value.plus(other);
+                    case 1 -> value.minus(other);
+                    case 2 -> value.times(other);
+                    default -> value.dividedBy(other);
+                };
+
+                String message = "chain " + chain + ", step " + step + ", operation " + operation;
+                assertEquals(
+                        Rational.fromCRational(expectedResult).toString(BASE_10, NumberFormat.Float, PRECISION),
+                        result.toString(BASE_10, NumberFormat.Float, PRECISION), message);
+                assertTrue(Num.equnum(expectedResult.pp, result.cRational().pp), message);
+                assertTrue(Num.equnum(expectedResult.pq, result.cRational().pq), message);
+                assertTrue(result.isEqual(Rational.fromCRational(expectedResult)), message);
+                assertEquals(value.isLessThan(other), Support.rat_lt(value.cRational(), other.cRational(), PRECISION), message);
+
+                value = result;
+                expected = expectedResult;
+            }
+        }
+    }
+
+    @Test
+    void TestSmallValuesCompareExactly() {
+        Rational big = new Rational(Number(1, 0, new int[]{1}), Number(1, 0, new int[]{3})).times(Rational.of(Integer.MAX_VALUE));
+        Rational bigger = big.plus(new Rational(Number(1, 0, new int[]{1}), Number(1, 0, new int[]{Integer.MAX_VALUE})));
+
+        assertTrue(big.isLessThan(bigger));
+        assertTrue(bigger.isGreaterThan(big));
+        assertTrue(big.isEqual(big.times(Rational.of(1))));
+        assertTrue(Rational.of(0).isEqual(Rational.of(2).minus(Rational.of(2))));
+        assertTrue(Rational.of(-1).isLessOrEqual(Rational.of(0)));
+        assertTrue(Rational.of(-1).isGreaterOrEqual(Rational.of(-1)));
+        assertEquals(0x8000000000000000L, new Rational(ulong.of(0x8000000000000000L)).toULong().raw());
+    }
+
+    private static Rational operand(Random random) {
+        int sign = random.nextBoolean() ? 1 : -1;
+        int p = random.nextInt(4) == 0 ? random.nextInt(Integer.MAX_VALUE) : random.nextInt(1001);
+        int q = 1 + random.nextInt(random.nextBoolean() ? 10 : 100000);
+        return new Rational(Number(sign, 0, new int[]{p}), Number(1, 0, new int[]{q}));
+    }
 }
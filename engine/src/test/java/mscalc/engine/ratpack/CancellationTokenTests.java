@@ -0,0 +1,99 @@
+package mscalc.engine.ratpack;
+
+import mscalc.engine.cpp.ErrorCodeException;
+import mscalc.engine.cpp.Ptr;
+import mscalc.engine.cpp.uint;
+import mscalc.engine.ratpack.RatPack.RAT;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+
+import static mscalc.engine.ratpack.CalcErr.CALC_E_ABORTED;
+import static org.junit.jupiter.api.Assertions.*;
+
+public class CancellationTokenTests {
+    private static final uint RADIX_10 = uint.of(10);
+    private static final int PRECISION = 20;
+
+    @BeforeAll
+    public static void beforeAll() {
+        Support.ChangeConstants(RADIX_10, PRECISION);
+    }
+
+    @AfterEach
+    public void afterEach() {
+        CancellationToken.bind(null);
+        Thread.interrupted();
+    }
+
+    @Test
+    public void cancelled_token_aborts_series() {
+        CancellationToken token = CancellationToken.create();
+        CancellationToken.bind(token);
+
+        assertEquals("20.085536923187667741", exp("3"));
+
+        token.cancel();
+        assertTrue(token.isCancelled());
+        assertAborted(() -> exp("3"));
+    }
+
+    @Test
+    public void expired_deadline_aborts_factorial() {
+        CancellationToken.bind(CancellationToken.withTimeout(Duration.ZERO));
+
+        assertAborted(() -> {
+            Ptr<RAT> x = new Ptr<>(rat("3248.5"));
+            Fact.factrat(x, RADIX_10, PRECISION);
+        });
+    }
+
+    @Test
+    public void generous_deadline_does_not_abort() {
+        CancellationToken token = CancellationToken.withTimeout(Duration.ofHours(1));
+        CancellationToken.bind(token);
+
+        assertFalse(token.isCancelled());
+        assertEquals("20.085536923187667741", exp("3"));
+    }
+
+    @Test
+    public void interrupted_thread_aborts_and_keeps_the_flag() {
+        Thread.currentThread().interrupt();
+
+        assertAborted(() -> {
+            Ptr<RAT> x = new Ptr<>(rat("2"));
+            Trans.sinrat(x, RADIX_10, PRECISION);
+        });
+        assertTrue(Thread.interrupted());
+    }
+
+    @Test
+    public void unbinding_the_token_restores_normal_operation() {
+        CancellationToken token = CancellationToken.create();
+        token.cancel();
+
+        CancellationToken previous = CancellationToken.bind(token);
+        assertAborted(() -> exp("3"));
+        CancellationToken.bind(previous);
+
+        assertEquals("20.085536923187667741", exp("3"));
+    }
+
+    private static String exp(String x) {
+        Ptr<RAT> xRat = new Ptr<>(rat(x));
+        Exp.exprat(xRat, RADIX_10, PRECISION);
+        return Conv.RatToString(xRat, RatPack.NumberFormat.Float, RADIX_10, PRECISION);
+    }
+
+    private static RAT rat(String x) {
+        return Conv.StringToRat(false, x, false, "0", RADIX_10, PRECISION);
+    }
+
+    private static void assertAborted(Runnable computation) {
+        ErrorCodeException e = assertThrows(ErrorCodeException.class, computation::run);
+        assertEquals(CALC_E_ABORTED, e.errorCode());
+    }
+}
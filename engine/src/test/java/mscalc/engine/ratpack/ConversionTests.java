@@ -8,6 +8,14 @@ import org.junit.jupiter.api.Assertions;
 import org.junit.jupiter.api.BeforeAll;
 import org.junit.jupiter.api.Test;
 
+import java.math.BigInteger;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
 import static mscalc.engine.ratpack.Conv.*;
 import static mscalc.engine.ratpack.RatPack.BASEX;
 import static mscalc.engine.ratpack.RatPack.DUPNUM;
@@ -263,6 +271,56 @@ public class ConversionTests {
         return Conv.numtoi32(result, BASEX);
     }
 
+    @Test
+    public void gcd_matches_euclid_on_random_numbers() {
+        Random random = new Random(97531);
+
+        for (int i = 0; i < 300; i++) {
+            NUMBER common = randomNumber(random, 1 + random.nextInt(3));
+            NUMBER a = Num.mulnum(randomNumber(random, 1 + random.nextInt(i % 4 == 0 ? 12 : 4)), common, BASEX);
+            NUMBER b = Num.mulnum(randomNumber(random, 1 + random.nextInt(4)), common, BASEX);
+            if (random.nextBoolean()) a.sign = -1;
+            if (random.nextBoolean()) b.sign = -1;
+            NUMBER aCopy = DUPNUM(a);
+            NUMBER bCopy = DUPNUM(b);
+
+            NUMBER expected = euclid(a, b);
+            NUMBER actual = Conv.gcd(a, b);
+
+            assertEquals(1, actual.sign);
+            expected.sign = 1;
+            Assertions.assertTrue(Num.equnum(expected, actual), "gcd of " + i + "th pair");
+            Assertions.assertTrue(Num.equnum(aCopy, a) && aCopy.sign == a.sign);
+            Assertions.assertTrue(Num.equnum(bCopy, b) && bCopy.sign == b.sign);
+        }
+    }
+
+    // Conv.gcd as it was before Lehmer's algorithm, the reference for the test above.
+    private static NUMBER euclid(NUMBER a, NUMBER b) {
+        NUMBER larger = Num.lessnum(a, b) ? DUPNUM(b) : DUPNUM(a);
+        NUMBER smaller = Num.lessnum(a, b) ? DUPNUM(a) : DUPNUM(b);
+
+        while (!Num.zernum(smaller)) {
+            NUMBER r = Num.remnum(larger, smaller, BASEX);
+            larger = smaller;
+            smaller = r;
+        }
+        return larger;
+    }
+
+    // Positive integer with the given number of BASEX digits, sometimes with an exponent.
+    private static NUMBER randomNumber(Random random, int cdigit) {
+        NUMBER n = Conv.createnum(uint.of(cdigit));
+        for (int i = 0; i < cdigit; i++) {
+            n.mant.raw()[i] = random.nextInt() & 0x7fffffff;
+        }
+        n.mant.raw()[cdigit - 1] |= 1;
+        n.cdigit = cdigit;
+        n.exp = (random.nextInt(4) == 0) ? random.nextInt(3) : 0;
+        n.sign = 1;
+        return n;
+    }
+
     @Test
     public void numpowi32_works() {
         Ptr<NUMBER> p2 = new Ptr<>(Conv.i32tonum(2, RADIX_10));
@@ -284,4 +342,100 @@ public class ConversionTests {
         ul = rattoUi64(maxUInt, RADIX_10, 10);
         assertEquals("18446744073709551615", Long.toUnsignedString(ul.raw()));
     }
+
+    @Test
+    public void long_numbers_convert_exactly_between_radixes() {
+        Random random = new Random(1414);
+        int threshold = RADIX_CONVERSION_THRESHOLD.get();
+
+        try {
+            for (int radix : new int[] { 2, 8, 10, 16, 36 }) {
+                for (int i = 0; i < 20; i++) {
+                    // Small thresholds exercise several levels of splitting.
+                    RADIX_CONVERSION_THRESHOLD.set(1 + random.nextInt(4));
+
+                    StringBuilder digits = new StringBuilder();
+                    digits.append(Character.forDigit(1 + random.nextInt(radix - 1), radix));
+                    for (int n = random.nextInt(2000); n > 0; n--) {
+                        digits.append(Character.forDigit(random.nextInt(radix), radix));
+                    }
+                    BigInteger expected = new BigInteger(digits.toString(), radix);
+
+                    NUMBER a = Conv.createnum(uint.of(digits.length()));
+                    for (int d = 0; d < digits.length(); d++) {
+                        a.mant.raw()[d] = Character.digit(digits.charAt(digits.length() - 1 - d), radix);
+                    }
+                    a.cdigit = digits.length();
+                    a.sign = 1;
+
+                    NUMBER x = numtonRadixx(a, uint.of(radix));
+                    assertEquals(expected, toBigInteger(x, BASEX.toInt()), "radix " + radix);
+
+                    NUMBER back = nRadixxtonum(x, uint.of(radix), x.cdigit);
+                    assertEquals(expected, toBigInteger(back, radix), "radix " + radix);
+                }
+            }
+        } finally {
+            RADIX_CONVERSION_THRESHOLD.set(threshold);
+        }
+    }
+
+    @Test
+    public void radix_powers_are_shared_per_context() throws Exception {
+        RatPackContext ctx = RatPackContext.build(RADIX_10, 20);
+        ExecutorService executor = Executors.newFixedThreadPool(8);
+        try {
+            // Threads asking for the same missing power at once all get the published one.
+            List<Future<int[]>> futures = new ArrayList<>();
+            for (int i = 0; i < 16; i++) {
+                futures.add(executor.submit(() -> {
+                    RatPackContext previous = RatPackContext.bind(ctx);
+                    try {
+                        return RadixPowers.basexpower(10, 3, 6);
+                    } finally {
+                        RatPackContext.bind(previous);
+                    }
+                }));
+            }
+            int[] power = futures.getFirst().get();
+            for (Future<int[]> future : futures) {
+                Assertions.assertSame(power, future.get());
+            }
+            assertEquals(BigInteger.TEN.pow(3 * 64), toBigInteger(power, BASEX.toInt()));
+        } finally {
+            executor.shutdown();
+        }
+
+        RatPackContext previous = RatPackContext.bind(ctx);
+        try {
+            int[] power = RadixPowers.radixpower(10, 3, 5);
+            assertEquals(BigInteger.TWO.pow(RatPack.BASEXPWR * 3 * 32), toBigInteger(power, 10));
+            Assertions.assertSame(power, RadixPowers.radixpower(10, 3, 5));
+
+            // Other contexts have their own powers.
+            RatPackContext.bind(RatPackContext.build(RADIX_10, 20));
+            Assertions.assertNotSame(power, RadixPowers.radixpower(10, 3, 5));
+            Assertions.assertArrayEquals(power, RadixPowers.radixpower(10, 3, 5));
+        } finally {
+            RatPackContext.bind(previous);
+        }
+    }
+
+    private static BigInteger toBigInteger(int[] digits, int radix) {
+        BigInteger r = BigInteger.valueOf(Integer.toUnsignedLong(radix));
+        BigInteger result = BigInteger.ZERO;
+        for (int i = digits.length - 1; i >= 0; i--) {
+            result = result.multiply(r).add(BigInteger.valueOf(digits[i]));
+        }
+        return result;
+    }
+
+    private static BigInteger toBigInteger(NUMBER n, int radix) {
+        BigInteger r = BigInteger.valueOf(Integer.toUnsignedLong(radix));
+        BigInteger result = BigInteger.ZERO;
+        for (int i = n.cdigit - 1; i >= 0; i--) {
+            result = result.multiply(r).add(BigInteger.valueOf(n.mant.raw()[i]));
+        }
+        return result.multiply(r.pow(n.exp));
+    }
 }
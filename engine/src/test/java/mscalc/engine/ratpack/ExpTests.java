@@ -7,6 +7,7 @@ import org.junit.jupiter.api.BeforeAll;
 import org.junit.jupiter.api.Test;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
 
 public class ExpTests {
     private static final uint RADIX_10 = uint.of(10);
@@ -73,6 +74,103 @@ public class ExpTests {
         tester.runTests();
     }
 
+    @Test
+    public void exp_of_large_arguments_works() {
+        String[] data = new String[] {
+                // x, e^x
+                // Data from wolfram-alpha
+                "100", "2.6881171418161354484e+43",
+                "-50", "1.928749847963917783e-22",
+                "10000", "8.8068182256629215873e+4342",
+                "-99999.5", "5.8743107347573388716e-43430",
+
+                // Below the smallest e^(2^-j) table entry
+                "0.0078125", "1.0078430972064479777",
+                // ln(2), reduces to zero
+                "0.6931471805599453094172321", "2"
+        };
+
+        for (int i = 0; i <= data.length - 2; i += 2) {
+            String x = data[i];
+            String expected = data[i+1];
+
+            Ptr<RAT> xRat = new Ptr<>(
+                    Conv.StringToRat(x.startsWith("-"), x.replace("-", ""), false, "0", RADIX_10, PRECISION)
+            );
+            Exp.exprat(xRat, RADIX_10, PRECISION);
+
+            String actual = Conv.RatToString(xRat, RatPack.NumberFormat.Float, RADIX_10, PRECISION);
+
+            assertEquals(expected, actual, "e^" + x);
+        }
+    }
+
+    @Test
+    public void exp_works_at_binary_splitting_precision() {
+        String[] data = new String[] {
+                // x, e^x
+                // Computed with 80 digit decimal arithmetic
+                "1", "2.71828182845904523536028747135266249775724709369995957496",
+                "2", "7.38905609893065022723042746057500781318031557055184732408",
+                "10", "22026.4657948067165169579006452842443663535126185567810742",
+                "0.1", "1.10517091807564762481170782649024666822454719473751871879",
+                "0.5", "1.64872127070012814684865078781416357165377610071014801157",
+        };
+
+        int threshold = Series.BINARY_SPLITTING_PRECISION.get();
+        for (int precision : new int[] { threshold, threshold + 72 }) {
+            RatPackContext previous = RatPackContext.bind(RatPackContext.of(RADIX_10, precision));
+            try {
+                for (int i = 0; i <= data.length - 2; i += 2) {
+                    String x = data[i];
+                    String expected = data[i+1];
+
+                    Ptr<RAT> xRat = new Ptr<>(
+                            Conv.StringToRat(false, x, false, "0", RADIX_10, precision)
+                    );
+                    Exp.exprat(xRat, RADIX_10, precision);
+
+                    String actual = Conv.RatToString(xRat, RatPack.NumberFormat.Float, RADIX_10, precision);
+
+                    assertEquals(expected, actual.substring(0, Math.min(actual.length(), expected.length())),
+                            "e^" + x + " at precision " + precision);
+                }
+            } finally {
+                RatPackContext.bind(previous);
+            }
+        }
+    }
+
+    @Test
+    public void exp_table_squares_to_e() {
+        int threshold = Series.BINARY_SPLITTING_PRECISION.get();
+        for (int precision : new int[] { PRECISION, threshold, threshold + 72 }) {
+            RatPackContext ctx = RatPackContext.build(RADIX_10, precision);
+            RatPackContext previous = RatPackContext.bind(ctx);
+            try {
+                int extraPrecision = precision + ctx.ratio;
+                // Squaring j times multiplies the relative error by 2^j.
+                RAT epsilon = Conv.StringToRat(false, "1", true, Integer.toString(precision - 4), RADIX_10, precision);
+
+                for (int j = 1; j <= RatPackContext.EXP_TABLE_SIZE; j++) {
+                    Ptr<RAT> power = new Ptr<>(RatPack.DUPRAT(ctx.e_to_pow2(j)));
+                    for (int k = 0; k < j; k++) {
+                        Rat.mulrat(power, RatPack.DUPRAT(power.deref()), extraPrecision);
+                    }
+
+                    Ptr<RAT> error = new Ptr<>(power.deref());
+                    Rat.subrat(error, ctx.rat_exp, extraPrecision);
+                    error.deref().pp.sign = 1;
+
+                    assertTrue(Support.rat_lt(error.deref(), epsilon, precision),
+                            "e^(2^-" + j + ") at precision " + precision);
+                }
+            } finally {
+                RatPackContext.bind(previous);
+            }
+        }
+    }
+
     @Test
     public void ln_works() {
         String[] data = new String[] {
@@ -5,6 +5,8 @@ import mscalc.engine.cpp.uint;
 import org.junit.jupiter.api.BeforeAll;
 import org.junit.jupiter.api.Test;
 
+import java.math.BigInteger;
+
 import static org.junit.jupiter.api.Assertions.assertEquals;
 
 public class FactTests {
@@ -31,6 +33,50 @@ public class FactTests {
         }
     }
 
+    @Test
+    public void factorial_of_large_integers_works() {
+        String[] data = new String[] {
+                // x, x!
+                // Data from wolfram-alpha
+                "100", "9.3326215443944152682e+157",
+                "1000", "4.0238726007709377354e+2567",
+                "3249", "6.4123376882765521839e+10000"
+        };
+
+        for (int i = 0; i <= data.length - 2; i += 2) {
+            Ptr<RatPack.RAT> xRat = new Ptr<>(
+                    Conv.StringToRat(false, data[i], false, "0", RADIX_10, PRECISION)
+            );
+            Fact.factrat(xRat, RADIX_10, PRECISION);
+
+            String actual = Conv.RatToString(xRat, RatPack.NumberFormat.Float, RADIX_10, PRECISION);
+            assertEquals(data[i+1], actual, "failed for x = " + data[i]);
+        }
+    }
+
+    @Test
+    public void cached_factorials_are_exact() {
+        // Around the checkpoints, and repeated to hit the cache.
+        int[] ns = { 0, 1, 2, 63, 64, 65, 127, 128, 129, 1000, 3249, 64, 1000, 3249, 5 };
+
+        for (int n : ns) {
+            RatPack.NUMBER f = Fact.intfactnum(n);
+
+            BigInteger expected = BigInteger.ONE;
+            for (int k = 2; k <= n; k++) {
+                expected = expected.multiply(BigInteger.valueOf(k));
+            }
+
+            BigInteger actual = BigInteger.ZERO;
+            for (int i = f.cdigit - 1; i >= 0; i--) {
+                actual = actual.shiftLeft(RatPack.BASEXPWR).add(BigInteger.valueOf(f.mant.raw()[i]));
+            }
+            actual = actual.shiftLeft(RatPack.BASEXPWR * f.exp);
+
+            assertEquals(expected, actual, "failed for n = " + n);
+        }
+    }
+
     private long factorial(int n) {
         long f = 1;
 
@@ -0,0 +1,99 @@
+package mscalc.engine.ratpack;
+
+import mscalc.engine.cpp.uint;
+import mscalc.engine.ratpack.RatPack.RAT;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+
+import static mscalc.engine.ratpack.RatPack.BASEX;
+import static mscalc.engine.ratpack.RatPack.DUPRAT;
+import static org.junit.jupiter.api.Assertions.*;
+
+public class GcdPolicyTests {
+    private static final uint BASE_10 = uint.of(10);
+    private static final int PRECISION = 128;
+
+    @BeforeAll
+    static void beforeAll() {
+        Support.ChangeConstants(BASE_10, PRECISION);
+    }
+
+    private static RAT rat(int p, int q) {
+        RAT r = new RAT();
+        r.pp = Conv.i32tonum(p, BASEX);
+        r.pq = Conv.i32tonum(q, BASEX);
+        return r;
+    }
+
+    // -1/2 * 2/3 * ... * 40/41 = -1/41, in both orders of the operations.
+    private static RAT telescope(boolean reduce) {
+        RAT product = rat(-1, 1);
+        for (int k = 1; k <= 40; k++) {
+            product = (k % 2 == 0)
+                    ? Rat.mulrat(product, rat(k, k + 1), PRECISION, reduce)
+                    : Rat.divrat(product, rat(k + 1, k), PRECISION, reduce);
+        }
+        return product;
+    }
+
+    @Test
+    public void exact_chains_stay_small() {
+        GcdPolicy.resetMetrics();
+
+        RAT reduced = telescope(true);
+        RAT unreduced = telescope(false);
+
+        assertTrue(Support.rat_equ(reduced, unreduced, PRECISION));
+        assertTrue(Support.rat_equ(reduced, rat(-1, 41), PRECISION));
+        assertEquals(-1, reduced.pp.sign * reduced.pq.sign);
+
+        assertTrue(GcdPolicy.size(reduced) < GcdPolicy.size(unreduced),
+                GcdPolicy.size(reduced) + " >= " + GcdPolicy.size(unreduced));
+        assertTrue(GcdPolicy.runs() > 0);
+        assertTrue(GcdPolicy.reductions() > 0);
+        assertTrue(GcdPolicy.digitsRemoved() > 0);
+        assertTrue(GcdPolicy.runs() < 40, "runs: " + GcdPolicy.runs());
+    }
+
+    @Test
+    public void sums_are_reduced_too() {
+        // 1/2 + 1/6 + 1/12 + ... + 1/(n(n+1)) = n/(n+1)
+        RAT reduced = rat(0, 1);
+        RAT unreduced = rat(0, 1);
+        for (int k = 1; k <= 30; k++) {
+            reduced = Rat.addrat(reduced, rat(1, k * (k + 1)), PRECISION, true);
+            unreduced = Rat.addrat(unreduced, rat(1, k * (k + 1)), PRECISION);
+        }
+
+        assertTrue(Support.rat_equ(reduced, rat(30, 31), PRECISION));
+        assertTrue(Support.rat_equ(unreduced, rat(30, 31), PRECISION));
+        assertTrue(GcdPolicy.size(reduced) < GcdPolicy.size(unreduced));
+    }
+
+    @Test
+    public void zero_threshold_disables_the_reduction() {
+        int threshold = GcdPolicy.THRESHOLD.get();
+        try {
+            GcdPolicy.THRESHOLD.set(0);
+            GcdPolicy.resetMetrics();
+
+            RAT result = telescope(true);
+
+            assertEquals(0, GcdPolicy.runs());
+            assertEquals(GcdPolicy.size(telescope(false)), GcdPolicy.size(result));
+        } finally {
+            GcdPolicy.THRESHOLD.set(threshold);
+        }
+    }
+
+    @Test
+    public void operations_without_reduce_are_not_reduced() {
+        GcdPolicy.resetMetrics();
+
+        RAT a = telescope(false);
+        Rat.mulrat(DUPRAT(a), a, PRECISION);
+        Rat.subrat(DUPRAT(a), rat(1, 3), PRECISION);
+
+        assertEquals(0, GcdPolicy.runs());
+    }
+}
@@ -5,7 +5,10 @@ import mscalc.engine.cpp.uint;
 import org.junit.jupiter.api.BeforeAll;
 import org.junit.jupiter.api.Test;
 
+import java.util.Random;
+
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
 
 public class LogicTests {
     private static final uint RADIX_2 = uint.of(2);
@@ -69,6 +72,50 @@ public class LogicTests {
         return Conv.RatToString(xRat, RatPack.NumberFormat.Float, RADIX_2, PRECISION);
     }
 
+    @Test
+    public void shifts_match_multiplying_by_powers_of_two() {
+        Random random = new Random(2468);
+
+        for (int i = 0; i < 300; i++) {
+            int shift = random.nextInt(401) - 200;
+            RatPack.RAT x = Conv.createrat();
+            x.pp = randomNumber(random, 1 + random.nextInt(6));
+            x.pq = (i % 3 == 0) ? randomNumber(random, 1 + random.nextInt(3)) : Conv.i32tonum(1, RatPack.BASEX);
+            RatPack.RAT shiftRat = Conv.i32torat(shift);
+
+            // Shifting as it was done before, with an explicit power of two.
+            Ptr<RatPack.RAT> expected = new Ptr<>(RatPack.DUPRAT(x));
+            Support.intrat(expected, RADIX_2, PRECISION);
+            Ptr<RatPack.RAT> pwr = new Ptr<>(RatPack.DUPRAT(Support.Global.rat_two()));
+            Conv.ratpowi32(pwr, shift, PRECISION);
+            Rat.mulrat(expected, pwr.deref(), PRECISION);
+
+            Ptr<RatPack.RAT> left = new Ptr<>(RatPack.DUPRAT(x));
+            Logic.lshrat(left, shiftRat, RADIX_2, PRECISION);
+            Ptr<RatPack.RAT> right = new Ptr<>(RatPack.DUPRAT(x));
+            Logic.rshrat(right, Conv.i32torat(-shift), RADIX_2, PRECISION);
+
+            assertSameRat(expected.deref(), left.deref());
+            assertSameRat(expected.deref(), right.deref());
+        }
+    }
+
+    private static void assertSameRat(RatPack.RAT expected, RatPack.RAT actual) {
+        assertTrue(Num.equnum(expected.pp, actual.pp) && expected.pp.sign == actual.pp.sign);
+        assertTrue(Num.equnum(expected.pq, actual.pq) && expected.pq.sign == actual.pq.sign);
+    }
+
+    private static RatPack.NUMBER randomNumber(Random random, int cdigit) {
+        RatPack.NUMBER n = Conv.createnum(uint.of(cdigit));
+        for (int i = 0; i < cdigit; i++) {
+            n.mant.raw()[i] = random.nextInt() & 0x7fffffff;
+        }
+        n.mant.raw()[cdigit - 1] |= 1;
+        n.cdigit = cdigit;
+        n.sign = random.nextBoolean() ? 1 : -1;
+        return n;
+    }
+
     @Test
     public void remrat_works() {
         Ptr<RatPack.RAT> xRat = new Ptr<>(
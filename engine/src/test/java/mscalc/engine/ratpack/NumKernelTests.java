@@ -0,0 +1,245 @@
+package mscalc.engine.ratpack;
+
+import org.junit.jupiter.api.Test;
+
+import java.math.BigInteger;
+import java.util.Arrays;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+public class NumKernelTests {
+    private static final BigInteger BASEX = BigInteger.ONE.shiftLeft(RatPack.BASEXPWR);
+
+    @Test
+    public void mulx_matches_big_integer() {
+        Random random = new Random(1234);
+
+        for (int i = 0; i < 200; i++) {
+            int[] a = randomDigits(random, 1 + random.nextInt(20));
+            int[] b = randomDigits(random, 1 + random.nextInt(20));
+            int[] c = new int[a.length + b.length];
+
+            NumKernel.mulx(a, a.length, b, b.length, c);
+
+            assertEquals(toBigInteger(a).multiply(toBigInteger(b)), toBigInteger(c));
+        }
+    }
+
+    @Test
+    public void mulx_karatsuba_matches_big_integer() {
+        Random random = new Random(8765);
+        int threshold = BaseX.KARATSUBA_THRESHOLD.get();
+
+        try {
+            BaseX.KARATSUBA_THRESHOLD.set(4);
+
+            for (int i = 0; i < 200; i++) {
+                int[] a = randomDigits(random, 1 + random.nextInt(i % 3 == 0 ? 300 : 60));
+                int[] b = randomDigits(random, 1 + random.nextInt(60));
+                int[] c = new int[a.length + b.length];
+
+                NumKernel.mulx(a, a.length, b, b.length, c);
+
+                assertEquals(toBigInteger(a).multiply(toBigInteger(b)), toBigInteger(c));
+            }
+
+            // All digits at BASEX-1 maximize the carries in the middle term.
+            int[] max = new int[97];
+            Arrays.fill(max, 0x7fffffff);
+            int[] c = new int[2 * max.length];
+            NumKernel.mulx(max, max.length, max, max.length, c);
+            assertEquals(toBigInteger(max).pow(2), toBigInteger(c));
+        } finally {
+            BaseX.KARATSUBA_THRESHOLD.set(threshold);
+        }
+    }
+
+    @Test
+    public void mul_matches_big_integer_in_radix_10() {
+        Random random = new Random(4321);
+
+        for (int i = 0; i < 200; i++) {
+            int[] a = randomDigits(random, 1 + random.nextInt(20), 10);
+            int[] b = randomDigits(random, 1 + random.nextInt(20), 10);
+            int[] c = new int[a.length + b.length];
+
+            NumKernel.mul(a, a.length, b, b.length, c, 10);
+
+            assertEquals(toBigInteger(a, 10).multiply(toBigInteger(b, 10)), toBigInteger(c, 10));
+        }
+    }
+
+    @Test
+    public void mul_karatsuba_matches_big_integer_in_any_radix() {
+        Random random = new Random(2468);
+        int threshold = BaseX.KARATSUBA_THRESHOLD.get();
+
+        try {
+            BaseX.KARATSUBA_THRESHOLD.set(4);
+
+            for (int radix : new int[] { 2, 3, 10, 16, 64 }) {
+                for (int i = 0; i < 50; i++) {
+                    int[] a = randomDigits(random, 1 + random.nextInt(i % 3 == 0 ? 300 : 60), radix);
+                    int[] b = randomDigits(random, 1 + random.nextInt(60), radix);
+                    int[] c = new int[a.length + b.length];
+
+                    NumKernel.mul(a, a.length, b, b.length, c, radix);
+
+                    assertEquals(toBigInteger(a, radix).multiply(toBigInteger(b, radix)), toBigInteger(c, radix));
+                }
+
+                int[] max = new int[97];
+                Arrays.fill(max, radix - 1);
+                int[] c = new int[2 * max.length];
+                NumKernel.mul(max, max.length, max, max.length, c, radix);
+                assertEquals(toBigInteger(max, radix).pow(2), toBigInteger(c, radix));
+            }
+        } finally {
+            BaseX.KARATSUBA_THRESHOLD.set(threshold);
+        }
+    }
+
+    @Test
+    public void divx_produces_truncated_quotient() {
+        Random random = new Random(5678);
+
+        for (int i = 0; i < 200; i++) {
+            int[] a = randomDigits(random, 1 + random.nextInt(12));
+            int[] b = randomDigits(random, 1 + random.nextInt(12));
+            int qmax = 16;
+            int[] q = new int[qmax + 1];
+
+            int cdigits = NumKernel.divx(a, a.length, b, b.length, q, qmax);
+
+            // First quotient digit is at radix position (a.length - b.length),
+            // scale both sides so that every produced digit becomes an integer one.
+            BigInteger scaled = toBigInteger(a).multiply(BASEX.pow(cdigits - 1 + b.length));
+            BigInteger expected = scaled.divide(toBigInteger(b).multiply(BASEX.pow(a.length)));
+            int[] quotient = new int[cdigits];
+            System.arraycopy(q, 0, quotient, 0, cdigits);
+            assertEquals(expected, toBigInteger(quotient));
+        }
+    }
+
+    @Test
+    public void divx_handles_extreme_digits() {
+        Random random = new Random(2468);
+        int[] interesting = { 0, 1, 2, 0x3fffffff, 0x40000000, 0x40000001, 0x7ffffffe, 0x7fffffff };
+
+        for (int i = 0; i < 500; i++) {
+            int[] a = new int[1 + random.nextInt(10)];
+            int[] b = new int[1 + random.nextInt(6)];
+            for (int k = 0; k < a.length; k++) a[k] = interesting[random.nextInt(interesting.length)];
+            for (int k = 0; k < b.length; k++) b[k] = interesting[random.nextInt(interesting.length)];
+            a[a.length - 1] |= 1;
+            b[b.length - 1] |= 1;
+            int qmax = 12;
+            int[] q = new int[qmax + 1];
+
+            int cdigits = NumKernel.divx(a, a.length, b, b.length, q, qmax);
+
+            BigInteger scaled = toBigInteger(a).multiply(BASEX.pow(cdigits - 1 + b.length));
+            BigInteger expected = scaled.divide(toBigInteger(b).multiply(BASEX.pow(a.length)));
+            int[] quotient = new int[cdigits];
+            System.arraycopy(q, 0, quotient, 0, cdigits);
+            assertEquals(expected, toBigInteger(quotient));
+        }
+    }
+
+    @Test
+    public void remx_matches_big_integer() {
+        Random random = new Random(1357);
+        int[] interesting = { 0, 1, 2, 0x3fffffff, 0x40000000, 0x7ffffffe, 0x7fffffff };
+
+        for (int i = 0; i < 500; i++) {
+            int[] a = randomDigits(random, 1 + random.nextInt(16));
+            int[] b = randomDigits(random, 1 + random.nextInt(8));
+            if (i % 2 == 0) {
+                for (int k = 0; k < a.length; k++) a[k] = interesting[random.nextInt(interesting.length)];
+                for (int k = 0; k < b.length; k++) b[k] = interesting[random.nextInt(interesting.length)];
+                a[a.length - 1] |= 1;
+                b[b.length - 1] |= 1;
+            }
+            BigInteger expected = toBigInteger(a).mod(toBigInteger(b));
+
+            NumKernel.remx(a, a.length, b, b.length);
+
+            assertEquals(expected, toBigInteger(a));
+        }
+    }
+
+    @Test
+    public void gcd_matches_big_integer() {
+        Random random = new Random(9753);
+
+        for (int i = 0; i < 500; i++) {
+            // A common factor makes sure the gcd is not almost always one.
+            int[] common = randomDigits(random, 1 + random.nextInt(i % 5 == 0 ? 20 : 4));
+            int[] x = randomDigits(random, 1 + random.nextInt(i % 5 == 0 ? 40 : 8));
+            int[] y = randomDigits(random, 1 + random.nextInt(8));
+            int[] a = new int[common.length + x.length];
+            int[] b = new int[common.length + y.length];
+            NumKernel.mulx(common, common.length, x, x.length, a);
+            NumKernel.mulx(common, common.length, y, y.length, b);
+            BigInteger expected = toBigInteger(a).gcd(toBigInteger(b));
+
+            int[] g = NumKernel.gcd(a, a.length, b, b.length);
+
+            assertEquals(expected, toBigInteger(g));
+            assertEquals(NumKernel.significant(g, g.length), g.length);
+        }
+
+        // Fibonacci numbers are the worst case of Euclid, every quotient is one.
+        BigInteger f0 = BigInteger.ONE, f1 = BigInteger.ONE;
+        for (int i = 0; i < 1000; i++) {
+            BigInteger f2 = f0.add(f1);
+            f0 = f1;
+            f1 = f2;
+        }
+        BigInteger x = f1.multiply(BigInteger.valueOf(6));
+        BigInteger y = f0.multiply(BigInteger.valueOf(4));
+        int[] a = toDigits(x);
+        int[] b = toDigits(y);
+        assertEquals(x.gcd(y), toBigInteger(NumKernel.gcd(a, a.length, b, b.length)));
+    }
+
+    private static int[] toDigits(BigInteger value) {
+        int[] digits = new int[(value.bitLength() + RatPack.BASEXPWR - 1) / RatPack.BASEXPWR];
+        for (int i = 0; i < digits.length; i++) {
+            digits[i] = value.shiftRight(i * RatPack.BASEXPWR).intValue() & 0x7fffffff;
+        }
+        return digits;
+    }
+
+    private static int[] randomDigits(Random random, int length) {
+        int[] digits = new int[length];
+        for (int i = 0; i < length; i++) {
+            digits[i] = random.nextInt() & 0x7fffffff;
+        }
+        // Keep the most significant digit nonzero like ratpack does.
+        digits[length - 1] |= 1;
+        return digits;
+    }
+
+    private static int[] randomDigits(Random random, int length, int radix) {
+        int[] digits = new int[length];
+        for (int i = 0; i < length; i++) {
+            digits[i] = random.nextInt(radix);
+        }
+        return digits;
+    }
+
+    private static BigInteger toBigInteger(int[] digits) {
+        return toBigInteger(digits, BASEX.intValue());
+    }
+
+    private static BigInteger toBigInteger(int[] digits, int radix) {
+        BigInteger r = BigInteger.valueOf(Integer.toUnsignedLong(radix));
+        BigInteger result = BigInteger.ZERO;
+        for (int i = digits.length - 1; i >= 0; i--) {
+            result = result.multiply(r).add(BigInteger.valueOf(digits[i]));
+        }
+        return result;
+    }
+}
@@ -310,6 +310,29 @@ public class NumberTests {
         Assertions.assertEquals(5, Conv.numtoi32(n5, RADIX_10));
     }
 
+    @Test
+    public void value_variants_do_not_change_arguments_they_do_not_return() {
+        NUMBER n12 = Conv.i32tonum(12, RADIX_10);
+        NUMBER n7 = Conv.i32tonum(7, RADIX_10);
+        NUMBER one = Conv.i32tonum(1, RADIX_10);
+
+        Assertions.assertEquals(19, Conv.numtoi32(Num.addnum(n12, n7, RADIX_10), RADIX_10));
+        Assertions.assertEquals(84, Conv.numtoi32(Num.mulnum(n12, n7, RADIX_10), RADIX_10));
+        Assertions.assertEquals(12, Conv.numtoi32(Num.mulnum(n12, one, RADIX_10), RADIX_10));
+        Assertions.assertEquals(5, Conv.numtoi32(Num.remnum(n12, n7, RADIX_10), RADIX_10));
+        Assertions.assertEquals(1, Conv.numtoi32(Num.divnum(n12, n7, RADIX_10, PRECISION), RADIX_10));
+        Assertions.assertEquals(12, Conv.numtoi32(Num.divnum(n12, one, RADIX_10, PRECISION), RADIX_10));
+
+        // Check arguments not destroyed:
+        Assertions.assertEquals(12, Conv.numtoi32(n12, RADIX_10));
+        Assertions.assertEquals(7, Conv.numtoi32(n7, RADIX_10));
+        Assertions.assertEquals(1, Conv.numtoi32(one, RADIX_10));
+
+        // Adding zero returns the number itself.
+        NUMBER zero = Conv.i32tonum(0, RADIX_10);
+        Assertions.assertSame(n12, Num.addnum(n12, zero, RADIX_10));
+    }
+
     @Test
     public void remainder_two_numbers() {
         NUMBER n12 = Conv.i32tonum(12, RADIX_10);
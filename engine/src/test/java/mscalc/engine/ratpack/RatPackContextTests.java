@@ -0,0 +1,177 @@
+package mscalc.engine.ratpack;
+
+import mscalc.engine.cpp.Ptr;
+import mscalc.engine.cpp.uint;
+import mscalc.engine.ratpack.RatPack.RAT;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class RatPackContextTests {
+    private static final uint BASE_10 = uint.of(10);
+    private static final uint BASE_16 = uint.of(16);
+
+    @Test
+    public void contexts_are_bound_per_thread() throws Exception {
+        RatPackContext ctx10 = RatPackContext.of(BASE_10, 40);
+        RatPackContext ctx16 = RatPackContext.of(BASE_16, 20);
+
+        String expected10 = sinOf(ctx10, "1.5");
+        String expected16 = sinOf(ctx16, "1.8");
+
+        ExecutorService executor = Executors.newFixedThreadPool(4);
+        try {
+            List<Future<String>> results10 = new ArrayList<>();
+            List<Future<String>> results16 = new ArrayList<>();
+            for (int i = 0; i < 20; i++) {
+                results10.add(executor.submit(() -> sinOf(ctx10, "1.5")));
+                results16.add(executor.submit(() -> sinOf(ctx16, "1.8")));
+            }
+
+            for (int i = 0; i < 20; i++) {
+                assertEquals(expected10, results10.get(i).get());
+                assertEquals(expected16, results16.get(i).get());
+            }
+        } finally {
+            executor.shutdown();
+        }
+    }
+
+    @Test
+    public void change_constants_does_not_leak_to_other_threads() throws Exception {
+        RatPackContext previous = RatPackContext.bind(null);
+        try {
+            Support.ChangeConstants(BASE_16, 64);
+            assertEquals(16, RatPackContext.current().radix().toInt());
+
+            int[] radix = new int[1];
+            Thread other = new Thread(() -> radix[0] = RatPackContext.current().radix().toInt());
+            other.start();
+            other.join();
+
+            assertEquals(10, radix[0]);
+        } finally {
+            RatPackContext.bind(previous);
+        }
+    }
+
+    @Test
+    public void comparisons_do_not_modify_shared_constants() {
+        RatPackContext previous = RatPackContext.bind(RatPackContext.of(BASE_10, 32));
+        try {
+            RAT x = Conv.i32torat(3);
+            RAT one = Support.Global.rat_one();
+
+            assertTrue(Support.rat_gt(x, one, 32));
+            Ptr<RAT> px = new Ptr<>(x);
+            Support.inbetween(px, one, 32);
+            Rat.subrat(px, one, 32);
+
+            assertEquals(1, one.pp.sign);
+            assertEquals(1, one.pq.sign);
+        } finally {
+            RatPackContext.bind(previous);
+        }
+    }
+
+    @Test
+    public void contexts_are_cached_per_radix_and_precision() {
+        RatPackContext ctx = RatPackContext.of(BASE_16, 48);
+
+        assertSame(ctx, RatPackContext.of(BASE_16, 48));
+        assertNotSame(ctx, RatPackContext.of(BASE_16, 49));
+        assertNotSame(ctx, RatPackContext.of(BASE_10, 48));
+    }
+
+    @Test
+    public void cache_evicts_least_recently_used_context() {
+        RatPackContext first = RatPackContext.of(BASE_10, 1);
+
+        for (int precision = 2; precision <= RatPackContext.CACHE_CAPACITY + 1; precision++) {
+            RatPackContext.of(BASE_10, precision);
+        }
+
+        assertNotSame(first, RatPackContext.of(BASE_10, 1));
+    }
+
+    @Test
+    public void constants_match_reference_values() {
+        // Computed with 80 digit decimal arithmetic. The precisions reach the
+        // binary splitting series, which compute pi, e and the logarithms.
+        for (int precision : new int[] { 32, 128, 200 }) {
+            RatPackContext ctx = RatPackContext.build(BASE_10, precision);
+            RatPackContext previous = RatPackContext.bind(ctx);
+            try {
+                assertDigits("3.14159265358979323846264338327950288419716939937510582097", ctx.pi, precision);
+                assertDigits("2.71828182845904523536028747135266249775724709369995957496", ctx.rat_exp, precision);
+                assertDigits("1.64872127070012814684865078781416357165377610071014801157", ctx.e_to_one_half, precision);
+                assertDigits("2.30258509299404568401799145468436420760110148862877297603", ctx.ln_ten, precision);
+                assertDigits("0.693147180559945309417232121458176568075500134360255254120", ctx.ln_two, precision);
+            } finally {
+                RatPackContext.bind(previous);
+            }
+        }
+    }
+
+    private static void assertDigits(String expected, RAT constant, int precision) {
+        // The digits shown at precision 32 are rounded.
+        int length = Math.min(expected.length(), precision);
+        String actual = Conv.RatToString(new Ptr<>(RatPack.DUPRAT(constant)), RatPack.NumberFormat.Float, BASE_10, precision);
+        assertEquals(expected.substring(0, length - 1), actual.substring(0, Math.min(actual.length(), length - 1)),
+                "at precision " + precision);
+    }
+
+    @Test
+    public void powers_of_the_radix_are_cached() {
+        RatPackContext ctx = RatPackContext.of(BASE_16, 20);
+        RatPackContext previous = RatPackContext.bind(ctx);
+        try {
+            for (int power = 0; power <= 20; power++) {
+                Ptr<RatPack.NUMBER> radixPow = new Ptr<>(Conv.i32tonum(16, RatPack.BASEX));
+                BaseX.numpowi32x(radixPow, power);
+                assertTrue(Num.equnum(radixPow.deref(), ctx.radix_pow(BASE_16, power)));
+                assertSame(ctx.radix_pow(BASE_16, power), ctx.radix_pow(BASE_16, power));
+
+                Ptr<RatPack.NUMBER> basexPow = new Ptr<>(Conv.i32tonum(RatPack.BASEX.toInt(), BASE_16));
+                Conv.numpowi32(basexPow, power, BASE_16, 20);
+                assertTrue(Num.equnum(basexPow.deref(), ctx.basex_pow(BASE_16, power, 20)));
+                assertSame(ctx.basex_pow(BASE_16, power, 20), ctx.basex_pow(BASE_16, power, 20));
+            }
+
+            assertNull(ctx.radix_pow(BASE_10, 1));
+            assertNull(ctx.radix_pow(BASE_16, -1));
+            assertNull(ctx.radix_pow(BASE_16, 21));
+            assertNull(ctx.basex_pow(BASE_10, 1, 20));
+            assertNull(ctx.basex_pow(BASE_16, 1, 21));
+
+            // Converting does not change the shared powers.
+            String value = "-ABC.DEF";
+            RAT x = Conv.StringToRat(false, value, true, "3", BASE_16, 20);
+            assertEquals("-0.ABCDEF", Conv.RatToString(new Ptr<>(x), RatPack.NumberFormat.Float, BASE_16, 20));
+            assertEquals("-0.ABCDEF", Conv.RatToString(new Ptr<>(x), RatPack.NumberFormat.Float, BASE_16, 20));
+            assertEquals(1, ctx.radix_pow(BASE_16, 3).sign);
+        } finally {
+            RatPackContext.bind(previous);
+        }
+    }
+
+    private static String sinOf(RatPackContext ctx, String value) {
+        RatPackContext previous = RatPackContext.bind(ctx);
+        try {
+            uint radix = ctx.radix();
+            int precision = ctx.precision();
+
+            Ptr<RAT> x = new Ptr<>(Conv.StringToRat(false, value, false, "0", radix, precision));
+            Trans.sinrat(x, radix, precision);
+            return Conv.RatToString(x, RatPack.NumberFormat.Float, radix, precision);
+        } finally {
+            RatPackContext.bind(previous);
+        }
+    }
+}
@@ -12,6 +12,7 @@ import org.junit.jupiter.api.Test;
 import static mscalc.engine.ratpack.CalcErr.CALC_E_DIVIDEBYZERO;
 import static mscalc.engine.ratpack.CalcErr.CALC_E_INDEFINITE;
 import static mscalc.engine.ratpack.RatPack.BASEX;
+import static mscalc.engine.ratpack.RatPack.DUPRAT;
 import static org.junit.jupiter.api.Assertions.*;
 
 public class RatTests {
@@ -41,7 +42,7 @@ public class RatTests {
 
     @Test
     public void fracrat_real_number() {
-        Ptr<RAT> r = new Ptr<>(Support.Global.pi.clone());
+        Ptr<RAT> r = new Ptr<>(Support.Global.pi().clone());
 
         Rat.fracrat(r, BASE_10, PRECISION);
 
@@ -51,7 +52,7 @@ public class RatTests {
 
     @Test
     public void fracrat_integer() {
-        Ptr<RAT> r = new Ptr<>(Support.Global.rat_six.clone());
+        Ptr<RAT> r = new Ptr<>(Support.Global.rat_six().clone());
 
         Rat.fracrat(r, BASE_10, PRECISION);
 
@@ -61,8 +62,8 @@ public class RatTests {
 
     @Test
     public void mulrat_multiply_by_zero() {
-        Ptr<RAT> r = new Ptr<>(Support.Global.rat_zero.toBaseXFrom(BASE_10));
-        RAT r6 = Support.Global.rat_six.toBaseXFrom(BASE_10);
+        Ptr<RAT> r = new Ptr<>(Support.Global.rat_zero().toBaseXFrom(BASE_10));
+        RAT r6 = Support.Global.rat_six().toBaseXFrom(BASE_10);
 
         Rat.mulrat(r, r6, PRECISION);
 
@@ -71,8 +72,8 @@ public class RatTests {
 
         // Reverse parameters
 
-        r = new Ptr<>(Support.Global.rat_six.toBaseXFrom(BASE_10));
-        r6 = Support.Global.rat_zero.toBaseXFrom(BASE_10);
+        r = new Ptr<>(Support.Global.rat_six().toBaseXFrom(BASE_10));
+        r6 = Support.Global.rat_zero().toBaseXFrom(BASE_10);
 
         Rat.mulrat(r, r6, PRECISION);
 
@@ -82,8 +83,8 @@ public class RatTests {
 
     @Test
     public void mulrat_nonzero_values() {
-        Ptr<RAT> r = new Ptr<>(Support.Global.rat_two.toBaseXFrom(BASE_10));
-        RAT r6 = Support.Global.rat_six.toBaseXFrom(BASE_10);
+        Ptr<RAT> r = new Ptr<>(Support.Global.rat_two().toBaseXFrom(BASE_10));
+        RAT r6 = Support.Global.rat_six().toBaseXFrom(BASE_10);
 
         Rat.mulrat(r, r6, PRECISION);
 
@@ -93,8 +94,8 @@ public class RatTests {
 
     @Test
     public void divrat_div_by_zero() {
-        Ptr<RAT> r = new Ptr<>(Support.Global.rat_two.toBaseXFrom(BASE_10));
-        RAT rzero = Support.Global.rat_zero.toBaseXFrom(BASE_10);
+        Ptr<RAT> r = new Ptr<>(Support.Global.rat_two().toBaseXFrom(BASE_10));
+        RAT rzero = Support.Global.rat_zero().toBaseXFrom(BASE_10);
 
         var ex = assertThrows(ErrorCodeException.class, () -> Rat.divrat(r, rzero, PRECISION));
 
@@ -103,8 +104,8 @@ public class RatTests {
 
     @Test
     public void divrat_zero_by_zero() {
-        Ptr<RAT> r = new Ptr<>(Support.Global.rat_zero.toBaseXFrom(BASE_10));
-        RAT rzero = Support.Global.rat_zero.toBaseXFrom(BASE_10);
+        Ptr<RAT> r = new Ptr<>(Support.Global.rat_zero().toBaseXFrom(BASE_10));
+        RAT rzero = Support.Global.rat_zero().toBaseXFrom(BASE_10);
 
         var ex = assertThrows(ErrorCodeException.class, () -> Rat.divrat(r, rzero, PRECISION));
 
@@ -113,8 +114,8 @@ public class RatTests {
 
     @Test
     public void divrat_zero_by_nonzero() {
-        Ptr<RAT> r = new Ptr<>(Support.Global.rat_zero.toBaseXFrom(BASE_10));
-        RAT rzero = Support.Global.rat_six.toBaseXFrom(BASE_10);
+        Ptr<RAT> r = new Ptr<>(Support.Global.rat_zero().toBaseXFrom(BASE_10));
+        RAT rzero = Support.Global.rat_six().toBaseXFrom(BASE_10);
 
         Rat.divrat(r, rzero, PRECISION);
 
@@ -124,8 +125,8 @@ public class RatTests {
 
     @Test
     public void divrat_two_nonzero_values() {
-        Ptr<RAT> r = new Ptr<>(Support.Global.rat_one.toBaseXFrom(BASE_10));
-        RAT rzero = Support.Global.rat_six.toBaseXFrom(BASE_10);
+        Ptr<RAT> r = new Ptr<>(Support.Global.rat_one().toBaseXFrom(BASE_10));
+        RAT rzero = Support.Global.rat_six().toBaseXFrom(BASE_10);
 
         Rat.divrat(r, rzero, PRECISION);
 
@@ -135,8 +136,8 @@ public class RatTests {
 
     @Test
     public void subrat_works() {
-        Ptr<RAT> r = new Ptr<>(Support.Global.rat_one.toBaseXFrom(BASE_10));
-        RAT rzero = Support.Global.rat_six.toBaseXFrom(BASE_10);
+        Ptr<RAT> r = new Ptr<>(Support.Global.rat_one().toBaseXFrom(BASE_10));
+        RAT rzero = Support.Global.rat_six().toBaseXFrom(BASE_10);
 
         Rat.subrat(r, rzero, PRECISION);
 
@@ -146,8 +147,8 @@ public class RatTests {
 
     @Test
     public void addrat_works_same_number() {
-        Ptr<RAT> r = new Ptr<>(Support.Global.rat_six.toBaseXFrom(BASE_10));
-        RAT rzero = Support.Global.rat_six.toBaseXFrom(BASE_10);
+        Ptr<RAT> r = new Ptr<>(Support.Global.rat_six().toBaseXFrom(BASE_10));
+        RAT rzero = Support.Global.rat_six().toBaseXFrom(BASE_10);
 
         Rat.addrat(r, rzero, PRECISION);
 
@@ -157,7 +158,7 @@ public class RatTests {
 
     @Test
     public void addrat_works_different_numbers() {
-        Ptr<RAT> r = new Ptr<>(Support.Global.rat_six.toBaseXFrom(BASE_10));
+        Ptr<RAT> r = new Ptr<>(Support.Global.rat_six().toBaseXFrom(BASE_10));
         RAT rx = Conv.StringToRat(false, "0.034", false, "0", BASE_10, PRECISION);
 
         Rat.addrat(r, rx, PRECISION);
@@ -166,6 +167,93 @@ public class RatTests {
         assertEquals("6.034", result);
     }
 
+    @Test
+    public void value_variants_match_pointer_variants() {
+        String[] operands = { "0", "1", "-1", "6.034", "-0.125", "355", "113", "1e-9", "-12345678901234567890" };
+
+        for (String lhs : operands) {
+            for (String rhs : operands) {
+                RAT a = parse(lhs);
+                RAT b = parse(rhs);
+
+                Ptr<RAT> sum = new Ptr<>(DUPRAT(a));
+                Rat.addrat(sum, DUPRAT(b), PRECISION);
+                assertRatEquals(sum.deref(), Rat.addrat(DUPRAT(a), DUPRAT(b), PRECISION));
+
+                Ptr<RAT> difference = new Ptr<>(DUPRAT(a));
+                Rat.subrat(difference, DUPRAT(b), PRECISION);
+                assertRatEquals(difference.deref(), Rat.subrat(DUPRAT(a), DUPRAT(b), PRECISION));
+
+                Ptr<RAT> product = new Ptr<>(DUPRAT(a));
+                Rat.mulrat(product, DUPRAT(b), PRECISION);
+                assertRatEquals(product.deref(), Rat.mulrat(DUPRAT(a), DUPRAT(b), PRECISION));
+
+                if (!Rat.zerrat(b)) {
+                    Ptr<RAT> quotient = new Ptr<>(DUPRAT(a));
+                    Rat.divrat(quotient, DUPRAT(b), PRECISION);
+                    assertRatEquals(quotient.deref(), Rat.divrat(DUPRAT(a), DUPRAT(b), PRECISION));
+                }
+            }
+        }
+    }
+
+    @Test
+    public void function_value_variants_match_pointer_variants() {
+        String[] operands = { "0", "1", "-1", "0.5", "-0.125", "6.034", "3", "1e-9" };
+
+        for (String text : operands) {
+            RAT x = parse(text);
+
+            Ptr<RAT> exp = new Ptr<>(DUPRAT(x));
+            Exp.exprat(exp, BASE_10, PRECISION);
+            assertRatEquals(exp.deref(), Exp.exprat(DUPRAT(x), BASE_10, PRECISION));
+
+            Ptr<RAT> sin = new Ptr<>(DUPRAT(x));
+            Trans.sinanglerat(sin, RatPack.AngleType.Degrees, BASE_10, PRECISION);
+            assertRatEquals(sin.deref(), Trans.sinanglerat(DUPRAT(x), RatPack.AngleType.Degrees, BASE_10, PRECISION));
+
+            Ptr<RAT> atan = new Ptr<>(DUPRAT(x));
+            ITrans.atanrat(atan, BASE_10, PRECISION);
+            assertRatEquals(atan.deref(), ITrans.atanrat(DUPRAT(x), BASE_10, PRECISION));
+
+            Ptr<RAT> cosh = new Ptr<>(DUPRAT(x));
+            TransH.coshrat(cosh, BASE_10, PRECISION);
+            assertRatEquals(cosh.deref(), TransH.coshrat(DUPRAT(x), BASE_10, PRECISION));
+
+            Ptr<RAT> mod = new Ptr<>(DUPRAT(x));
+            Logic.modrat(mod, parse("0.75"));
+            assertRatEquals(mod.deref(), Logic.modrat(DUPRAT(x), parse("0.75")));
+
+            if (Rat.zerrat(x) || x.SIGN() < 0) {
+                continue;
+            }
+
+            Ptr<RAT> log = new Ptr<>(DUPRAT(x));
+            Exp.lograt(log, PRECISION);
+            assertRatEquals(log.deref(), Exp.lograt(DUPRAT(x), PRECISION));
+
+            Ptr<RAT> pow = new Ptr<>(DUPRAT(x));
+            Exp.powrat(pow, parse("0.5"), BASE_10, PRECISION);
+            assertRatEquals(pow.deref(), Exp.powrat(DUPRAT(x), parse("0.5"), BASE_10, PRECISION));
+
+            Ptr<RAT> fact = new Ptr<>(DUPRAT(x));
+            Fact.factrat(fact, BASE_10, PRECISION);
+            assertRatEquals(fact.deref(), Fact.factrat(DUPRAT(x), BASE_10, PRECISION));
+        }
+
+        for (String text : new String[] { "0", "1", "12", "255", "1024" }) {
+            RAT x = parse(text);
+
+            Ptr<RAT> xor = new Ptr<>(DUPRAT(x));
+            Logic.xorrat(xor, parse("5"), BASE_10, PRECISION);
+            assertRatEquals(xor.deref(), Logic.xorrat(DUPRAT(x), parse("5"), BASE_10, PRECISION));
+
+            Ptr<RAT> shl = new Ptr<>(DUPRAT(x));
+            Logic.lshrat(shl, parse("3"), BASE_10, PRECISION);
+            assertRatEquals(shl.deref(), Logic.lshrat(DUPRAT(x), parse("3"), BASE_10, PRECISION));
+        }
+    }
+
     @Test
     @Disabled("not impl yet.")
     public void rootrat() {
@@ -174,8 +262,21 @@ public class RatTests {
 
     @Test
     public void zerrat_works() {
-        Assertions.assertTrue(Rat.zerrat(Support.Global.rat_zero.clone()));
-        Assertions.assertFalse(Rat.zerrat(Support.Global.rat_one.clone()));
-        Assertions.assertFalse(Rat.zerrat(Support.Global.rat_neg_one.clone()));
+        Assertions.assertTrue(Rat.zerrat(Support.Global.rat_zero().clone()));
+        Assertions.assertFalse(Rat.zerrat(Support.Global.rat_one().clone()));
+        Assertions.assertFalse(Rat.zerrat(Support.Global.rat_neg_one().clone()));
+    }
+
+    private static RAT parse(String text) {
+        boolean negative = text.startsWith("-");
+        String[] parts = text.replace("-", "").split("e");
+        return Conv.StringToRat(negative, parts[0], parts.length > 1, parts.length > 1 ? parts[1] : "0", BASE_10, PRECISION);
+    }
+
+    private static void assertRatEquals(RAT expected, RAT actual) {
+        assertTrue(Num.equnum(expected.pp, actual.pp) && expected.pp.sign == actual.pp.sign
+                && Num.equnum(expected.pq, actual.pq) && expected.pq.sign == actual.pq.sign,
+                Conv.RatToString(new Ptr<>(DUPRAT(expected)), RatPack.NumberFormat.Float, BASE_10, PRECISION)
+                        + " != " + Conv.RatToString(new Ptr<>(DUPRAT(actual)), RatPack.NumberFormat.Float, BASE_10, PRECISION));
     }
 }
@@ -0,0 +1,218 @@
+package mscalc.engine.ratpack;
+
+import mscalc.engine.cpp.Ptr;
+import mscalc.engine.cpp.uint;
+import mscalc.engine.ratpack.RatPack.RAT;
+import org.junit.jupiter.api.Test;
+
+import java.util.Random;
+import java.util.function.BiConsumer;
+import java.util.function.Consumer;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class SeriesTests {
+    private static final uint RADIX_10 = uint.of(10);
+    private static final uint RADIX_16 = uint.of(16);
+
+    // Trailing digits that may differ from the Taylor series result.
+    private static final int TOLERANCE_DIGITS = 3;
+
+    @Test
+    public void exp_matches_taylor_series() {
+        compareWithTaylor("exp", 0.0, 1.0, (x, precision) -> Exp._exprat(x, RADIX_10, precision));
+    }
+
+    @Test
+    public void ln_matches_taylor_series() {
+        // _lograt expects arguments scaled into [1, e^0.5].
+        compareWithTaylor("ln", 1.0, 1.64, Exp::_lograt);
+    }
+
+    @Test
+    public void sin_and_cos_match_taylor_series() {
+        compareWithTaylor("sin", -3.2, 3.2, Trans::_sinrat);
+        compareWithTaylor("cos", -3.2, 3.2, (x, precision) -> Trans._cosrat(x, RADIX_10, precision));
+    }
+
+    @Test
+    public void asin_and_atan_match_taylor_series() {
+        compareWithTaylor("asin", -0.85, 0.85, ITrans::_asinrat);
+        compareWithTaylor("atan", -0.85, 0.85, ITrans::_atanrat);
+    }
+
+    @Test
+    public void tiny_arguments_keep_their_precision() {
+        withContext(RADIX_10, 128, () -> {
+            for (String exponent : new String[] { "10", "40", "300" }) {
+                RAT x = Conv.StringToRat(false, "1.2345678901234567", true, exponent, RADIX_10, 128);
+                compare("sin", x, Trans::_sinrat, 128);
+                compare("atan", x, ITrans::_atanrat, 128);
+                compare("exp", x, (p, precision) -> Exp._exprat(p, RADIX_10, precision), 128);
+            }
+        });
+    }
+
+    @Test
+    public void simple_fractions_match_taylor_series() {
+        // Numerators of one, the bit-burst must not turn them into 1/x.
+        for (int precision : new int[] { 128, 512 }) {
+            withContext(RADIX_10, precision, () -> {
+                for (int[] pq : new int[][] { { 1, 10 }, { 1, 2 }, { -1, 2 }, { 1, 3 }, { 3, 10 } }) {
+                    RAT x = rat(pq[0], pq[1]);
+                    compare("exp", x, (p, prec) -> Exp._exprat(p, RADIX_10, prec), precision);
+                    compare("sin", x, Trans::_sinrat, precision);
+                    compare("cos", x, (p, prec) -> Trans._cosrat(p, RADIX_10, prec), precision);
+                    compare("asin", x, ITrans::_asinrat, precision);
+                    compare("atan", x, ITrans::_atanrat, precision);
+                }
+                compare("ln", rat(11, 10), Exp::_lograt, precision);
+                compare("ln", rat(3, 2), Exp::_lograt, precision);
+            });
+        }
+    }
+
+    @Test
+    public void functions_match_reference_values_at_high_precision() {
+        // Computed with 80 digit decimal arithmetic.
+        for (int precision : new int[] { 128, 200 }) {
+            withContext(RADIX_10, precision, () -> {
+                assertDigits("1.10517091807564762481170782649024666822454719473751871879",
+                        rat(1, 10), p -> Exp.exprat(p, RADIX_10, precision));
+                assertDigits("1.64872127070012814684865078781416357165377610071014801157",
+                        rat(1, 2), p -> Exp.exprat(p, RADIX_10, precision));
+                assertDigits("0.0953101798043248600439521232807650922206053653086441991852",
+                        rat(11, 10), p -> Exp.lograt(p, precision));
+                assertDigits("0.0998334166468281523068141984106220269899153880179822599927",
+                        rat(1, 10), p -> Trans.sinrat(p, RADIX_10, precision));
+                assertDigits("0.995004165278025766095561987803870294838576225415084035959",
+                        rat(1, 10), p -> Trans.cosrat(p, RADIX_10, precision));
+                assertDigits("0.479425538604203000273287935215571388081803367940600675188",
+                        rat(1, 2), p -> Trans.sinrat(p, RADIX_10, precision));
+                assertDigits("0.523598775598298873077107230546583814032861566562517636829",
+                        rat(1, 2), p -> ITrans.asinrat(p, RADIX_10, precision));
+                assertDigits("0.463647609000806116214256231461214402028537054286120263810",
+                        rat(1, 2), p -> ITrans.atanrat(p, RADIX_10, precision));
+            });
+        }
+    }
+
+    private static RAT rat(int p, int q) {
+        RAT r = Conv.createrat();
+        r.pp = Conv.i32tonum(p, RatPack.BASEX);
+        r.pq = Conv.i32tonum(q, RatPack.BASEX);
+        return r;
+    }
+
+    // The leading digits of function(x) are the expected ones.
+    private static void assertDigits(String expected, RAT x, Consumer<Ptr<RAT>> function) {
+        uint radix = RatPackContext.current().radix();
+        int precision = RatPackContext.current().precision();
+
+        Ptr<RAT> result = new Ptr<>(RatPack.DUPRAT(x));
+        function.accept(result);
+        String actual = Conv.RatToString(result, RatPack.NumberFormat.Float, radix, precision);
+
+        assertEquals(expected, actual.substring(0, Math.min(actual.length(), expected.length())),
+                "at precision " + precision);
+    }
+
+    @Test
+    public void sin_and_cos_work_in_radix_16() {
+        withContext(RADIX_16, 200, () -> {
+            Random random = new Random(16);
+            for (int i = 0; i < 10; i++) {
+                RAT x = randomRat(random, -3.2, 3.2, RADIX_16, 200);
+                compare("sin", x, Trans::_sinrat, 200);
+                compare("cos", x, (p, precision) -> Trans._cosrat(p, RADIX_16, precision), 200);
+            }
+        });
+    }
+
+    private static void compareWithTaylor(String name, double from, double to, BiConsumer<Ptr<RAT>, Integer> function) {
+        for (int precision : new int[] { 128, 512 }) {
+            int p = precision;
+            withContext(RADIX_10, p, () -> {
+                Random random = new Random(p);
+                for (int i = 0; i < (p > 128 ? 4 : 20); i++) {
+                    compare(name, randomRat(random, from, to, RADIX_10, p), function, p);
+                }
+            });
+        }
+    }
+
+    private static void compare(String name, RAT x, BiConsumer<Ptr<RAT>, Integer> function, int precision) {
+        int threshold = Series.BINARY_SPLITTING_PRECISION.get();
+        try {
+            Series.BINARY_SPLITTING_PRECISION.set(Integer.MAX_VALUE);
+            Ptr<RAT> expected = new Ptr<>(RatPack.DUPRAT(x));
+            function.accept(expected, precision);
+
+            Series.BINARY_SPLITTING_PRECISION.set(precision);
+            Ptr<RAT> actual = new Ptr<>(RatPack.DUPRAT(x));
+            function.accept(actual, precision);
+
+            // |actual - expected| <= max(1, |expected|) * radix^-(precision - TOLERANCE_DIGITS)
+            Ptr<RAT> error = new Ptr<>(RatPack.DUPRAT(actual.deref()));
+            Rat.subrat(error, expected.deref(), precision);
+            error.deref().pp.sign = 1;
+            error.deref().pq.sign = 1;
+
+            Ptr<RAT> bound = new Ptr<>(RatPack.DUPRAT(expected.deref()));
+            bound.deref().pp.sign = 1;
+            bound.deref().pq.sign = 1;
+            if (Support.rat_lt(bound.deref(), Support.Global.rat_one(), precision)) {
+                bound.set(RatPack.DUPRAT(Support.Global.rat_one()));
+            }
+            Rat.mulrat(bound, epsilon(precision), precision);
+
+            uint radix = RatPackContext.current().radix();
+            assertTrue(Support.rat_le(error.deref(), bound.deref(), precision),
+                    String.format("%s(%s) at precision %d: expected %s but was %s", name,
+                            Conv.RatToString(new Ptr<>(RatPack.DUPRAT(x)), RatPack.NumberFormat.Float, radix, 30),
+                            precision,
+                            Conv.RatToString(expected, RatPack.NumberFormat.Float, radix, precision),
+                            Conv.RatToString(actual, RatPack.NumberFormat.Float, radix, precision)));
+        } finally {
+            Series.BINARY_SPLITTING_PRECISION.set(threshold);
+        }
+    }
+
+    private static RAT epsilon(int precision) {
+        uint radix = RatPackContext.current().radix();
+        return Conv.StringToRat(false, "1", true, Integer.toString(precision - TOLERANCE_DIGITS, radix.toInt()), radix, precision);
+    }
+
+    private static RAT randomRat(Random random, double from, double to, uint radix, int precision) {
+        double x = from + (to - from) * random.nextDouble();
+        int base = radix.toInt();
+        double fraction = Math.abs(x) - Math.floor(Math.abs(x));
+
+        StringBuilder mantissa = new StringBuilder(Long.toString((long) Math.abs(x), base));
+        mantissa.append('.');
+        // Leading digits come from x, the rest are random so that
+        // full precision arguments exercise every bit-burst chunk.
+        for (int i = 0; i < precision; i++) {
+            int digit;
+            if (i < 8) {
+                fraction *= base;
+                digit = (int) fraction;
+                fraction -= digit;
+            } else {
+                digit = random.nextInt(base);
+            }
+            mantissa.append(Character.forDigit(digit, base));
+        }
+        return Conv.StringToRat(x < 0, mantissa.toString(), false, "0", radix, precision);
+    }
+
+    private static void withContext(uint radix, int precision, Runnable test) {
+        RatPackContext previous = RatPackContext.bind(RatPackContext.of(radix, precision));
+        try {
+            test.run();
+        } finally {
+            RatPackContext.bind(previous);
+        }
+    }
+}
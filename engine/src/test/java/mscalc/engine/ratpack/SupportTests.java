@@ -43,9 +43,9 @@ public class SupportTests {
 
     @Test
     public void rat_equ_works() {
-        RAT r1 = Support.Global.rat_one.clone();
-        RAT rm1 = Support.Global.rat_neg_one.clone();
-        RAT r6 = Support.Global.rat_six;
+        RAT r1 = Support.Global.rat_one().clone();
+        RAT rm1 = Support.Global.rat_neg_one().clone();
+        RAT r6 = Support.Global.rat_six();
 
         Assertions.assertTrue(Support.rat_equ(r1, r1, PRECISION));
         Assertions.assertTrue(Support.rat_equ(rm1, rm1, PRECISION));
@@ -63,9 +63,9 @@ public class SupportTests {
 
     @Test
     public void rat_ge_works() {
-        RAT r1 = Support.Global.rat_one.clone();
-        RAT rm1 = Support.Global.rat_neg_one.clone();
-        RAT r6 = Support.Global.rat_six;
+        RAT r1 = Support.Global.rat_one().clone();
+        RAT rm1 = Support.Global.rat_neg_one().clone();
+        RAT r6 = Support.Global.rat_six();
 
         Assertions.assertTrue(Support.rat_ge(r1, r1, PRECISION));
         Assertions.assertTrue(Support.rat_ge(rm1, rm1, PRECISION));
@@ -80,9 +80,9 @@ public class SupportTests {
 
     @Test
     public void rat_gt_works() {
-        RAT r1 = Support.Global.rat_one.clone();
-        RAT rm1 = Support.Global.rat_neg_one.clone();
-        RAT r6 = Support.Global.rat_six;
+        RAT r1 = Support.Global.rat_one().clone();
+        RAT rm1 = Support.Global.rat_neg_one().clone();
+        RAT r6 = Support.Global.rat_six();
 
         Assertions.assertFalse(Support.rat_gt(r1, r1, PRECISION));
         Assertions.assertFalse(Support.rat_gt(rm1, rm1, PRECISION));
@@ -97,9 +97,9 @@ public class SupportTests {
 
     @Test
     public void rat_le_works() {
-        RAT r1 = Support.Global.rat_one.clone();
-        RAT rm1 = Support.Global.rat_neg_one.clone();
-        RAT r6 = Support.Global.rat_six;
+        RAT r1 = Support.Global.rat_one().clone();
+        RAT rm1 = Support.Global.rat_neg_one().clone();
+        RAT r6 = Support.Global.rat_six();
 
         Assertions.assertTrue(Support.rat_le(r1, r1, PRECISION));
         Assertions.assertTrue(Support.rat_le(rm1, rm1, PRECISION));
@@ -114,9 +114,9 @@ public class SupportTests {
 
     @Test
     public void rat_lt_works() {
-        RAT r1 = Support.Global.rat_one.clone();
-        RAT rm1 = Support.Global.rat_neg_one.clone();
-        RAT r6 = Support.Global.rat_six;
+        RAT r1 = Support.Global.rat_one().clone();
+        RAT rm1 = Support.Global.rat_neg_one().clone();
+        RAT r6 = Support.Global.rat_six();
 
         Assertions.assertFalse(Support.rat_lt(r1, r1, PRECISION));
         Assertions.assertFalse(Support.rat_lt(rm1, rm1, PRECISION));
@@ -131,9 +131,9 @@ public class SupportTests {
 
     @Test
     public void rat_neq_works() {
-        RAT r1 = Support.Global.rat_one.clone();
-        RAT rm1 = Support.Global.rat_neg_one.clone();
-        RAT r6 = Support.Global.rat_six;
+        RAT r1 = Support.Global.rat_one().clone();
+        RAT rm1 = Support.Global.rat_neg_one().clone();
+        RAT r6 = Support.Global.rat_six();
 
         Assertions.assertFalse(Support.rat_neq(r1, r1, PRECISION));
         Assertions.assertFalse(Support.rat_neq(rm1, rm1, PRECISION));
@@ -0,0 +1,139 @@
+package mscalc.gui.viewmodel;
+
+import javafx.application.Platform;
+import javafx.beans.property.ReadOnlyBooleanProperty;
+import javafx.beans.property.ReadOnlyBooleanWrapper;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import java.time.Duration;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.concurrent.TimeUnit;
+
+/*
+ * Runs calculator commands off the JavaFX application thread.
+ *
+ * Every command gets its own virtual thread, but commands are started
+ * strictly one after another in submission order, so the (not thread-safe)
+ * CalculatorManager is never used by two threads at the same time.
+ *
+ * busyProperty is only raised for a command that is still unfinished
+ * busyDelay after it was submitted, so ordinary keystrokes that evaluate
+ * instantly do not flash the wait cursor. submit, cancel and busyProperty
+ * belong to the FX thread; fxExecutor must run its tasks on that thread.
+ */
+class CommandEvaluator {
+    private static final Logger logger = LogManager.getLogger(CommandEvaluator.class);
+
+    static final Duration DEFAULT_BUSY_DELAY = Duration.ofMillis(200);
+
+    private final Thread.Builder threadBuilder = Thread.ofVirtual().name("calc-evaluator-", 0);
+
+    private final Executor fxExecutor;
+    private final Executor busyTimer;
+
+    private final Object lock = new Object();
+    private final Deque<QueuedCommand> pending = new ArrayDeque<>();
+    private Thread running;
+
+    private final ReadOnlyBooleanWrapper busy = new ReadOnlyBooleanWrapper(false);
+    private int outstanding = 0;
+
+    public CommandEvaluator() {
+        this(Platform::runLater, DEFAULT_BUSY_DELAY);
+    }
+
+    CommandEvaluator(Executor fxExecutor, Duration busyDelay) {
+        this.fxExecutor = fxExecutor;
+        this.busyTimer = CompletableFuture.delayedExecutor(
+                busyDelay.toNanos(), TimeUnit.NANOSECONDS, fxExecutor);
+    }
+
+    public ReadOnlyBooleanProperty busyProperty() {
+        return busy.getReadOnlyProperty();
+    }
+
+    public void submit(Runnable command) {
+        QueuedCommand queued = new QueuedCommand(command);
+        outstanding++;
+        busyTimer.execute(() -> raiseBusyIfUnfinished(queued));
+
+        synchronized (lock) {
+            pending.addLast(queued);
+            if (running == null) {
+                startNext();
+            }
+        }
+    }
+
+    /*
+     * Drops all queued commands and interrupts the one in flight.
+     * Cancellation is cooperative, commands submitted after this call run
+     * once the interrupted one notices the interrupt and gives up.
+     */
+    public void cancel() {
+        synchronized (lock) {
+            outstanding -= pending.size();
+            pending.forEach(dropped -> dropped.finished = true);
+            pending.clear();
+
+            if (running != null) {
+                running.interrupt();
+            }
+        }
+
+        if (outstanding == 0) {
+            busy.set(false);
+        }
+    }
+
+    // Must be called with lock held.
+    private void startNext() {
+        QueuedCommand command = pending.pollFirst();
+        if (command == null) {
+            running = null;
+            return;
+        }
+
+        running = threadBuilder.start(() -> {
+            try {
+                command.action.run();
+            } catch (RuntimeException e) {
+                logger.error("Command evaluation failed", e);
+            } finally {
+                fxExecutor.execute(() -> commandFinished(command));
+
+                synchronized (lock) {
+                    startNext();
+                }
+            }
+        });
+    }
+
+    private void commandFinished(QueuedCommand command) {
+        command.finished = true;
+        outstanding = Math.max(0, outstanding - 1);
+        if (outstanding == 0) {
+            busy.set(false);
+        }
+    }
+
+    private void raiseBusyIfUnfinished(QueuedCommand command) {
+        if (!command.finished) {
+            busy.set(true);
+        }
+    }
+
+    // finished is only accessed on the FX thread.
+    private static final class QueuedCommand {
+        final Runnable action;
+        boolean finished;
+
+        QueuedCommand(Runnable action) {
+            this.action = action;
+        }
+    }
+}
@@ -4,6 +4,7 @@ import javafx.beans.binding.Bindings;
 import javafx.beans.binding.BooleanExpression;
 import javafx.beans.binding.ObjectExpression;
 import javafx.beans.binding.StringExpression;
+import javafx.application.Platform;
 import javafx.beans.property.*;
 import javafx.scene.input.KeyCode;
 import mscalc.engine.*;
@@ -23,6 +24,9 @@ public class ScientificCalculatorViewModel {
             new ThisViewModelCalculatorDisplay(),
             new JavaBundleResourceProvider());
 
+    // All calculatorManager calls go through the evaluator, never from the FX thread.
+    private final CommandEvaluator evaluator = new CommandEvaluator();
+
     public final BooleanProperty invertedModeProperty = new SimpleBooleanProperty(false);
     public final BooleanProperty hyperbolicModeProperty = new SimpleBooleanProperty(false);
 
@@ -33,6 +37,8 @@ public class ScientificCalculatorViewModel {
     public final BooleanProperty memoryIndicator = new SimpleBooleanProperty(false);
     public final IntegerProperty parenthesisNumberIndicator = new SimpleIntegerProperty(0);
 
+    public final ReadOnlyBooleanProperty busyProperty = evaluator.busyProperty();
+
     // --- RADIX SELECT ---
     public final InputViewModel radixHexButton = newInputViewModel()
             .withText("Hex")
@@ -480,11 +486,20 @@ public class ScientificCalculatorViewModel {
 
     public ScientificCalculatorViewModel() {
         // Initialize Scientific mode
-        calculatorManager.sendCommand(Command.ModeScientific);
+        sendCommand(Command.ModeScientific);
         // Setup some initial configuration
-        calculatorManager.sendCommand(Command.CommandQword);
-        calculatorManager.sendCommand(Command.CommandDec);
-        calculatorManager.sendCommand(Command.CommandRAD);
+        sendCommand(Command.CommandQword);
+        sendCommand(Command.CommandDec);
+        sendCommand(Command.CommandRAD);
+    }
+
+    private void sendCommand(Command command) {
+        if (command == Command.CommandCLEAR) {
+            // Abandon whatever is still being computed, C resets it anyway
+            evaluator.cancel();
+        }
+
+        evaluator.submit(() -> calculatorManager.sendCommand(command));
     }
 
     public InputViewModelBuilder newInputViewModel() {
@@ -495,22 +510,22 @@ public class ScientificCalculatorViewModel {
         switch (command) {
             case CommandHex -> {
                 radixProperty.set(RadixType.Hex);
-                calculatorManager.sendCommand(Command.ModeProgrammer);
+                sendCommand(Command.ModeProgrammer);
             }
 
             case CommandDec -> {
                 radixProperty.set(RadixType.Decimal);
-                calculatorManager.sendCommand(Command.ModeScientific);
+                sendCommand(Command.ModeScientific);
             }
 
             case CommandOct -> {
                 radixProperty.set(RadixType.Octal);
-                calculatorManager.sendCommand(Command.ModeProgrammer);
+                sendCommand(Command.ModeProgrammer);
             }
 
             case CommandBin -> {
                 radixProperty.set(RadixType.Binary);
-                calculatorManager.sendCommand(Command.ModeProgrammer);
+                sendCommand(Command.ModeProgrammer);
             }
         }
     }
@@ -683,11 +698,11 @@ public class ScientificCalculatorViewModel {
                     // Fix for two commands that are not properly served in calcManager
                     if (this.commandProperty.get() == Command.CommandPI || this.commandProperty.get() == Command.CommandCHOP) {
                         if (invertedModeProperty.get()) {
-                            calculatorManager.sendCommand(Command.CommandINV);
+                            sendCommand(Command.CommandINV);
                         }
                     }
 
-                    calculatorManager.sendCommand(this.commandProperty.get());
+                    sendCommand(this.commandProperty.get());
                 }
             }
         }
@@ -714,6 +729,7 @@ public class ScientificCalculatorViewModel {
     }
 
 
+    // Called on the evaluator thread, property updates are posted to the FX thread.
     public class ThisViewModelCalculatorDisplay implements CalcDisplay {
         private static final Logger logger = LogManager.getLogger(ThisViewModelCalculatorDisplay.class);
 
@@ -721,7 +737,7 @@ public class ScientificCalculatorViewModel {
         public void setPrimaryDisplay(String text, boolean isError) {
             logger.info("primary display text={}, isErr={}", text, isError);
 
-            displayProperty.set(text);
+            Platform.runLater(() -> displayProperty.set(text));
             if (isError) {
                 // TODO: https://freesound.org/people/anthonychartier2020/sounds/560189/
                 // TODO: Make it work, save as a field to not load constantly
@@ -742,7 +758,7 @@ public class ScientificCalculatorViewModel {
 
         @Override
         public void setParenthesisNumber(int count) {
-            parenthesisNumberIndicator.set(count);
+            Platform.runLater(() -> parenthesisNumberIndicator.set(count));
 
             logger.info("set parens={}", count);
         }
@@ -778,7 +794,8 @@ public class ScientificCalculatorViewModel {
 
         @Override
         public void inputChanged() {
-            memoryIndicator.set(calculatorManager.hasMemoryStoredValue());
+            boolean hasMemory = calculatorManager.hasMemoryStoredValue();
+            Platform.runLater(() -> memoryIndicator.set(hasMemory));
 
             logger.info("input changed");
         }
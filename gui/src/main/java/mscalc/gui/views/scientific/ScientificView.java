@@ -2,6 +2,7 @@ package mscalc.gui.views.scientific;
 
 import javafx.fxml.FXML;
 import javafx.fxml.FXMLLoader;
+import javafx.scene.Cursor;
 import javafx.scene.Scene;
 import javafx.scene.control.*;
 import javafx.scene.input.KeyEvent;
@@ -267,6 +268,7 @@ public class ScientificView extends VBox implements CalculatorView {
 
     public void install(Scene scene) {
         display.textProperty().bind(viewModel.displayProperty);
+        cursorProperty().bind(viewModel.busyProperty.map(busy -> busy ? Cursor.WAIT : null));
 
         memoryIndicator.textProperty().bind(viewModel.memoryIndicator.map(b -> b ? "M" : ""));
 
@@ -0,0 +1,173 @@
+package mscalc.gui.viewmodel;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executor;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.BooleanSupplier;
+import java.util.stream.IntStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class CommandEvaluatorTest {
+    private static final Duration NEVER = Duration.ofHours(1);
+
+    // Stands in for the FX thread: tasks only run when the test thread drains them.
+    private final FxQueue fx = new FxQueue();
+
+    @Test
+    public void commands_run_in_submission_order() {
+        CommandEvaluator evaluator = new CommandEvaluator(fx, NEVER);
+        List<Integer> executed = Collections.synchronizedList(new ArrayList<>());
+
+        for (int i = 0; i < 100; i++) {
+            int n = i;
+            evaluator.submit(() -> executed.add(n));
+        }
+
+        fx.runUntil(() -> executed.size() == 100);
+
+        assertThat(executed)
+                .containsExactlyElementsOf(IntStream.range(0, 100).boxed().toList());
+    }
+
+    @Test
+    public void fast_commands_do_not_raise_busy() throws InterruptedException {
+        CommandEvaluator evaluator = new CommandEvaluator(fx, Duration.ofMillis(50));
+        CountDownLatch done = new CountDownLatch(10);
+
+        for (int i = 0; i < 10; i++) {
+            evaluator.submit(done::countDown);
+        }
+
+        assertThat(done.await(5, TimeUnit.SECONDS)).isTrue();
+        assertThat(evaluator.busyProperty().get()).isFalse();
+
+        // Let every busy timer fire, they must find their command finished.
+        Thread.sleep(200);
+        fx.runPending();
+
+        assertThat(evaluator.busyProperty().get()).isFalse();
+    }
+
+    @Test
+    public void slow_command_raises_busy_until_it_finishes() throws InterruptedException {
+        CommandEvaluator evaluator = new CommandEvaluator(fx, Duration.ofMillis(10));
+        CountDownLatch release = new CountDownLatch(1);
+        AtomicBoolean finished = new AtomicBoolean(false);
+
+        evaluator.submit(() -> {
+            awaitUninterruptibly(release);
+            finished.set(true);
+        });
+
+        assertThat(evaluator.busyProperty().get()).isFalse();
+        fx.runUntil(() -> evaluator.busyProperty().get());
+
+        release.countDown();
+        fx.runUntil(() -> !evaluator.busyProperty().get());
+
+        assertThat(finished.get()).isTrue();
+    }
+
+    @Test
+    public void cancel_interrupts_running_command_and_drops_queued_ones() throws InterruptedException {
+        CommandEvaluator evaluator = new CommandEvaluator(fx, Duration.ofMillis(10));
+        CountDownLatch started = new CountDownLatch(1);
+        AtomicBoolean interrupted = new AtomicBoolean(false);
+        List<String> executed = Collections.synchronizedList(new ArrayList<>());
+
+        evaluator.submit(() -> {
+            started.countDown();
+            try {
+                Thread.sleep(Duration.ofMinutes(1));
+            } catch (InterruptedException e) {
+                interrupted.set(true);
+            }
+            executed.add("slow");
+        });
+        evaluator.submit(() -> executed.add("dropped"));
+
+        assertThat(started.await(5, TimeUnit.SECONDS)).isTrue();
+        fx.runUntil(() -> evaluator.busyProperty().get());
+
+        evaluator.cancel();
+        evaluator.submit(() -> executed.add("after cancel"));
+
+        fx.runUntil(() -> executed.size() == 2 && !evaluator.busyProperty().get());
+
+        // Timers of the dropped and the later command must not raise busy again.
+        Thread.sleep(50);
+        fx.runPending();
+
+        assertThat(interrupted.get()).isTrue();
+        assertThat(executed).containsExactly("slow", "after cancel");
+        assertThat(evaluator.busyProperty().get()).isFalse();
+    }
+
+    @Test
+    public void failing_command_does_not_stop_the_queue() {
+        CommandEvaluator evaluator = new CommandEvaluator(fx, NEVER);
+        List<String> executed = Collections.synchronizedList(new ArrayList<>());
+
+        evaluator.submit(() -> { throw new IllegalStateException("test"); });
+        evaluator.submit(() -> executed.add("next"));
+
+        fx.runUntil(() -> executed.size() == 1);
+
+        assertThat(executed).containsExactly("next");
+    }
+
+    private static void awaitUninterruptibly(CountDownLatch latch) {
+        while (true) {
+            try {
+                latch.await();
+                return;
+            } catch (InterruptedException ignored) {
+            }
+        }
+    }
+
+    private static class FxQueue implements Executor {
+        private final BlockingQueue<Runnable> tasks = new LinkedBlockingQueue<>();
+
+        @Override
+        public void execute(Runnable task) {
+            tasks.add(task);
+        }
+
+        void runPending() {
+            Runnable task;
+            while ((task = tasks.poll()) != null) {
+                task.run();
+            }
+        }
+
+        void runUntil(BooleanSupplier condition) {
+            long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+
+            while (!condition.getAsBoolean()) {
+                assertThat(System.nanoTime())
+                        .as("timed out waiting for the evaluator")
+                        .isLessThan(deadline);
+
+                try {
+                    Runnable task = tasks.poll(10, TimeUnit.MILLISECONDS);
+                    if (task != null) {
+                        task.run();
+                    }
+                } catch (InterruptedException e) {
+                    throw new AssertionError(e);
+                }
+            }
+        }
+    }
+}